@@ -316,9 +316,17 @@ public class XatkitCore {
         if (intentRegistered) {
             /*
              * New intents have been registered in the IntentRecognitionProvider, we should explicitly ask the
-             * ML Engine to train in order to take them into account.
+             * ML Engine to train in order to take them into account. Errors occurring before the training starts
+             * (e.g. when synchronizing the DialogFlow agent) are thrown and stop the startup, but the training itself
+             * is not awaited: the IntentRecognitionProvider decides whether user inputs are processed while it is
+             * training.
              */
-            intentRecognitionProvider.trainMLEngine();
+            intentRecognitionProvider.trainMLEngineAsync().whenComplete((result, throwable) -> {
+                if (nonNull(throwable)) {
+                    Log.error(throwable, "An error occurred while training the {0}, see attached exception",
+                            intentRecognitionProvider.getClass().getSimpleName());
+                }
+            });
         }
     }
 
@@ -0,0 +1,456 @@
+package com.xatkit.core.recognition;
+
+import com.google.gson.JsonObject;
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.configuration2.Configuration;
+
+import java.util.function.LongSupplier;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * A circuit breaker protecting calls to a remote intent recognition service.
+ * <p>
+ * The circuit breaker records the outcome of the last calls in a sliding window. It opens when the ratio of failed
+ * calls or the ratio of slow calls in the window exceeds its threshold, and rejects the calls while it is open
+ * (see {@link #tryAcquirePermission()}). Once the open duration is elapsed the circuit breaker is half-open, and
+ * lets a limited number of probe calls reach the remote service. It closes if all the probes succeed, and opens
+ * again otherwise.
+ * <p>
+ * Clients are expected to call {@link #tryAcquirePermission()} before each call, and report its outcome with
+ * {@link #onSuccess(long)} or {@link #onError(long)}. Rejected calls should be handled by a fallback mechanism.
+ * <p>
+ * The circuit breaker can be configured with the following {@link Configuration} keys (prefixed with the
+ * {@code prefix} provided in {@link #CircuitBreaker(String, Configuration)}):
+ * <ul>
+ * <li>{@link #WINDOW_SIZE_KEY}: the number of calls in the sliding window (default {@code 20})</li>
+ * <li>{@link #MINIMUM_CALLS_KEY}: the minimum number of recorded calls before computing the ratios (default
+ * {@code 10})</li>
+ * <li>{@link #FAILURE_RATE_THRESHOLD_KEY}: the ratio of failed calls that opens the circuit (default {@code
+ * 0.5})</li>
+ * <li>{@link #SLOW_CALL_DURATION_KEY}: the duration (in milliseconds) after which a call is considered slow
+ * (default {@code 2000})</li>
+ * <li>{@link #SLOW_CALL_RATE_THRESHOLD_KEY}: the ratio of slow calls that opens the circuit (default {@code
+ * 0.8})</li>
+ * <li>{@link #OPEN_DURATION_KEY}: the duration (in milliseconds) the circuit stays open before accepting probe
+ * calls (default {@code 30000})</li>
+ * <li>{@link #HALF_OPEN_PROBES_KEY}: the number of probe calls accepted when the circuit is half-open (default
+ * {@code 3})</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    /**
+     * The {@link Configuration} key suffix to store the number of calls in the sliding window.
+     */
+    public static String WINDOW_SIZE_KEY = ".window_size";
+
+    /**
+     * The {@link Configuration} key suffix to store the minimum number of recorded calls before computing the
+     * failure and slow call ratios.
+     */
+    public static String MINIMUM_CALLS_KEY = ".minimum_calls";
+
+    /**
+     * The {@link Configuration} key suffix to store the ratio of failed calls that opens the circuit.
+     */
+    public static String FAILURE_RATE_THRESHOLD_KEY = ".failure_rate_threshold";
+
+    /**
+     * The {@link Configuration} key suffix to store the duration (in milliseconds) after which a call is considered
+     * slow.
+     */
+    public static String SLOW_CALL_DURATION_KEY = ".slow_call_duration";
+
+    /**
+     * The {@link Configuration} key suffix to store the ratio of slow calls that opens the circuit.
+     */
+    public static String SLOW_CALL_RATE_THRESHOLD_KEY = ".slow_call_rate_threshold";
+
+    /**
+     * The {@link Configuration} key suffix to store the duration (in milliseconds) the circuit stays open before
+     * accepting probe calls.
+     */
+    public static String OPEN_DURATION_KEY = ".open_duration";
+
+    /**
+     * The {@link Configuration} key suffix to store the number of probe calls accepted when the circuit is half-open.
+     */
+    public static String HALF_OPEN_PROBES_KEY = ".half_open_probes";
+
+    /**
+     * The states of the {@link CircuitBreaker}.
+     */
+    public enum State {
+        /**
+         * All the calls are accepted.
+         */
+        CLOSED,
+        /**
+         * All the calls are rejected.
+         */
+        OPEN,
+        /**
+         * A limited number of probe calls are accepted.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The name of the {@link CircuitBreaker}, used in log messages.
+     */
+    private String name;
+
+    /**
+     * The number of calls in the sliding window.
+     */
+    private int windowSize;
+
+    /**
+     * The minimum number of recorded calls before computing the failure and slow call ratios.
+     */
+    private int minimumCalls;
+
+    /**
+     * The ratio of failed calls that opens the circuit.
+     */
+    private double failureRateThreshold;
+
+    /**
+     * The duration (in milliseconds) after which a call is considered slow.
+     */
+    private long slowCallDuration;
+
+    /**
+     * The ratio of slow calls that opens the circuit.
+     */
+    private double slowCallRateThreshold;
+
+    /**
+     * The duration (in milliseconds) the circuit stays open before accepting probe calls.
+     */
+    private long openDuration;
+
+    /**
+     * The number of probe calls accepted when the circuit is half-open.
+     */
+    private int halfOpenProbes;
+
+    /**
+     * The clock used to compute the open duration, in milliseconds.
+     */
+    private LongSupplier clock;
+
+    /**
+     * The current {@link State} of the circuit.
+     */
+    private State state;
+
+    /**
+     * The outcomes of the calls in the sliding window, stored as a ring buffer.
+     * <p>
+     * Each outcome is a bit set: {@code 1} for failed calls, {@code 2} for slow calls.
+     */
+    private byte[] window;
+
+    /**
+     * The index of the next outcome to write in the {@link #window}.
+     */
+    private int windowIndex;
+
+    /**
+     * The number of outcomes stored in the {@link #window}.
+     */
+    private int windowCount;
+
+    /**
+     * The number of failed calls in the {@link #window}.
+     */
+    private int failedCount;
+
+    /**
+     * The number of slow calls in the {@link #window}.
+     */
+    private int slowCount;
+
+    /**
+     * The time (in milliseconds) the circuit has been opened.
+     */
+    private long openedAt;
+
+    /**
+     * The number of probe calls accepted since the circuit is half-open.
+     */
+    private int acceptedProbes;
+
+    /**
+     * The number of successful probe calls since the circuit is half-open.
+     */
+    private int successfulProbes;
+
+    /**
+     * The number of calls rejected by the circuit.
+     */
+    private long rejectedCount;
+
+    /**
+     * The number of times the circuit has been opened.
+     */
+    private long openedCount;
+
+    /**
+     * Constructs a {@link CircuitBreaker} with the values stored in the provided {@code configuration}.
+     *
+     * @param prefix        the prefix of the {@link Configuration} keys used to configure the circuit (e.g. {@code
+     *                      xatkit.dialogflow.circuit_breaker})
+     * @param configuration the {@link Configuration} containing the circuit breaker options
+     * @throws NullPointerException     if the provided {@code prefix} or {@code configuration} is {@code null}
+     * @throws IllegalArgumentException if one of the provided options is invalid
+     */
+    public CircuitBreaker(String prefix, Configuration configuration) {
+        this(prefix, configuration.getInt(prefix + WINDOW_SIZE_KEY, 20),
+                configuration.getInt(prefix + MINIMUM_CALLS_KEY, 10),
+                configuration.getDouble(prefix + FAILURE_RATE_THRESHOLD_KEY, 0.5),
+                configuration.getLong(prefix + SLOW_CALL_DURATION_KEY, 2000),
+                configuration.getDouble(prefix + SLOW_CALL_RATE_THRESHOLD_KEY, 0.8),
+                configuration.getLong(prefix + OPEN_DURATION_KEY, 30000),
+                configuration.getInt(prefix + HALF_OPEN_PROBES_KEY, 3), System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs a {@link CircuitBreaker} with the provided options.
+     * <p>
+     * <b>Note:</b> this constructor is package private for testing purposes (it allows to provide a custom {@code
+     * clock}), and should not be called by client code.
+     *
+     * @param name                  the name of the circuit breaker
+     * @param windowSize            the number of calls in the sliding window
+     * @param minimumCalls          the minimum number of recorded calls before computing the ratios
+     * @param failureRateThreshold  the ratio of failed calls that opens the circuit
+     * @param slowCallDuration      the duration (in milliseconds) after which a call is considered slow
+     * @param slowCallRateThreshold the ratio of slow calls that opens the circuit
+     * @param openDuration          the duration (in milliseconds) the circuit stays open before accepting probes
+     * @param halfOpenProbes        the number of probe calls accepted when the circuit is half-open
+     * @param clock                 the clock used to compute the open duration
+     * @throws NullPointerException     if the provided {@code name} or {@code clock} is {@code null}
+     * @throws IllegalArgumentException if one of the provided options is invalid
+     */
+    CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold, long slowCallDuration,
+                   double slowCallRateThreshold, long openDuration, int halfOpenProbes, LongSupplier clock) {
+        checkNotNull(name, "Cannot create a %s with the provided name %s", CircuitBreaker.class.getSimpleName(), name);
+        checkNotNull(clock, "Cannot create a %s with the provided clock %s", CircuitBreaker.class.getSimpleName(),
+                clock);
+        checkArgument(windowSize > 0, "Cannot create a %s with the provided window size %s, expected a positive " +
+                "value", CircuitBreaker.class.getSimpleName(), windowSize);
+        checkArgument(minimumCalls > 0 && minimumCalls <= windowSize, "Cannot create a %s with the provided minimum" +
+                " number of calls %s, expected a value in [1, %s]", CircuitBreaker.class.getSimpleName(),
+                minimumCalls, windowSize);
+        checkArgument(halfOpenProbes > 0, "Cannot create a %s with the provided number of probes %s, expected a " +
+                "positive value", CircuitBreaker.class.getSimpleName(), halfOpenProbes);
+        this.name = name;
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallDuration = slowCallDuration;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openDuration = openDuration;
+        this.halfOpenProbes = halfOpenProbes;
+        this.clock = clock;
+        this.state = State.CLOSED;
+        this.window = new byte[windowSize];
+    }
+
+    /**
+     * Returns whether a call to the protected service is permitted.
+     * <p>
+     * This method always returns {@code true} if the circuit is closed. If the circuit is open and the open
+     * duration is elapsed the circuit becomes half-open and this method accepts up to the configured number of
+     * probe calls. Rejected calls are counted (see {@link #getRejectedCount()}).
+     *
+     * @return {@code true} if the call is permitted, {@code false} otherwise
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDuration) {
+            Log.info("Circuit breaker {0} is half-open, accepting {1} probe call(s)", name, halfOpenProbes);
+            state = State.HALF_OPEN;
+            acceptedProbes = 0;
+            successfulProbes = 0;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (acceptedProbes < halfOpenProbes) {
+                    acceptedProbes++;
+                    return true;
+                }
+                rejectedCount++;
+                return false;
+            default:
+                rejectedCount++;
+                return false;
+        }
+    }
+
+    /**
+     * Releases a permission acquired with {@link #tryAcquirePermission()} without recording an outcome.
+     * <p>
+     * This method should be called when a permitted call fails before reaching the protected service (e.g. because
+     * of a local error), so that the call is not counted as a failure of the service. A released probe call can be
+     * accepted again if the circuit is half-open.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && acceptedProbes > successfulProbes) {
+            acceptedProbes--;
+        }
+    }
+
+    /**
+     * Records a successful call.
+     * <p>
+     * Successful calls that take longer than the configured slow call duration are recorded as slow calls. A slow
+     * probe call re-opens a half-open circuit.
+     *
+     * @param durationMillis the duration of the call (in milliseconds)
+     */
+    public synchronized void onSuccess(long durationMillis) {
+        record(false, durationMillis >= slowCallDuration);
+    }
+
+    /**
+     * Records a failed call.
+     * <p>
+     * A failed probe call re-opens a half-open circuit.
+     *
+     * @param durationMillis the duration of the call (in milliseconds)
+     */
+    public synchronized void onError(long durationMillis) {
+        record(true, durationMillis >= slowCallDuration);
+    }
+
+    /**
+     * Records the outcome of a call and updates the state of the circuit.
+     *
+     * @param failed {@code true} if the call failed, {@code false} otherwise
+     * @param slow   {@code true} if the call was slow, {@code false} otherwise
+     */
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            if (failed || slow) {
+                open();
+            } else if (++successfulProbes >= halfOpenProbes) {
+                Log.info("Circuit breaker {0} is closed", name);
+                state = State.CLOSED;
+                clearWindow();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            /*
+             * Late outcome of a call permitted before the circuit opened.
+             */
+            return;
+        }
+        if (windowCount == windowSize) {
+            byte evicted = window[windowIndex];
+            failedCount -= evicted & 1;
+            slowCount -= (evicted >> 1) & 1;
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = (byte) ((failed ? 1 : 0) | (slow ? 2 : 0));
+        failedCount += failed ? 1 : 0;
+        slowCount += slow ? 1 : 0;
+        windowIndex = (windowIndex + 1) % windowSize;
+        if (windowCount >= minimumCalls && (getFailureRate() >= failureRateThreshold || getSlowCallRate() >=
+                slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    /**
+     * Opens the circuit.
+     */
+    private void open() {
+        Log.warn("Circuit breaker {0} is open (failure rate = {1}, slow call rate = {2}), rejecting calls for {3} " +
+                "ms", name, getFailureRate(), getSlowCallRate(), openDuration);
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        openedCount++;
+        clearWindow();
+    }
+
+    /**
+     * Removes all the outcomes from the sliding window.
+     */
+    private void clearWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+
+    /**
+     * Returns the ratio of failed calls in the sliding window.
+     *
+     * @return the ratio of failed calls in the sliding window
+     */
+    public synchronized double getFailureRate() {
+        return windowCount == 0 ? 0 : (double) failedCount / windowCount;
+    }
+
+    /**
+     * Returns the ratio of slow calls in the sliding window.
+     *
+     * @return the ratio of slow calls in the sliding window
+     */
+    public synchronized double getSlowCallRate() {
+        return windowCount == 0 ? 0 : (double) slowCount / windowCount;
+    }
+
+    /**
+     * Returns the current {@link State} of the circuit.
+     * <p>
+     * Note that an open circuit is reported as open until a call is attempted after the open duration.
+     *
+     * @return the current {@link State} of the circuit
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Returns the number of calls rejected by the circuit.
+     *
+     * @return the number of calls rejected by the circuit
+     */
+    public synchronized long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns the number of times the circuit has been opened.
+     *
+     * @return the number of times the circuit has been opened
+     */
+    public synchronized long getOpenedCount() {
+        return openedCount;
+    }
+
+    /**
+     * Returns a JSON representation of the circuit breaker state and counters.
+     *
+     * @return a {@link JsonObject} containing the circuit breaker state and counters
+     */
+    public synchronized JsonObject toJson() {
+        JsonObject result = new JsonObject();
+        result.addProperty("name", name);
+        result.addProperty("state", state.name());
+        result.addProperty("failureRate", getFailureRate());
+        result.addProperty("slowCallRate", getSlowCallRate());
+        result.addProperty("rejectedCount", rejectedCount);
+        result.addProperty("openedCount", openedCount);
+        return result;
+    }
+}
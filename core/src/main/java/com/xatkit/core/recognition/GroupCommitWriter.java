@@ -0,0 +1,578 @@
+package com.xatkit.core.recognition;
+
+import fr.inria.atlanmod.commons.log.Log;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Writes records in the background and commits them in groups.
+ * <p>
+ * Records submitted to this writer are pushed in a bounded lock-free queue, and are applied by a dedicated daemon
+ * thread. The writer thread commits the applied records when {@code batchSize} records are pending, or when the
+ * oldest pending record has been applied {@code flushInterval} milliseconds ago, so that a single commit covers
+ * all the records submitted in the meantime. The guarantees provided to the submitting threads are defined by the
+ * writer's {@link Durability}, and the behavior of the writer when its queue is full is defined by its
+ * {@link OverflowPolicy}.
+ * <p>
+ * This class is used by {@link RecognitionMonitor} to avoid committing its database on the intent recognition
+ * thread for each logged input.
+ *
+ * @param <T> the type of the records to write
+ */
+final class GroupCommitWriter<T> {
+
+    /**
+     * The guarantees provided to the threads submitting records.
+     */
+    enum Durability {
+        /**
+         * {@link #submit(Object)} returns once the record has been committed.
+         * <p>
+         * Records submitted concurrently are committed together, the writer commits as soon as it has applied the
+         * records available in the queue.
+         */
+        SYNC,
+        /**
+         * {@link #submit(Object)} returns once the record has been queued, the record is committed within
+         * {@code flushInterval} milliseconds or when {@code batchSize} records are pending.
+         */
+        ASYNC,
+        /**
+         * {@link #submit(Object)} returns once the record has been queued, the record is applied in the background
+         * but only committed when the writer is flushed or closed.
+         */
+        NONE
+    }
+
+    /**
+     * The behavior of {@link #submit(Object)} when the queue of the writer is full.
+     */
+    enum OverflowPolicy {
+        /**
+         * The submitting thread waits until the writer thread has made room for the record in the queue.
+         */
+        BLOCK,
+        /**
+         * The submitted record is dropped.
+         */
+        DROP_NEWEST,
+        /**
+         * The oldest record of the queue is dropped to make room for the submitted record.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * The time (in nanoseconds) a thread waiting for the writer sleeps before checking its state again.
+     */
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    /**
+     * The queue containing the submitted records that have not been applied yet.
+     */
+    private final ConcurrentLinkedQueue<Entry<T>> queue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The number of records in the queue, including the records that are being pushed.
+     * <p>
+     * This counter is used to bound the queue without locking it: a thread must reserve a slot before pushing a
+     * record.
+     */
+    private final AtomicInteger queueSize = new AtomicInteger();
+
+    /**
+     * The maximum number of records in the queue.
+     */
+    private final int capacity;
+
+    /**
+     * The number of pending records triggering a commit.
+     */
+    private final int batchSize;
+
+    /**
+     * The maximum time (in nanoseconds) a record can stay applied but uncommitted.
+     */
+    private final long flushIntervalNanos;
+
+    /**
+     * The guarantees provided to the threads submitting records.
+     */
+    private final Durability durability;
+
+    /**
+     * The behavior of {@link #submit(Object)} when the queue is full.
+     */
+    private final OverflowPolicy overflowPolicy;
+
+    /**
+     * The function applying a record, called by the writer thread.
+     */
+    private final Consumer<T> applier;
+
+    /**
+     * The function committing the applied records, called by the writer thread.
+     */
+    private final Runnable committer;
+
+    /**
+     * The thread applying and committing the records.
+     */
+    private final Thread writerThread;
+
+    /**
+     * Whether the writer accepts new records.
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The monitor notified by the writer thread when it removes records from a full queue.
+     * <p>
+     * Threads submitting records to a full queue wait on this monitor if the writer's {@link OverflowPolicy} is
+     * {@link OverflowPolicy#BLOCK}.
+     */
+    private final Object queueSpace = new Object();
+
+    /**
+     * The number of threads waiting on {@link #queueSpace}.
+     * <p>
+     * The writer thread only acquires the {@link #queueSpace} monitor if this counter is not {@code 0}.
+     */
+    private final AtomicInteger blockedSubmitters = new AtomicInteger();
+
+    /**
+     * The number of flushes requested by {@link #flush()}.
+     */
+    private final AtomicLong requestedFlushes = new AtomicLong();
+
+    /**
+     * The number of flushes completed by the writer thread.
+     */
+    private final AtomicLong completedFlushes = new AtomicLong();
+
+    /**
+     * The number of dropped records.
+     */
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    /**
+     * The number of commits performed by the writer thread.
+     */
+    private final AtomicLong commitCount = new AtomicLong();
+
+    /**
+     * The number of committed records.
+     */
+    private final AtomicLong committedCount = new AtomicLong();
+
+    /**
+     * The latencies of the commits performed by the writer thread.
+     */
+    private final LatencyHistogram commitLatencies = new LatencyHistogram();
+
+    /**
+     * Constructs a {@link GroupCommitWriter} and starts its writer thread.
+     *
+     * @param name           the name of the writer thread
+     * @param capacity       the maximum number of records in the queue
+     * @param batchSize      the number of pending records triggering a commit
+     * @param flushInterval  the maximum time (in milliseconds) a record can stay applied but uncommitted
+     * @param durability     the guarantees provided to the threads submitting records
+     * @param overflowPolicy the behavior of {@link #submit(Object)} when the queue is full
+     * @param applier        the function applying a record
+     * @param committer      the function committing the applied records
+     * @throws NullPointerException     if the provided {@code name}, {@code durability}, {@code overflowPolicy},
+     *                                  {@code applier}, or {@code committer} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code capacity}, {@code batchSize}, or
+     *                                  {@code flushInterval} is not strictly positive
+     */
+    GroupCommitWriter(String name, int capacity, int batchSize, long flushInterval, Durability durability,
+                      OverflowPolicy overflowPolicy, Consumer<T> applier, Runnable committer) {
+        checkNotNull(name, "Cannot create a %s with the provided name %s", GroupCommitWriter.class.getSimpleName(),
+                name);
+        checkArgument(capacity > 0, "Cannot create a %s with the provided capacity %s, the capacity must be " +
+                "strictly positive", GroupCommitWriter.class.getSimpleName(), capacity);
+        checkArgument(batchSize > 0, "Cannot create a %s with the provided batch size %s, the batch size must be " +
+                "strictly positive", GroupCommitWriter.class.getSimpleName(), batchSize);
+        checkArgument(flushInterval > 0, "Cannot create a %s with the provided flush interval %s, the flush " +
+                "interval must be strictly positive", GroupCommitWriter.class.getSimpleName(), flushInterval);
+        checkNotNull(durability, "Cannot create a %s with the provided durability %s",
+                GroupCommitWriter.class.getSimpleName(), durability);
+        checkNotNull(overflowPolicy, "Cannot create a %s with the provided overflow policy %s",
+                GroupCommitWriter.class.getSimpleName(), overflowPolicy);
+        checkNotNull(applier, "Cannot create a %s with the provided applier %s",
+                GroupCommitWriter.class.getSimpleName(), applier);
+        checkNotNull(committer, "Cannot create a %s with the provided committer %s",
+                GroupCommitWriter.class.getSimpleName(), committer);
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.durability = durability;
+        this.overflowPolicy = overflowPolicy;
+        this.applier = applier;
+        this.committer = committer;
+        this.writerThread = new Thread(this::run, name);
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Submits the provided {@code record} to the writer.
+     * <p>
+     * This method does not acquire any lock, unless the queue is full and the writer's {@link OverflowPolicy} is
+     * {@link OverflowPolicy#BLOCK}. It returns once the record has been committed if the writer's
+     * {@link Durability} is {@link Durability#SYNC}, and once the record has been queued otherwise.
+     * <p>
+     * Records submitted concurrently with {@link #close()} are either committed by the writer thread before it
+     * stops, or dropped.
+     *
+     * @param record the record to submit
+     * @return {@code true} if the record has been queued, {@code false} if it has been dropped
+     * @throws NullPointerException if the provided {@code record} is {@code null}
+     */
+    boolean submit(T record) {
+        checkNotNull(record, "Cannot submit the provided record %s", record);
+        if (!running || !reserveSlot()) {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        Entry<T> entry = new Entry<>(record, durability == Durability.SYNC ? Thread.currentThread() : null);
+        queue.offer(entry);
+        if (!running && queue.remove(entry)) {
+            /*
+             * The writer has been closed while the record was pushed, and the writer thread may have stopped
+             * without seeing it. The entry is still in the queue (i.e. it has not been applied), it is dropped.
+             */
+            queueSize.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        if (nonNull(entry.waiter)) {
+            LockSupport.unpark(writerThread);
+            while (!entry.released && writerThread.isAlive()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+        } else if (queueSize.get() >= batchSize) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    /**
+     * Applies and commits all the records submitted before this call.
+     * <p>
+     * This method blocks until the records have been committed, regardless of the writer's {@link Durability}.
+     */
+    void flush() {
+        long flush = requestedFlushes.incrementAndGet();
+        LockSupport.unpark(writerThread);
+        while (completedFlushes.get() < flush && writerThread.isAlive()) {
+            LockSupport.parkNanos(this, WAIT_NANOS);
+        }
+    }
+
+    /**
+     * Stops accepting records, and waits until the queued records are applied and committed.
+     * <p>
+     * Records submitted after this method has been called are dropped. Calling this method on a closed writer has
+     * no effect.
+     */
+    void close() {
+        running = false;
+        synchronized (queueSpace) {
+            queueSpace.notifyAll();
+        }
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Log.error("Interrupted while waiting for the writer thread {0} to complete", writerThread.getName());
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of records in the queue.
+     *
+     * @return the number of records in the queue
+     */
+    int getQueueDepth() {
+        return queueSize.get();
+    }
+
+    /**
+     * Returns the maximum number of records in the queue.
+     *
+     * @return the maximum number of records in the queue
+     */
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the guarantees provided to the threads submitting records.
+     *
+     * @return the {@link Durability} of the writer
+     */
+    Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Returns the behavior of {@link #submit(Object)} when the queue is full.
+     *
+     * @return the {@link OverflowPolicy} of the writer
+     */
+    OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    /**
+     * Returns the number of dropped records.
+     *
+     * @return the number of dropped records
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Returns the number of commits performed by the writer.
+     *
+     * @return the number of commits
+     */
+    long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * Returns the number of committed records.
+     *
+     * @return the number of committed records
+     */
+    long getCommittedCount() {
+        return committedCount.get();
+    }
+
+    /**
+     * Returns the latencies of the commits performed by the writer.
+     *
+     * @return the {@link LatencyHistogram} containing the commit latencies (in nanoseconds)
+     */
+    LatencyHistogram getCommitLatencies() {
+        return commitLatencies;
+    }
+
+    /**
+     * Reserves a slot in the queue, applying the {@link OverflowPolicy} if the queue is full.
+     *
+     * @return {@code true} if a slot has been reserved, {@code false} if the submitted record must be dropped
+     */
+    private boolean reserveSlot() {
+        while (true) {
+            int size = queueSize.get();
+            if (size < capacity) {
+                if (queueSize.compareAndSet(size, size + 1)) {
+                    return true;
+                }
+                continue;
+            }
+            switch (overflowPolicy) {
+                case DROP_NEWEST:
+                    return false;
+                case DROP_OLDEST:
+                    Entry<T> oldest = queue.poll();
+                    if (nonNull(oldest)) {
+                        queueSize.decrementAndGet();
+                        droppedCount.incrementAndGet();
+                        oldest.release();
+                    }
+                    break;
+                default:
+                    if (!awaitQueueSpace()) {
+                        return false;
+                    }
+            }
+        }
+    }
+
+    /**
+     * Waits until the writer thread removes records from the full queue.
+     * <p>
+     * The waiting thread is notified by the writer thread (see {@link #notifyQueueSpace()}), or when the writer is
+     * closed.
+     *
+     * @return {@code true} if the queue may have room for a new record, {@code false} if the writer is closed or if
+     * the waiting thread has been interrupted
+     */
+    private boolean awaitQueueSpace() {
+        blockedSubmitters.incrementAndGet();
+        try {
+            synchronized (queueSpace) {
+                while (running && queueSize.get() >= capacity) {
+                    LockSupport.unpark(writerThread);
+                    queueSpace.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Log.warn("Interrupted while waiting for room in the queue of the writer {0}, the record is dropped",
+                    writerThread.getName());
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            blockedSubmitters.decrementAndGet();
+        }
+        return running;
+    }
+
+    /**
+     * Wakes up the threads waiting for room in the queue, if any.
+     */
+    private void notifyQueueSpace() {
+        if (blockedSubmitters.get() > 0) {
+            synchronized (queueSpace) {
+                queueSpace.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * The loop of the writer thread.
+     * <p>
+     * The writer thread applies at most {@code batchSize} records at each iteration (or all the queued records when
+     * a flush is requested), commits the pending records if needed, and sleeps until the next commit deadline if the
+     * queue is empty.
+     */
+    private void run() {
+        List<Entry<T>> waitingEntries = new ArrayList<>();
+        int pendingCount = 0;
+        long firstPendingTime = 0;
+        while (true) {
+            boolean closing = !running;
+            long flush = requestedFlushes.get();
+            boolean flushing = closing || flush != completedFlushes.get();
+            int limit = flushing ? capacity : batchSize;
+            int appliedCount = 0;
+            Entry<T> entry;
+            while (appliedCount < limit && nonNull(entry = queue.poll())) {
+                queueSize.decrementAndGet();
+                notifyQueueSpace();
+                appliedCount++;
+                try {
+                    applier.accept(entry.record);
+                } catch (RuntimeException e) {
+                    Log.error(e, "An error occurred when applying the record {0}, see attached exception",
+                            entry.record);
+                }
+                if (pendingCount++ == 0) {
+                    firstPendingTime = System.nanoTime();
+                }
+                if (nonNull(entry.waiter)) {
+                    waitingEntries.add(entry);
+                }
+            }
+            if (pendingCount > 0 && (flushing || !waitingEntries.isEmpty() || (durability != Durability.NONE
+                    && (pendingCount >= batchSize || System.nanoTime() - firstPendingTime >= flushIntervalNanos)))) {
+                commit(pendingCount);
+                pendingCount = 0;
+                waitingEntries.forEach(Entry::release);
+                waitingEntries.clear();
+            }
+            if (flushing) {
+                completedFlushes.set(flush);
+            }
+            if (closing && queue.isEmpty()) {
+                return;
+            }
+            /*
+             * The flush and close requests are checked again before sleeping: the applier and the committer may
+             * consume the permit granted by LockSupport.unpark if they block internally.
+             */
+            if (queue.isEmpty() && running && requestedFlushes.get() == completedFlushes.get()) {
+                long sleepTime = flushIntervalNanos;
+                if (pendingCount > 0 && durability != Durability.NONE) {
+                    sleepTime -= System.nanoTime() - firstPendingTime;
+                }
+                if (sleepTime > 0) {
+                    LockSupport.parkNanos(this, sleepTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Commits the pending records and records the latency of the commit.
+     *
+     * @param pendingCount the number of pending records
+     */
+    private void commit(int pendingCount) {
+        long start = System.nanoTime();
+        try {
+            committer.run();
+        } catch (RuntimeException e) {
+            Log.error(e, "An error occurred when committing {0} records, see attached exception", pendingCount);
+        }
+        commitLatencies.record(System.nanoTime() - start);
+        commitCount.incrementAndGet();
+        committedCount.addAndGet(pendingCount);
+    }
+
+    /**
+     * A queued record.
+     *
+     * @param <T> the type of the record
+     */
+    private static final class Entry<T> {
+
+        /**
+         * The queued record.
+         */
+        private final T record;
+
+        /**
+         * The thread waiting for the record to be committed.
+         * <p>
+         * This attribute is {@code null} if the writer's {@link Durability} is not {@link Durability#SYNC}.
+         */
+        @Nullable
+        private final Thread waiter;
+
+        /**
+         * Whether the record has been committed or dropped.
+         */
+        private volatile boolean released;
+
+        /**
+         * Constructs an {@link Entry} with the provided {@code record} and {@code waiter}.
+         *
+         * @param record the queued record
+         * @param waiter the thread waiting for the record to be committed
+         */
+        private Entry(T record, @Nullable Thread waiter) {
+            this.record = record;
+            this.waiter = waiter;
+        }
+
+        /**
+         * Marks the record as committed or dropped, and wakes up the waiting thread.
+         */
+        private void release() {
+            released = true;
+            if (nonNull(waiter)) {
+                LockSupport.unpark(waiter);
+            }
+        }
+    }
+}
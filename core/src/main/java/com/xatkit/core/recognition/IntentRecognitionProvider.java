@@ -3,6 +3,8 @@ package com.xatkit.core.recognition;
 import com.xatkit.core.XatkitCore;
 import com.xatkit.core.recognition.processor.InputPreProcessor;
 import com.xatkit.core.recognition.processor.IntentPostProcessor;
+import com.xatkit.core.recognition.processor.IntentRegistrationListener;
+import com.xatkit.core.recognition.processor.PostProcessorPipeline;
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.EntityDefinition;
 import com.xatkit.intent.IntentDefinition;
@@ -13,6 +15,12 @@ import org.apache.commons.configuration2.Configuration;
 import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.nonNull;
 
 /**
  * A unified wrapper for concrete intent recognition providers.
@@ -32,12 +40,49 @@ public abstract class IntentRecognitionProvider {
     private List<? extends InputPreProcessor> preProcessors = new ArrayList<>();
 
     /**
-     * The {@link List} of {@link IntentPostProcessor}s set for this {@link IntentRecognitionProvider}.
+     * The names of the {@link LatencyMonitor} stages of the {@link InputPreProcessor}s.
+     * <p>
+     * The names are computed when the {@link InputPreProcessor}s are set to avoid creating them for each input.
+     */
+    private List<String> preProcessorStageNames = new ArrayList<>();
+
+    /**
+     * The name of the {@link LatencyMonitor} stage of this {@link IntentRecognitionProvider}.
+     */
+    private final String recognitionStageName = LatencyMonitor.RECOGNITION_STAGE_PREFIX + this.getClass()
+            .getSimpleName();
+
+    /**
+     * The {@link IntentPostProcessor}s set for this {@link IntentRecognitionProvider}.
+     */
+    private List<? extends IntentPostProcessor> postProcessors = new ArrayList<>();
+
+    /**
+     * The {@link ExecutorService} used to execute the {@link IntentPostProcessor}s in parallel.
+     * <p>
+     * This attribute is {@code null} if the {@link IntentPostProcessor}s are executed sequentially. The
+     * {@link ExecutorService} is owned by this provider, and is shut down with it (see {@link #shutdown()}).
+     */
+    @Nullable
+    private ExecutorService postProcessorExecutor;
+
+    /**
+     * The {@link LatencyMonitor} recording the latency of the pre-processors, the intent recognition, and the
+     * post-processors.
+     * <p>
+     * This attribute is {@code null} if latency monitoring is disabled.
+     */
+    @Nullable
+    private LatencyMonitor latencyMonitor;
+
+    /**
+     * The {@link PostProcessorPipeline} executing the {@link IntentPostProcessor}s set for this
+     * {@link IntentRecognitionProvider}.
      *
      * @see IntentRecognitionProviderFactory#getIntentRecognitionProvider(XatkitCore, Configuration)
      * @see #getIntent(String, XatkitSession)
      */
-    private List<? extends IntentPostProcessor> postProcessors = new ArrayList<>();
+    private PostProcessorPipeline postProcessorPipeline = new PostProcessorPipeline(new ArrayList<>());
 
     /**
      * Sets the {@link InputPreProcessor}s.
@@ -46,15 +91,72 @@ public abstract class IntentRecognitionProvider {
      */
     public final void setPreProcessors(List<? extends InputPreProcessor> preProcessors) {
         this.preProcessors = preProcessors;
+        this.preProcessorStageNames = preProcessors.stream()
+                .map(p -> LatencyMonitor.PRE_PROCESSOR_STAGE_PREFIX + p.getClass().getSimpleName())
+                .collect(Collectors.toList());
     }
 
     /**
      * Set the {@link IntentPostProcessor}s.
+     * <p>
+     * The provided {@link IntentPostProcessor}s are executed sequentially, see
+     * {@link #setPostProcessors(List, ExecutorService)} to execute non-conflicting post-processors in parallel.
      *
      * @param postProcessors the {@link IntentPostProcessor} to set
      */
     public final void setPostProcessors(List<? extends IntentPostProcessor> postProcessors) {
+        this.setPostProcessors(postProcessors, null);
+    }
+
+    /**
+     * Set the {@link IntentPostProcessor}s and the {@link ExecutorService} used to execute them in parallel.
+     * <p>
+     * Post-processors that do not conflict (see {@link IntentPostProcessor#getReadKeys()} and
+     * {@link IntentPostProcessor#getWrittenKeys()}) are executed in parallel using the provided {@code
+     * executorService}. If the provided {@code executorService} is {@code null} the post-processors are executed
+     * sequentially.
+     * <p>
+     * The provided {@code executorService} is owned by this provider: it is shut down when it is replaced by another
+     * one, or when the provider is shut down (see {@link #shutdown()}).
+     *
+     * @param postProcessors  the {@link IntentPostProcessor} to set
+     * @param executorService the {@link ExecutorService} used to execute the post-processors in parallel
+     * @see PostProcessorPipeline
+     */
+    public final void setPostProcessors(List<? extends IntentPostProcessor> postProcessors,
+                                        @Nullable ExecutorService executorService) {
+        if (nonNull(this.postProcessorExecutor) && this.postProcessorExecutor != executorService) {
+            this.postProcessorExecutor.shutdown();
+        }
         this.postProcessors = postProcessors;
+        this.postProcessorExecutor = executorService;
+        this.postProcessorPipeline = new PostProcessorPipeline(postProcessors, executorService, latencyMonitor);
+    }
+
+    /**
+     * Sets the {@link LatencyMonitor} recording the latency of the intent recognition stages.
+     * <p>
+     * The provided {@link LatencyMonitor} records the execution time of each {@link InputPreProcessor}, of the
+     * intent recognition performed by this provider, of each {@link IntentPostProcessor}, and of the whole
+     * {@link #getIntent(String, XatkitSession)} method.
+     *
+     * @param latencyMonitor the {@link LatencyMonitor} to set, or {@code null} to disable latency monitoring
+     * @see IntentRecognitionProviderFactory#ENABLE_LATENCY_MONITORING_KEY
+     */
+    public final void setLatencyMonitor(@Nullable LatencyMonitor latencyMonitor) {
+        this.latencyMonitor = latencyMonitor;
+        this.postProcessorPipeline = new PostProcessorPipeline(postProcessors, postProcessorExecutor,
+                latencyMonitor);
+    }
+
+    /**
+     * Returns the {@link LatencyMonitor} associated to this {@link IntentRecognitionProvider}.
+     *
+     * @return the {@link LatencyMonitor}, or {@code null} if latency monitoring is disabled
+     */
+    public final @Nullable
+    LatencyMonitor getLatencyMonitor() {
+        return this.latencyMonitor;
     }
 
     /**
@@ -79,6 +181,18 @@ public abstract class IntentRecognitionProvider {
         return this.postProcessors;
     }
 
+    /**
+     * Returns the {@link PostProcessorPipeline} executing the {@link IntentPostProcessor}s associated to this
+     * {@link IntentRecognitionProvider}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return the {@link PostProcessorPipeline} associated to this {@link IntentRecognitionProvider}
+     */
+    final PostProcessorPipeline getPostProcessorPipeline() {
+        return this.postProcessorPipeline;
+    }
+
     /**
      * Registers the provided {@code entityDefinition} in the underlying intent recognition provider.
      * <p>
@@ -86,11 +200,28 @@ public abstract class IntentRecognitionProvider {
      * learning engine, so multiple entity registrations does not generate multiple training calls. Once all the
      * {@link EntityDefinition}s have been registered in the underlying intent recognition provider use
      * {@link #trainMLEngine()} to train the ML engine.
+     * <p>
+     * The pre-processors and post-processors implementing {@link IntentRegistrationListener} are notified once the
+     * provided {@code entityDefinition} is registered (see
+     * {@link IntentRegistrationListener#entityDefinitionRegistered(EntityDefinition)}).
      *
      * @param entityDefinition the {@link EntityDefinition} to delete from the underlying intent recognition provider
      * @see #trainMLEngine()
      */
-    public abstract void registerEntityDefinition(EntityDefinition entityDefinition);
+    public final void registerEntityDefinition(EntityDefinition entityDefinition) {
+        registerEntityDefinitionInternal(entityDefinition);
+        notifyRegistrationListeners(l -> l.entityDefinitionRegistered(entityDefinition));
+    }
+
+    /**
+     * Registers the provided {@code entityDefinition} in the underlying intent recognition provider.
+     * <p>
+     * This method is called by {@link #registerEntityDefinition(EntityDefinition)}, subclasses implementing this method
+     * should not notify the {@link IntentRegistrationListener}s.
+     *
+     * @param entityDefinition the {@link EntityDefinition} to register
+     */
+    protected abstract void registerEntityDefinitionInternal(EntityDefinition entityDefinition);
 
     /**
      * Registers the provided {@code intentDefinition} in the underlying intent recognition provider.
@@ -99,11 +230,28 @@ public abstract class IntentRecognitionProvider {
      * learning engine, so multiple intent registrations does not generate multiple training calls. Once all the
      * {@link IntentDefinition}s have been registered in the underlying intent recognition provider use
      * {@link #trainMLEngine()} to train the ML engine.
+     * <p>
+     * The pre-processors and post-processors implementing {@link IntentRegistrationListener} are notified once the
+     * provided {@code intentDefinition} is registered (see
+     * {@link IntentRegistrationListener#intentDefinitionRegistered(IntentDefinition)}).
      *
      * @param intentDefinition the {@link IntentDefinition} to register to the underlying intent recognition provider
      * @see #trainMLEngine()
      */
-    public abstract void registerIntentDefinition(IntentDefinition intentDefinition);
+    public final void registerIntentDefinition(IntentDefinition intentDefinition) {
+        registerIntentDefinitionInternal(intentDefinition);
+        notifyRegistrationListeners(l -> l.intentDefinitionRegistered(intentDefinition));
+    }
+
+    /**
+     * Registers the provided {@code intentDefinition} in the underlying intent recognition provider.
+     * <p>
+     * This method is called by {@link #registerIntentDefinition(IntentDefinition)}, subclasses implementing this method
+     * should not notify the {@link IntentRegistrationListener}s.
+     *
+     * @param intentDefinition the {@link IntentDefinition} to register
+     */
+    protected abstract void registerIntentDefinitionInternal(IntentDefinition intentDefinition);
 
     /**
      * Deletes the provided {@code entityDefinition} from the underlying intent recognition provider.
@@ -112,11 +260,28 @@ public abstract class IntentRecognitionProvider {
      * learning engine, so multiple entity deletion does not generate multiple training calls. Once all the
      * {@link EntityDefinition}s have been deleted from the underlying intent recognition provider use
      * {@link #trainMLEngine()} to train the ML engine.
+     * <p>
+     * The pre-processors and post-processors implementing {@link IntentRegistrationListener} are notified once the
+     * provided {@code entityDefinition} is deleted (see
+     * {@link IntentRegistrationListener#entityDefinitionDeleted(EntityDefinition)}).
      *
      * @param entityDefinition the {@link EntityDefinition} to delete from the underlying intent recognition provider
      * @see #trainMLEngine()
      */
-    public abstract void deleteEntityDefinition(EntityDefinition entityDefinition);
+    public final void deleteEntityDefinition(EntityDefinition entityDefinition) {
+        deleteEntityDefinitionInternal(entityDefinition);
+        notifyRegistrationListeners(l -> l.entityDefinitionDeleted(entityDefinition));
+    }
+
+    /**
+     * Deletes the provided {@code entityDefinition} from the underlying intent recognition provider.
+     * <p>
+     * This method is called by {@link #deleteEntityDefinition(EntityDefinition)}, subclasses implementing this method
+     * should not notify the {@link IntentRegistrationListener}s.
+     *
+     * @param entityDefinition the {@link EntityDefinition} to delete
+     */
+    protected abstract void deleteEntityDefinitionInternal(EntityDefinition entityDefinition);
 
     /**
      * Deletes the provided {@code intentDefinition} from the underlying intent recognition provider.
@@ -125,20 +290,57 @@ public abstract class IntentRecognitionProvider {
      * learning engine, so multiple intent deletion does not generate multiple training calls. Once all the
      * {@link IntentDefinition}s have been deleted from the underlying intent recognition provider use
      * {@link #trainMLEngine()} to train the ML engine.
+     * <p>
+     * The pre-processors and post-processors implementing {@link IntentRegistrationListener} are notified once the
+     * provided {@code intentDefinition} is deleted (see
+     * {@link IntentRegistrationListener#intentDefinitionDeleted(IntentDefinition)}).
      *
      * @param intentDefinition the {@link IntentDefinition} to delete from the underlying intent recognition provider
      * @see #trainMLEngine()
      */
-    public abstract void deleteIntentDefinition(IntentDefinition intentDefinition);
+    public final void deleteIntentDefinition(IntentDefinition intentDefinition) {
+        deleteIntentDefinitionInternal(intentDefinition);
+        notifyRegistrationListeners(l -> l.intentDefinitionDeleted(intentDefinition));
+    }
+
+    /**
+     * Deletes the provided {@code intentDefinition} from the underlying intent recognition provider.
+     * <p>
+     * This method is called by {@link #deleteIntentDefinition(IntentDefinition)}, subclasses implementing this method
+     * should not notify the {@link IntentRegistrationListener}s.
+     *
+     * @param intentDefinition the {@link IntentDefinition} to delete
+     */
+    protected abstract void deleteIntentDefinitionInternal(IntentDefinition intentDefinition);
 
     /**
      * Trains the underlying intent recognition provider.
      * <p>
      * <b>Note:</b> this method returns once the intent recognition provider's training is complete. However, the
-     * propagation of the training information may not be complete when this method returns.
+     * propagation of the training information may not be complete when this method returns. See
+     * {@link #trainMLEngineAsync()} to train the provider without blocking the calling thread.
      */
     public abstract void trainMLEngine();
 
+    /**
+     * Trains the underlying intent recognition provider without blocking the calling thread.
+     * <p>
+     * The returned {@link CompletableFuture} is completed when the training is complete, or completed
+     * exceptionally if an error occurred during the training. Errors occurring before the training starts (e.g.
+     * when sending the registered definitions to the provider) are thrown by this method. Concrete providers
+     * supporting asynchronous training should override this method, and document whether inputs are processed
+     * during the training.
+     * <p>
+     * The default implementation calls {@link #trainMLEngine()} and returns a completed {@link CompletableFuture}.
+     *
+     * @return a {@link CompletableFuture} completed when the training is complete
+     * @see #trainMLEngine()
+     */
+    public CompletableFuture<Void> trainMLEngineAsync() {
+        trainMLEngine();
+        return CompletableFuture.completedFuture(null);
+    }
+
     /**
      * Creates a new {@link XatkitSession} from the provided {@code sessionId}.
      *
@@ -152,8 +354,29 @@ public abstract class IntentRecognitionProvider {
      * <p>
      * <b>Note:</b> calling this method invalidates the intent recognition provider client connection, and thus this
      * class cannot be used to access the intent recognition provider anymore.
+     * <p>
+     * This method also shuts down the {@link ExecutorService} used to execute the {@link IntentPostProcessor}s in
+     * parallel, if any.
+     *
+     * @see #shutdownInternal()
+     */
+    public final void shutdown() {
+        try {
+            this.shutdownInternal();
+        } finally {
+            if (nonNull(this.postProcessorExecutor)) {
+                this.postProcessorExecutor.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Shuts down the intent recognition provider client and invalidates the remaining sessions.
+     * <p>
+     * This method is called by {@link #shutdown()}, subclasses implementing this method should not shut down the
+     * post-processor {@link ExecutorService}.
      */
-    public abstract void shutdown();
+    protected abstract void shutdownInternal();
 
     /**
      * Returns whether the intent recognition provider client is shutdown.
@@ -169,7 +392,9 @@ public abstract class IntentRecognitionProvider {
      * context-based intents.
      * <p>
      * This method applies the pre-processing functions associated to this {@link IntentRecognitionProvider} on the
-     * given {@code input}, and the post-processing functions on the returned {@link RecognizedIntent}.
+     * given {@code input}, and the post-processing functions on the returned {@link RecognizedIntent} (see
+     * {@link PostProcessorPipeline}). The execution time of each stage is recorded in the {@link LatencyMonitor}
+     * associated to this provider, if latency monitoring is enabled.
      *
      * @param input   the {@link String} representing the textual input to process and extract the intent from
      * @param session the {@link XatkitSession} used to access context information
@@ -177,27 +402,56 @@ public abstract class IntentRecognitionProvider {
      * @see IntentRecognitionProviderFactory#getIntentRecognitionProvider(XatkitCore, Configuration)
      */
     public final RecognizedIntent getIntent(String input, XatkitSession session) {
+        long start = System.nanoTime();
         String preProcessedInput = input;
-        for (InputPreProcessor preProcessor : this.preProcessors) {
-            long preStart = System.currentTimeMillis();
-            preProcessedInput = preProcessor.process(input, session);
-            long preEnd = System.currentTimeMillis();
+        for (int i = 0; i < this.preProcessors.size(); i++) {
+            InputPreProcessor preProcessor = this.preProcessors.get(i);
+            long preStart = System.nanoTime();
+            preProcessedInput = preProcessor.process(preProcessedInput, session);
+            long preEnd = System.nanoTime();
+            recordLatency(preProcessorStageNames.get(i), preEnd - preStart);
             Log.debug("Time to execute pre-processor {0}: {1}ms", preProcessor.getClass().getSimpleName(),
-                    (preEnd - preStart));
+                    (preEnd - preStart) / 1000000d);
         }
-        long recognitionStart = System.currentTimeMillis();
+        long recognitionStart = System.nanoTime();
         RecognizedIntent recognizedIntent = getIntentInternal(preProcessedInput, session);
-        long recognitionEnd = System.currentTimeMillis();
+        long recognitionEnd = System.nanoTime();
+        recordLatency(recognitionStageName, recognitionEnd - recognitionStart);
         Log.debug("Time to recognize the intent with {0}: {1}ms", this.getClass().getSimpleName(),
-                (recognitionEnd - recognitionStart));
+                (recognitionEnd - recognitionStart) / 1000000d);
+        RecognizedIntent result = this.postProcessorPipeline.process(recognizedIntent, session);
+        recordLatency(LatencyMonitor.TOTAL_STAGE, System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Records the provided {@code nanos} latency for the given {@code stage} if latency monitoring is enabled.
+     *
+     * @param stage the name of the stage to record the latency of
+     * @param nanos the latency to record (in nanoseconds)
+     */
+    private void recordLatency(String stage, long nanos) {
+        if (nonNull(this.latencyMonitor)) {
+            this.latencyMonitor.record(stage, nanos);
+        }
+    }
+
+    /**
+     * Notifies the pre-processors and post-processors implementing {@link IntentRegistrationListener}.
+     *
+     * @param notification the notification to send to the listeners
+     */
+    private void notifyRegistrationListeners(Consumer<IntentRegistrationListener> notification) {
+        for (InputPreProcessor preProcessor : this.preProcessors) {
+            if (preProcessor instanceof IntentRegistrationListener) {
+                notification.accept((IntentRegistrationListener) preProcessor);
+            }
+        }
         for (IntentPostProcessor postProcessor : this.postProcessors) {
-            long postStart = System.currentTimeMillis();
-            recognizedIntent = postProcessor.process(recognizedIntent, session);
-            long postEnd = System.currentTimeMillis();
-            Log.debug("Time to execute post-processor {0}: {1}ms", postProcessor.getClass().getSimpleName(),
-                    (postEnd - postStart));
+            if (postProcessor instanceof IntentRegistrationListener) {
+                notification.accept((IntentRegistrationListener) postProcessor);
+            }
         }
-        return recognizedIntent;
     }
 
     /**
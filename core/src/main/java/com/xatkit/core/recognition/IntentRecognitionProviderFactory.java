@@ -5,18 +5,26 @@ import com.xatkit.core.XatkitException;
 import com.xatkit.core.recognition.dialogflow.DialogFlowApi;
 import com.xatkit.core.recognition.processor.InputPreProcessor;
 import com.xatkit.core.recognition.processor.IntentPostProcessor;
+import com.xatkit.core.recognition.processor.LanguageDetectionPreProcessor;
+import com.xatkit.core.recognition.processor.PostProcessorPipeline;
+import com.xatkit.core.recognition.processor.StanfordNLPPostProcessor;
+import com.xatkit.core.recognition.processor.StanfordNLPService;
 import com.xatkit.core.recognition.regex.RegExIntentRecognitionProvider;
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.IntentDefinition;
 import com.xatkit.intent.RecognizedIntent;
 import com.xatkit.util.Loader;
+import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.Configuration;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
@@ -48,6 +56,15 @@ public class IntentRecognitionProviderFactory {
      */
     public static String ENABLE_RECOGNITION_ANALYTICS = "xatkit.recognition.enable_monitoring";
 
+    /**
+     * The {@link Configuration} key used to specify whether to enable intent recognition latency monitoring.
+     * <p>
+     * Latency monitoring is enabled by default, and records the execution time of each pre-processor, intent
+     * recognition provider, and post-processor in memory (see {@link LatencyMonitor}). It can be disabled by
+     * explicitly setting this property to {@code false} in the {@link Configuration} file.
+     */
+    public static String ENABLE_LATENCY_MONITORING_KEY = "xatkit.recognition.enable_latency_monitoring";
+
     /**
      * The {@link Configuration} key used to specify the {@link InputPreProcessor}s associated to the created
      * {@link IntentRecognitionProvider}.
@@ -64,6 +81,49 @@ public class IntentRecognitionProviderFactory {
      */
     public static String RECOGNITION_POSTPROCESSORS_KEY = "xatkit.recognition.postprocessors";
 
+    /**
+     * The {@link Configuration} key used to specify whether to execute non-conflicting {@link IntentPostProcessor}s
+     * in parallel.
+     * <p>
+     * Post-processors are executed sequentially by default. Setting this property to {@code true} executes
+     * consecutive post-processors that do not read or write the same data in parallel (see
+     * {@link PostProcessorPipeline}).
+     */
+    public static String RECOGNITION_POSTPROCESSORS_PARALLEL_KEY = "xatkit.recognition.postprocessors.parallel";
+
+    /**
+     * The {@link Configuration} key used to specify the number of threads used to execute the
+     * {@link IntentPostProcessor}s in parallel.
+     * <p>
+     * This property is only used if {@link #RECOGNITION_POSTPROCESSORS_PARALLEL_KEY} is set to {@code true}, and
+     * defaults to the number of available processors. Each created {@link IntentRecognitionProvider} owns its
+     * thread pool, which is shut down with the provider (see {@link IntentRecognitionProvider#shutdown()}).
+     */
+    public static String RECOGNITION_POSTPROCESSORS_THREADS_KEY = "xatkit.recognition.postprocessors.threads";
+
+    /**
+     * The {@link Configuration} key used to specify the languages supported by the created
+     * {@link IntentRecognitionProvider}.
+     * <p>
+     * Languages are specified as a comma-separated list of language codes (e.g. {@code en, fr, es}), the first one
+     * being the default language. If this property is set the factory creates one {@link IntentRecognitionProvider}
+     * per language, and returns a {@link LanguageRoutingIntentRecognitionProvider} dispatching the inputs to them
+     * according to the language detected by a {@link LanguageDetectionPreProcessor}. The configuration of the
+     * provider of a language can override any property with the {@code xatkit.recognition.languages.<language>.}
+     * prefix (e.g. {@code xatkit.recognition.languages.fr.xatkit.dialogflow.projectId}).
+     */
+    public static String RECOGNITION_LANGUAGES_KEY = "xatkit.recognition.languages";
+
+    /**
+     * The {@link Configuration} key used to store the language handled by a language-specific
+     * {@link IntentRecognitionProvider}.
+     * <p>
+     * This property is set by the factory in the configuration of each provider created for a language of
+     * {@link #RECOGNITION_LANGUAGES_KEY}, and should not be set manually. Providers can use it to distinguish the
+     * resources they share with the providers of the other languages (e.g. REST endpoints).
+     */
+    public static String RECOGNITION_LANGUAGE_KEY = "xatkit.recognition.language";
+
     /**
      * Returns the {@link IntentRecognitionProvider} matching the provided {@code configuration}.
      * <p>
@@ -73,13 +133,20 @@ public class IntentRecognitionProviderFactory {
      * <p>
      * The created {@link IntentRecognitionProvider} embeds a {@link RecognitionMonitor} that logs monitoring
      * information regarding the intent recognition. The {@link RecognitionMonitor} can be disabled by setting the
-     * {@link #ENABLE_RECOGNITION_ANALYTICS} property to {@code false} in the configuration.
+     * {@link #ENABLE_RECOGNITION_ANALYTICS} property to {@code false} in the configuration. The created provider
+     * also records the latency of the intent recognition stages in a {@link LatencyMonitor}, that can be disabled
+     * by setting the {@link #ENABLE_LATENCY_MONITORING_KEY} property to {@code false}.
      * <p>
      * This method retrieves the list of {@link InputPreProcessor}s and {@link IntentPostProcessor}s from the
      * provided {@code configuration} and bind them to the returned {@link IntentRecognitionProvider}. Pre/post
      * -processors are specified with the configuration keys {@link #RECOGNITION_PREPROCESSORS_KEY} and
      * {@link #RECOGNITION_POSTPROCESSORS_KEY}, respectively, and are specified as comma-separated list of
-     * processor's names.
+     * processor's names. Non-conflicting post-processors are executed in parallel if the
+     * {@link #RECOGNITION_POSTPROCESSORS_PARALLEL_KEY} property is set to {@code true}.
+     * <p>
+     * If the {@link #RECOGNITION_LANGUAGES_KEY} property is set this method returns a
+     * {@link LanguageRoutingIntentRecognitionProvider} holding one provider per language, and adds a
+     * {@link LanguageDetectionPreProcessor} at the beginning of the pre-processors if they do not contain one.
      *
      * @param xatkitCore    the {@link XatkitCore} instance to build the {@link IntentRecognitionProvider} from
      * @param configuration the {@link Configuration} used to define the {@link IntentRecognitionProvider} to build
@@ -104,17 +171,36 @@ public class IntentRecognitionProviderFactory {
 
         IntentRecognitionProvider provider;
 
-        if (configuration.containsKey(DialogFlowApi.PROJECT_ID_KEY)) {
+        List<String> languages = getList(configuration, RECOGNITION_LANGUAGES_KEY);
+        if (languages.isEmpty()) {
+            provider = createProvider(xatkitCore, configuration, recognitionMonitor);
+        } else {
             /*
-             * The provided configuration contains DialogFlow-related information.
+             * The language-specific providers are created without monitor, the recognized intents are logged by the
+             * routing provider.
              */
-            provider = new DialogFlowApi(xatkitCore, configuration, recognitionMonitor);
-        } else {
+            Map<String, IntentRecognitionProvider> providers = new LinkedHashMap<>();
+            for (String language : languages) {
+                providers.put(language, createProvider(xatkitCore, getLanguageConfiguration(configuration,
+                        language), null));
+            }
+            provider = new LanguageRoutingIntentRecognitionProvider(providers, recognitionMonitor);
+            if (preProcessors.stream().noneMatch(p -> p instanceof LanguageDetectionPreProcessor)) {
+                List<InputPreProcessor> routingPreProcessors = new ArrayList<>();
+                routingPreProcessors.add(new LanguageDetectionPreProcessor(languages));
+                routingPreProcessors.addAll(preProcessors);
+                preProcessors = routingPreProcessors;
+            }
+        }
+        if (postProcessors.stream().anyMatch(p -> p instanceof StanfordNLPPostProcessor)) {
             /*
-             * The provided configuration does not contain any IntentRecognitionProvider information, returning a
-             * RegExIntentRecognitionProvider.
+             * Configure the NLP service before initializing the processors, the processors relying on it initialize
+             * and warm-up its pipelines when the XatkitCore starts.
              */
-            provider = new RegExIntentRecognitionProvider(configuration, recognitionMonitor);
+            StanfordNLPService.getInstance().configure(configuration);
+        }
+        if (configuration.getBoolean(ENABLE_LATENCY_MONITORING_KEY, true)) {
+            provider.setLatencyMonitor(new LatencyMonitor(xatkitCore.getXatkitServer(), configuration));
         }
         provider.setPreProcessors(preProcessors);
         for(InputPreProcessor preProcessor : preProcessors) {
@@ -124,7 +210,13 @@ public class IntentRecognitionProviderFactory {
              */
             preProcessor.init();
         }
-        provider.setPostProcessors(postProcessors);
+        if (configuration.getBoolean(RECOGNITION_POSTPROCESSORS_PARALLEL_KEY, false)) {
+            int threadCount = configuration.getInt(RECOGNITION_POSTPROCESSORS_THREADS_KEY,
+                    Runtime.getRuntime().availableProcessors());
+            provider.setPostProcessors(postProcessors, PostProcessorPipeline.createExecutor(threadCount));
+        } else {
+            provider.setPostProcessors(postProcessors);
+        }
         for(IntentPostProcessor postProcessor : postProcessors) {
             /*
              * Initialize the post-processors once they have all been constructed, this way we can initialize third
@@ -155,6 +247,57 @@ public class IntentRecognitionProviderFactory {
         return monitor;
     }
 
+    /**
+     * Creates the {@link IntentRecognitionProvider} matching the provided {@code configuration}.
+     *
+     * @param xatkitCore         the {@link XatkitCore} instance to build the {@link IntentRecognitionProvider} from
+     * @param configuration      the {@link Configuration} used to define the {@link IntentRecognitionProvider} to
+     *                           build
+     * @param recognitionMonitor the {@link RecognitionMonitor} of the created provider
+     * @return the created {@link IntentRecognitionProvider}
+     */
+    private static IntentRecognitionProvider createProvider(XatkitCore xatkitCore, Configuration configuration,
+                                                            @Nullable RecognitionMonitor recognitionMonitor) {
+        if (configuration.containsKey(DialogFlowApi.PROJECT_ID_KEY)) {
+            /*
+             * The provided configuration contains DialogFlow-related information.
+             */
+            return new DialogFlowApi(xatkitCore, configuration, recognitionMonitor);
+        } else {
+            /*
+             * The provided configuration does not contain any IntentRecognitionProvider information, returning a
+             * RegExIntentRecognitionProvider.
+             */
+            return new RegExIntentRecognitionProvider(configuration, recognitionMonitor);
+        }
+    }
+
+    /**
+     * Returns the {@link Configuration} of the provider of the given {@code language}.
+     * <p>
+     * The returned {@link Configuration} contains the properties of the provided {@code configuration}, overridden
+     * by the properties prefixed by {@code xatkit.recognition.languages.<language>.}. The
+     * {@link #RECOGNITION_LANGUAGE_KEY} and the DialogFlow language code (see {@link DialogFlowApi#LANGUAGE_CODE_KEY})
+     * are set with the provided {@code language}, the language code can be overridden with the
+     * {@code xatkit.recognition.languages.<language>.xatkit.dialogflow.language} property.
+     *
+     * @param configuration the Xatkit {@link Configuration}
+     * @param language      the language of the provider
+     * @return the {@link Configuration} of the provider of the given {@code language}
+     * @see #RECOGNITION_LANGUAGES_KEY
+     */
+    private static Configuration getLanguageConfiguration(Configuration configuration, String language) {
+        Configuration languageConfiguration = new BaseConfiguration();
+        configuration.getKeys().forEachRemaining(key -> languageConfiguration.setProperty(key,
+                configuration.getProperty(key)));
+        languageConfiguration.setProperty(RECOGNITION_LANGUAGE_KEY, language);
+        languageConfiguration.setProperty(DialogFlowApi.LANGUAGE_CODE_KEY, language);
+        Configuration overrides = configuration.subset(RECOGNITION_LANGUAGES_KEY + "." + language);
+        overrides.getKeys().forEachRemaining(key -> languageConfiguration.setProperty(key,
+                overrides.getProperty(key)));
+        return languageConfiguration;
+    }
+
     private static List<? extends InputPreProcessor> getPreProcessors(Configuration configuration) {
         List<String> preProcessorNames = getList(configuration, RECOGNITION_PREPROCESSORS_KEY);
         return preProcessorNames.stream().map(preProcessorName -> {
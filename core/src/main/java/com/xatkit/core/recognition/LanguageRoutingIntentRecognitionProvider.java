@@ -0,0 +1,268 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.core.recognition.processor.LanguageDetectionPreProcessor;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.EntityDefinition;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.RecognizedIntent;
+import fr.inria.atlanmod.commons.log.Log;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * An {@link IntentRecognitionProvider} that dispatches the user inputs to language-specific
+ * {@link IntentRecognitionProvider}s.
+ * <p>
+ * This provider holds one {@link IntentRecognitionProvider} per supported language, and routes each input to the
+ * provider of the language stored in the session with the key
+ * {@link LanguageDetectionPreProcessor#DETECTED_LANGUAGE_SESSION_KEY}. The detected language is typically set by a
+ * {@link LanguageDetectionPreProcessor} executed before the intent recognition. Inputs are routed to the default
+ * provider (i.e. the provider of the first supported language) if the session does not contain a supported
+ * language.
+ * <p>
+ * Intent and entity definitions are registered, deleted, and trained in all the language-specific providers. The
+ * {@link XatkitSession}s returned by {@link #createSession(String)} are created by the default provider. When an
+ * input is routed to another provider, this provider creates a session of this provider with the same identifier
+ * and the contexts of the {@link XatkitSession} used by the bot. These sessions are not stored: the contexts of the
+ * bot session are the only state shared between the recognitions.
+ * <p>
+ * The recognized intents are logged in the {@link RecognitionMonitor} of this provider, the language-specific
+ * providers should be created without {@link RecognitionMonitor}.
+ *
+ * @see IntentRecognitionProviderFactory#RECOGNITION_LANGUAGES_KEY
+ */
+public class LanguageRoutingIntentRecognitionProvider extends IntentRecognitionProvider {
+
+    /**
+     * The language-specific {@link IntentRecognitionProvider}s, indexed by language.
+     */
+    private final Map<String, IntentRecognitionProvider> providers;
+
+    /**
+     * The language of the default {@link IntentRecognitionProvider}.
+     */
+    private final String defaultLanguage;
+
+    /**
+     * The {@link RecognitionMonitor} used to track intent matching information.
+     */
+    @Nullable
+    private final RecognitionMonitor recognitionMonitor;
+
+    /**
+     * Constructs a {@link LanguageRoutingIntentRecognitionProvider} dispatching the inputs to the provided
+     * {@code providers}.
+     * <p>
+     * The first provider of the provided {@link Map} is the default one.
+     *
+     * @param providers          the language-specific {@link IntentRecognitionProvider}s, indexed by language
+     * @param recognitionMonitor the {@link RecognitionMonitor} instance storing intent matching information
+     * @throws NullPointerException     if the provided {@code providers} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code providers} is empty
+     */
+    public LanguageRoutingIntentRecognitionProvider(Map<String, ? extends IntentRecognitionProvider> providers,
+                                                    @Nullable RecognitionMonitor recognitionMonitor) {
+        checkNotNull(providers, "Cannot create a %s with the provided providers %s",
+                LanguageRoutingIntentRecognitionProvider.class.getSimpleName(), providers);
+        checkArgument(!providers.isEmpty(), "Cannot create a %s with an empty map of providers",
+                LanguageRoutingIntentRecognitionProvider.class.getSimpleName());
+        this.providers = Collections.unmodifiableMap(new LinkedHashMap<>(providers));
+        this.defaultLanguage = this.providers.keySet().iterator().next();
+        this.recognitionMonitor = recognitionMonitor;
+        Log.info("Starting {0} (languages={1}, default={2})", this.getClass().getSimpleName(),
+                this.providers.keySet(), defaultLanguage);
+    }
+
+    /**
+     * Returns the language-specific {@link IntentRecognitionProvider}s.
+     *
+     * @return an unmodifiable {@link Map} containing the language-specific providers, indexed by language
+     */
+    public Map<String, IntentRecognitionProvider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Returns the language of the default {@link IntentRecognitionProvider}.
+     *
+     * @return the default language
+     */
+    public String getDefaultLanguage() {
+        return defaultLanguage;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provided {@code entityDefinition} is registered in all the language-specific providers.
+     */
+    @Override
+    protected void registerEntityDefinitionInternal(EntityDefinition entityDefinition) {
+        providers.values().forEach(p -> p.registerEntityDefinition(entityDefinition));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provided {@code intentDefinition} is registered in all the language-specific providers.
+     */
+    @Override
+    protected void registerIntentDefinitionInternal(IntentDefinition intentDefinition) {
+        providers.values().forEach(p -> p.registerIntentDefinition(intentDefinition));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provided {@code entityDefinition} is deleted from all the language-specific providers.
+     */
+    @Override
+    protected void deleteEntityDefinitionInternal(EntityDefinition entityDefinition) {
+        providers.values().forEach(p -> p.deleteEntityDefinition(entityDefinition));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The provided {@code intentDefinition} is deleted from all the language-specific providers.
+     */
+    @Override
+    protected void deleteIntentDefinitionInternal(IntentDefinition intentDefinition) {
+        providers.values().forEach(p -> p.deleteIntentDefinition(intentDefinition));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method trains the language-specific providers sequentially.
+     */
+    @Override
+    public void trainMLEngine() {
+        providers.values().forEach(IntentRecognitionProvider::trainMLEngine);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method starts the training of all the language-specific providers, and returns a
+     * {@link CompletableFuture} completed when all of them are trained.
+     */
+    @Override
+    public CompletableFuture<Void> trainMLEngineAsync() {
+        return CompletableFuture.allOf(providers.values().stream()
+                .map(IntentRecognitionProvider::trainMLEngineAsync)
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The returned {@link XatkitSession} is created by the default provider.
+     */
+    @Override
+    public XatkitSession createSession(String sessionId) {
+        return providers.get(defaultLanguage).createSession(sessionId);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This method shuts down all the language-specific providers.
+     */
+    @Override
+    protected void shutdownInternal() {
+        providers.values().stream().filter(p -> !p.isShutdown()).forEach(IntentRecognitionProvider::shutdown);
+        if (nonNull(this.recognitionMonitor)) {
+            this.recognitionMonitor.shutdown();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isShutdown() {
+        return providers.values().stream().allMatch(IntentRecognitionProvider::isShutdown);
+    }
+
+    /**
+     * Returns the {@link RecognizedIntent} computed by the provider of the language stored in the provided {@code
+     * session}.
+     *
+     * @param input   the textual input to process and extract the intent from
+     * @param session the {@link XatkitSession} used to access context information
+     * @return the {@link RecognizedIntent} extracted from the provided {@code input} and {@code session}
+     * @see LanguageDetectionPreProcessor#DETECTED_LANGUAGE_SESSION_KEY
+     */
+    @Override
+    protected RecognizedIntent getIntentInternal(String input, XatkitSession session) {
+        String language = getLanguage(session);
+        IntentRecognitionProvider provider = providers.get(language);
+        RecognizedIntent recognizedIntent = provider.getIntentInternal(input, getLanguageSession(language, session));
+        if (nonNull(recognitionMonitor)) {
+            recognitionMonitor.logRecognizedIntent(session, recognizedIntent);
+        }
+        return recognizedIntent;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Nullable
+    public RecognitionMonitor getRecognitionMonitor() {
+        return recognitionMonitor;
+    }
+
+    /**
+     * Returns the supported language stored in the provided {@code session}.
+     *
+     * @param session the {@link XatkitSession} to retrieve the language from
+     * @return the language stored in the session, or the default language if the session does not contain a
+     * supported language
+     */
+    private String getLanguage(XatkitSession session) {
+        Object language = session.get(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY);
+        if (isNull(language)) {
+            return defaultLanguage;
+        }
+        if (!providers.containsKey(language)) {
+            Log.debug("No provider registered for the language {0}, using the default one ({1})", language,
+                    defaultLanguage);
+            return defaultLanguage;
+        }
+        return (String) language;
+    }
+
+    /**
+     * Returns the session of the provider of the given {@code language} corresponding to the provided {@code
+     * session}.
+     * <p>
+     * This method returns the provided {@code session} if the given {@code language} is the default one. Otherwise
+     * it returns a new session created by the provider of the given {@code language} for the identifier of the
+     * provided {@code session}, containing a copy of the contexts of the provided {@code session}. Creating a new
+     * session for each input ensures that the contexts that expired in the bot session are not used by the
+     * provider.
+     *
+     * @param language the language of the provider to retrieve the session of
+     * @param session  the {@link XatkitSession} used by the bot
+     * @return the session of the provider of the given {@code language}
+     */
+    private XatkitSession getLanguageSession(String language, XatkitSession session) {
+        if (language.equals(defaultLanguage)) {
+            return session;
+        }
+        XatkitSession languageSession = providers.get(language).createSession(session.getSessionId());
+        languageSession.getRuntimeContexts().merge(session.getRuntimeContexts());
+        return languageSession;
+    }
+}
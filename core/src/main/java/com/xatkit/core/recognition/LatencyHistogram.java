@@ -0,0 +1,176 @@
+package com.xatkit.core.recognition;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+
+/**
+ * A lock-free histogram of latency values expressed in nanoseconds.
+ * <p>
+ * This histogram uses a log-linear bucketing scheme similar to HdrHistogram: values lower than {@code 128} are
+ * stored in unit-wide buckets, and larger values are stored in buckets whose width doubles with each power of two,
+ * each power of two being split into {@code 64} sub-buckets. The relative error of the reported values is lower
+ * than {@code 1.6%}, and the histogram covers the whole {@code long} range with a fixed array of counters.
+ * <p>
+ * Recording a value does not allocate any object and does not acquire any lock, and can be performed concurrently
+ * by multiple threads. Percentiles computed while values are recorded may not reflect the values recorded during
+ * their computation.
+ *
+ * @see LatencyMonitor
+ */
+public class LatencyHistogram {
+
+    /**
+     * The number of bits used to index the sub-buckets of a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 6;
+
+    /**
+     * The number of counters required to cover the {@code long} range.
+     */
+    private static final int COUNTER_COUNT = ((Long.SIZE - 2 - SUB_BUCKET_BITS) << SUB_BUCKET_BITS)
+            + (2 << SUB_BUCKET_BITS);
+
+    /**
+     * The counters of the buckets.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(COUNTER_COUNT);
+
+    /**
+     * The total number of recorded values.
+     */
+    private final AtomicLong totalCount = new AtomicLong();
+
+    /**
+     * The sum of the recorded values.
+     */
+    private final AtomicLong totalValue = new AtomicLong();
+
+    /**
+     * The maximum recorded value.
+     */
+    private final AtomicLong maxValue = new AtomicLong();
+
+    /**
+     * Records the provided {@code value}.
+     *
+     * @param value the value to record (in nanoseconds)
+     * @throws IllegalArgumentException if the provided {@code value} is negative
+     */
+    public void record(long value) {
+        checkArgument(value >= 0, "Cannot record the provided value %s, the value must be positive", value);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.incrementAndGet();
+        totalValue.addAndGet(value);
+        long currentMax = maxValue.get();
+        while (value > currentMax && !maxValue.compareAndSet(currentMax, value)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    /**
+     * Adds the values recorded by the provided {@code other} histogram to this histogram.
+     *
+     * @param other the histogram to add the values of
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            long count = other.counts.get(i);
+            if (count > 0) {
+                counts.addAndGet(i, count);
+            }
+        }
+        totalCount.addAndGet(other.totalCount.get());
+        totalValue.addAndGet(other.totalValue.get());
+        long otherMax = other.maxValue.get();
+        long currentMax = maxValue.get();
+        while (otherMax > currentMax && !maxValue.compareAndSet(currentMax, otherMax)) {
+            currentMax = maxValue.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Returns the maximum recorded value.
+     *
+     * @return the maximum recorded value, or {@code 0} if the histogram is empty
+     */
+    public long getMaxValue() {
+        return maxValue.get();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean of the recorded values, or {@code 0} if the histogram is empty
+     */
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : totalValue.get() / (double) count;
+    }
+
+    /**
+     * Returns the value at the provided {@code percentile}.
+     * <p>
+     * The returned value is the highest value equivalent to the recorded values at the provided {@code percentile}
+     * (i.e. the upper bound of their bucket), and is never greater than {@link #getMaxValue()}.
+     *
+     * @param percentile the percentile to compute, between {@code 0} and {@code 100}
+     * @return the value at the provided {@code percentile}, or {@code 0} if the histogram is empty
+     * @throws IllegalArgumentException if the provided {@code percentile} is not between {@code 0} and {@code 100}
+     */
+    public long getValueAtPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "Cannot compute the percentile %s, the percentile " +
+                "must be between 0 and 100", percentile);
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < COUNTER_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestEquivalentValue(i), getMaxValue());
+            }
+        }
+        return getMaxValue();
+    }
+
+    /**
+     * Returns the index of the counter associated to the provided {@code value}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param value the value to compute the index of
+     * @return the index of the counter associated to the provided {@code value}
+     */
+    static int indexOf(long value) {
+        int magnitude = Math.max(0, Long.SIZE - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS - 1);
+        return (magnitude << SUB_BUCKET_BITS) + (int) (value >>> magnitude);
+    }
+
+    /**
+     * Returns the highest value stored in the counter at the provided {@code index}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param index the index of the counter
+     * @return the highest value stored in the counter
+     */
+    static long highestEquivalentValue(int index) {
+        int magnitude = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        long subBucket = index - ((long) magnitude << SUB_BUCKET_BITS);
+        long lowestValue = subBucket << magnitude;
+        return lowestValue + (1L << magnitude) - 1;
+    }
+}
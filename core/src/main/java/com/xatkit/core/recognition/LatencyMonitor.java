@@ -0,0 +1,320 @@
+package com.xatkit.core.recognition;
+
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.xatkit.core.server.HttpMethod;
+import com.xatkit.core.server.RestHandlerFactory;
+import com.xatkit.core.server.XatkitServer;
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.configuration2.Configuration;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Records the latency of the stages of the intent recognition pipeline.
+ * <p>
+ * This class records the execution time (in nanoseconds) of each pre-processor, intent recognition provider, and
+ * post-processor into {@link LatencyHistogram}s, and registers a set of REST endpoints allowing to query them from
+ * external applications. Latencies are recorded in time windows: the current window is closed and a new one is
+ * started every {@link #LATENCY_WINDOW_KEY} milliseconds, or when it is explicitly reset.
+ * <p>
+ * The following endpoints can be used to access the recorded latencies:
+ * <ul>
+ * <li><b>GET: /analytics/latency</b>: returns a JSON object containing the {@code p50}, {@code p99}, and {@code
+ * max} latencies of each stage for the current and the previous windows</li>
+ * <li><b>POST: /analytics/latency/reset</b>: closes the current window, starts a new one, and returns the
+ * latencies of the closed window</li>
+ * </ul>
+ *
+ * @see IntentRecognitionProvider#getIntent(String, com.xatkit.core.session.XatkitSession)
+ */
+public class LatencyMonitor {
+
+    /**
+     * The {@link Configuration} key to specify the length of the latency windows (in milliseconds).
+     * <p>
+     * This property is optional, and is set to {@code 60000} (one minute) if it is not specified. Setting this
+     * property to {@code 0} disables the automatic window rotation, meaning that windows are only closed when they
+     * are explicitly reset.
+     */
+    public static final String LATENCY_WINDOW_KEY = "xatkit.recognition.latency.window";
+
+    /**
+     * The default length of the latency windows (in milliseconds).
+     */
+    public static final long DEFAULT_LATENCY_WINDOW = 60000;
+
+    /**
+     * The prefix of the names of the pre-processor stages.
+     */
+    public static final String PRE_PROCESSOR_STAGE_PREFIX = "preprocessor:";
+
+    /**
+     * The prefix of the names of the intent recognition stages.
+     */
+    public static final String RECOGNITION_STAGE_PREFIX = "recognition:";
+
+    /**
+     * The prefix of the names of the post-processor stages.
+     */
+    public static final String POST_PROCESSOR_STAGE_PREFIX = "postprocessor:";
+
+    /**
+     * The name of the stage representing the whole intent recognition pipeline.
+     */
+    public static final String TOTAL_STAGE = "total";
+
+    /**
+     * The length of the latency windows (in milliseconds).
+     */
+    private final long windowLength;
+
+    /**
+     * The clock used to compute the window boundaries (in milliseconds).
+     */
+    private final LongSupplier clock;
+
+    /**
+     * The window currently recording latencies.
+     */
+    private volatile Window currentWindow;
+
+    /**
+     * The last closed window.
+     * <p>
+     * This attribute is {@code null} if no window has been closed yet.
+     */
+    @Nullable
+    private volatile Window previousWindow;
+
+    /**
+     * Constructs a {@link LatencyMonitor} with the provided {@code configuration}.
+     * <p>
+     * This constructor registers the REST endpoints allowing to query the recorded latencies.
+     *
+     * @param xatkitServer  the {@link XatkitServer} instance used to register the REST endpoints
+     * @param configuration the Xatkit {@link Configuration}
+     * @throws NullPointerException     if the provided {@code xatkitServer} or {@code configuration} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code configuration} contains a negative window length
+     * @see #LATENCY_WINDOW_KEY
+     */
+    public LatencyMonitor(XatkitServer xatkitServer, Configuration configuration) {
+        this(configuration.getLong(LATENCY_WINDOW_KEY, DEFAULT_LATENCY_WINDOW), System::currentTimeMillis);
+        checkNotNull(xatkitServer, "Cannot create a %s with the provided %s %s", LatencyMonitor.class.getSimpleName(),
+                XatkitServer.class.getSimpleName(), xatkitServer);
+        Log.info("Starting intent recognition latency monitoring (window={0}ms)", windowLength);
+        this.registerServerEndpoints(xatkitServer);
+    }
+
+    /**
+     * Constructs a {@link LatencyMonitor} with the provided {@code windowLength} and {@code clock}.
+     * <p>
+     * This constructor does not register the REST endpoints, and is package-private for testing purposes.
+     *
+     * @param windowLength the length of the latency windows (in milliseconds)
+     * @param clock        the clock used to compute the window boundaries (in milliseconds)
+     * @throws IllegalArgumentException if the provided {@code windowLength} is negative
+     */
+    LatencyMonitor(long windowLength, LongSupplier clock) {
+        checkArgument(windowLength >= 0, "Cannot create a %s with the provided window length %s, the window length " +
+                "must be positive", LatencyMonitor.class.getSimpleName(), windowLength);
+        this.windowLength = windowLength;
+        this.clock = clock;
+        this.currentWindow = new Window(clock.getAsLong());
+    }
+
+    /**
+     * Records the provided {@code nanos} latency for the given {@code stage}.
+     * <p>
+     * This method does not acquire any lock, except when the current window needs to be closed.
+     *
+     * @param stage the name of the stage to record the latency of
+     * @param nanos the latency to record (in nanoseconds)
+     */
+    public void record(String stage, long nanos) {
+        Window window = getCurrentWindow();
+        LatencyHistogram histogram = window.histograms.get(stage);
+        if (isNull(histogram)) {
+            histogram = window.histograms.computeIfAbsent(stage, k -> new LatencyHistogram());
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Closes the current window and starts a new one.
+     *
+     * @return a {@link JsonObject} containing the latencies of the closed window
+     */
+    public synchronized JsonObject reset() {
+        Window closedWindow = this.currentWindow;
+        closeCurrentWindow(closedWindow);
+        return toJson(closedWindow);
+    }
+
+    /**
+     * Returns a {@link JsonObject} containing the latencies of the current and the previous windows.
+     * <p>
+     * The listing below shows an example of the returned JSON payload (latencies are expressed in nanoseconds):
+     * <pre>
+     * {@code
+     * {
+     *     "unit": "ns",
+     *     "windowLength": 60000,
+     *     "current": {
+     *         "start": 1582543925719,
+     *         "stages": {
+     *             "postprocessor:EnglishLexiconSentimentPostProcessor": {
+     *                 "count": 12,
+     *                 "mean": 9213.5,
+     *                 "p50": 8447,
+     *                 "p99": 21312,
+     *                 "max": 21312
+     *             },
+     *             "recognition:DialogFlowApi": {
+     *                 "count": 12,
+     *                 "mean": 8.5133946E7,
+     *                 "p50": 80740351,
+     *                 "p99": 121101004,
+     *                 "max": 121101004
+     *             },
+     *             "total": {
+     *                 "count": 12,
+     *                 "mean": 8.5167302E7,
+     *                 "p50": 80740351,
+     *                 "p99": 121140311,
+     *                 "max": 121140311
+     *             }
+     *         }
+     *     },
+     *     "previous": null
+     * }
+     * }
+     * </pre>
+     *
+     * @return a {@link JsonObject} containing the latencies of the current and the previous windows
+     */
+    public JsonObject getLatencies() {
+        Window window = getCurrentWindow();
+        Window previous = this.previousWindow;
+        JsonObject result = new JsonObject();
+        result.addProperty("unit", "ns");
+        result.addProperty("windowLength", windowLength);
+        result.add("current", toJson(window));
+        result.add("previous", nonNull(previous) ? toJson(previous) : JsonNull.INSTANCE);
+        return result;
+    }
+
+    /**
+     * Returns the window currently recording latencies, closing it if it has expired.
+     *
+     * @return the window currently recording latencies
+     */
+    private Window getCurrentWindow() {
+        Window window = this.currentWindow;
+        if (windowLength > 0 && clock.getAsLong() - window.start >= windowLength) {
+            synchronized (this) {
+                if (this.currentWindow == window) {
+                    closeCurrentWindow(window);
+                }
+                window = this.currentWindow;
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Closes the provided {@code window} and starts a new one.
+     * <p>
+     * This method must be called while holding this object's lock.
+     *
+     * @param window the current window to close
+     */
+    private void closeCurrentWindow(Window window) {
+        long now = clock.getAsLong();
+        window.end = now;
+        this.previousWindow = window;
+        this.currentWindow = new Window(now);
+    }
+
+    /**
+     * Creates a {@link JsonObject} representing the provided {@code window}.
+     *
+     * @param window the window to translate to a {@link JsonObject}
+     * @return the created {@link JsonObject}
+     */
+    private static JsonObject toJson(Window window) {
+        JsonObject windowObject = new JsonObject();
+        windowObject.addProperty("start", window.start);
+        if (window.end >= 0) {
+            windowObject.addProperty("end", window.end);
+        }
+        JsonObject stagesObject = new JsonObject();
+        Map<String, LatencyHistogram> sortedHistograms = new TreeMap<>(window.histograms);
+        for (Map.Entry<String, LatencyHistogram> entry : sortedHistograms.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            JsonObject stageObject = new JsonObject();
+            stageObject.addProperty("count", histogram.getTotalCount());
+            stageObject.addProperty("mean", histogram.getMean());
+            stageObject.addProperty("p50", histogram.getValueAtPercentile(50));
+            stageObject.addProperty("p99", histogram.getValueAtPercentile(99));
+            stageObject.addProperty("max", histogram.getMaxValue());
+            stagesObject.add(entry.getKey(), stageObject);
+        }
+        windowObject.add("stages", stagesObject);
+        return windowObject;
+    }
+
+    /**
+     * Registers the REST endpoints used to retrieve the recorded latencies.
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoints
+     */
+    private void registerServerEndpoints(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/latency",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> getLatencies()));
+        xatkitServer.registerRestEndpoint(HttpMethod.POST, "/analytics/latency/reset",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> reset()));
+    }
+
+    /**
+     * A time window recording the latencies of the pipeline stages.
+     */
+    private static class Window {
+
+        /**
+         * The start time of the window (in milliseconds).
+         */
+        private final long start;
+
+        /**
+         * The end time of the window (in milliseconds).
+         * <p>
+         * This attribute is {@code -1} if the window is not closed.
+         */
+        private volatile long end = -1;
+
+        /**
+         * The {@link LatencyHistogram}s of the stages, indexed by stage name.
+         */
+        private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+        /**
+         * Constructs a {@link Window} starting at the provided {@code start} time.
+         *
+         * @param start the start time of the window (in milliseconds)
+         */
+        private Window(long start) {
+            this.start = start;
+        }
+    }
+}
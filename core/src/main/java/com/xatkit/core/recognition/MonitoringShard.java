@@ -0,0 +1,656 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.core.recognition.MonitoringStatistics.IntentRollup;
+import com.xatkit.core.recognition.MonitoringStatistics.SessionStatistics;
+import com.xatkit.core.recognition.RecognitionMonitor.IntentRecord;
+import fr.inria.atlanmod.commons.log.Log;
+import org.mapdb.Atomic;
+import org.mapdb.BTreeMap;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
+import org.mapdb.serializer.SerializerArrayTuple;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A partition of the records stored by the {@link RecognitionMonitor}.
+ * <p>
+ * Each shard is backed by its own MapDB database, and contains the records of a subset of the sessions along with
+ * their secondary indexes, the statistics of their sessions, and the rollups of their removed records. Shards do
+ * not share any lock: the records of sessions stored in different shards are written and committed in parallel.
+ * <p>
+ * The statistics of the sessions of the shard are aggregated in the {@link MonitoringStatistics} shared by all the
+ * shards of the monitor.
+ * <p>
+ * This class is thread-safe.
+ *
+ * @see RecognitionMonitor#MONITORING_SHARDS_KEY
+ */
+class MonitoringShard {
+
+    /**
+     * The storage backends of the shard databases.
+     */
+    enum Storage {
+
+        /**
+         * The database file is accessed with {@link java.io.RandomAccessFile} reads and writes.
+         */
+        FILE,
+
+        /**
+         * The database file is mapped in memory.
+         * <p>
+         * Memory-mapped files avoid a system call for each read and write, but require a 64-bit JVM to map large
+         * databases. The monitor falls back to {@link #FILE} on platforms that do not support them.
+         */
+        MMAP
+    }
+
+    /**
+     * The name of the database map containing the records.
+     */
+    static final String RECORDS_MAP_NAME = "session_intent_records";
+
+    /**
+     * The name of the database map containing the statistics of each session.
+     */
+    private static final String SESSION_STATISTICS_MAP_NAME = "session_statistics";
+
+    /**
+     * The name of the database set indexing the records by intent name.
+     */
+    private static final String INTENT_INDEX_NAME = "session_intent_records_by_intent";
+
+    /**
+     * The name of the database set indexing the records by matched status.
+     */
+    private static final String STATUS_INDEX_NAME = "session_intent_records_by_status";
+
+    /**
+     * The name of the database map containing the daily rollups of the removed records.
+     */
+    private static final String INTENT_ROLLUPS_MAP_NAME = "daily_intent_rollups";
+
+    /**
+     * The name of the database counter used to generate the record sequence numbers.
+     */
+    private static final String RECORDS_SEQUENCE_NAME = "session_intent_records_sequence";
+
+    /**
+     * The number of records removed between two database commits when compacting the database.
+     * <p>
+     * The writer of the shard is blocked while a batch is removed, this value bounds the time it has to wait.
+     */
+    private static final int COMPACTION_BATCH_SIZE = 1000;
+
+    /**
+     * The database containing the records of the shard.
+     */
+    private final DB db;
+
+    /**
+     * The persistent {@link BTreeMap} containing the records of the shard.
+     * <p>
+     * This map is append-only: each logged intent is stored with its own {@code [sessionId, timestamp, sequence]}
+     * key, where {@code sequence} is a unique number distinguishing the records logged in the same millisecond.
+     * Keys are sorted by session and then by time, allowing to retrieve the records of a session with a prefix
+     * query (see {@link #getSessionRecords(String)}).
+     *
+     * @see IntentRecord
+     */
+    private final BTreeMap<Object[], IntentRecord> records;
+
+    /**
+     * The persistent index of {@link #records} by intent name.
+     * <p>
+     * This index contains a {@code [intentName, timestamp, sessionId, sequence]} key for each record, allowing to
+     * retrieve the records of an intent in a time range without scanning the records of the other intents.
+     *
+     * @see #toIndexKey(Object, Object[])
+     */
+    private final NavigableSet<Object[]> intentIndex;
+
+    /**
+     * The persistent index of {@link #records} by matched status.
+     * <p>
+     * This index contains a {@code [matched, timestamp, sessionId, sequence]} key for each record, where
+     * {@code matched} is {@code false} for the records of the {@code Default_Fallback_Intent}.
+     *
+     * @see #toIndexKey(Object, Object[])
+     */
+    private final NavigableSet<Object[]> statusIndex;
+
+    /**
+     * The persistent {@link BTreeMap} containing the daily rollups of the records removed by the retention policy.
+     * <p>
+     * This map associates a {@code [day, intentName]} key (where {@code day} is the number of days since the epoch,
+     * in UTC) to the aggregated records of the intent over the day.
+     *
+     * @see #compact(long)
+     */
+    private final BTreeMap<Object[], IntentRollup> intentRollups;
+
+    /**
+     * The persistent counter used to generate the sequence number of the written records.
+     */
+    private final Atomic.Long sequence;
+
+    /**
+     * The persistent {@link Map} containing the statistics of each session of the shard.
+     * <p>
+     * This map is updated along with {@link #records} when a record is written.
+     */
+    private final Map<String, SessionStatistics> sessionStatistics;
+
+    /**
+     * The global statistics the statistics of the sessions of the shard are aggregated in.
+     */
+    private final MonitoringStatistics statistics;
+
+    /**
+     * Constructs a {@link MonitoringShard} backed by the provided database {@code file}.
+     * <p>
+     * The statistics of the sessions stored in the shard are added to the provided {@code statistics}. The indexes
+     * and statistics that do not exist in the database (e.g. if it has been created by a previous version of the
+     * monitor) are computed from the stored records.
+     *
+     * @param file                the database file
+     * @param storage             the {@link Storage} backend used to access the database file
+     * @param statistics          the global statistics to aggregate the statistics of the sessions in
+     * @param recomputeStatistics whether the statistics must be recomputed from the stored records
+     */
+    MonitoringShard(File file, Storage storage, MonitoringStatistics statistics, boolean recomputeStatistics) {
+        this.statistics = statistics;
+        DBMaker.Maker dbMaker = DBMaker.fileDB(file);
+        if (storage == Storage.MMAP) {
+            dbMaker = dbMaker.fileMmapEnableIfSupported().fileMmapPreclearDisable().cleanerHackEnable();
+        }
+        this.db = dbMaker.make();
+        this.records = (BTreeMap<Object[], IntentRecord>) db.treeMap(RECORDS_MAP_NAME)
+                .keySerializer(new SerializerArrayTuple(Serializer.STRING, Serializer.LONG, Serializer.LONG))
+                .createOrOpen();
+        this.sequence = db.atomicLong(RECORDS_SEQUENCE_NAME).createOrOpen();
+        boolean indexesExist = db.exists(INTENT_INDEX_NAME) && db.exists(STATUS_INDEX_NAME);
+        this.intentIndex = db.treeSet(INTENT_INDEX_NAME)
+                .serializer(new SerializerArrayTuple(Serializer.STRING, Serializer.LONG, Serializer.STRING,
+                        Serializer.LONG))
+                .createOrOpen();
+        this.statusIndex = db.treeSet(STATUS_INDEX_NAME)
+                .serializer(new SerializerArrayTuple(Serializer.BOOLEAN, Serializer.LONG, Serializer.STRING,
+                        Serializer.LONG))
+                .createOrOpen();
+        if (!indexesExist && !records.isEmpty()) {
+            this.rebuildIndexes();
+        }
+        this.intentRollups = (BTreeMap<Object[], IntentRollup>) db.treeMap(INTENT_ROLLUPS_MAP_NAME)
+                .keySerializer(new SerializerArrayTuple(Serializer.LONG, Serializer.STRING))
+                .createOrOpen();
+        this.sessionStatistics = (Map<String, SessionStatistics>) db.hashMap(SESSION_STATISTICS_MAP_NAME)
+                .keySerializer(Serializer.STRING)
+                .createOrOpen();
+        sessionStatistics.values().forEach(statistics::add);
+        if (recomputeStatistics || (sessionStatistics.isEmpty() && !records.isEmpty())) {
+            this.recomputeStatistics();
+        }
+    }
+
+    /**
+     * Returns the database backing the shard.
+     *
+     * @return the database backing the shard
+     */
+    DB getDb() {
+        return this.db;
+    }
+
+    /**
+     * Writes the provided {@code intentRecord} to the database.
+     * <p>
+     * This method updates the indexes and the statistics of the session, but does not commit the database.
+     *
+     * @param sessionId    the identifier of the session the record belongs to
+     * @param timestamp    the time (in milliseconds) the record has been logged
+     * @param intentRecord the record to write
+     */
+    synchronized void write(String sessionId, long timestamp, IntentRecord intentRecord) {
+        Object[] key = new Object[]{sessionId, timestamp, sequence.incrementAndGet()};
+        records.put(key, intentRecord);
+        indexRecord(key, intentRecord);
+    }
+
+    /**
+     * Writes the provided {@code intentRecord} migrated from a previous version of the monitor to the database.
+     * <p>
+     * Migrated records are stored with the sequence number {@code 0} (written records start at {@code 1}), meaning
+     * that a migration interrupted before it completes can be safely executed again. This method does not commit
+     * the database.
+     *
+     * @param sessionId    the identifier of the session the record belongs to
+     * @param timestamp    the time (in milliseconds) the record has been logged
+     * @param intentRecord the record to write
+     */
+    synchronized void migrate(String sessionId, long timestamp, IntentRecord intentRecord) {
+        Object[] key = new Object[]{sessionId, timestamp, 0L};
+        if (isNull(records.putIfAbsent(key, intentRecord))) {
+            indexRecord(key, intentRecord);
+        }
+    }
+
+    /**
+     * Adds the record with the provided {@code key} to the indexes and the statistics of its session.
+     *
+     * @param key          the {@code [sessionId, timestamp, sequence]} key of the record
+     * @param intentRecord the record
+     */
+    private void indexRecord(Object[] key, IntentRecord intentRecord) {
+        addToIndexes(key, intentRecord);
+        String sessionId = getSessionId(key);
+        SessionStatistics sessionStats = sessionStatistics.get(sessionId);
+        synchronized (statistics) {
+            if (isNull(sessionStats)) {
+                sessionStats = new SessionStatistics();
+            } else {
+                statistics.remove(sessionStats);
+            }
+            addRecord(sessionStats, getTimestamp(key), intentRecord);
+            statistics.add(sessionStats);
+        }
+        sessionStatistics.put(sessionId, sessionStats);
+    }
+
+    /**
+     * Commits the pending operations on the database.
+     */
+    void commit() {
+        db.commit();
+    }
+
+    /**
+     * Recomputes the statistics of the sessions of the shard from the stored records.
+     * <p>
+     * This method iterates all the records of the shard, and blocks its writer until the statistics are recomputed.
+     */
+    synchronized void recomputeStatistics() {
+        synchronized (statistics) {
+            sessionStatistics.values().forEach(statistics::remove);
+        }
+        sessionStatistics.clear();
+        for (String sessionId = getFirstSessionId(); nonNull(sessionId); sessionId = getNextSessionId(sessionId)) {
+            updateSessionStatistics(sessionId);
+        }
+        db.commit();
+    }
+
+    /**
+     * Removes the records older than the provided {@code cutoff} from the database.
+     * <p>
+     * The removed records are aggregated into daily rollups for each intent (see {@link #getIntentRollups()}), and
+     * the statistics of their sessions are updated. The records are removed in batches and the database is
+     * committed after each batch, so that the writer of the shard is only blocked while a batch is removed. The
+     * space released by the removed records is not reclaimed by this method (see {@link #reclaimSpace()}).
+     *
+     * @param cutoff the timestamp (exclusive) of the records to remove
+     * @return the number of removed records
+     */
+    long compact(long cutoff) {
+        long removedCount = 0;
+        for (boolean matched : new boolean[]{false, true}) {
+            List<Object[]> batch;
+            do {
+                synchronized (this) {
+                    batch = statusIndex.subSet(new Object[]{matched, Long.MIN_VALUE}, true,
+                            new Object[]{matched, cutoff}, false).stream()
+                            .limit(COMPACTION_BATCH_SIZE)
+                            .collect(Collectors.toList());
+                    Set<String> sessionIds = new HashSet<>();
+                    for (Object[] indexKey : batch) {
+                        Object[] recordKey = toRecordKey(indexKey);
+                        statusIndex.remove(indexKey);
+                        IntentRecord intentRecord = records.remove(recordKey);
+                        if (nonNull(intentRecord)) {
+                            intentIndex.remove(toIndexKey(intentRecord.getIntentName(), recordKey));
+                            addRollup(getTimestamp(recordKey), intentRecord);
+                            sessionIds.add(getSessionId(recordKey));
+                        }
+                    }
+                    sessionIds.forEach(this::updateSessionStatistics);
+                    db.commit();
+                }
+                removedCount += batch.size();
+            } while (batch.size() == COMPACTION_BATCH_SIZE);
+        }
+        return removedCount;
+    }
+
+    /**
+     * Reclaims the space released by the removed records by compacting the database store.
+     * <p>
+     * This method does not acquire the lock of the shard: the database store synchronizes the compaction with the
+     * concurrent writes itself. Note that the store is rewritten during the compaction, and that the writer of the
+     * shard may be blocked until it completes.
+     *
+     * @see #compact(long)
+     */
+    void reclaimSpace() {
+        try {
+            db.getStore().compact();
+        } catch (UnsupportedOperationException e) {
+            Log.warn("Cannot reclaim the space of the removed monitoring records: {0}", e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the provided {@code intentRecord} to the rollup of its intent and day.
+     *
+     * @param timestamp    the timestamp of the record
+     * @param intentRecord the record
+     * @see #intentRollups
+     */
+    private void addRollup(long timestamp, IntentRecord intentRecord) {
+        Object[] rollupKey = new Object[]{Math.floorDiv(timestamp, TimeUnit.DAYS.toMillis(1)),
+                intentRecord.getIntentName()};
+        IntentRollup rollup = intentRollups.get(rollupKey);
+        if (isNull(rollup)) {
+            rollup = new IntentRollup();
+        }
+        rollup.add(intentRecord.getRecognitionConfidence(), intentRecord.getSamplingWeight());
+        intentRollups.put(rollupKey, rollup);
+    }
+
+    /**
+     * Recomputes the statistics of the provided {@code sessionId} from its stored records.
+     * <p>
+     * The statistics of the session are removed if it does not contain any record.
+     *
+     * @param sessionId the identifier of the session to update the statistics of
+     */
+    private void updateSessionStatistics(String sessionId) {
+        SessionStatistics sessionStats = sessionStatistics.get(sessionId);
+        NavigableMap<Object[], IntentRecord> sessionRecords = getSessionRecords(sessionId);
+        SessionStatistics updatedSessionStats = new SessionStatistics();
+        for (Map.Entry<Object[], IntentRecord> recordEntry : sessionRecords.entrySet()) {
+            addRecord(updatedSessionStats, getTimestamp(recordEntry.getKey()), recordEntry.getValue());
+        }
+        synchronized (statistics) {
+            if (nonNull(sessionStats)) {
+                statistics.remove(sessionStats);
+            }
+            if (!sessionRecords.isEmpty()) {
+                statistics.add(updatedSessionStats);
+            }
+        }
+        if (sessionRecords.isEmpty()) {
+            sessionStatistics.remove(sessionId);
+        } else {
+            sessionStatistics.put(sessionId, updatedSessionStats);
+        }
+    }
+
+    /**
+     * Adds the record with the provided {@code key} to the secondary indexes.
+     *
+     * @param key          the {@code [sessionId, timestamp, sequence]} key of the record
+     * @param intentRecord the record
+     * @see #intentIndex
+     * @see #statusIndex
+     */
+    private void addToIndexes(Object[] key, IntentRecord intentRecord) {
+        intentIndex.add(toIndexKey(intentRecord.getIntentName(), key));
+        statusIndex.add(toIndexKey(isMatched(intentRecord), key));
+    }
+
+    /**
+     * Rebuilds the secondary indexes from the stored records.
+     * <p>
+     * This method is called when the database does not contain the indexes (e.g. when it has been created by a
+     * previous version of the monitor).
+     */
+    private synchronized void rebuildIndexes() {
+        Log.info("Building the monitoring indexes");
+        intentIndex.clear();
+        statusIndex.clear();
+        for (Map.Entry<Object[], IntentRecord> recordEntry : records.entrySet()) {
+            addToIndexes(recordEntry.getKey(), recordEntry.getValue());
+        }
+        db.commit();
+        Log.info("Monitoring indexes built for {0} records", records.size());
+    }
+
+    /**
+     * Returns the record with the provided {@code key}.
+     *
+     * @param key the {@code [sessionId, timestamp, sequence]} key of the record
+     * @return the record, or {@code null} if the shard does not contain it
+     */
+    @Nullable
+    IntentRecord getRecord(Object[] key) {
+        return records.get(key);
+    }
+
+    /**
+     * Returns the keys of the records of the shard, sorted by session and time.
+     *
+     * @return a view of the {@code [sessionId, timestamp, sequence]} keys of the records
+     */
+    NavigableSet<Object[]> getRecordKeys() {
+        return records.navigableKeySet();
+    }
+
+    /**
+     * Returns the index of the records by intent name.
+     *
+     * @return a view of the {@code [intentName, timestamp, sessionId, sequence]} index keys
+     * @see #intentIndex
+     */
+    NavigableSet<Object[]> getIntentIndex() {
+        return this.intentIndex;
+    }
+
+    /**
+     * Returns the index of the records by matched status.
+     *
+     * @return a view of the {@code [matched, timestamp, sessionId, sequence]} index keys
+     * @see #statusIndex
+     */
+    NavigableSet<Object[]> getStatusIndex() {
+        return this.statusIndex;
+    }
+
+    /**
+     * Returns the daily rollups of the records removed from the shard.
+     *
+     * @return a view of the {@code [day, intentName]} rollups
+     * @see #intentRollups
+     */
+    NavigableMap<Object[], IntentRollup> getIntentRollups() {
+        return this.intentRollups;
+    }
+
+    /**
+     * Returns whether the shard does not contain any record.
+     *
+     * @return {@code true} if the shard does not contain any record, {@code false} otherwise
+     */
+    boolean isEmpty() {
+        return records.isEmpty();
+    }
+
+    /**
+     * Returns the records of the provided {@code sessionId}, sorted by time.
+     *
+     * @param sessionId the identifier of the session to retrieve the records of
+     * @return a view of the records of the session, or an empty map if the shard does not contain the session
+     */
+    NavigableMap<Object[], IntentRecord> getSessionRecords(String sessionId) {
+        return records.prefixSubMap(new Object[]{sessionId});
+    }
+
+    /**
+     * Returns the first session identifier stored in the shard.
+     *
+     * @return the first session identifier, or {@code null} if the shard does not contain any record
+     */
+    @Nullable
+    String getFirstSessionId() {
+        Map.Entry<Object[], IntentRecord> firstEntry = records.firstEntry();
+        return isNull(firstEntry) ? null : getSessionId(firstEntry.getKey());
+    }
+
+    /**
+     * Returns the session identifier following the provided {@code sessionId} in the shard.
+     * <p>
+     * This method jumps over the records of {@code sessionId} instead of iterating them.
+     *
+     * @param sessionId the identifier of the session to retrieve the successor of
+     * @return the next session identifier, or {@code null} if {@code sessionId} is the last session of the shard
+     */
+    @Nullable
+    String getNextSessionId(String sessionId) {
+        /*
+         * null is greater than any value in array tuple keys.
+         */
+        Object[] nextKey = records.higherKey(new Object[]{sessionId, null});
+        return isNull(nextKey) ? null : getSessionId(nextKey);
+    }
+
+    /**
+     * Commits the pending operations on the database and closes it.
+     */
+    synchronized void close() {
+        if (!db.isClosed()) {
+            db.commit();
+            db.close();
+        }
+    }
+
+    /**
+     * Returns whether the database of the shard is closed.
+     *
+     * @return {@code true} if the database is closed, {@code false} otherwise
+     */
+    boolean isClosed() {
+        return db.isClosed();
+    }
+
+    /**
+     * Returns the keys of the provided {@code keys} set between {@code lowerBound} (inclusive) and
+     * {@code upperBound} (exclusive), and following {@code after}.
+     *
+     * @param keys       the set to select the keys from
+     * @param lowerBound the lower bound of the range
+     * @param upperBound the upper bound of the range
+     * @param after      the key to start after, or {@code null} to start at {@code lowerBound}
+     * @return a view of the selected keys
+     */
+    static NavigableSet<Object[]> selectRange(NavigableSet<Object[]> keys, Object[] lowerBound, Object[] upperBound,
+                                              @Nullable Object[] after) {
+        Comparator<? super Object[]> comparator = keys.comparator();
+        boolean lowerInclusive = true;
+        if (nonNull(after) && comparator.compare(after, lowerBound) >= 0) {
+            lowerBound = after;
+            lowerInclusive = false;
+        }
+        if (comparator.compare(lowerBound, upperBound) >= 0) {
+            return Collections.emptyNavigableSet();
+        }
+        return keys.subSet(lowerBound, lowerInclusive, upperBound, false);
+    }
+
+    /**
+     * Updates the provided {@code sessionStats} with the provided {@code intentRecord}, weighted by its sampling
+     * weight.
+     *
+     * @param sessionStats the {@link SessionStatistics} to update
+     * @param timestamp    the timestamp of the record
+     * @param intentRecord the record
+     */
+    static void addRecord(SessionStatistics sessionStats, long timestamp, IntentRecord intentRecord) {
+        boolean matched = isMatched(intentRecord);
+        sessionStats.add(timestamp, matched, matched ? intentRecord.getRecognitionConfidence() : 0,
+                intentRecord.getSamplingWeight());
+    }
+
+    /**
+     * Returns the index key of the record with the provided {@code recordKey}.
+     * <p>
+     * Index keys are sorted by indexed value and then by time, allowing to retrieve the records associated to an
+     * indexed value in a time range.
+     *
+     * @param indexValue the indexed value of the record
+     * @param recordKey  the {@code [sessionId, timestamp, sequence]} key of the record
+     * @return the {@code [indexValue, timestamp, sessionId, sequence]} index key
+     * @see #toRecordKey(Object[])
+     */
+    static Object[] toIndexKey(Object indexValue, Object[] recordKey) {
+        return new Object[]{indexValue, recordKey[1], recordKey[0], recordKey[2]};
+    }
+
+    /**
+     * Returns the key of the record referenced by the provided {@code indexKey}.
+     *
+     * @param indexKey the {@code [indexValue, timestamp, sessionId, sequence]} index key
+     * @return the {@code [sessionId, timestamp, sequence]} key of the record
+     * @see #toIndexKey(Object, Object[])
+     */
+    static Object[] toRecordKey(Object[] indexKey) {
+        return new Object[]{indexKey[2], indexKey[1], indexKey[3]};
+    }
+
+    /**
+     * Returns whether the input of the provided {@code intentRecord} has been matched.
+     *
+     * @param intentRecord the record to check
+     * @return {@code true} if the input has been matched, {@code false} if it corresponds to the
+     * {@code Default_Fallback_Intent}
+     */
+    static boolean isMatched(IntentRecord intentRecord) {
+        return isMatched(intentRecord.getIntentName());
+    }
+
+    /**
+     * Returns whether the inputs translated into the provided {@code intentName} have been matched.
+     *
+     * @param intentName the name of the intent to check
+     * @return {@code true} if the inputs have been matched, {@code false} if {@code intentName} is the
+     * {@code Default_Fallback_Intent}
+     */
+    static boolean isMatched(String intentName) {
+        return !intentName.equals("Default_Fallback_Intent");
+    }
+
+    /**
+     * Returns the session identifier of the provided record {@code key}.
+     *
+     * @param key the record key
+     * @return the session identifier
+     */
+    static String getSessionId(Object[] key) {
+        return (String) key[0];
+    }
+
+    /**
+     * Returns the timestamp of the provided record {@code key}.
+     *
+     * @param key the record key
+     * @return the timestamp
+     */
+    static long getTimestamp(Object[] key) {
+        return (Long) key[1];
+    }
+}
@@ -0,0 +1,231 @@
+package com.xatkit.core.recognition;
+
+import java.io.Serializable;
+
+/**
+ * Aggregated statistics over the records stored by the {@link RecognitionMonitor}.
+ * <p>
+ * This class maintains the sums and counters needed to compute the global monitoring statistics (number of
+ * sessions, matched and unmatched utterances, average confidence, and average session time) without iterating the
+ * stored records. The statistics are updated by adding and removing {@link SessionStatistics} instances, which are
+ * maintained by the monitor each time a record is written.
+ * <p>
+ * Utterance counts and confidences are weighted by the sampling weight of the records (see {@link SamplingPolicy}),
+ * and estimate the number of utterances received by the monitor rather than the number of stored records.
+ * <p>
+ * This class is thread-safe.
+ */
+class MonitoringStatistics {
+
+    /**
+     * The number of sessions.
+     */
+    private long sessionCount;
+
+    /**
+     * The estimated number of matched utterances.
+     */
+    private double matchedCount;
+
+    /**
+     * The estimated number of unmatched utterances.
+     */
+    private double unmatchedCount;
+
+    /**
+     * The weighted sum of the recognition confidences of the matched utterances.
+     */
+    private double accConfidence;
+
+    /**
+     * The sum of the session durations (in milliseconds).
+     */
+    private long totalSessionTime;
+
+    /**
+     * Adds the provided {@code sessionStatistics} to the aggregated statistics.
+     *
+     * @param sessionStatistics the {@link SessionStatistics} to add
+     */
+    synchronized void add(SessionStatistics sessionStatistics) {
+        this.sessionCount++;
+        this.matchedCount += sessionStatistics.getMatchedCount();
+        this.unmatchedCount += sessionStatistics.getUnmatchedCount();
+        this.accConfidence += sessionStatistics.getAccConfidence();
+        this.totalSessionTime += sessionStatistics.getDuration();
+    }
+
+    /**
+     * Removes the provided {@code sessionStatistics} from the aggregated statistics.
+     *
+     * @param sessionStatistics the {@link SessionStatistics} to remove
+     */
+    synchronized void remove(SessionStatistics sessionStatistics) {
+        this.sessionCount--;
+        this.matchedCount -= sessionStatistics.getMatchedCount();
+        this.unmatchedCount -= sessionStatistics.getUnmatchedCount();
+        this.accConfidence -= sessionStatistics.getAccConfidence();
+        this.totalSessionTime -= sessionStatistics.getDuration();
+    }
+
+    /**
+     * Resets the aggregated statistics.
+     */
+    synchronized void reset() {
+        this.sessionCount = 0;
+        this.matchedCount = 0;
+        this.unmatchedCount = 0;
+        this.accConfidence = 0;
+        this.totalSessionTime = 0;
+    }
+
+    synchronized long getSessionCount() {
+        return this.sessionCount;
+    }
+
+    synchronized double getMatchedCount() {
+        return this.matchedCount;
+    }
+
+    synchronized double getUnmatchedCount() {
+        return this.unmatchedCount;
+    }
+
+    synchronized double getAccConfidence() {
+        return this.accConfidence;
+    }
+
+    synchronized long getTotalSessionTime() {
+        return this.totalSessionTime;
+    }
+
+    /**
+     * The statistics of a single session.
+     * <p>
+     * Instances of this class are persisted by the {@link RecognitionMonitor} along with the records of the session.
+     */
+    static class SessionStatistics implements Serializable {
+
+        private static final long serialVersionUID = 42L;
+
+        /**
+         * The estimated number of matched utterances of the session.
+         */
+        private double matchedCount;
+
+        /**
+         * The estimated number of unmatched utterances of the session.
+         */
+        private double unmatchedCount;
+
+        /**
+         * The weighted sum of the recognition confidences of the matched utterances of the session.
+         */
+        private double accConfidence;
+
+        /**
+         * The timestamp of the first record of the session.
+         */
+        private long startTimestamp;
+
+        /**
+         * The timestamp of the last record of the session.
+         */
+        private long stopTimestamp;
+
+        /**
+         * Updates the statistics with a record of the session.
+         *
+         * @param timestamp  the timestamp of the record
+         * @param matched    whether the utterance of the record has been matched
+         * @param confidence the recognition confidence of the record
+         * @param weight     the sampling weight of the record
+         */
+        void add(long timestamp, boolean matched, double confidence, double weight) {
+            if (matchedCount + unmatchedCount == 0) {
+                this.startTimestamp = timestamp;
+                this.stopTimestamp = timestamp;
+            } else {
+                this.startTimestamp = Math.min(startTimestamp, timestamp);
+                this.stopTimestamp = Math.max(stopTimestamp, timestamp);
+            }
+            if (matched) {
+                this.matchedCount += weight;
+                this.accConfidence += confidence * weight;
+            } else {
+                this.unmatchedCount += weight;
+            }
+        }
+
+        double getMatchedCount() {
+            return this.matchedCount;
+        }
+
+        double getUnmatchedCount() {
+            return this.unmatchedCount;
+        }
+
+        double getAccConfidence() {
+            return this.accConfidence;
+        }
+
+        /**
+         * Returns the duration of the session (in milliseconds).
+         *
+         * @return the time elapsed between the first and the last record of the session
+         */
+        long getDuration() {
+            return this.stopTimestamp - this.startTimestamp;
+        }
+    }
+
+    /**
+     * The aggregated records of an intent over a day.
+     * <p>
+     * Instances of this class are persisted by the {@link RecognitionMonitor} when records are removed by the
+     * retention policy, and summarize the removed records.
+     */
+    static class IntentRollup implements Serializable {
+
+        private static final long serialVersionUID = 42L;
+
+        /**
+         * The estimated number of utterances represented by the aggregated records.
+         */
+        private double count;
+
+        /**
+         * The weighted sum of the recognition confidences of the aggregated records.
+         */
+        private double accConfidence;
+
+        /**
+         * Updates the rollup with a record.
+         *
+         * @param confidence the recognition confidence of the record
+         * @param weight     the sampling weight of the record
+         */
+        void add(double confidence, double weight) {
+            this.count += weight;
+            this.accConfidence += confidence * weight;
+        }
+
+        /**
+         * Adds the records aggregated by the provided {@code other} rollup to this rollup.
+         *
+         * @param other the rollup to add the records of
+         */
+        void add(IntentRollup other) {
+            this.count += other.count;
+            this.accConfidence += other.accConfidence;
+        }
+
+        double getCount() {
+            return this.count;
+        }
+
+        double getAccConfidence() {
+            return this.accConfidence;
+        }
+    }
+}
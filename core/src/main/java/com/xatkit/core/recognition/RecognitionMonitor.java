@@ -3,6 +3,9 @@ package com.xatkit.core.recognition;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+import com.xatkit.core.recognition.MonitoringStatistics.IntentRollup;
+import com.xatkit.core.recognition.MonitoringStatistics.SessionStatistics;
 import com.xatkit.core.server.HttpMethod;
 import com.xatkit.core.server.HttpUtils;
 import com.xatkit.core.server.RestHandlerException;
@@ -13,15 +16,59 @@ import com.xatkit.intent.RecognizedIntent;
 import com.xatkit.util.FileUtils;
 import fr.inria.atlanmod.commons.log.Log;
 import org.apache.commons.configuration2.Configuration;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.NameValuePair;
+import org.apache.http.entity.ContentProducer;
+import org.apache.http.entity.EntityTemplate;
+import org.mapdb.Atomic;
 import org.mapdb.DB;
-import org.mapdb.DBMaker;
 
+import javax.annotation.Nullable;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.Serializable;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
+import static com.xatkit.core.recognition.MonitoringShard.addRecord;
+import static com.xatkit.core.recognition.MonitoringShard.getSessionId;
+import static com.xatkit.core.recognition.MonitoringShard.getTimestamp;
+import static com.xatkit.core.recognition.MonitoringShard.isMatched;
+import static com.xatkit.core.recognition.MonitoringShard.selectRange;
+import static com.xatkit.core.recognition.MonitoringShard.toIndexKey;
+import static com.xatkit.core.recognition.MonitoringShard.toRecordKey;
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkState;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Provides monitoring capabilities for {@link IntentRecognitionProvider}s.
@@ -39,9 +86,61 @@ import static java.util.Objects.isNull;
  * corresponding to unmatched inputs (i.e. inputs that haven't been successfully translated into intents)</li>
  * <li><b>/analytics/monitoring/matched</b>: returns a JSON array containing all the monitoring entries
  * corresponding to matched inputs (i.e. inputs that have been successfully translated into intents)</li>
+ * <li><b>/analytics/monitoring/intent?intentName=name</b>: returns a JSON array containing all the monitoring
+ * entries corresponding to inputs translated into the provided intent</li>
  * <li><b>/analytics/monitoring/sessions/stats</b>: returns a JSON object containing computed statistics over
  * stored sessions (e.g. average time/session, average number of matched inputs/sessions, etc)</li>
+ * <li><b>/analytics/monitoring/summary</b>: returns a JSON object containing global statistics over the stored
+ * information (number of sessions, total matched and unmatched inputs, average confidence)</li>
+ * <li><b>/analytics/monitoring/writer</b>: returns a JSON object containing the state of the background writers
+ * (queue depth, dropped records, commit latencies, etc)</li>
+ * <li><b>/analytics/monitoring/rollups</b>: returns a JSON array containing the daily aggregates of each intent
+ * for the records removed by the retention policy</li>
+ * <li><b>POST: /analytics/monitoring/statistics/recompute</b>: recomputes the statistics from the stored records
+ * </li>
+ * <li><b>POST: /analytics/monitoring/compact</b>: removes the records older than the retention period</li>
+ * <li><b>/analytics/monitoring/export</b>: streams all the stored records as NDJSON or CSV, optionally compressed
+ * with gzip</li>
  * </ul>
+ * <p>
+ * The <i>session</i>, <i>unmatched</i>, <i>matched</i>, <i>intent</i>, and <i>export</i> endpoints support
+ * cursor-based pagination, time range filters, and NDJSON output (see {@link RecordQuery} for the list of supported
+ * parameters). Their results are streamed from the database to the response, and are not built in memory. The
+ * <i>unmatched</i>, <i>matched</i>, and <i>intent</i> endpoints read the records from secondary indexes sorted by
+ * time, and do not scan the records of the other intents.
+ * <p>
+ * The statistics returned by the <i>summary</i> and <i>sessions/stats</i> endpoints (as well as the global
+ * statistics returned by <i>/analytics/monitoring</i>) are maintained incrementally when records are written, and
+ * do not require to iterate the stored records.
+ * <p>
+ * Recognized intents are not written on the intent recognition thread: they are pushed in a bounded queue drained
+ * by a background writer that commits the database in groups (see {@link #MONITORING_BATCH_SIZE_KEY} and
+ * {@link #MONITORING_FLUSH_INTERVAL_KEY}). The guarantees provided when an intent is logged are defined by the
+ * {@link #MONITORING_DURABILITY_KEY} property, and the behavior of the monitor when the queue is full by the
+ * {@link #MONITORING_OVERFLOW_POLICY_KEY} property. Note that the endpoints do not return the records that are
+ * still in the queue.
+ * <p>
+ * The records are stored in an append-only map sorted by session and time. Databases created by previous versions
+ * (where the records of a session were stored in a single value rewritten each time an intent was logged) are
+ * automatically migrated when the monitor is created.
+ * <p>
+ * The records can be partitioned by session in several databases (see {@link #MONITORING_SHARDS_KEY}), each one
+ * with its own background writer, so that the records of concurrent sessions are written and committed in
+ * parallel. The way the database files are accessed is defined by the {@link #MONITORING_STORAGE_KEY} property.
+ * <p>
+ * The records older than {@link #MONITORING_RETENTION_DAYS_KEY} days are periodically removed by a background
+ * compaction (see {@link #compact()}), which aggregates them into daily rollups for each intent before deleting
+ * them. The statistics and the record endpoints only cover the retained records, while the <i>rollups</i> endpoint
+ * covers the removed ones.
+ * <p>
+ * The recognized intents can be sampled to reduce the storage and commit cost of the monitor under load (see
+ * {@link #MONITORING_MATCHED_SAMPLING_RATE_KEY} and {@link #MONITORING_UNMATCHED_SAMPLING_RATE_KEY}), and the
+ * matched intents can be filtered by name (see {@link #MONITORING_ALLOWED_INTENTS_KEY} and
+ * {@link #MONITORING_DENIED_INTENTS_KEY}). The utterance counts and the average confidences returned by the
+ * endpoints are estimated by scaling the stored records with their sampling rates, while the record endpoints only
+ * return the sampled records. The session counts are not estimated: they only include the sessions with at least one
+ * stored record, and the per-session averages of the <i>sessions/stats</i> endpoint are not computed when sampling
+ * or filtering is enabled.
  */
 public class RecognitionMonitor {
 
@@ -50,13 +149,193 @@ public class RecognitionMonitor {
      * <p>
      * This property is optional, and is set with the value {@code ./data} if it is not specified.
      */
-    static final String DATA_DIRECTORY_KEY = "xatkit.data.directory";
+    public static final String DATA_DIRECTORY_KEY = "xatkit.data.directory";
 
     /**
      * The default directory used to store data when no {@link #DATA_DIRECTORY_KEY} is provided in the
      * {@link Configuration}.
      */
-    static final String DEFAULT_DATA_DIRECTORY = "data";
+    public static final String DEFAULT_DATA_DIRECTORY = "data";
+
+    /**
+     * The {@link Configuration} key to specify the guarantees provided when a recognized intent is logged.
+     * <p>
+     * This property is optional, and is set with the value {@code ASYNC} if it is not specified. The following
+     * values are supported:
+     * <ul>
+     * <li><b>SYNC</b>: logging an intent returns once it has been committed to the database. Intents logged
+     * concurrently are committed together</li>
+     * <li><b>ASYNC</b>: logging an intent returns once it has been queued, the intent is committed within
+     * {@link #MONITORING_FLUSH_INTERVAL_KEY} milliseconds</li>
+     * <li><b>NONE</b>: logging an intent returns once it has been queued, the intent is written in the background
+     * but only committed when the monitor is shut down</li>
+     * </ul>
+     */
+    public static final String MONITORING_DURABILITY_KEY = "xatkit.recognition.monitoring.durability";
+
+    /**
+     * The {@link Configuration} key to specify the maximum number of recognized intents waiting to be written.
+     * <p>
+     * This property is optional, and is set with the value {@code 10000} if it is not specified. Each shard has its
+     * own queue (see {@link #MONITORING_SHARDS_KEY}).
+     */
+    public static final String MONITORING_QUEUE_CAPACITY_KEY = "xatkit.recognition.monitoring.queue_capacity";
+
+    /**
+     * The {@link Configuration} key to specify the behavior of the monitor when the queue of recognized intents
+     * waiting to be written is full.
+     * <p>
+     * This property is optional, and is set with the value {@code BLOCK} if it is not specified. The following
+     * values are supported:
+     * <ul>
+     * <li><b>BLOCK</b>: the intent recognition thread waits until the queue has room for the intent</li>
+     * <li><b>DROP_NEWEST</b>: the intent to log is dropped</li>
+     * <li><b>DROP_OLDEST</b>: the oldest intent of the queue is dropped</li>
+     * </ul>
+     */
+    public static final String MONITORING_OVERFLOW_POLICY_KEY = "xatkit.recognition.monitoring.overflow_policy";
+
+    /**
+     * The {@link Configuration} key to specify the number of written intents triggering a database commit.
+     * <p>
+     * This property is optional, and is set with the value {@code 256} if it is not specified.
+     */
+    public static final String MONITORING_BATCH_SIZE_KEY = "xatkit.recognition.monitoring.batch_size";
+
+    /**
+     * The {@link Configuration} key to specify the maximum time (in milliseconds) a written intent can stay
+     * uncommitted.
+     * <p>
+     * This property is optional, and is set with the value {@code 100} if it is not specified.
+     */
+    public static final String MONITORING_FLUSH_INTERVAL_KEY = "xatkit.recognition.monitoring.flush_interval";
+
+    /**
+     * The {@link Configuration} key to specify whether the statistics must be recomputed from the stored records
+     * when the monitor is created.
+     * <p>
+     * This property is optional, and is set with the value {@code false} if it is not specified. Statistics are
+     * always recomputed if the database does not contain them (e.g. when it has been created by a previous version
+     * of the monitor).
+     */
+    public static final String MONITORING_RECOMPUTE_STATISTICS_KEY =
+            "xatkit.recognition.monitoring.recompute_statistics";
+
+    /**
+     * The {@link Configuration} key to specify the number of days the records are kept in the database.
+     * <p>
+     * This property is optional. If it is set with a positive value the records older than the specified number of
+     * days are periodically rolled up and removed from the database (see {@link #compact()}), otherwise the records
+     * are never removed.
+     */
+    public static final String MONITORING_RETENTION_DAYS_KEY = "xatkit.recognition.monitoring.retention_days";
+
+    /**
+     * The {@link Configuration} key to specify the time (in minutes) between two compactions of the database.
+     * <p>
+     * This property is optional, and is set with the value {@code 60} if it is not specified. It is ignored if no
+     * {@link #MONITORING_RETENTION_DAYS_KEY} is specified.
+     */
+    public static final String MONITORING_COMPACTION_INTERVAL_KEY =
+            "xatkit.recognition.monitoring.compaction_interval";
+
+    /**
+     * The {@link Configuration} key to specify whether the compactions reclaim the space of the removed records.
+     * <p>
+     * This property is optional, and is set with the value {@code false} if it is not specified. When enabled, the
+     * database stores are compacted after the removal of the records older than the retention period. The stores
+     * are rewritten during this step, which may block the background writers (and the calls to
+     * {@link #logRecognizedIntent(XatkitSession, RecognizedIntent)} once their queues are full) until it completes.
+     * This property is ignored if no {@link #MONITORING_RETENTION_DAYS_KEY} is specified.
+     */
+    public static final String MONITORING_RECLAIM_SPACE_KEY = "xatkit.recognition.monitoring.reclaim_space";
+
+    /**
+     * The {@link Configuration} key to specify the number of databases the records are partitioned in.
+     * <p>
+     * This property is optional, and is set with the value {@code 1} if it is not specified. The records of a
+     * session are stored in the database selected by the hash of its identifier, and each database is written by
+     * its own background writer. The first database is stored in the {@code analytics.db} file, the next ones in
+     * {@code analytics-<index>.db} files.
+     * <p>
+     * <b>Note</b>: the number of databases cannot be changed once records have been stored, the monitor fails to
+     * start if the value of this property does not match the one used to create the existing databases.
+     */
+    public static final String MONITORING_SHARDS_KEY = "xatkit.recognition.monitoring.shards";
+
+    /**
+     * The {@link Configuration} key to specify how the database files are accessed.
+     * <p>
+     * This property is optional, and is set with the value {@code FILE} if it is not specified. The following
+     * values are supported:
+     * <ul>
+     * <li><b>FILE</b>: the database files are read and written with {@link java.io.RandomAccessFile}</li>
+     * <li><b>MMAP</b>: the database files are mapped in memory, avoiding a system call for each read and write. The
+     * monitor falls back to {@code FILE} on platforms that do not support memory-mapped files</li>
+     * </ul>
+     */
+    public static final String MONITORING_STORAGE_KEY = "xatkit.recognition.monitoring.storage";
+
+    /**
+     * The {@link Configuration} key to specify the fraction of the matched utterances to store.
+     * <p>
+     * This property is optional, and is set with the value {@code 1.0} if it is not specified. The value must be
+     * contained in {@code [0..1]}, each matched utterance is stored with this probability.
+     */
+    public static final String MONITORING_MATCHED_SAMPLING_RATE_KEY =
+            "xatkit.recognition.monitoring.sampling.matched_rate";
+
+    /**
+     * The {@link Configuration} key to specify the fraction of the unmatched utterances to store.
+     * <p>
+     * This property is optional, and is set with the value {@code 1.0} if it is not specified. The value must be
+     * contained in {@code [0..1]}, each unmatched utterance is stored with this probability.
+     */
+    public static final String MONITORING_UNMATCHED_SAMPLING_RATE_KEY =
+            "xatkit.recognition.monitoring.sampling.unmatched_rate";
+
+    /**
+     * The {@link Configuration} key to specify the comma-separated names of the matched intents to store.
+     * <p>
+     * This property is optional. If it is specified only the listed intents are stored, otherwise all the matched
+     * intents are stored. Unmatched utterances are not affected by this property.
+     */
+    public static final String MONITORING_ALLOWED_INTENTS_KEY =
+            "xatkit.recognition.monitoring.sampling.allowed_intents";
+
+    /**
+     * The {@link Configuration} key to specify the comma-separated names of the matched intents that are never
+     * stored.
+     * <p>
+     * This property is optional. Unmatched utterances are not affected by this property.
+     */
+    public static final String MONITORING_DENIED_INTENTS_KEY =
+            "xatkit.recognition.monitoring.sampling.denied_intents";
+
+    /**
+     * The default maximum number of recognized intents waiting to be written.
+     */
+    static final int DEFAULT_QUEUE_CAPACITY = 10000;
+
+    /**
+     * The default number of written intents triggering a database commit.
+     */
+    static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * The default maximum time (in milliseconds) a written intent can stay uncommitted.
+     */
+    static final long DEFAULT_FLUSH_INTERVAL = 100;
+
+    /**
+     * The default time (in minutes) between two compactions of the database.
+     */
+    static final long DEFAULT_COMPACTION_INTERVAL = 60;
+
+    /**
+     * The default number of databases the records are partitioned in.
+     */
+    static final int DEFAULT_SHARD_COUNT = 1;
 
     /**
      * The directory used to store analytics-related data within the specified {@code data} directory.
@@ -73,22 +352,76 @@ public class RecognitionMonitor {
     static final String ANALYTICS_DB_FILE = "analytics.db";
 
     /**
-     * The persistent {@link Map} containing recognition monitoring information.
+     * The name of the database map containing the records stored by previous versions of the monitor.
+     *
+     * @see #migrateLegacyRecords()
+     */
+    static final String LEGACY_RECORDS_MAP_NAME = "intent_records";
+
+    /**
+     * The columns of the CSV exports.
+     *
+     * @see #registerExport(XatkitServer)
+     */
+    private static final String[] EXPORT_CSV_COLUMNS = {"sessionId", "timestamp", "utterance", "intent", "matched",
+            "confidence", "samplingWeight", "cursor"};
+
+    /**
+     * Sorts the {@code [indexValue, timestamp, sessionId, sequence]} index keys by time regardless of their indexed
+     * value.
      * <p>
-     * This {@link Map} uses {@code sessionId} as its primary index, and each {@code sessionId} is associated to
-     * another {@link Map} containing {@code timestamp -> IntentRecord} bindings.
+     * This order is used to merge the keys of several indexed values, and is consistent with the order of the keys
+     * of a single indexed value.
+     */
+    private static final Comparator<Object[]> INDEX_KEY_TIME_ORDER = Comparator.comparing((Object[] k) -> (Long) k[1])
+            .thenComparing(k -> (String) k[2]).thenComparing(k -> (Long) k[3]);
+
+    /**
+     * The name of the database counter storing the number of shards the records are partitioned in.
      * <p>
-     * Note that {@code timestamp -> IntentRecord} internal {@link Map}s are ordered, allowing to easily sort
-     * {@link IntentRecord}s over time.
+     * This counter is stored in the first shard.
+     */
+    private static final String SHARD_COUNT_NAME = "analytics_shard_count";
+
+    /**
+     * The shards containing the records, indexed by {@link #getShardIndex(String)}.
+     */
+    private List<MonitoringShard> shards;
+
+    /**
+     * The writers persisting the recognized intents in the background, one for each shard.
+     */
+    private List<GroupCommitWriter<LogEntry>> writers;
+
+    /**
+     * The policy selecting the recognized intents to store.
+     */
+    private SamplingPolicy samplingPolicy;
+
+    /**
+     * The global statistics, aggregated from the statistics of the sessions of each shard.
+     */
+    private final MonitoringStatistics statistics = new MonitoringStatistics();
+
+    /**
+     * The time (in milliseconds) the records are kept in the database, or {@code 0} if they are never removed.
      *
-     * @see IntentRecord
+     * @see #MONITORING_RETENTION_DAYS_KEY
+     */
+    private long retention;
+
+    /**
+     * The executor running the periodic compactions, or {@code null} if the records are never removed.
      */
-    private Map<String, Map<Long, IntentRecord>> records;
+    @Nullable
+    private ScheduledExecutorService compactionExecutor;
 
     /**
-     * The database used to persist and load the monitoring information.
+     * A flag telling whether the compactions reclaim the space of the removed records.
+     *
+     * @see #MONITORING_RECLAIM_SPACE_KEY
      */
-    private DB db;
+    private boolean reclaimSpace;
 
     /**
      * Constructs a {@link RecognitionMonitor} with the provided {@code xatkitServer} and {@code configuration}.
@@ -108,6 +441,9 @@ public class RecognitionMonitor {
      *
      * @param xatkitServer  the {@link XatkitServer} instance used to register the REST endpoints
      * @param configuration the Xatkit {@link Configuration}
+     * @throws IllegalArgumentException if the provided {@code configuration} contains an invalid monitoring property
+     * @throws IllegalStateException    if the existing databases have been created with a different
+     *                                  {@link #MONITORING_SHARDS_KEY} value
      */
     public RecognitionMonitor(XatkitServer xatkitServer, Configuration configuration) {
         Log.info("Starting intent recognition monitoring");
@@ -115,18 +451,136 @@ public class RecognitionMonitor {
         File analyticsDbDirectory = FileUtils.getFile(dataDirectoryPath + File.separator + ANALYTICS_DIRECTORY,
                 configuration);
         analyticsDbDirectory.mkdirs();
-        db = DBMaker.fileDB(new File(analyticsDbDirectory.getAbsolutePath() + File.separator + ANALYTICS_DB_FILE)).make();
-
-        this.records = (Map<String, Map<Long, IntentRecord>>) db.hashMap("intent_records").createOrOpen();
+        int shardCount = configuration.getInt(MONITORING_SHARDS_KEY, DEFAULT_SHARD_COUNT);
+        checkArgument(shardCount > 0, "Invalid value %s for the property %s, expected a positive number",
+                shardCount, MONITORING_SHARDS_KEY);
+        MonitoringShard.Storage storage = getEnumValue(configuration, MONITORING_STORAGE_KEY,
+                MonitoringShard.Storage.FILE);
+        boolean recomputeStatistics = configuration.getBoolean(MONITORING_RECOMPUTE_STATISTICS_KEY, false);
+        this.samplingPolicy = new SamplingPolicy(configuration.getDouble(MONITORING_MATCHED_SAMPLING_RATE_KEY, 1),
+                configuration.getDouble(MONITORING_UNMATCHED_SAMPLING_RATE_KEY, 1),
+                getList(configuration, MONITORING_ALLOWED_INTENTS_KEY),
+                getList(configuration, MONITORING_DENIED_INTENTS_KEY));
+        this.shards = new ArrayList<>(shardCount);
+        this.writers = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            MonitoringShard shard = new MonitoringShard(new File(analyticsDbDirectory, getShardFileName(i)), storage,
+                    statistics, recomputeStatistics);
+            if (i == 0) {
+                this.checkShardCount(shard, shardCount);
+            }
+            shards.add(shard);
+        }
+        this.migrateLegacyRecords();
+        for (int i = 0; i < shardCount; i++) {
+            MonitoringShard shard = shards.get(i);
+            writers.add(new GroupCommitWriter<>("recognition-monitor-writer-" + i,
+                    configuration.getInt(MONITORING_QUEUE_CAPACITY_KEY, DEFAULT_QUEUE_CAPACITY),
+                    configuration.getInt(MONITORING_BATCH_SIZE_KEY, DEFAULT_BATCH_SIZE),
+                    configuration.getLong(MONITORING_FLUSH_INTERVAL_KEY, DEFAULT_FLUSH_INTERVAL),
+                    getEnumValue(configuration, MONITORING_DURABILITY_KEY, GroupCommitWriter.Durability.ASYNC),
+                    getEnumValue(configuration, MONITORING_OVERFLOW_POLICY_KEY,
+                            GroupCommitWriter.OverflowPolicy.BLOCK),
+                    logEntry -> shard.write(logEntry.sessionId, logEntry.timestamp, logEntry.intentRecord),
+                    shard::commit));
+        }
+        Log.info("Recognition monitoring writers started (shards={0}, storage={1}, durability={2}, overflow "
+                        + "policy={3})", shardCount, storage, writers.get(0).getDurability(),
+                writers.get(0).getOverflowPolicy());
+        if (!samplingPolicy.isDisabled()) {
+            Log.info("Recognition monitoring sampling enabled (matched rate={0}, unmatched rate={1}, allowed "
+                            + "intents={2}, denied intents={3})", samplingPolicy.getMatchedRate(),
+                    samplingPolicy.getUnmatchedRate(), samplingPolicy.getAllowedIntents(),
+                    samplingPolicy.getDeniedIntents());
+        }
+        long retentionDays = configuration.getLong(MONITORING_RETENTION_DAYS_KEY, 0);
+        if (retentionDays > 0) {
+            this.retention = TimeUnit.DAYS.toMillis(retentionDays);
+            this.reclaimSpace = configuration.getBoolean(MONITORING_RECLAIM_SPACE_KEY, false);
+            long compactionInterval = configuration.getLong(MONITORING_COMPACTION_INTERVAL_KEY,
+                    DEFAULT_COMPACTION_INTERVAL);
+            checkArgument(compactionInterval > 0, "Invalid value %s for the property %s, expected a positive number",
+                    compactionInterval, MONITORING_COMPACTION_INTERVAL_KEY);
+            this.compactionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "recognition-monitor-compaction");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.compactionExecutor.scheduleWithFixedDelay(this::runCompaction, compactionInterval,
+                    compactionInterval, TimeUnit.MINUTES);
+            Log.info("Recognition monitoring compaction scheduled every {0} minutes (retention={1} days, reclaim "
+                    + "space={2})", compactionInterval, retentionDays, reclaimSpace);
+        }
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            if (!this.db.isClosed()) {
-                db.commit();
-                db.close();
+            if (!shards.get(0).isClosed()) {
+                shutdown();
             }
         }));
         this.registerServerEndpoints(xatkitServer);
     }
 
+    /**
+     * Returns the name of the database file of the shard with the provided {@code index}.
+     * <p>
+     * The first shard is stored in {@link #ANALYTICS_DB_FILE}, allowing to open the databases created before the
+     * records were partitioned.
+     *
+     * @param index the index of the shard
+     * @return the name of the database file
+     */
+    private static String getShardFileName(int index) {
+        return index == 0 ? ANALYTICS_DB_FILE : "analytics-" + index + ".db";
+    }
+
+    /**
+     * Checks that the existing databases have been created with the provided {@code shardCount}.
+     * <p>
+     * The records of a session are stored in the shard selected by the hash of its identifier: opening the
+     * databases with a different number of shards would make the stored sessions unreachable. Databases created
+     * before the records were partitioned are considered as created with a single shard.
+     *
+     * @param firstShard the first shard, storing the number of shards
+     * @param shardCount the number of shards to open
+     * @throws IllegalStateException if the databases have been created with a different number of shards
+     */
+    private void checkShardCount(MonitoringShard firstShard, int shardCount) {
+        Atomic.Long storedShardCount = firstShard.getDb().atomicLong(SHARD_COUNT_NAME).createOrOpen();
+        long expectedShardCount = storedShardCount.get();
+        if (expectedShardCount == 0 && !firstShard.isEmpty()) {
+            expectedShardCount = 1;
+        }
+        boolean validShardCount = expectedShardCount == 0 || expectedShardCount == shardCount;
+        if (!validShardCount) {
+            firstShard.close();
+        }
+        checkState(validShardCount, "The analytics database has been created with %s shards, cannot open it with "
+                + "%s shards (see %s)", expectedShardCount, shardCount, MONITORING_SHARDS_KEY);
+        storedShardCount.set(shardCount);
+        firstShard.commit();
+    }
+
+    /**
+     * Returns the index of the shard storing the records of the provided {@code sessionId}.
+     * <p>
+     * The index is computed from {@link String#hashCode()}, which is stable across JVM executions.
+     *
+     * @param sessionId the identifier of the session
+     * @return the index of the shard storing the records of the session
+     */
+    private int getShardIndex(String sessionId) {
+        return Math.floorMod(sessionId.hashCode(), shards.size());
+    }
+
+    /**
+     * Returns the shard storing the records of the provided {@code sessionId}.
+     *
+     * @param sessionId the identifier of the session
+     * @return the shard storing the records of the session
+     */
+    private MonitoringShard getShard(String sessionId) {
+        return shards.get(getShardIndex(sessionId));
+    }
+
     /**
      * Registers the REST endpoints used to retrieve monitoring information.
      *
@@ -137,14 +591,23 @@ public class RecognitionMonitor {
         this.registerGetMonitoringDataForSession(xatkitServer);
         this.registerGetUnmatchedUtterances(xatkitServer);
         this.registerGetMatchedUtterances(xatkitServer);
+        this.registerGetIntentUtterances(xatkitServer);
         this.registerGetSessionsStats(xatkitServer);
+        this.registerGetSummary(xatkitServer);
+        this.registerGetWriterStatistics(xatkitServer);
+        this.registerRecomputeStatistics(xatkitServer);
+        this.registerGetRollups(xatkitServer);
+        this.registerCompact(xatkitServer);
+        this.registerExport(xatkitServer);
     }
 
     /**
      * Registers the {@code GET: /analytics/monitoring} endpoint.
      * <p>
      * This endpoint returns a JSON array containing all the persisted monitoring information (note that this method
-     * doesn't support pagination yet, so the returned JSON may be big for long-running applications).
+     * doesn't support pagination yet, so the returned JSON may be big for long-running applications). The global
+     * statistics contained in the second element of the array are the ones returned by
+     * {@code /analytics/monitoring/summary}.
      * <p>
      * The listing below shows an example of the returned JSON payload:
      * <pre>
@@ -200,33 +663,15 @@ public class RecognitionMonitor {
         xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring",
                 RestHandlerFactory.createJsonRestHandler((headers, param, content) -> {
                     JsonArray sessionsArray = new JsonArray();
-                    double accRecognitionConfidence = 0.0;
-                    int matchedCount = 0;
-                    int unmatchedCount = 0;
-                    int nSessions = 0;
-                    for (Map.Entry<String, Map<Long, IntentRecord>> entry : records.entrySet()) {
-                        JsonObject sessionObject = buildSessionObject(entry.getKey(), entry.getValue());
-                        int sessionMatchedCount = sessionObject.get("matchedUtteranceCount").getAsInt();
-                        matchedCount += sessionMatchedCount;
-                        unmatchedCount += sessionObject.get("unmatchedUtteranceCount").getAsInt();
-                        if(sessionObject.has("avgSessionConfidence")) {
-                            double avgSessionConfidence = sessionObject.get("avgSessionConfidence").getAsDouble();
-                            accRecognitionConfidence += avgSessionConfidence * (double)sessionMatchedCount;
+                    for (MonitoringShard shard : shards) {
+                        for (String sessionId = shard.getFirstSessionId(); nonNull(sessionId);
+                             sessionId = shard.getNextSessionId(sessionId)) {
+                            sessionsArray.add(buildSessionObject(sessionId, shard.getSessionRecords(sessionId)));
                         }
-                        nSessions++;
-                        sessionsArray.add(sessionObject);
                     }
-                    JsonObject globalInfo = new JsonObject();
-                    globalInfo.addProperty("nSessions", nSessions);
-                    double aux = accRecognitionConfidence/(double) matchedCount;
-                    if(!Double.isNaN(aux) && Double.isFinite(aux)) {
-                        globalInfo.addProperty("avgRecognitionConfidence", aux);
-                    }
-                    globalInfo.addProperty("totalUnmatchedUtterances", unmatchedCount);
-                    globalInfo.addProperty("totalMatchedUtterances", matchedCount);
                     JsonArray resultArray = new JsonArray();
                     resultArray.add(sessionsArray);
-                    resultArray.add(globalInfo);
+                    resultArray.add(getSummary());
                     return resultArray;
                 }));
     }
@@ -238,6 +683,10 @@ public class RecognitionMonitor {
      * parameter is not provided or if the provided {@code sessionId} does not correspond to an existing {@code
      * session} the returned JSON payload will contain a single {@code error} field with an error message.
      * <p>
+     * This endpoint supports the parameters defined in {@link RecordQuery}. The {@code entries} and the utterance
+     * counts of the returned payload only contain the records selected by the query. If the {@code ndjson} format
+     * is requested the response only contains the selected entries, one per line.
+     * <p>
      * The listing below shows an example of the returned JSON payload:
      * <pre>
      * {@code
@@ -248,19 +697,22 @@ public class RecognitionMonitor {
      *             "timestamp": 1573750605388,
      *             "utterance": "How are you?",
      *             "intent": "HowAreYou",
-     *             "confidence": 1.0
+     *             "confidence": 1.0,
+     *             "cursor": "MTU3Mzc1MDYwNTM4ODoxOjcyZjhmYTkw"
      *         },
      *         {
      *             "timestamp": 1573750623741,
      *             "utterance": "Here is something you won't understand!",
      *             "intent": "Default_Fallback_Intent",
-     *             "confidence": 1.0
+     *             "confidence": 1.0,
+     *             "cursor": "MTU3Mzc1MDYyMzc0MToyOjcyZjhmYTkw"
      *         },
      *         {
      *             "timestamp": 1573750630281,
      *             "utterance": "I knew it",
      *             "intent": "Default_Fallback_Intent",
-     *             "confidence": 1.0
+     *             "confidence": 1.0,
+     *             "cursor": "MTU3Mzc1MDYzMDI4MTozOjcyZjhmYTkw"
      *         }
      *     ],
      *     "matchedUtteranceCount": 1,
@@ -283,16 +735,15 @@ public class RecognitionMonitor {
      */
     private void registerGetMonitoringDataForSession(XatkitServer xatkitServer) {
         xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/session",
-                RestHandlerFactory.createJsonRestHandler(((headers, params, content) -> {
+                RestHandlerFactory.createEmptyContentRestHandler(((headers, params, content) -> {
                     String sessionId = HttpUtils.getParameterValue("sessionId", params);
                     if(isNull(sessionId)) {
                         throw new RestHandlerException(404, "Missing parameter sessionId");
                     }
-                    Map<Long, IntentRecord> sessionRecords = records.get(sessionId);
-                    if(isNull(sessionRecords)) {
+                    if(getSessionRecords(sessionId).isEmpty()) {
                         throw new RestHandlerException(404, "Session " + sessionId + " not found");
                     } else {
-                        return buildSessionObject(sessionId, sessionRecords);
+                        return createSessionEntity(sessionId, RecordQuery.fromRequest(headers, params));
                     }
                 })));
     }
@@ -301,7 +752,8 @@ public class RecognitionMonitor {
      * Registers the {@code GET: /analytics/monitoring/unmatched} endpoint.
      * <p>
      * This endpoint returns a JSON array containing all the unmatched inputs (i.e. inputs that haven't been
-     * successfully translated into intents).
+     * successfully translated into intents). The returned inputs are sorted by time, and can be paginated and
+     * filtered using the parameters defined in {@link RecordQuery}.
      * <p>
      * The listing below shows an example of the returned JSON payload:
      * <pre>
@@ -310,12 +762,14 @@ public class RecognitionMonitor {
      *     {
      *         "sessionId": "72f8fa90-8d3e-4804-b00d-5612a95fb644",
      *         "timestamp": 1573750623741,
-     *         "utterance": "Here is something you won't understand!"
+     *         "utterance": "Here is something you won't understand!",
+     *         "cursor": "MTU3Mzc1MDYyMzc0MToyOjcyZjhmYTkw"
      *     },
      *     {
      *         "sessionId": "72f8fa90-8d3e-4804-b00d-5612a95fb644",
      *         "timestamp": 1573750630281,
-     *         "utterance": "I knew it"
+     *         "utterance": "I knew it",
+     *         "cursor": "MTU3Mzc1MDYzMDI4MTozOjcyZjhmYTkw"
      *     }
      * ]
      * }
@@ -325,31 +779,25 @@ public class RecognitionMonitor {
      */
     private void registerGetUnmatchedUtterances(XatkitServer xatkitServer) {
         xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/unmatched",
-                RestHandlerFactory.createJsonRestHandler(((headers, params, content) -> {
-                    JsonArray result = new JsonArray();
-                    for (Map.Entry<String, Map<Long, IntentRecord>> recordEntry : records.entrySet()) {
-                        String sessionId = recordEntry.getKey();
-                        for (Map.Entry<Long, IntentRecord> sessionRecordEntry : recordEntry.getValue().entrySet()) {
-                            Long timestamp = sessionRecordEntry.getKey();
-                            IntentRecord intentRecord = sessionRecordEntry.getValue();
-                            if (intentRecord.getIntentName().equals("Default_Fallback_Intent")) {
-                                JsonObject unmatchedUtteranceObject = new JsonObject();
-                                unmatchedUtteranceObject.addProperty("sessionId", sessionId);
-                                unmatchedUtteranceObject.addProperty("timestamp", timestamp);
-                                unmatchedUtteranceObject.addProperty("utterance", intentRecord.getUtterance());
-                                result.add(unmatchedUtteranceObject);
-                            }
-                        }
-                    }
-                    return result;
-                })));
+                RestHandlerFactory.createEmptyContentRestHandler(((headers, params, content) ->
+                        createRecordsEntity(RecordQuery.fromRequest(headers, params),
+                                MonitoringShard::getStatusIndex, false,
+                                (jsonWriter, key, intentRecord) -> {
+                                    jsonWriter.beginObject();
+                                    jsonWriter.name("sessionId").value(getSessionId(key));
+                                    jsonWriter.name("timestamp").value(getTimestamp(key));
+                                    jsonWriter.name("utterance").value(intentRecord.getUtterance());
+                                    jsonWriter.name("cursor").value(RecordQuery.encodeCursor(key));
+                                    jsonWriter.endObject();
+                                }))));
     }
 
     /**
      * Registers the {@code GET: /analytics/monitoring/matched} endpoint.
      * <p>
      * This endpoint returns a JSON array containing all  the matched intents (i.e. inputs that have been
-     * successfully translated into intents).
+     * successfully translated into intents). The returned intents are sorted by time, and can be paginated and
+     * filtered using the parameters defined in {@link RecordQuery}.
      * <p>
      * The listing below shows an example of the returned JSON payload:
      * <pre>
@@ -360,7 +808,8 @@ public class RecognitionMonitor {
      *         "timestamp": 1573750605388,
      *         "utterance": "How are you?",
      *         "intent": "HowAreYou",
-     *         "confidence": 1.0
+     *         "confidence": 1.0,
+     *         "cursor": "MTU3Mzc1MDYwNTM4ODoxOjcyZjhmYTkw"
      *     }
      * ]
      * }
@@ -370,34 +819,81 @@ public class RecognitionMonitor {
      */
     private void registerGetMatchedUtterances(XatkitServer xatkitServer) {
         xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/matched",
-                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> {
-                    JsonArray result = new JsonArray();
-                    for (Map.Entry<String, Map<Long, IntentRecord>> recordEntry : records.entrySet()) {
-                        String sessionId = recordEntry.getKey();
-                        for (Map.Entry<Long, IntentRecord> sessionRecordEntry : recordEntry.getValue().entrySet()) {
-                            Long timestamp = sessionRecordEntry.getKey();
-                            IntentRecord intentRecord = sessionRecordEntry.getValue();
-                            if (!intentRecord.getIntentName().equals("Default_Fallback_Intent")) {
-                                JsonObject matchedUtteranceObject = new JsonObject();
-                                matchedUtteranceObject.addProperty("sessionId", sessionId);
-                                matchedUtteranceObject.addProperty("timestamp", timestamp);
-                                matchedUtteranceObject.addProperty("utterance", intentRecord.getUtterance());
-                                matchedUtteranceObject.addProperty("intent", intentRecord.getIntentName());
-                                matchedUtteranceObject.addProperty("confidence",
-                                        intentRecord.getRecognitionConfidence());
-                                result.add(matchedUtteranceObject);
-                            }
-                        }
+                RestHandlerFactory.createEmptyContentRestHandler((headers, params, content) ->
+                        createRecordsEntity(RecordQuery.fromRequest(headers, params),
+                                MonitoringShard::getStatusIndex, true, RecognitionMonitor::writeMatchedRecord)));
+    }
+
+    /**
+     * Registers the {@code GET: /analytics/monitoring/intent} endpoint.
+     * <p>
+     * This endpoint expects an {@code intentName} parameter, and returns a JSON array containing the inputs that
+     * have been translated into the corresponding intent (the {@code Default_Fallback_Intent} can be used to
+     * retrieve the unmatched inputs). The returned inputs are sorted by time, and can be paginated and filtered
+     * using the parameters defined in {@link RecordQuery}.
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * [
+     *     {
+     *         "sessionId": "72f8fa90-8d3e-4804-b00d-5612a95fb644",
+     *         "timestamp": 1573750605388,
+     *         "utterance": "How are you?",
+     *         "intent": "HowAreYou",
+     *         "confidence": 1.0,
+     *         "cursor": "MTU3Mzc1MDYwNTM4ODoxOjcyZjhmYTkw"
+     *     }
+     * ]
+     * }
+     * </pre>
+     * <p>
+     * <b>Note</b>: this endpoint returns a {@code 404} status if the {@code intentName} parameter is missing.
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
+     */
+    private void registerGetIntentUtterances(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/intent",
+                RestHandlerFactory.createEmptyContentRestHandler((headers, params, content) -> {
+                    String intentName = HttpUtils.getParameterValue("intentName", params);
+                    if (isNull(intentName)) {
+                        throw new RestHandlerException(404, "Missing parameter intentName");
                     }
-                    return result;
+                    return createRecordsEntity(RecordQuery.fromRequest(headers, params),
+                            MonitoringShard::getIntentIndex, intentName, RecognitionMonitor::writeMatchedRecord);
                 }));
     }
 
+    /**
+     * Writes the provided record with its intent and confidence.
+     *
+     * @param jsonWriter   the {@link JsonWriter} to write the record with
+     * @param key          the {@code [sessionId, timestamp, sequence]} key of the record
+     * @param intentRecord the record
+     * @throws IOException if an error occurred when writing the record
+     */
+    private static void writeMatchedRecord(JsonWriter jsonWriter, Object[] key, IntentRecord intentRecord)
+            throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("sessionId").value(getSessionId(key));
+        jsonWriter.name("timestamp").value(getTimestamp(key));
+        jsonWriter.name("utterance").value(intentRecord.getUtterance());
+        jsonWriter.name("intent").value(intentRecord.getIntentName());
+        jsonWriter.name("confidence").value(intentRecord.getRecognitionConfidence());
+        jsonWriter.name("cursor").value(RecordQuery.encodeCursor(key));
+        jsonWriter.endObject();
+    }
+
     /**
      * Registers the {@code GET: /analytics/monitoring/sessions/stats} endpoint.
      * <p>
      * This endpoint returns a JSON object containing computed statistics over stored sessions (e.g. average
-     * time/session, average number of matched inputs/sessions, etc).
+     * time/session, average number of matched inputs/sessions, etc). The time of a session is the time elapsed
+     * between its first and last records, and is expressed in seconds.
+     * <p>
+     * These statistics are not returned (i.e. the returned JSON object is empty) if the recognized intents are
+     * sampled or filtered (see {@link SamplingPolicy}): the sessions with no stored record are not counted, and the
+     * stored records of a session do not cover its whole duration, which would bias the averages.
      * <p>
      * The listing below shows an example of the returned JSON payload:
      * <pre>
@@ -410,44 +906,27 @@ public class RecognitionMonitor {
      * }
      * </pre>
      *
-     * @param xatkitServer
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
      */
     private void registerGetSessionsStats(XatkitServer xatkitServer) {
         xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/sessions/stats",
                 RestHandlerFactory.createJsonRestHandler(((headers, params, content) -> {
                     JsonObject result = new JsonObject();
-                    int sessionCount = 0;
-                    int totalMatchedUtteranceCount = 0;
-                    int totalUnmatchedUtteranceCount = 0;
-                    long totalSessionTime = 0;
-                    for (Map.Entry<String, Map<Long, IntentRecord>> recordEntry : records.entrySet()) {
-                        sessionCount++;
-                        long sessionStartTimestamp = 0;
-                        long sessionStopTimestamp = 0;
-                        for (Map.Entry<Long, IntentRecord> sessionRecordEntry : recordEntry.getValue().entrySet()) {
-                            long timestamp = sessionRecordEntry.getKey();
-                            if (timestamp < sessionStartTimestamp || sessionStartTimestamp == 0) {
-                                sessionStartTimestamp = timestamp;
-                            }
-                            if (timestamp > sessionStopTimestamp) {
-                                sessionStopTimestamp = timestamp;
-                            }
-                            long sessionTime = sessionStopTimestamp - sessionStartTimestamp;
-                            totalSessionTime += sessionTime;
-                            IntentRecord intentRecord = sessionRecordEntry.getValue();
-                            if (intentRecord.getIntentName().equals("Default_Fallback_Intent")) {
-                                totalUnmatchedUtteranceCount++;
-                            } else {
-                                totalMatchedUtteranceCount++;
-                            }
-                        }
+                    if (!samplingPolicy.isDisabled()) {
+                        return result;
                     }
-                    double avgMatchedUtterance = totalMatchedUtteranceCount / (double) sessionCount;
-                    double avgUnmatchedUtterance = totalUnmatchedUtteranceCount / (double) sessionCount;
-                    double avgSessionTime = totalSessionTime / (double) sessionCount;
-
-                    result.addProperty("averageMatchedUtteranceCount", avgMatchedUtterance);
-                    result.addProperty("averageUnmatchedUtteranceCount", avgUnmatchedUtterance);
+                    double sessionCount;
+                    double avgSessionTime;
+                    double totalMatchedUtteranceCount;
+                    double totalUnmatchedUtteranceCount;
+                    synchronized (statistics) {
+                        sessionCount = statistics.getSessionCount();
+                        avgSessionTime = statistics.getTotalSessionTime() / sessionCount;
+                        totalMatchedUtteranceCount = statistics.getMatchedCount();
+                        totalUnmatchedUtteranceCount = statistics.getUnmatchedCount();
+                    }
+                    result.addProperty("averageMatchedUtteranceCount", totalMatchedUtteranceCount / sessionCount);
+                    result.addProperty("averageUnmatchedUtteranceCount", totalUnmatchedUtteranceCount / sessionCount);
                     // /1000 for seconds
                     result.addProperty("averageSessionTime", avgSessionTime / 1000);
                     return result;
@@ -455,73 +934,998 @@ public class RecognitionMonitor {
     }
 
     /**
-     * Creates a {@link JsonObject} representing the provided session record.
+     * Registers the {@code GET: /analytics/monitoring/summary} endpoint.
+     * <p>
+     * This endpoint returns a JSON object containing global statistics over the stored information. The utterance
+     * counts and the average confidence are estimated from the sampled records (see {@link SamplingPolicy}), while
+     * {@code nSessions} is the number of sessions with at least one stored record (i.e. a lower bound of the number
+     * of sessions if the recognized intents are sampled or filtered).
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * {
+     *     "nSessions": 2,
+     *     "avgRecognitionConfidence": 1.0,
+     *     "totalUnmatchedUtterances": 3,
+     *     "totalMatchedUtterances": 2
+     * }
+     * }
+     * </pre>
      *
-     * @param sessionId   the identifier of the session to translate to a {@link JsonObject}
-     * @param sessionData the database records associated to the provided {@code sessionId}
-     * @return the created {@link JsonObject}
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
      */
-    private JsonObject buildSessionObject(String sessionId, Map<Long, IntentRecord> sessionData) {
-        JsonObject sessionObject = new JsonObject();
-        sessionObject.addProperty("sessionId", sessionId);
-        JsonArray sessionRecords = new JsonArray();
-        sessionObject.add("entries", sessionRecords);
-        int unmatchedCount = 0;
-        int matchedCount = 0;
-        double accConfidence = 0.0;
-        for (Map.Entry<Long, IntentRecord> sessionEntry : sessionData.entrySet()) {
-            JsonObject entryObject = new JsonObject();
-            sessionRecords.add(entryObject);
-            entryObject.addProperty("timestamp", sessionEntry.getKey());
-            entryObject.addProperty("utterance", sessionEntry.getValue().getUtterance());
-            entryObject.addProperty("intent", sessionEntry.getValue().getIntentName());
-            entryObject.addProperty("confidence", sessionEntry.getValue().getRecognitionConfidence());
-            if (sessionEntry.getValue().getIntentName().equals("Default_Fallback_Intent")) {
-                unmatchedCount++;
-            } else {
-                accConfidence += sessionEntry.getValue().getRecognitionConfidence();
-                matchedCount++;
-            }
-        }
-        sessionObject.add("matchedUtteranceCount", new JsonPrimitive(matchedCount));
-        sessionObject.add("unmatchedUtteranceCount", new JsonPrimitive(unmatchedCount));
-        if(matchedCount > 0) {
-            sessionObject.add("avgSessionConfidence",
-                    new JsonPrimitive(accConfidence/(double)matchedCount));
-        }
-        return sessionObject;
+    private void registerGetSummary(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/summary",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> getSummary()));
     }
 
     /**
-     * Logs the recognition information from the provided {@code recognizedIntent} and {@code session}.
+     * Returns a {@link JsonObject} containing global statistics over the stored information.
+     * <p>
+     * The returned statistics are maintained when records are written, and are computed in constant time.
      *
-     * @param session the {@link XatkitSession} from which the {@link RecognizedIntent} has been created
-     * @param recognizedIntent the {@link RecognizedIntent} to log
+     * @return a {@link JsonObject} containing global statistics over the stored information
+     * @see #registerGetSummary(XatkitServer)
      */
-    public void logRecognizedIntent(XatkitSession session, RecognizedIntent recognizedIntent) {
-        Long ts = System.currentTimeMillis();
-        Map<Long, IntentRecord> sessionMap = records.get(session.getSessionId());
-        if (isNull(sessionMap)) {
-            sessionMap = new TreeMap<>();
+    public JsonObject getSummary() {
+        JsonObject result = new JsonObject();
+        synchronized (statistics) {
+            result.addProperty("nSessions", statistics.getSessionCount());
+            if (statistics.getMatchedCount() > 0) {
+                result.addProperty("avgRecognitionConfidence",
+                        statistics.getAccConfidence() / statistics.getMatchedCount());
+            }
+            result.addProperty("totalUnmatchedUtterances", Math.round(statistics.getUnmatchedCount()));
+            result.addProperty("totalMatchedUtterances", Math.round(statistics.getMatchedCount()));
         }
-        sessionMap.put(ts, new IntentRecord(recognizedIntent));
-        records.put(session.getSessionId(), sessionMap);
-        db.commit();
+        return result;
     }
 
-
     /**
-     * Commit the pending operations on the database and closes the connection.
+     * Registers the {@code POST: /analytics/monitoring/statistics/recompute} endpoint.
+     * <p>
+     * This endpoint recomputes the statistics from the stored records (see {@link #recomputeStatistics()}), and
+     * returns the updated global statistics.
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
      */
-    public void shutdown() {
-        this.db.commit();
-        this.db.close();
+    private void registerRecomputeStatistics(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.POST, "/analytics/monitoring/statistics/recompute",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> {
+                    recomputeStatistics();
+                    return getSummary();
+                }));
     }
 
     /**
-     * A database record holding intent-related information.
+     * Registers the {@code GET: /analytics/monitoring/rollups} endpoint.
+     * <p>
+     * This endpoint returns a JSON array containing the daily aggregates of each intent for the records removed by
+     * the retention policy (see {@link #compact()}). The returned aggregates are sorted by day and intent, and can
+     * be filtered with the following parameters:
+     * <ul>
+     * <li><b>from</b>: the first day (inclusive, formatted as {@code yyyy-MM-dd}) of the aggregates to return</li>
+     * <li><b>to</b>: the last day (exclusive, formatted as {@code yyyy-MM-dd}) of the aggregates to return</li>
+     * <li><b>intentName</b>: the name of the intent to return the aggregates of</li>
+     * </ul>
+     * Days are computed in UTC.
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * [
+     *     {
+     *         "date": "2019-11-14",
+     *         "intent": "HowAreYou",
+     *         "matched": true,
+     *         "count": 12,
+     *         "avgConfidence": 0.92
+     *     },
+     *     {
+     *         "date": "2019-11-14",
+     *         "intent": "Default_Fallback_Intent",
+     *         "matched": false,
+     *         "count": 3
+     *     }
+     * ]
+     * }
+     * </pre>
+     * <b>Note</b>: this endpoint returns a {@code 400} status if the {@code from} or {@code to} parameter is not a
+     * valid date.
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
      */
-    private static class IntentRecord implements Serializable {
+    private void registerGetRollups(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/rollups",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> {
+                    long from = getDayParameter("from", params, Long.MIN_VALUE);
+                    long to = getDayParameter("to", params, Long.MAX_VALUE);
+                    String intentName = HttpUtils.getParameterValue("intentName", params);
+                    JsonArray result = new JsonArray();
+                    if (from >= to) {
+                        return result;
+                    }
+                    for (Map.Entry<Object[], IntentRollup> rollupEntry : getRollups(from, to).entrySet()) {
+                        String rollupIntentName = (String) rollupEntry.getKey()[1];
+                        if (nonNull(intentName) && !intentName.equals(rollupIntentName)) {
+                            continue;
+                        }
+                        IntentRollup rollup = rollupEntry.getValue();
+                        boolean matched = isMatched(rollupIntentName);
+                        JsonObject rollupObject = new JsonObject();
+                        rollupObject.addProperty("date",
+                                LocalDate.ofEpochDay((long) rollupEntry.getKey()[0]).toString());
+                        rollupObject.addProperty("intent", rollupIntentName);
+                        rollupObject.addProperty("matched", matched);
+                        rollupObject.addProperty("count", Math.round(rollup.getCount()));
+                        if (matched && rollup.getCount() > 0) {
+                            rollupObject.addProperty("avgConfidence",
+                                    rollup.getAccConfidence() / rollup.getCount());
+                        }
+                        result.add(rollupObject);
+                    }
+                    return result;
+                }));
+    }
+
+    /**
+     * Returns the rollups of the provided day range, merged from the rollups of each shard.
+     *
+     * @param from the first day (inclusive) of the rollups to return
+     * @param to   the last day (exclusive) of the rollups to return
+     * @return the {@code [day, intentName]} rollups of the range
+     */
+    private NavigableMap<Object[], IntentRollup> getRollups(long from, long to) {
+        NavigableMap<Object[], IntentRollup> result =
+                new TreeMap<>(shards.get(0).getIntentRollups().comparator());
+        for (MonitoringShard shard : shards) {
+            for (Map.Entry<Object[], IntentRollup> rollupEntry : shard.getIntentRollups().subMap(new Object[]{from},
+                    new Object[]{to}).entrySet()) {
+                IntentRollup rollup = result.get(rollupEntry.getKey());
+                if (isNull(rollup)) {
+                    result.put(rollupEntry.getKey(), rollupEntry.getValue());
+                } else {
+                    rollup.add(rollupEntry.getValue());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value of the provided date {@code parameterName} as a number of days since the epoch.
+     *
+     * @param parameterName the name of the parameter to retrieve
+     * @param params        the parameters of the request
+     * @param defaultValue  the value to return if the parameter is not set
+     * @return the value of the parameter
+     * @throws RestHandlerException if the value of the parameter is not a valid {@code yyyy-MM-dd} date
+     */
+    private static long getDayParameter(String parameterName, List<NameValuePair> params, long defaultValue)
+            throws RestHandlerException {
+        String value = HttpUtils.getParameterValue(parameterName, params);
+        if (isNull(value)) {
+            return defaultValue;
+        }
+        try {
+            return LocalDate.parse(value).toEpochDay();
+        } catch (DateTimeParseException e) {
+            throw new RestHandlerException(400, "Invalid value " + value + " for parameter " + parameterName
+                    + ", expected a yyyy-MM-dd date");
+        }
+    }
+
+    /**
+     * Registers the {@code POST: /analytics/monitoring/compact} endpoint.
+     * <p>
+     * This endpoint removes the records older than the retention period (see {@link #compact()}), and returns a JSON
+     * object containing the number of removed records.
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * {
+     *     "removedRecords": 42
+     * }
+     * }
+     * </pre>
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
+     */
+    private void registerCompact(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.POST, "/analytics/monitoring/compact",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> {
+                    JsonObject result = new JsonObject();
+                    result.addProperty("removedRecords", compact());
+                    return result;
+                }));
+    }
+
+    /**
+     * Registers the {@code GET: /analytics/monitoring/export} endpoint.
+     * <p>
+     * This endpoint exports the stored records (matched and unmatched) sorted by time, and is intended for bulk
+     * transfers of the monitoring data. The records are streamed from the indexes of the shards to the response,
+     * and the memory used by an export does not depend on the number of exported records. The exported records can
+     * be filtered by time range and limited using the parameters defined in {@link RecordQuery}, and each exported
+     * record contains a {@code cursor} that can be used as the {@code after} parameter to resume an interrupted
+     * export after this record.
+     * <p>
+     * The records are exported as NDJSON (default) or as CSV with a header line ({@code format=csv}). The response
+     * is compressed with gzip if the request contains a {@code gzip=true} parameter, or an {@code Accept-Encoding}
+     * header accepting gzip (unless the request contains a {@code gzip=false} parameter).
+     * <p>
+     * The listing below shows an example of a CSV export:
+     * <pre>
+     * {@code
+     * sessionId,timestamp,utterance,intent,matched,confidence,samplingWeight,cursor
+     * 72f8fa90,1573750605388,How are you?,HowAreYou,true,1.0,1.0,MTU3Mzc1MDYwNTM4ODoxOjcyZjhmYTkw
+     * 72f8fa90,1573750630281,I knew it,Default_Fallback_Intent,false,0.0,1.0,MTU3Mzc1MDYzMDI4MTozOjcyZjhmYTkw
+     * }
+     * </pre>
+     * NDJSON exports contain one JSON object per record, with the same fields as the CSV columns.
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
+     */
+    private void registerExport(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/export",
+                RestHandlerFactory.createEmptyContentRestHandler((headers, params, content) ->
+                        createExportEntity(RecordQuery.fromRequest(headers, params, RecordQuery.Format.NDJSON,
+                                EnumSet.of(RecordQuery.Format.NDJSON, RecordQuery.Format.CSV)),
+                                isGzipRequested(headers, params))));
+    }
+
+    /**
+     * Returns whether the response to the request with the provided {@code headers} and {@code params} must be
+     * compressed with gzip.
+     *
+     * @param headers the HTTP headers of the request
+     * @param params  the parameters of the request
+     * @return {@code true} if the response must be compressed, {@code false} otherwise
+     */
+    private static boolean isGzipRequested(List<Header> headers, List<NameValuePair> params) {
+        String gzipValue = HttpUtils.getParameterValue("gzip", params);
+        if (nonNull(gzipValue)) {
+            return Boolean.parseBoolean(gzipValue);
+        }
+        return headers.stream().anyMatch(h -> h.getName().equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING)
+                && h.getValue().toLowerCase(Locale.ROOT).contains("gzip"));
+    }
+
+    /**
+     * Creates an {@link HttpEntity} streaming the records matching the provided {@code query} in the NDJSON or CSV
+     * format.
+     * <p>
+     * The records of both statuses are read from the status index of each shard, and merged by time.
+     *
+     * @param query the {@link RecordQuery} selecting the records to export
+     * @param gzip  whether the content must be compressed with gzip
+     * @return the created {@link HttpEntity}
+     * @see #registerExport(XatkitServer)
+     */
+    private HttpEntity createExportEntity(RecordQuery query, boolean gzip) {
+        List<NavigableSet<Object[]>> indexKeys = new ArrayList<>(shards.size() * 2);
+        for (MonitoringShard shard : shards) {
+            for (boolean matched : new boolean[]{true, false}) {
+                indexKeys.add(selectRange(shard.getStatusIndex(), new Object[]{matched, query.getFrom()},
+                        new Object[]{matched, query.getTo()},
+                        isNull(query.getAfter()) ? null : toIndexKey(matched, query.getAfter())));
+            }
+        }
+        boolean csv = query.getFormat().equals(RecordQuery.Format.CSV);
+        return createStreamingEntity(query.getFormat(), gzip, (jsonWriter, writer) -> {
+            if (csv) {
+                writer.write(String.join(",", EXPORT_CSV_COLUMNS));
+                writer.write("\r\n");
+            }
+            Iterator<Object[]> it = mergeSorted(indexKeys, INDEX_KEY_TIME_ORDER);
+            int count = 0;
+            while (count < query.getLimit() && it.hasNext()) {
+                Object[] key = toRecordKey(it.next());
+                IntentRecord intentRecord = getShard(getSessionId(key)).getRecord(key);
+                if (isNull(intentRecord)) {
+                    continue;
+                }
+                if (csv) {
+                    writeCsvRecord(writer, key, intentRecord);
+                } else {
+                    jsonWriter.beginObject();
+                    jsonWriter.name("sessionId").value(getSessionId(key));
+                    jsonWriter.name("timestamp").value(getTimestamp(key));
+                    jsonWriter.name("utterance").value(intentRecord.getUtterance());
+                    jsonWriter.name("intent").value(intentRecord.getIntentName());
+                    jsonWriter.name("matched").value(isMatched(intentRecord));
+                    jsonWriter.name("confidence").value(intentRecord.getRecognitionConfidence());
+                    jsonWriter.name("samplingWeight").value(intentRecord.getSamplingWeight());
+                    jsonWriter.name("cursor").value(RecordQuery.encodeCursor(key));
+                    jsonWriter.endObject();
+                    writer.write('\n');
+                }
+                count++;
+            }
+        });
+    }
+
+    /**
+     * Writes the provided record as a CSV line with the {@link #EXPORT_CSV_COLUMNS} columns.
+     *
+     * @param writer       the {@link Writer} to write the record with
+     * @param key          the {@code [sessionId, timestamp, sequence]} key of the record
+     * @param intentRecord the record
+     * @throws IOException if an error occurred when writing the record
+     */
+    private static void writeCsvRecord(Writer writer, Object[] key, IntentRecord intentRecord) throws IOException {
+        Object[] values = {getSessionId(key), getTimestamp(key), intentRecord.getUtterance(),
+                intentRecord.getIntentName(), isMatched(intentRecord), intentRecord.getRecognitionConfidence(),
+                intentRecord.getSamplingWeight(), RecordQuery.encodeCursor(key)};
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(toCsvField(values[i]));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Returns the CSV representation of the provided {@code value}.
+     * <p>
+     * Values containing separators, quotes, or line breaks are quoted, and their quotes are doubled.
+     *
+     * @param value the value to represent
+     * @return the CSV field representing the value
+     */
+    private static String toCsvField(@Nullable Object value) {
+        if (isNull(value)) {
+            return "";
+        }
+        String field = value.toString();
+        if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0
+                || field.indexOf('\r') >= 0) {
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+
+    /**
+     * Registers the {@code GET: /analytics/monitoring/writer} endpoint.
+     * <p>
+     * This endpoint returns a JSON object containing the state of the background writers persisting the recognized
+     * intents. The queue sizes and counters are summed over the writers of the shards, and the commit latencies
+     * (expressed in nanoseconds) are computed over all the commits of the shards. The {@code sampling} object
+     * contains the sampling rates and the number of recognized intents sampled, skipped by the sampling rates, and
+     * filtered by name since the monitor has been created.
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * {
+     *     "shards": 1,
+     *     "durability": "ASYNC",
+     *     "overflowPolicy": "BLOCK",
+     *     "queueDepth": 0,
+     *     "queueCapacity": 10000,
+     *     "droppedRecords": 0,
+     *     "committedRecords": 42,
+     *     "commits": 12,
+     *     "commitLatency": {
+     *         "mean": 1843726.5,
+     *         "p50": 1703935,
+     *         "p99": 3276799,
+     *         "max": 3276799
+     *     },
+     *     "sampling": {
+     *         "matchedRate": 0.1,
+     *         "unmatchedRate": 1.0,
+     *         "sampledRecords": 42,
+     *         "skippedRecords": 315,
+     *         "filteredRecords": 0
+     *     }
+     * }
+     * }
+     * </pre>
+     *
+     * @param xatkitServer the {@link XatkitServer} instance used to register the REST endpoint
+     */
+    private void registerGetWriterStatistics(XatkitServer xatkitServer) {
+        xatkitServer.registerRestEndpoint(HttpMethod.GET, "/analytics/monitoring/writer",
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> getWriterStatistics()));
+    }
+
+    /**
+     * Returns a {@link JsonObject} containing the state of the background writers persisting the recognized
+     * intents.
+     *
+     * @return a {@link JsonObject} containing the state of the background writers
+     * @see #registerGetWriterStatistics(XatkitServer)
+     */
+    public JsonObject getWriterStatistics() {
+        JsonObject result = new JsonObject();
+        result.addProperty("shards", shards.size());
+        result.addProperty("durability", writers.get(0).getDurability().name());
+        result.addProperty("overflowPolicy", writers.get(0).getOverflowPolicy().name());
+        result.addProperty("queueDepth", writers.stream().mapToLong(GroupCommitWriter::getQueueDepth).sum());
+        result.addProperty("queueCapacity", writers.stream().mapToLong(GroupCommitWriter::getCapacity).sum());
+        result.addProperty("droppedRecords", writers.stream().mapToLong(GroupCommitWriter::getDroppedCount).sum());
+        result.addProperty("committedRecords",
+                writers.stream().mapToLong(GroupCommitWriter::getCommittedCount).sum());
+        result.addProperty("commits", writers.stream().mapToLong(GroupCommitWriter::getCommitCount).sum());
+        LatencyHistogram commitLatencies = new LatencyHistogram();
+        writers.forEach(w -> commitLatencies.add(w.getCommitLatencies()));
+        JsonObject latencyObject = new JsonObject();
+        latencyObject.addProperty("mean", commitLatencies.getMean());
+        latencyObject.addProperty("p50", commitLatencies.getValueAtPercentile(50));
+        latencyObject.addProperty("p99", commitLatencies.getValueAtPercentile(99));
+        latencyObject.addProperty("max", commitLatencies.getMaxValue());
+        result.add("commitLatency", latencyObject);
+        JsonObject samplingObject = new JsonObject();
+        samplingObject.addProperty("matchedRate", samplingPolicy.getMatchedRate());
+        samplingObject.addProperty("unmatchedRate", samplingPolicy.getUnmatchedRate());
+        samplingObject.addProperty("sampledRecords", samplingPolicy.getSampledCount());
+        samplingObject.addProperty("skippedRecords", samplingPolicy.getSkippedCount());
+        samplingObject.addProperty("filteredRecords", samplingPolicy.getFilteredCount());
+        result.add("sampling", samplingObject);
+        return result;
+    }
+
+    /**
+     * Creates an {@link HttpEntity} streaming the records associated to {@code indexValue} in the provided
+     * {@code index} and matching the provided {@code query}.
+     * <p>
+     * The records are written to the response while they are read from the database, using chunked transfer
+     * encoding. Depending on the format of the {@code query} the records are written in a JSON array or on
+     * separate lines. The index of each shard is read, and the selected records are merged in the order of the
+     * index.
+     *
+     * @param query        the {@link RecordQuery} selecting the records to write
+     * @param index        the function returning the index of a shard to read the records from
+     * @param indexValue   the indexed value of the records to write
+     * @param recordWriter the {@link RecordWriter} used to write each record
+     * @return the created {@link HttpEntity}
+     * @see MonitoringShard#toIndexKey(Object, Object[])
+     */
+    private HttpEntity createRecordsEntity(RecordQuery query, Function<MonitoringShard, NavigableSet<Object[]>> index,
+                                           Object indexValue, RecordWriter recordWriter) {
+        List<NavigableSet<Object[]>> indexKeys = new ArrayList<>(shards.size());
+        for (MonitoringShard shard : shards) {
+            indexKeys.add(selectRange(index.apply(shard), new Object[]{indexValue, query.getFrom()},
+                    new Object[]{indexValue, query.getTo()},
+                    isNull(query.getAfter()) ? null : toIndexKey(indexValue, query.getAfter())));
+        }
+        return createStreamingEntity(query.getFormat(), (jsonWriter, writer) -> {
+            boolean ndjson = query.getFormat().equals(RecordQuery.Format.NDJSON);
+            if (!ndjson) {
+                jsonWriter.beginArray();
+            }
+            Iterator<Object[]> it = mergeSorted(indexKeys);
+            int count = 0;
+            while (count < query.getLimit() && it.hasNext()) {
+                Object[] key = toRecordKey(it.next());
+                IntentRecord intentRecord = getShard(getSessionId(key)).getRecord(key);
+                if (nonNull(intentRecord)) {
+                    recordWriter.write(jsonWriter, key, intentRecord);
+                    if (ndjson) {
+                        writer.write('\n');
+                    }
+                    count++;
+                }
+            }
+            if (!ndjson) {
+                jsonWriter.endArray();
+            }
+        });
+    }
+
+    /**
+     * Returns an {@link Iterator} over the keys of the provided sorted {@code keySets}.
+     * <p>
+     * The returned iterator lazily merges the provided sets in the order defined by their comparator, and only
+     * holds the next key of each set in memory.
+     *
+     * @param keySets the sets to merge, sorted with equivalent comparators
+     * @return an {@link Iterator} over the merged keys
+     */
+    private static Iterator<Object[]> mergeSorted(List<NavigableSet<Object[]>> keySets) {
+        return mergeSorted(keySets, keySets.get(0).comparator());
+    }
+
+    /**
+     * Returns an {@link Iterator} over the keys of the provided sorted {@code keySets}, merged in the order defined
+     * by the provided {@code comparator}.
+     * <p>
+     * The provided {@code comparator} must be consistent with the order of each set.
+     *
+     * @param keySets    the sets to merge
+     * @param comparator the {@link Comparator} defining the order of the merged keys
+     * @return an {@link Iterator} over the merged keys
+     * @see #mergeSorted(List)
+     */
+    private static Iterator<Object[]> mergeSorted(List<NavigableSet<Object[]>> keySets,
+                                                  Comparator<? super Object[]> comparator) {
+        if (keySets.size() == 1) {
+            return keySets.get(0).iterator();
+        }
+        PriorityQueue<Map.Entry<Object[], Iterator<Object[]>>> heads = new PriorityQueue<>(keySets.size(),
+                (e1, e2) -> comparator.compare(e1.getKey(), e2.getKey()));
+        for (NavigableSet<Object[]> keySet : keySets) {
+            Iterator<Object[]> it = keySet.iterator();
+            if (it.hasNext()) {
+                heads.add(new AbstractMap.SimpleEntry<>(it.next(), it));
+            }
+        }
+        return new Iterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public Object[] next() {
+                Map.Entry<Object[], Iterator<Object[]>> head = heads.poll();
+                if (isNull(head)) {
+                    throw new NoSuchElementException();
+                }
+                Iterator<Object[]> it = head.getValue();
+                if (it.hasNext()) {
+                    heads.add(new AbstractMap.SimpleEntry<>(it.next(), it));
+                }
+                return head.getKey();
+            }
+        };
+    }
+
+    /**
+     * Creates an {@link HttpEntity} streaming the records of the provided {@code sessionId} matching the provided
+     * {@code query}.
+     * <p>
+     * If the format of the {@code query} is {@link RecordQuery.Format#JSON} the entity contains a session object
+     * (see {@link #buildSessionObject(String, NavigableMap)}) built from the selected records. Otherwise the
+     * selected records are written on separate lines.
+     *
+     * @param sessionId the identifier of the session to write the records of
+     * @param query     the {@link RecordQuery} selecting the records to write
+     * @return the created {@link HttpEntity}
+     */
+    private HttpEntity createSessionEntity(String sessionId, RecordQuery query) {
+        MonitoringShard shard = getShard(sessionId);
+        NavigableSet<Object[]> keys = selectRange(shard.getRecordKeys(), new Object[]{sessionId, query.getFrom()},
+                new Object[]{sessionId, query.getTo()}, query.getAfter());
+        return createStreamingEntity(query.getFormat(), (jsonWriter, writer) -> {
+            boolean ndjson = query.getFormat().equals(RecordQuery.Format.NDJSON);
+            if (!ndjson) {
+                jsonWriter.beginObject();
+                jsonWriter.name("sessionId").value(sessionId);
+                jsonWriter.name("entries").beginArray();
+            }
+            SessionStatistics pageStatistics = new SessionStatistics();
+            Iterator<Object[]> it = keys.stream().limit(query.getLimit()).iterator();
+            while (it.hasNext()) {
+                Object[] key = it.next();
+                IntentRecord intentRecord = shard.getRecord(key);
+                if (isNull(intentRecord)) {
+                    continue;
+                }
+                jsonWriter.beginObject();
+                jsonWriter.name("timestamp").value(getTimestamp(key));
+                jsonWriter.name("utterance").value(intentRecord.getUtterance());
+                jsonWriter.name("intent").value(intentRecord.getIntentName());
+                jsonWriter.name("confidence").value(intentRecord.getRecognitionConfidence());
+                jsonWriter.name("cursor").value(RecordQuery.encodeCursor(key));
+                jsonWriter.endObject();
+                if (ndjson) {
+                    writer.write('\n');
+                }
+                addRecord(pageStatistics, getTimestamp(key), intentRecord);
+            }
+            if (!ndjson) {
+                jsonWriter.endArray();
+                jsonWriter.name("matchedUtteranceCount").value(Math.round(pageStatistics.getMatchedCount()));
+                jsonWriter.name("unmatchedUtteranceCount").value(Math.round(pageStatistics.getUnmatchedCount()));
+                if (pageStatistics.getMatchedCount() > 0) {
+                    jsonWriter.name("avgSessionConfidence")
+                            .value(pageStatistics.getAccConfidence() / pageStatistics.getMatchedCount());
+                }
+                jsonWriter.endObject();
+            }
+        });
+    }
+
+    /**
+     * Creates an {@link HttpEntity} with the provided {@code format} and streaming the content written by the
+     * provided {@code contentWriter}.
+     * <p>
+     * The content is written when the response is sent, and is not buffered in memory.
+     *
+     * @param format        the {@link RecordQuery.Format} of the content
+     * @param contentWriter the {@link JsonContentWriter} writing the content
+     * @return the created {@link HttpEntity}
+     */
+    private static HttpEntity createStreamingEntity(RecordQuery.Format format, JsonContentWriter contentWriter) {
+        return createStreamingEntity(format, false, contentWriter);
+    }
+
+    /**
+     * Creates an {@link HttpEntity} with the provided {@code format} and streaming the content written by the
+     * provided {@code contentWriter}, optionally compressed with gzip.
+     * <p>
+     * The content is written (and compressed) when the response is sent, and is not buffered in memory.
+     *
+     * @param format        the {@link RecordQuery.Format} of the content
+     * @param gzip          whether the content must be compressed with gzip
+     * @param contentWriter the {@link JsonContentWriter} writing the content
+     * @return the created {@link HttpEntity}
+     */
+    private static HttpEntity createStreamingEntity(RecordQuery.Format format, boolean gzip,
+                                                    JsonContentWriter contentWriter) {
+        ContentProducer contentProducer = outputStream -> {
+            GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(outputStream) : null;
+            OutputStream contentStream = gzip ? gzipStream : outputStream;
+            Writer writer = new BufferedWriter(new OutputStreamWriter(contentStream, StandardCharsets.UTF_8));
+            JsonWriter jsonWriter = new JsonWriter(writer);
+            /*
+             * Lenient mode is required to write multiple top-level values in NDJSON.
+             */
+            jsonWriter.setLenient(true);
+            contentWriter.write(jsonWriter, writer);
+            writer.flush();
+            if (nonNull(gzipStream)) {
+                /*
+                 * Writes the gzip trailer without closing the response stream, which is closed by the server.
+                 */
+                gzipStream.finish();
+            }
+        };
+        EntityTemplate entity = new EntityTemplate(contentProducer);
+        entity.setContentType(format.getContentType() + "; charset=UTF-8");
+        if (gzip) {
+            entity.setContentEncoding("gzip");
+        }
+        entity.setChunked(true);
+        return entity;
+    }
+
+    /**
+     * Creates a {@link JsonObject} representing the provided session record.
+     *
+     * @param sessionId   the identifier of the session to translate to a {@link JsonObject}
+     * @param sessionData the database records associated to the provided {@code sessionId}
+     * @return the created {@link JsonObject}
+     */
+    private JsonObject buildSessionObject(String sessionId, NavigableMap<Object[], IntentRecord> sessionData) {
+        JsonObject sessionObject = new JsonObject();
+        sessionObject.addProperty("sessionId", sessionId);
+        JsonArray sessionRecords = new JsonArray();
+        sessionObject.add("entries", sessionRecords);
+        SessionStatistics sessionStatistics = new SessionStatistics();
+        for (Map.Entry<Object[], IntentRecord> sessionEntry : sessionData.entrySet()) {
+            JsonObject entryObject = new JsonObject();
+            sessionRecords.add(entryObject);
+            entryObject.addProperty("timestamp", getTimestamp(sessionEntry.getKey()));
+            entryObject.addProperty("utterance", sessionEntry.getValue().getUtterance());
+            entryObject.addProperty("intent", sessionEntry.getValue().getIntentName());
+            entryObject.addProperty("confidence", sessionEntry.getValue().getRecognitionConfidence());
+            addRecord(sessionStatistics, getTimestamp(sessionEntry.getKey()), sessionEntry.getValue());
+        }
+        sessionObject.add("matchedUtteranceCount",
+                new JsonPrimitive(Math.round(sessionStatistics.getMatchedCount())));
+        sessionObject.add("unmatchedUtteranceCount",
+                new JsonPrimitive(Math.round(sessionStatistics.getUnmatchedCount())));
+        if (sessionStatistics.getMatchedCount() > 0) {
+            sessionObject.add("avgSessionConfidence",
+                    new JsonPrimitive(sessionStatistics.getAccConfidence() / sessionStatistics.getMatchedCount()));
+        }
+        return sessionObject;
+    }
+
+    /**
+     * Logs the recognition information from the provided {@code recognizedIntent} and {@code session}.
+     * <p>
+     * The recognition information is extracted on the calling thread, and written to the database by the
+     * background writer of the shard of the session. Depending on the {@link #MONITORING_DURABILITY_KEY} property
+     * this method returns once the information is queued or once it is committed. Recognized intents that are not
+     * selected by the sampling policy (see {@link #MONITORING_MATCHED_SAMPLING_RATE_KEY}) are discarded before being
+     * queued.
+     *
+     * @param session the {@link XatkitSession} from which the {@link RecognizedIntent} has been created
+     * @param recognizedIntent the {@link RecognizedIntent} to log
+     */
+    public void logRecognizedIntent(XatkitSession session, RecognizedIntent recognizedIntent) {
+        double samplingWeight = samplingPolicy.sample(recognizedIntent.getDefinition().getName());
+        if (samplingWeight == 0) {
+            return;
+        }
+        LogEntry logEntry = new LogEntry(session.getSessionId(), System.currentTimeMillis(),
+                new IntentRecord(recognizedIntent, samplingWeight));
+        if (!writers.get(getShardIndex(logEntry.sessionId)).submit(logEntry)) {
+            Log.debug("Dropped the monitoring record of the input \"{0}\" (the monitoring queue is full or closed)",
+                    logEntry.intentRecord.getUtterance());
+        }
+    }
+
+    /**
+     * Recomputes the statistics from the stored records.
+     * <p>
+     * The statistics are maintained when records are written, this method is used to initialize them from databases
+     * that do not contain them, and to repair them if needed. Note that this method iterates all the stored records,
+     * and blocks the background writer of each shard until its statistics are recomputed.
+     *
+     * @see #MONITORING_RECOMPUTE_STATISTICS_KEY
+     */
+    public void recomputeStatistics() {
+        Log.info("Recomputing the monitoring statistics");
+        long start = System.currentTimeMillis();
+        shards.forEach(MonitoringShard::recomputeStatistics);
+        Log.info("Monitoring statistics of {0} sessions recomputed in {1}ms", statistics.getSessionCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Removes the records older than the retention period from the database.
+     * <p>
+     * The removed records are aggregated into daily rollups for each intent, and the statistics of their sessions
+     * are updated. The records are removed in batches and the database is committed after each batch: the
+     * background writers are only blocked while a batch is removed, and calls to
+     * {@link #logRecognizedIntent(XatkitSession, RecognizedIntent)} are not blocked unless a writer queue is full.
+     * The space released by the removed records is then reclaimed by compacting the database stores if
+     * {@link #MONITORING_RECLAIM_SPACE_KEY} is enabled. This step does not hold the locks of the databases, but
+     * rewrites their stores and may block the background writers until it completes.
+     * <p>
+     * This method is called periodically if a {@link #MONITORING_RETENTION_DAYS_KEY} is specified, and does nothing
+     * otherwise.
+     *
+     * @return the number of removed records
+     * @see #MONITORING_COMPACTION_INTERVAL_KEY
+     */
+    public long compact() {
+        if (retention <= 0) {
+            Log.debug("No retention period specified, skipping the monitoring compaction");
+            return 0;
+        }
+        return compact(System.currentTimeMillis() - retention);
+    }
+
+    /**
+     * Removes the records older than the provided {@code cutoff} from the database.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param cutoff the timestamp (exclusive) of the records to remove
+     * @return the number of removed records
+     * @see #compact()
+     */
+    long compact(long cutoff) {
+        Log.info("Compacting the monitoring records older than {0}", Instant.ofEpochMilli(cutoff));
+        long start = System.currentTimeMillis();
+        long removedCount = 0;
+        for (MonitoringShard shard : shards) {
+            removedCount += shard.compact(cutoff);
+        }
+        if (reclaimSpace && removedCount > 0) {
+            shards.forEach(MonitoringShard::reclaimSpace);
+        }
+        Log.info("{0} monitoring records compacted in {1}ms", removedCount, System.currentTimeMillis() - start);
+        return removedCount;
+    }
+
+    /**
+     * Runs a compaction and logs the errors it throws.
+     * <p>
+     * This method is executed periodically by the {@link #compactionExecutor}, which would cancel the next
+     * executions if an exception was thrown.
+     */
+    private void runCompaction() {
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            Log.error(e, "An error occurred when compacting the monitoring records");
+        }
+    }
+
+    /**
+     * Stops the periodic compactions, waiting for the running one (if any) to complete.
+     */
+    private void stopCompaction() {
+        if (nonNull(compactionExecutor)) {
+            compactionExecutor.shutdown();
+            try {
+                if (!compactionExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    Log.warn("The monitoring compaction did not complete in time");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Returns the global statistics.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return the global statistics
+     */
+    MonitoringStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    /**
+     * Migrates the records stored by previous versions of the monitor to the shards.
+     * <p>
+     * Previous versions stored the records of each session in a single {@code timestamp -> IntentRecord} map of the
+     * {@link #ANALYTICS_DB_FILE} database, that was read and entirely written back each time an intent was logged.
+     * The migrated records are written to the shard of their session with the sequence number {@code 0} (see
+     * {@link MonitoringShard#migrate(String, long, IntentRecord)}), meaning that a migration interrupted before the
+     * legacy map is cleared can be safely executed again.
+     */
+    private void migrateLegacyRecords() {
+        DB legacyDb = shards.get(0).getDb();
+        if (!legacyDb.exists(LEGACY_RECORDS_MAP_NAME)) {
+            return;
+        }
+        Map<String, Map<Long, IntentRecord>> legacyRecords =
+                (Map<String, Map<Long, IntentRecord>>) legacyDb.hashMap(LEGACY_RECORDS_MAP_NAME).open();
+        if (legacyRecords.isEmpty()) {
+            return;
+        }
+        Log.info("Migrating the monitoring records of {0} sessions", legacyRecords.size());
+        int recordCount = 0;
+        for (Map.Entry<String, Map<Long, IntentRecord>> sessionEntry : legacyRecords.entrySet()) {
+            MonitoringShard shard = getShard(sessionEntry.getKey());
+            for (Map.Entry<Long, IntentRecord> recordEntry : sessionEntry.getValue().entrySet()) {
+                shard.migrate(sessionEntry.getKey(), recordEntry.getKey(), recordEntry.getValue());
+                recordCount++;
+            }
+        }
+        shards.forEach(MonitoringShard::commit);
+        legacyRecords.clear();
+        legacyDb.commit();
+        Log.info("{0} monitoring records migrated", recordCount);
+    }
+
+    /**
+     * Returns the records of the provided {@code sessionId}, sorted by time.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param sessionId the identifier of the session to retrieve the records of
+     * @return a view of the records of the session, or an empty map if the session does not exist
+     */
+    NavigableMap<Object[], IntentRecord> getSessionRecords(String sessionId) {
+        return getShard(sessionId).getSessionRecords(sessionId);
+    }
+
+    /**
+     * Writes the queued recognition information and commits the database.
+     * <p>
+     * This method blocks until the information logged before this call has been committed, regardless of the
+     * {@link #MONITORING_DURABILITY_KEY} property.
+     */
+    public void flush() {
+        this.writers.forEach(GroupCommitWriter::flush);
+    }
+
+    /**
+     * Writes the queued recognition information, commits the pending operations on the database, and closes the
+     * connection.
+     */
+    public void shutdown() {
+        this.stopCompaction();
+        this.writers.forEach(GroupCommitWriter::close);
+        this.shards.forEach(MonitoringShard::close);
+    }
+
+    /**
+     * Returns the value of the provided enumeration {@code key} from the provided {@code configuration}.
+     * <p>
+     * The value of the property is matched ignoring case against the names of the enumeration constants.
+     *
+     * @param configuration the {@link Configuration} to retrieve the value from
+     * @param key           the key of the property to retrieve
+     * @param defaultValue  the value to return if the property is not set
+     * @param <E>           the type of the enumeration
+     * @return the retrieved value
+     * @throws IllegalArgumentException if the property does not match any constant of the enumeration
+     */
+    private static <E extends Enum<E>> E getEnumValue(Configuration configuration, String key, E defaultValue) {
+        String value = configuration.getString(key, defaultValue.name()).trim();
+        E[] constants = defaultValue.getDeclaringClass().getEnumConstants();
+        E result = Arrays.stream(constants).filter(c -> c.name().equalsIgnoreCase(value)).findFirst().orElse(null);
+        checkArgument(nonNull(result), "Invalid value %s for the property %s, expected one of %s", value, key,
+                Arrays.toString(constants));
+        return result;
+    }
+
+    /**
+     * Returns the comma-separated values of the provided {@code key} from the provided {@code configuration}.
+     *
+     * @param configuration the {@link Configuration} to retrieve the values from
+     * @param key           the key of the property to retrieve
+     * @return the trimmed values of the property, or an empty {@link List} if the property is not set
+     */
+    private static List<String> getList(Configuration configuration, String key) {
+        String value = configuration.getString(key);
+        if (isNull(value)) {
+            return new ArrayList<>();
+        }
+        return Arrays.stream(value.split(",")).map(String::trim).filter(v -> !v.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Writes a record with a {@link JsonWriter}.
+     */
+    @FunctionalInterface
+    private interface RecordWriter {
+
+        /**
+         * Writes the record with the provided {@code key} and {@code intentRecord}.
+         *
+         * @param jsonWriter   the {@link JsonWriter} to write the record with
+         * @param key          the {@code [sessionId, timestamp, sequence]} key of the record
+         * @param intentRecord the record
+         * @throws IOException if an error occurred when writing the record
+         */
+        void write(JsonWriter jsonWriter, Object[] key, IntentRecord intentRecord) throws IOException;
+    }
+
+    /**
+     * Writes the content of a streamed {@link HttpEntity}.
+     */
+    @FunctionalInterface
+    private interface JsonContentWriter {
+
+        /**
+         * Writes the content of the entity.
+         *
+         * @param jsonWriter the {@link JsonWriter} to write JSON values with
+         * @param writer     the underlying {@link Writer}, used to write the separators of NDJSON values
+         * @throws IOException if an error occurred when writing the content
+         */
+        void write(JsonWriter jsonWriter, Writer writer) throws IOException;
+    }
+
+    /**
+     * A recognition record waiting to be written to the database.
+     */
+    private static class LogEntry {
+
+        /**
+         * The identifier of the session the record belongs to.
+         */
+        private final String sessionId;
+
+        /**
+         * The time (in milliseconds) the record has been logged.
+         */
+        private final long timestamp;
+
+        /**
+         * The record to write.
+         */
+        private final IntentRecord intentRecord;
+
+        /**
+         * Constructs a {@link LogEntry} with the provided {@code sessionId}, {@code timestamp}, and
+         * {@code intentRecord}.
+         *
+         * @param sessionId    the identifier of the session the record belongs to
+         * @param timestamp    the time (in milliseconds) the record has been logged
+         * @param intentRecord the record to write
+         */
+        private LogEntry(String sessionId, long timestamp, IntentRecord intentRecord) {
+            this.sessionId = sessionId;
+            this.timestamp = timestamp;
+            this.intentRecord = intentRecord;
+        }
+    }
+
+    /**
+     * A database record holding intent-related information.
+     * <p>
+     * This class is package-private for testing purposes.
+     */
+    static class IntentRecord implements Serializable {
 
         private static final long serialVersionUID = 42L;
 
@@ -542,10 +1946,26 @@ public class RecognitionMonitor {
          */
         private Float recognitionConfidence;
 
+        /**
+         * The number of recognized intents represented by the record, or {@code null} if the record has not been
+         * sampled.
+         * <p>
+         * This value is {@code null} for the records stored by previous versions of the monitor.
+         *
+         * @see SamplingPolicy
+         */
+        @Nullable
+        private Double samplingWeight;
+
         public IntentRecord(RecognizedIntent recognizedIntent) {
+            this(recognizedIntent, 1);
+        }
+
+        public IntentRecord(RecognizedIntent recognizedIntent, double samplingWeight) {
             this.utterance = recognizedIntent.getMatchedInput();
             this.intentName = recognizedIntent.getDefinition().getName();
             this.recognitionConfidence = recognizedIntent.getRecognitionConfidence();
+            this.samplingWeight = samplingWeight == 1 ? null : samplingWeight;
         }
 
         public String getUtterance() {
@@ -560,6 +1980,15 @@ public class RecognitionMonitor {
             return this.recognitionConfidence;
         }
 
+        /**
+         * Returns the number of recognized intents represented by the record.
+         *
+         * @return the sampling weight of the record, or {@code 1} if the record has not been sampled
+         */
+        public double getSamplingWeight() {
+            return isNull(this.samplingWeight) ? 1 : this.samplingWeight;
+        }
+
         @Override
         public int hashCode() {
             return this.utterance.hashCode() + this.intentName.hashCode() + this.recognitionConfidence.hashCode();
@@ -0,0 +1,258 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.core.server.HttpUtils;
+import com.xatkit.core.server.RestHandlerException;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.NameValuePair;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A query over the records stored by the {@link RecognitionMonitor}.
+ * <p>
+ * Queries are created from the following parameters of the monitoring endpoints:
+ * <ul>
+ * <li><b>limit</b>: the maximum number of records to return</li>
+ * <li><b>after</b>: the cursor of the last record of the previous page, only the records following it are
+ * returned</li>
+ * <li><b>from</b>: the minimum timestamp (inclusive, in milliseconds) of the records to return</li>
+ * <li><b>to</b>: the maximum timestamp (exclusive, in milliseconds) of the records to return</li>
+ * <li><b>format</b>: the format of the response, either {@code json} (default) or {@code ndjson}. The
+ * {@code ndjson} format is also selected if the request's {@code Accept} header contains
+ * {@code application/x-ndjson}. Export endpoints support the {@code ndjson} (default) and {@code csv} formats
+ * instead, the {@code csv} format is also selected if the {@code Accept} header contains {@code text/csv}</li>
+ * </ul>
+ * Each returned record contains a {@code cursor} field that can be used as the {@code after} parameter of the next
+ * request to retrieve the next page. Cursors are opaque strings, and remain valid when new records are stored.
+ */
+class RecordQuery {
+
+    /**
+     * The formats of the query results.
+     */
+    enum Format {
+
+        /**
+         * A single JSON document.
+         */
+        JSON("application/json"),
+
+        /**
+         * A sequence of JSON documents separated by new lines.
+         */
+        NDJSON("application/x-ndjson"),
+
+        /**
+         * Comma-separated values with a header line.
+         */
+        CSV("text/csv");
+
+        /**
+         * The content type of the format.
+         */
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        /**
+         * Returns the content type of the format.
+         *
+         * @return the content type of the format
+         */
+        String getContentType() {
+            return this.contentType;
+        }
+    }
+
+    /**
+     * The key of the record to start after, or {@code null} to start at the first record.
+     */
+    private final @Nullable
+    Object[] after;
+
+    /**
+     * The minimum timestamp (inclusive) of the records to return.
+     */
+    private final long from;
+
+    /**
+     * The maximum timestamp (exclusive) of the records to return.
+     */
+    private final long to;
+
+    /**
+     * The maximum number of records to return.
+     */
+    private final int limit;
+
+    /**
+     * The format of the query results.
+     */
+    private final Format format;
+
+    /**
+     * Constructs a {@link RecordQuery} with the provided parameters.
+     *
+     * @param after  the key of the record to start after, or {@code null} to start at the first record
+     * @param from   the minimum timestamp (inclusive) of the records to return
+     * @param to     the maximum timestamp (exclusive) of the records to return
+     * @param limit  the maximum number of records to return
+     * @param format the format of the query results
+     */
+    RecordQuery(@Nullable Object[] after, long from, long to, int limit, Format format) {
+        this.after = after;
+        this.from = from;
+        this.to = to;
+        this.limit = limit;
+        this.format = format;
+    }
+
+    /**
+     * Creates a {@link RecordQuery} from the provided request {@code headers} and {@code params}.
+     * <p>
+     * The created query supports the {@link Format#JSON} (default) and {@link Format#NDJSON} formats.
+     *
+     * @param headers the HTTP headers of the request
+     * @param params  the parameters of the request
+     * @return the created {@link RecordQuery}
+     * @throws RestHandlerException if a parameter is invalid
+     * @see #fromRequest(List, List, Format, Set)
+     */
+    static RecordQuery fromRequest(List<Header> headers, List<NameValuePair> params) throws RestHandlerException {
+        return fromRequest(headers, params, Format.JSON, EnumSet.of(Format.JSON, Format.NDJSON));
+    }
+
+    /**
+     * Creates a {@link RecordQuery} supporting the provided {@code formats} from the provided request
+     * {@code headers} and {@code params}.
+     * <p>
+     * If the request does not contain a {@code format} parameter the format is selected from the request's
+     * {@code Accept} header, or set to {@code defaultFormat} if the header does not contain any of the supported
+     * formats.
+     *
+     * @param headers       the HTTP headers of the request
+     * @param params        the parameters of the request
+     * @param defaultFormat the format to use if the request does not specify one
+     * @param formats       the formats supported by the query
+     * @return the created {@link RecordQuery}
+     * @throws RestHandlerException if a parameter is invalid
+     */
+    static RecordQuery fromRequest(List<Header> headers, List<NameValuePair> params, Format defaultFormat,
+                                   Set<Format> formats) throws RestHandlerException {
+        String afterValue = HttpUtils.getParameterValue("after", params);
+        Object[] after = isNull(afterValue) ? null : decodeCursor(afterValue);
+        long from = getLongParameter("from", params, Long.MIN_VALUE);
+        long to = getLongParameter("to", params, Long.MAX_VALUE);
+        long limit = getLongParameter("limit", params, Integer.MAX_VALUE);
+        if (limit <= 0 || limit > Integer.MAX_VALUE) {
+            throw new RestHandlerException(400, "Invalid limit " + limit + ", expected a positive integer");
+        }
+        String formatValue = HttpUtils.getParameterValue("format", params);
+        Format format;
+        if (nonNull(formatValue)) {
+            format = formats.stream().filter(f -> f.name().equalsIgnoreCase(formatValue)).findFirst()
+                    .orElseThrow(() -> new RestHandlerException(400, "Invalid format " + formatValue + ", expected "
+                            + "one of " + formats.stream().map(f -> f.name().toLowerCase(Locale.ROOT))
+                            .collect(Collectors.joining(", "))));
+        } else {
+            format = formats.stream()
+                    .filter(f -> !f.equals(defaultFormat) && headers.stream()
+                            .anyMatch(h -> h.getName().equalsIgnoreCase(HttpHeaders.ACCEPT)
+                                    && h.getValue().contains(f.getContentType())))
+                    .findFirst().orElse(defaultFormat);
+        }
+        return new RecordQuery(after, from, to, (int) limit, format);
+    }
+
+    /**
+     * Returns the value of the provided {@code parameterName} as a {@code long}.
+     *
+     * @param parameterName the name of the parameter to retrieve
+     * @param params        the parameters of the request
+     * @param defaultValue  the value to return if the parameter is not set
+     * @return the value of the parameter
+     * @throws RestHandlerException if the value of the parameter is not a valid {@code long}
+     */
+    private static long getLongParameter(String parameterName, List<NameValuePair> params, long defaultValue)
+            throws RestHandlerException {
+        String value = HttpUtils.getParameterValue(parameterName, params);
+        if (isNull(value)) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new RestHandlerException(400, "Invalid value " + value + " for parameter " + parameterName);
+        }
+    }
+
+    /**
+     * Returns the cursor of the record with the provided {@code key}.
+     *
+     * @param key the {@code [sessionId, timestamp, sequence]} key of the record
+     * @return the cursor of the record
+     * @see #decodeCursor(String)
+     */
+    static String encodeCursor(Object[] key) {
+        String value = key[1] + ":" + key[2] + ":" + key[0];
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the record key represented by the provided {@code cursor}.
+     *
+     * @param cursor the cursor to decode
+     * @return the {@code [sessionId, timestamp, sequence]} key represented by the cursor
+     * @throws RestHandlerException if the provided {@code cursor} is invalid
+     * @see #encodeCursor(Object[])
+     */
+    static Object[] decodeCursor(String cursor) throws RestHandlerException {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split(":", 3);
+            if (parts.length == 3) {
+                return new Object[]{parts[2], Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+            }
+        } catch (IllegalArgumentException e) {
+            /*
+             * Also catches NumberFormatException.
+             */
+        }
+        throw new RestHandlerException(400, "Invalid cursor " + cursor);
+    }
+
+    @Nullable
+    Object[] getAfter() {
+        return this.after;
+    }
+
+    long getFrom() {
+        return this.from;
+    }
+
+    long getTo() {
+        return this.to;
+    }
+
+    int getLimit() {
+        return this.limit;
+    }
+
+    Format getFormat() {
+        return this.format;
+    }
+
+}
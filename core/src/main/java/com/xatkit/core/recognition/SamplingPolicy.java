@@ -0,0 +1,151 @@
+package com.xatkit.core.recognition;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * Selects the recognized intents stored by the {@link RecognitionMonitor}.
+ * <p>
+ * Matched and unmatched utterances are sampled with their own rate, allowing to keep a fraction of the matched
+ * utterances while keeping all the unmatched ones. Matched intents can also be filtered by name: if the allowed
+ * intents are not empty only the intents they contain are sampled, and the denied intents are never stored.
+ * Unmatched utterances are only selected by their sampling rate.
+ * <p>
+ * Each sampled record is associated to a weight (the inverse of the rate it has been sampled with), which is used
+ * to scale the aggregated statistics so that they estimate the unsampled traffic. Records that are filtered by
+ * name are not part of the estimates.
+ * <p>
+ * This class is thread-safe.
+ */
+class SamplingPolicy {
+
+    /**
+     * The probability to store a matched utterance, in {@code [0..1]}.
+     */
+    private final double matchedRate;
+
+    /**
+     * The probability to store an unmatched utterance, in {@code [0..1]}.
+     */
+    private final double unmatchedRate;
+
+    /**
+     * The names of the matched intents to sample, or an empty set to sample all the matched intents.
+     */
+    private final Set<String> allowedIntents;
+
+    /**
+     * The names of the matched intents that are never stored.
+     */
+    private final Set<String> deniedIntents;
+
+    /**
+     * The number of records selected by the policy.
+     */
+    private final AtomicLong sampledCount = new AtomicLong();
+
+    /**
+     * The number of records rejected by the sampling rates.
+     */
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * The number of records rejected by the allowed and denied intents.
+     */
+    private final AtomicLong filteredCount = new AtomicLong();
+
+    /**
+     * Constructs a {@link SamplingPolicy} with the provided parameters.
+     *
+     * @param matchedRate    the probability to store a matched utterance
+     * @param unmatchedRate  the probability to store an unmatched utterance
+     * @param allowedIntents the names of the matched intents to sample, or an empty collection to sample all the
+     *                       matched intents
+     * @param deniedIntents  the names of the matched intents that are never stored
+     * @throws NullPointerException     if the provided {@code allowedIntents} or {@code deniedIntents} is
+     *                                  {@code null}
+     * @throws IllegalArgumentException if a provided rate is not contained in {@code [0..1]}
+     */
+    SamplingPolicy(double matchedRate, double unmatchedRate, Collection<String> allowedIntents,
+                   Collection<String> deniedIntents) {
+        checkArgument(matchedRate >= 0 && matchedRate <= 1, "Invalid matched sampling rate %s, expected a value "
+                + "in [0..1]", matchedRate);
+        checkArgument(unmatchedRate >= 0 && unmatchedRate <= 1, "Invalid unmatched sampling rate %s, expected a "
+                + "value in [0..1]", unmatchedRate);
+        checkNotNull(allowedIntents, "Cannot construct a %s with a null allowed intent collection",
+                SamplingPolicy.class.getSimpleName());
+        checkNotNull(deniedIntents, "Cannot construct a %s with a null denied intent collection",
+                SamplingPolicy.class.getSimpleName());
+        this.matchedRate = matchedRate;
+        this.unmatchedRate = unmatchedRate;
+        this.allowedIntents = Collections.unmodifiableSet(new HashSet<>(allowedIntents));
+        this.deniedIntents = Collections.unmodifiableSet(new HashSet<>(deniedIntents));
+    }
+
+    /**
+     * Returns whether the policy stores all the recognized intents.
+     *
+     * @return {@code true} if the policy stores all the recognized intents, {@code false} otherwise
+     */
+    boolean isDisabled() {
+        return matchedRate == 1 && unmatchedRate == 1 && allowedIntents.isEmpty() && deniedIntents.isEmpty();
+    }
+
+    /**
+     * Decides whether a record of the provided {@code intentName} is stored.
+     *
+     * @param intentName the name of the recognized intent
+     * @return the weight of the record (the number of recognized intents it represents), or {@code 0} if the
+     * record must not be stored
+     */
+    double sample(String intentName) {
+        boolean matched = MonitoringShard.isMatched(intentName);
+        if (matched && ((!allowedIntents.isEmpty() && !allowedIntents.contains(intentName))
+                || deniedIntents.contains(intentName))) {
+            filteredCount.incrementAndGet();
+            return 0;
+        }
+        double rate = matched ? matchedRate : unmatchedRate;
+        if (rate < 1 && ThreadLocalRandom.current().nextDouble() >= rate) {
+            skippedCount.incrementAndGet();
+            return 0;
+        }
+        sampledCount.incrementAndGet();
+        return 1 / rate;
+    }
+
+    double getMatchedRate() {
+        return this.matchedRate;
+    }
+
+    double getUnmatchedRate() {
+        return this.unmatchedRate;
+    }
+
+    Set<String> getAllowedIntents() {
+        return this.allowedIntents;
+    }
+
+    Set<String> getDeniedIntents() {
+        return this.deniedIntents;
+    }
+
+    long getSampledCount() {
+        return this.sampledCount.get();
+    }
+
+    long getSkippedCount() {
+        return this.skippedCount.get();
+    }
+
+    long getFilteredCount() {
+        return this.filteredCount.get();
+    }
+}
@@ -2,21 +2,37 @@ package com.xatkit.core.recognition.dialogflow;
 
 import com.google.api.core.ApiFuture;
 import com.google.api.gax.core.CredentialsProvider;
+import com.google.api.gax.core.ExecutorProvider;
 import com.google.api.gax.core.FixedCredentialsProvider;
-import com.google.api.gax.rpc.FailedPreconditionException;
-import com.google.api.gax.rpc.InvalidArgumentException;
+import com.google.api.gax.core.FixedExecutorProvider;
+import com.google.api.gax.core.NoCredentialsProvider;
+import com.google.api.gax.grpc.GrpcTransportChannel;
+import com.google.api.gax.retrying.RetrySettings;
+import com.google.api.gax.rpc.ApiException;
+import com.google.api.gax.rpc.FixedTransportChannelProvider;
+import com.google.api.gax.rpc.StatusCode;
+import com.google.api.gax.rpc.TransportChannelProvider;
+import com.google.api.gax.rpc.UnaryCallSettings;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.dialogflow.v2.AgentsClient;
 import com.google.cloud.dialogflow.v2.AgentsSettings;
+import com.google.cloud.dialogflow.v2.BatchDeleteEntityTypesRequest;
+import com.google.cloud.dialogflow.v2.BatchDeleteIntentsRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateEntityTypesRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateEntityTypesResponse;
+import com.google.cloud.dialogflow.v2.BatchUpdateIntentsRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateIntentsResponse;
 import com.google.cloud.dialogflow.v2.Context;
 import com.google.cloud.dialogflow.v2.ContextName;
 import com.google.cloud.dialogflow.v2.ContextsClient;
 import com.google.cloud.dialogflow.v2.ContextsSettings;
 import com.google.cloud.dialogflow.v2.DetectIntentResponse;
 import com.google.cloud.dialogflow.v2.EntityType;
+import com.google.cloud.dialogflow.v2.EntityTypeBatch;
 import com.google.cloud.dialogflow.v2.EntityTypesClient;
 import com.google.cloud.dialogflow.v2.EntityTypesSettings;
 import com.google.cloud.dialogflow.v2.Intent;
+import com.google.cloud.dialogflow.v2.IntentBatch;
 import com.google.cloud.dialogflow.v2.IntentView;
 import com.google.cloud.dialogflow.v2.IntentsClient;
 import com.google.cloud.dialogflow.v2.IntentsSettings;
@@ -30,15 +46,21 @@ import com.google.cloud.dialogflow.v2.SessionsClient;
 import com.google.cloud.dialogflow.v2.SessionsSettings;
 import com.google.cloud.dialogflow.v2.TextInput;
 import com.google.cloud.dialogflow.v2.TrainAgentRequest;
+import com.google.gson.JsonObject;
 import com.google.longrunning.Operation;
 import com.google.protobuf.Struct;
 import com.google.protobuf.Value;
 import com.xatkit.core.EventDefinitionRegistry;
 import com.xatkit.core.XatkitCore;
 import com.xatkit.core.XatkitException;
+import com.xatkit.core.recognition.CircuitBreaker;
 import com.xatkit.core.recognition.EntityMapper;
 import com.xatkit.core.recognition.IntentRecognitionProvider;
+import com.xatkit.core.recognition.IntentRecognitionProviderFactory;
 import com.xatkit.core.recognition.RecognitionMonitor;
+import com.xatkit.core.recognition.regex.RegExIntentRecognitionProvider;
+import com.xatkit.core.server.HttpMethod;
+import com.xatkit.core.server.RestHandlerFactory;
 import com.xatkit.core.session.RuntimeContexts;
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.BaseEntityDefinition;
@@ -59,7 +81,12 @@ import com.xatkit.intent.RecognizedIntent;
 import com.xatkit.intent.TextFragment;
 import com.xatkit.util.FileUtils;
 import fr.inria.atlanmod.commons.log.Log;
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
 import org.apache.commons.configuration2.Configuration;
+import org.threeten.bp.Duration;
 
 import javax.annotation.Nullable;
 import java.io.File;
@@ -67,15 +94,30 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
 import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
 import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
@@ -131,6 +173,10 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * <p>
      * This property is disabled by default. Enabling it allows to easily re-deploy chatbots under development, but
      * complete agent cleaning should not be done on production-ready bots (re-training such bots may take a long time).
+     * <p>
+     * <b>Note</b>: the agent is not cleaned eagerly. The {@link Intent}s and {@link EntityType}s that are not
+     * registered by the bot are deleted with batch requests when the agent is synchronized (see
+     * {@link #synchronizeAgent()}), the ones that are registered again are kept and updated only if they changed.
      */
     public static String CLEAN_AGENT_ON_STARTUP_KEY = "xatkit.dialogflow.clean_on_startup";
 
@@ -195,11 +241,200 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      */
     public static String CONFIDENCE_THRESHOLD_KEY = "xatkit.dialogflow.confidence.threshold";
 
+    /**
+     * The {@link Configuration} key to store whether to skip the agent synchronization and training when the
+     * registered definitions did not change since the last deployment.
+     * <p>
+     * This option is disabled by default. The {@link DialogFlowApi} computes a fingerprint of the registered
+     * {@link IntentDefinition}s and {@link EntityDefinition}s when training the agent, and stores it in the data
+     * directory (see {@link RecognitionMonitor#DATA_DIRECTORY_KEY}) once the training is completed. Subsequent
+     * deployments with the same fingerprint skip agent cleaning and training if the agent does not differ from the
+     * registered definitions, allowing fast restarts of unchanged bots.
+     * <p>
+     * <b>Note</b>: the agent is compared with the registered definitions using the imported {@link Intent}s and
+     * {@link EntityType}s (see {@link #ENABLE_INTENT_LOADING_KEY} and {@link #ENABLE_ENTITY_LOADING_KEY}). Agents
+     * that have been modified outside of Xatkit (e.g. in the DialogFlow console, or by another deployment using a
+     * different data directory) are synchronized and trained even if the fingerprint did not change.
+     */
+    public static String SKIP_UNCHANGED_AGENT_KEY = "xatkit.dialogflow.skip_unchanged";
+
+    /**
+     * The {@link Configuration} key to store whether to protect the DialogFlow intent detection with a
+     * {@link CircuitBreaker}.
+     * <p>
+     * This option is disabled by default. When enabled, the {@link DialogFlowApi} records the outcome and latency of
+     * the intent detection queries, and opens the circuit when too many of them fail or are slow. While the circuit
+     * is open the inputs are processed by a local {@link RegExIntentRecognitionProvider} built from the registered
+     * {@link IntentDefinition}s. Failed queries are also processed by the local provider instead of throwing an
+     * exception.
+     * <p>
+     * The circuit breaker thresholds can be customized with the keys defined in {@link CircuitBreaker} prefixed by
+     * {@link #CIRCUIT_BREAKER_KEY_PREFIX} (e.g. {@code xatkit.dialogflow.circuit_breaker.open_duration}). The state
+     * of the circuit and the number of fallback recognitions are available at {@code GET:
+     * /dialogflow/circuit_breaker} (or {@code GET: /dialogflow/<language>/circuit_breaker} for the providers created
+     * for a language of {@link IntentRecognitionProviderFactory#RECOGNITION_LANGUAGES_KEY}).
+     */
+    public static String ENABLE_CIRCUIT_BREAKER_KEY = "xatkit.dialogflow.circuit_breaker.enabled";
+
+    /**
+     * The prefix of the {@link Configuration} keys used to customize the {@link CircuitBreaker} protecting the
+     * DialogFlow intent detection.
+     *
+     * @see #ENABLE_CIRCUIT_BREAKER_KEY
+     */
+    public static String CIRCUIT_BREAKER_KEY_PREFIX = "xatkit.dialogflow.circuit_breaker";
+
+    /**
+     * The {@link Configuration} key to store the endpoint of the DialogFlow API.
+     * <p>
+     * This option is not set by default, meaning that the {@link DialogFlowApi} connects to the Google DialogFlow
+     * API. Setting it allows to connect to a different server implementing the DialogFlow gRPC services (e.g. a
+     * local stand-in used to test or benchmark a bot without accessing the Google API). The value can be a {@code
+     * host:port} address, or an in-process server name prefixed by {@link #IN_PROCESS_ENDPOINT_PREFIX}.
+     * <p>
+     * The created clients do not use any credentials if {@link #GOOGLE_CREDENTIALS_PATH_KEY} is not set.
+     *
+     * @see #ENDPOINT_PLAINTEXT_KEY
+     */
+    public static String ENDPOINT_KEY = "xatkit.dialogflow.endpoint";
+
+    /**
+     * The {@link Configuration} key to store whether to connect to the endpoint defined with {@link #ENDPOINT_KEY}
+     * without TLS.
+     * <p>
+     * This option is set to {@code false} by default, and is ignored for in-process endpoints.
+     */
+    public static String ENDPOINT_PLAINTEXT_KEY = "xatkit.dialogflow.endpoint.plaintext";
+
+    /**
+     * The prefix used in {@link #ENDPOINT_KEY} to connect to an in-process gRPC server.
+     * <p>
+     * In-process endpoints are typically used in tests and benchmarks, e.g. {@code in-process:dialogflow}.
+     */
+    public static final String IN_PROCESS_ENDPOINT_PREFIX = "in-process:";
+
+    /**
+     * The {@link Configuration} key to store the number of gRPC channels shared by the DialogFlow clients.
+     * <p>
+     * The DialogFlow clients share a single channel by default. Each channel is backed by a single HTTP/2
+     * connection, increasing the pool size allows to spread highly concurrent intent detection over several
+     * connections.
+     */
+    public static String CHANNEL_POOL_SIZE_KEY = "xatkit.dialogflow.channel.pool_size";
+
+    /**
+     * The {@link Configuration} key to store the delay (in milliseconds) without read activity before sending a
+     * keep-alive ping on the DialogFlow channels.
+     * <p>
+     * Keep-alive pings are disabled by default. Enabling them allows to detect broken connections before sending
+     * an intent detection query, and to keep the connections open through proxies closing idle connections.
+     *
+     * @see #KEEP_ALIVE_TIMEOUT_KEY
+     * @see #KEEP_ALIVE_WITHOUT_CALLS_KEY
+     */
+    public static String KEEP_ALIVE_TIME_KEY = "xatkit.dialogflow.channel.keep_alive_time";
+
+    /**
+     * The {@link Configuration} key to store the time (in milliseconds) to wait for a keep-alive ping
+     * acknowledgement before closing the connection.
+     * <p>
+     * This option is set to {@code 20000} by default, and is ignored if {@link #KEEP_ALIVE_TIME_KEY} is not set.
+     */
+    public static String KEEP_ALIVE_TIMEOUT_KEY = "xatkit.dialogflow.channel.keep_alive_timeout";
+
+    /**
+     * The {@link Configuration} key to store whether to send keep-alive pings when there is no ongoing call.
+     * <p>
+     * This option is set to {@code false} by default, and is ignored if {@link #KEEP_ALIVE_TIME_KEY} is not set.
+     */
+    public static String KEEP_ALIVE_WITHOUT_CALLS_KEY = "xatkit.dialogflow.channel.keep_alive_without_calls";
+
+    /**
+     * The {@link Configuration} key to store the maximum size (in bytes) of the messages received from the
+     * DialogFlow API.
+     * <p>
+     * This option is set to {@link Integer#MAX_VALUE} by default, allowing to import large agents.
+     */
+    public static String MAX_INBOUND_MESSAGE_SIZE_KEY = "xatkit.dialogflow.channel.max_inbound_message_size";
+
+    /**
+     * The {@link Configuration} key to store the number of threads used by the DialogFlow clients and channels.
+     * <p>
+     * The threads are shared by the DialogFlow clients to process gRPC callbacks, retries, and long-running
+     * operation polling. This option is set to the number of available processors (with a minimum of {@code 4}) by
+     * default.
+     */
+    public static String EXECUTOR_THREADS_KEY = "xatkit.dialogflow.executor.threads";
+
+    /**
+     * The {@link Configuration} key to store the deadline (in milliseconds) of each intent detection and context
+     * creation query.
+     * <p>
+     * The DialogFlow library deadlines are used if this option is not set.
+     *
+     * @see #RPC_MAX_ATTEMPTS_KEY
+     */
+    public static String RPC_TIMEOUT_KEY = "xatkit.dialogflow.rpc.timeout";
+
+    /**
+     * The {@link Configuration} key to store the maximum number of attempts of each intent detection and context
+     * creation query.
+     * <p>
+     * This option is set to {@code 1} by default (no retry). Greater values retry the queries that failed with an
+     * {@code UNAVAILABLE} or {@code DEADLINE_EXCEEDED} status, using the DialogFlow library back-off delays.
+     * <b>Note</b>: retrying an intent detection query that has been processed by DialogFlow may update the session
+     * contexts twice.
+     *
+     * @see #RPC_TIMEOUT_KEY
+     */
+    public static String RPC_MAX_ATTEMPTS_KEY = "xatkit.dialogflow.rpc.max_attempts";
+
+    /**
+     * The {@link Configuration} key to store whether to process user inputs while the agent is training.
+     * <p>
+     * This option is set to {@code true} by default: DialogFlow keeps serving the previous version of the agent
+     * until the training is complete. When set to {@code false} the recognition of user inputs waits for the end
+     * of the training (see {@link #TRAINING_WAIT_TIMEOUT_KEY}), ensuring that inputs are processed with the
+     * up-to-date agent.
+     * <p>
+     * <b>Note</b>: user inputs always wait for the end of the training if the agent imported from DialogFlow does
+     * not contain any of the registered intents (e.g. on the first deployment of the bot), since there is no
+     * previous version of the agent to serve. This is only detected if intents are imported (see
+     * {@link #ENABLE_INTENT_LOADING_KEY}).
+     *
+     * @see #trainMLEngineAsync()
+     * @see #isReady()
+     */
+    public static String TRAINING_ACCEPT_TRAFFIC_KEY = "xatkit.dialogflow.training.accept_traffic";
+
+    /**
+     * The {@link Configuration} key to store the maximum time (in milliseconds) to wait for the end of the training
+     * before rejecting a user input.
+     * <p>
+     * This option is set to {@code 60000} by default, and is ignored if {@link #TRAINING_ACCEPT_TRAFFIC_KEY} is
+     * {@code true} and the agent contains a previous version of the registered intents. Inputs received while the
+     * agent is training are processed by the local fallback provider if
+     * the circuit breaker is enabled (see {@link #ENABLE_CIRCUIT_BREAKER_KEY}), otherwise a
+     * {@link DialogFlowException} is thrown.
+     */
+    public static String TRAINING_WAIT_TIMEOUT_KEY = "xatkit.dialogflow.training.wait_timeout";
+
+    /**
+     * The delay (in milliseconds) between two checks of the training operation status.
+     */
+    private static final long TRAINING_POLL_INTERVAL = 1000;
+
+    /**
+     * The directory used to store DialogFlow-related data within the specified {@code data} directory.
+     * <p>
+     * This value cannot be changed in the Xatkit {@link Configuration}.
+     */
+    static final String DIALOGFLOW_DIRECTORY = "dialogflow";
 
     /**
      * The DialogFlow Default Fallback Intent that is returned when the user input does not match any registered Intent.
      *
-     * @see #convertDialogFlowIntentToIntentDefinition(Intent)
+     * @see #getIntentDescriptor(Intent)
      */
     private static IntentDefinition DEFAULT_FALLBACK_INTENT = IntentFactory.eINSTANCE.createIntentDefinition();
 
@@ -210,6 +445,12 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         DEFAULT_FALLBACK_INTENT.setName("Default_Fallback_Intent");
     }
 
+    /**
+     * The {@link DialogFlowIntentDescriptor} of the {@link #DEFAULT_FALLBACK_INTENT}.
+     */
+    private static DialogFlowIntentDescriptor DEFAULT_FALLBACK_INTENT_DESCRIPTOR =
+            new DialogFlowIntentDescriptor(DEFAULT_FALLBACK_INTENT);
+
     /**
      * The containing {@link XatkitCore} instance.
      */
@@ -300,6 +541,21 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      */
     private float confidenceThreshold;
 
+    /**
+     * A flag allowing the {@link DialogFlowApi} to skip the agent synchronization and training when the registered
+     * definitions did not change since the last deployment.
+     *
+     * @see #SKIP_UNCHANGED_AGENT_KEY
+     */
+    private boolean skipUnchangedAgent;
+
+    /**
+     * The file storing the fingerprint of the last trained agent.
+     *
+     * @see #SKIP_UNCHANGED_AGENT_KEY
+     */
+    private File fingerprintFile;
+
     /**
      * Represents the DialogFlow project name.
      * <p>
@@ -399,6 +655,17 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      */
     private Map<String, Intent> registeredIntents;
 
+    /**
+     * The {@link DialogFlowIntentDescriptor}s of the registered {@link IntentDefinition}s, indexed by their
+     * DialogFlow display name.
+     * <p>
+     * The descriptors are created when an {@link IntentDefinition} is registered, and allow to convert DialogFlow
+     * responses without scanning the matched {@link IntentDefinition} (see
+     * {@link #convertDialogFlowIntentToRecognizedIntent(QueryResult)}). This map is accessed concurrently by the
+     * intent recognition.
+     */
+    private Map<String, DialogFlowIntentDescriptor> intentDescriptors = new ConcurrentHashMap<>();
+
     /**
      * A local cache used to retrieve registered {@link EntityType}s from their display name.
      * <p>
@@ -406,12 +673,174 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      */
     private Map<String, EntityType> registeredEntityTypes;
 
+    /**
+     * The display names of the imported {@link Intent}s that have not been registered by the bot yet.
+     * <p>
+     * Imported {@link Intent}s are claimed when their {@link IntentDefinition} is registered. The remaining ones are
+     * deleted when the agent is synchronized if {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set to {@code true}.
+     *
+     * @see #cleanAgent()
+     */
+    private Set<String> unclaimedIntents;
+
+    /**
+     * The display names of the imported {@link EntityType}s that have not been registered by the bot yet.
+     * <p>
+     * Imported {@link EntityType}s are claimed when their {@link EntityDefinition} is registered. The remaining ones
+     * are deleted when the agent is synchronized if {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set to {@code true}.
+     *
+     * @see #cleanAgent()
+     */
+    private Set<String> unclaimedEntityTypes;
+
+    /**
+     * The {@link Intent}s waiting to be sent to the DialogFlow agent, indexed by their display name.
+     * <p>
+     * {@link Intent}s are accumulated by {@link #registerIntentDefinition(IntentDefinition)} and sent in batch
+     * requests by {@link #synchronizeAgent()}. This map only contains new {@link Intent}s and {@link Intent}s that
+     * differ from the ones imported from the agent.
+     */
+    private Map<String, Intent> pendingIntents;
+
+    /**
+     * The display names of the parents of the pending follow-up {@link Intent}s, indexed by the display name of the
+     * follow-up {@link Intent}.
+     * <p>
+     * The parent's DialogFlow name is only known once the parent has been created in the agent, this map is used
+     * to set it when the follow-up {@link Intent} is sent (see {@link #synchronizeAgent()}).
+     */
+    private Map<String, String> pendingParentIntents;
+
+    /**
+     * The {@link EntityType}s waiting to be sent to the DialogFlow agent, indexed by their display name.
+     * <p>
+     * {@link EntityType}s are accumulated by {@link #registerEntityDefinition(EntityDefinition)} and sent in batch
+     * requests by {@link #synchronizeAgent()}.
+     */
+    private Map<String, EntityType> pendingEntityTypes;
+
+    /**
+     * A flag indicating whether some registered definitions have not been sent to the DialogFlow agent yet.
+     * <p>
+     * This flag is set when an element is added to the pending ones, and cleared once the agent has been
+     * synchronized (see {@link #synchronizeAgent()}). It is {@code volatile} so that
+     * {@link #getIntentInternal(String, XatkitSession)} can check it without acquiring the lock of this class.
+     */
+    private volatile boolean pendingDefinitions;
+
+    /**
+     * A flag indicating whether the agent has been cleaned.
+     *
+     * @see #cleanAgent()
+     */
+    private boolean agentCleaned;
+
+    /**
+     * The {@link Intent}s created from the registered {@link IntentDefinition}s, indexed by their display name.
+     * <p>
+     * These {@link Intent}s are used to compute the fingerprint of the agent (see {@link #SKIP_UNCHANGED_AGENT_KEY}).
+     * The {@code parentFollowupIntentName} of follow-up {@link Intent}s is set with the display name of their parent,
+     * since the DialogFlow name of the parent is not stable across agents.
+     */
+    private Map<String, Intent> expectedIntents;
+
+    /**
+     * The {@link EntityType}s created from the registered {@link EntityDefinition}s, indexed by their display name.
+     * <p>
+     * These {@link EntityType}s are used to compute the fingerprint of the agent (see
+     * {@link #SKIP_UNCHANGED_AGENT_KEY}).
+     */
+    private Map<String, EntityType> expectedEntityTypes;
+
     /**
      * The {@link RecognitionMonitor} used to track intent matching information.
      */
     @Nullable
     private RecognitionMonitor recognitionMonitor;
 
+    /**
+     * The {@link CircuitBreaker} protecting the DialogFlow intent detection.
+     * <p>
+     * This attribute is {@code null} if the circuit breaker is disabled (see {@link #ENABLE_CIRCUIT_BREAKER_KEY}).
+     */
+    @Nullable
+    private CircuitBreaker circuitBreaker;
+
+    /**
+     * The local {@link RegExIntentRecognitionProvider} used to process the inputs when the DialogFlow intent
+     * detection is not available.
+     * <p>
+     * This provider contains the same {@link IntentDefinition}s and {@link EntityDefinition}s as the DialogFlow
+     * agent. This attribute is {@code null} if the circuit breaker is disabled (see
+     * {@link #ENABLE_CIRCUIT_BREAKER_KEY}).
+     */
+    @Nullable
+    private RegExIntentRecognitionProvider fallbackProvider;
+
+    /**
+     * The number of inputs processed by the {@link #fallbackProvider} because the circuit was open.
+     */
+    private AtomicLong rejectedFallbackCount = new AtomicLong();
+
+    /**
+     * The number of inputs processed by the {@link #fallbackProvider} because the DialogFlow query failed.
+     */
+    private AtomicLong errorFallbackCount = new AtomicLong();
+
+    /**
+     * The number of inputs processed by the {@link #fallbackProvider} because the agent was training.
+     */
+    private AtomicLong trainingFallbackCount = new AtomicLong();
+
+    /**
+     * A flag telling whether user inputs are processed while the agent is training.
+     *
+     * @see #TRAINING_ACCEPT_TRAFFIC_KEY
+     */
+    private boolean acceptTrafficDuringTraining;
+
+    /**
+     * The maximum time (in milliseconds) to wait for the end of the training before rejecting a user input.
+     *
+     * @see #TRAINING_WAIT_TIMEOUT_KEY
+     */
+    private long trainingWaitTimeout;
+
+    /**
+     * The {@link CompletableFuture} tracking the last training of the agent.
+     * <p>
+     * This attribute is {@code null} if the agent has not been trained by this {@link DialogFlowApi}.
+     *
+     * @see #trainMLEngineAsync()
+     */
+    @Nullable
+    private volatile CompletableFuture<Void> trainingFuture;
+
+    /**
+     * A flag telling whether user inputs wait for the end of the current training.
+     * <p>
+     * This flag is set when the training starts, from {@link #TRAINING_ACCEPT_TRAFFIC_KEY} and from whether
+     * DialogFlow can serve a previous version of the agent during the training.
+     *
+     * @see #trainMLEngineAsync()
+     */
+    private volatile boolean awaitTraining;
+
+    /**
+     * The {@link ManagedChannel} shared by the DialogFlow clients.
+     * <p>
+     * This channel is a {@link ManagedChannelPool} if {@link #CHANNEL_POOL_SIZE_KEY} is greater than {@code 1}. It
+     * is closed when the {@link DialogFlowApi} is shut down.
+     */
+    private ManagedChannel channel;
+
+    /**
+     * The executor shared by the DialogFlow clients and {@link #channel}.
+     *
+     * @see #EXECUTOR_THREADS_KEY
+     */
+    private ScheduledExecutorService executor;
+
     /**
      * Constructs a {@link DialogFlowApi} with the provided {@code configuration}.
      * <p>
@@ -480,11 +909,61 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         this.projectName = ProjectName.of(projectId);
         this.intentFactory = IntentFactory.eINSTANCE;
         this.entityMapper = new DialogFlowEntityMapper();
-        this.cleanAgent();
+        this.pendingIntents = new LinkedHashMap<>();
+        this.pendingParentIntents = new HashMap<>();
+        this.pendingEntityTypes = new LinkedHashMap<>();
+        this.agentCleaned = false;
+        this.expectedIntents = new HashMap<>();
+        this.expectedEntityTypes = new HashMap<>();
         this.importRegisteredIntents();
         this.importRegisteredEntities();
         this.recognitionMonitor = recognitionMonitor;
+        if (configuration.getBoolean(ENABLE_CIRCUIT_BREAKER_KEY, false)) {
+            Log.info("Enabling DialogFlow circuit breaker");
+            this.circuitBreaker = new CircuitBreaker(CIRCUIT_BREAKER_KEY_PREFIX, configuration);
+            this.fallbackProvider = new RegExIntentRecognitionProvider(configuration);
+            if (nonNull(xatkitCore.getXatkitServer())) {
+                this.registerCircuitBreakerEndpoint();
+            }
+        }
+    }
 
+    /**
+     * Registers the {@code GET: /dialogflow/circuit_breaker} endpoint.
+     * <p>
+     * The endpoint is registered at {@code GET: /dialogflow/<language>/circuit_breaker} if this
+     * {@link DialogFlowApi} has been created for a language of
+     * {@link IntentRecognitionProviderFactory#RECOGNITION_LANGUAGES_KEY}, so that the circuit breakers of the
+     * language-specific providers are distinct.
+     * <p>
+     * The listing below shows an example of the returned JSON payload:
+     * <pre>
+     * {@code
+     * {
+     *     "name": "xatkit.dialogflow.circuit_breaker",
+     *     "state": "OPEN",
+     *     "failureRate": 0.0,
+     *     "slowCallRate": 0.0,
+     *     "rejectedCount": 12,
+     *     "openedCount": 1,
+     *     "rejectedFallbackCount": 12,
+     *     "errorFallbackCount": 10,
+     *     "trainingFallbackCount": 0
+     * }
+     * }
+     * </pre>
+     */
+    private void registerCircuitBreakerEndpoint() {
+        String language = configuration.getString(IntentRecognitionProviderFactory.RECOGNITION_LANGUAGE_KEY);
+        String uri = isNull(language) ? "/dialogflow/circuit_breaker" : "/dialogflow/" + language + "/circuit_breaker";
+        xatkitCore.getXatkitServer().registerRestEndpoint(HttpMethod.GET, uri,
+                RestHandlerFactory.createJsonRestHandler((headers, params, content) -> {
+                    JsonObject result = circuitBreaker.toJson();
+                    result.addProperty("rejectedFallbackCount", rejectedFallbackCount.get());
+                    result.addProperty("errorFallbackCount", errorFallbackCount.get());
+                    result.addProperty("trainingFallbackCount", trainingFallbackCount.get());
+                    return result;
+                }));
     }
 
     /**
@@ -506,6 +985,13 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         this.enableContextMerge = configuration.getBoolean(ENABLE_LOCAL_CONTEXT_MERGE_KEY, true);
         this.customFollowupLifespan = configuration.getInt(CUSTOM_FOLLOWUP_LIFESPAN, 2);
         this.confidenceThreshold = configuration.getFloat(CONFIDENCE_THRESHOLD_KEY, 0);
+        this.skipUnchangedAgent = configuration.getBoolean(SKIP_UNCHANGED_AGENT_KEY, false);
+        this.acceptTrafficDuringTraining = configuration.getBoolean(TRAINING_ACCEPT_TRAFFIC_KEY, true);
+        this.trainingWaitTimeout = configuration.getLong(TRAINING_WAIT_TIMEOUT_KEY, 60000);
+        String dataDirectoryPath = configuration.getString(RecognitionMonitor.DATA_DIRECTORY_KEY,
+                RecognitionMonitor.DEFAULT_DATA_DIRECTORY);
+        this.fingerprintFile = FileUtils.getFile(dataDirectoryPath + File.separator + DIALOGFLOW_DIRECTORY
+                + File.separator + projectId + "-" + languageCode + ".fingerprint", configuration);
     }
 
     /**
@@ -518,48 +1004,169 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * If the provided {@code configuration} does not define a credentials file path the created clients are
      * initialized from the credentials file path stored in the {@code GOOGLE_APPLICATION_CREDENTIALS} environment
      * variable.
+     * <p>
+     * The created clients share a single {@link ManagedChannel} (or a pool of channels, see
+     * {@link #CHANNEL_POOL_SIZE_KEY}) and executor, that are tuned with the transport options defined in the
+     * provided {@code configuration}. The deadline and retries of the queries sent when processing user inputs can
+     * also be customized (see {@link #RPC_TIMEOUT_KEY} and {@link #RPC_MAX_ATTEMPTS_KEY}).
      *
      * @param configuration the {@link Configuration} containing the credentials file path
-     * @throws DialogFlowException if the provided {@code configuration} or {@code GOOGLE_APPLICATION_CREDENTIALS}
-     *                             environment variable does not contain a valid credentials file path
+     * @throws DialogFlowException      if the provided {@code configuration} or {@code
+     *                                  GOOGLE_APPLICATION_CREDENTIALS} environment variable does not contain a valid
+     *                                  credentials file path
+     * @throws IllegalArgumentException if the provided {@code configuration} contains an invalid transport option
      */
     private void buildDialogFlowClients(Configuration configuration) {
         CredentialsProvider credentialsProvider = getCredentialsProvider(configuration);
-        AgentsSettings agentsSettings;
-        IntentsSettings intentsSettings;
-        EntityTypesSettings entityTypesSettings;
-        SessionsSettings sessionsSettings;
-        ContextsSettings contextsSettings;
-        try {
+        String endpoint = configuration.getString(ENDPOINT_KEY);
+        if (nonNull(endpoint)) {
+            Log.info("Connecting to the DialogFlow endpoint {0}", endpoint);
             if (isNull(credentialsProvider)) {
-                /*
-                 * No credentials provided, using the GOOGLE_APPLICATION_CREDENTIALS environment variable.
-                 */
-                Log.warn("No credentials file provided, using GOOGLE_APPLICATION_CREDENTIALS environment variable");
-                agentsSettings = AgentsSettings.newBuilder().build();
-                intentsSettings = IntentsSettings.newBuilder().build();
-                entityTypesSettings = EntityTypesSettings.newBuilder().build();
-                sessionsSettings = SessionsSettings.newBuilder().build();
-                contextsSettings = ContextsSettings.newBuilder().build();
-            } else {
-                agentsSettings = AgentsSettings.newBuilder().setCredentialsProvider(credentialsProvider).build();
-                intentsSettings = IntentsSettings.newBuilder().setCredentialsProvider(credentialsProvider).build();
-                entityTypesSettings = EntityTypesSettings.newBuilder().setCredentialsProvider(credentialsProvider)
-                        .build();
-                sessionsSettings = SessionsSettings.newBuilder().setCredentialsProvider(credentialsProvider).build();
-                contextsSettings = ContextsSettings.newBuilder().setCredentialsProvider(credentialsProvider).build();
+                credentialsProvider = NoCredentialsProvider.create();
             }
-            this.agentsClient = AgentsClient.create(agentsSettings);
-            this.sessionsClient = SessionsClient.create(sessionsSettings);
-            this.intentsClient = IntentsClient.create(intentsSettings);
-            this.entityTypesClient = EntityTypesClient.create(entityTypesSettings);
-            this.contextsClient = ContextsClient.create(contextsSettings);
+        } else {
+            endpoint = SessionsSettings.getDefaultEndpoint();
+        }
+        int executorThreads = configuration.getInt(EXECUTOR_THREADS_KEY, Math.max(4,
+                Runtime.getRuntime().availableProcessors()));
+        checkArgument(executorThreads > 0, "Cannot create the DialogFlow executor with %s threads, please provide a " +
+                "positive value for the key %s", executorThreads, EXECUTOR_THREADS_KEY);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(executorThreads, r -> {
+            Thread thread = new Thread(r, "dialogflow-executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.channel = createChannel(endpoint, configuration);
+        TransportChannelProvider transportChannelProvider = FixedTransportChannelProvider.create(GrpcTransportChannel
+                .create(channel));
+        ExecutorProvider executorProvider = FixedExecutorProvider.create(executor);
+        AgentsSettings.Builder agentsSettings = AgentsSettings.newBuilder()
+                .setTransportChannelProvider(transportChannelProvider).setExecutorProvider(executorProvider);
+        IntentsSettings.Builder intentsSettings = IntentsSettings.newBuilder()
+                .setTransportChannelProvider(transportChannelProvider).setExecutorProvider(executorProvider);
+        EntityTypesSettings.Builder entityTypesSettings = EntityTypesSettings.newBuilder()
+                .setTransportChannelProvider(transportChannelProvider).setExecutorProvider(executorProvider);
+        SessionsSettings.Builder sessionsSettings = SessionsSettings.newBuilder()
+                .setTransportChannelProvider(transportChannelProvider).setExecutorProvider(executorProvider);
+        ContextsSettings.Builder contextsSettings = ContextsSettings.newBuilder()
+                .setTransportChannelProvider(transportChannelProvider).setExecutorProvider(executorProvider);
+        if (isNull(credentialsProvider)) {
+            /*
+             * No credentials provided, using the GOOGLE_APPLICATION_CREDENTIALS environment variable.
+             */
+            Log.warn("No credentials file provided, using GOOGLE_APPLICATION_CREDENTIALS environment variable");
+        } else {
+            agentsSettings.setCredentialsProvider(credentialsProvider);
+            intentsSettings.setCredentialsProvider(credentialsProvider);
+            entityTypesSettings.setCredentialsProvider(credentialsProvider);
+            sessionsSettings.setCredentialsProvider(credentialsProvider);
+            contextsSettings.setCredentialsProvider(credentialsProvider);
+        }
+        configureRpcSettings(sessionsSettings.detectIntentSettings(), configuration);
+        configureRpcSettings(contextsSettings.createContextSettings(), configuration);
+        try {
+            this.agentsClient = AgentsClient.create(agentsSettings.build());
+            this.sessionsClient = SessionsClient.create(sessionsSettings.build());
+            this.intentsClient = IntentsClient.create(intentsSettings.build());
+            this.entityTypesClient = EntityTypesClient.create(entityTypesSettings.build());
+            this.contextsClient = ContextsClient.create(contextsSettings.build());
         } catch (IOException e) {
             throw new DialogFlowException("An error occurred when initializing the DialogFlow clients, see attached " +
                     "exception", e);
         }
     }
 
+    /**
+     * Creates the {@link ManagedChannel} shared by the DialogFlow clients to connect to the provided {@code
+     * endpoint}.
+     * <p>
+     * This method returns a {@link ManagedChannelPool} if the provided {@code configuration} defines a pool size
+     * greater than {@code 1}.
+     *
+     * @param endpoint      the endpoint to connect to
+     * @param configuration the {@link Configuration} containing the transport options
+     * @return the created {@link ManagedChannel}
+     * @throws IllegalArgumentException if the provided {@code configuration} contains an invalid pool size
+     * @see #CHANNEL_POOL_SIZE_KEY
+     */
+    private ManagedChannel createChannel(String endpoint, Configuration configuration) {
+        int poolSize = configuration.getInt(CHANNEL_POOL_SIZE_KEY, 1);
+        checkArgument(poolSize > 0, "Cannot create a DialogFlow channel pool of size %s, please provide a positive " +
+                "value for the key %s", poolSize, CHANNEL_POOL_SIZE_KEY);
+        if (poolSize == 1) {
+            return createSingleChannel(endpoint, configuration);
+        }
+        List<ManagedChannel> channels = new ArrayList<>();
+        for (int i = 0; i < poolSize; i++) {
+            channels.add(createSingleChannel(endpoint, configuration));
+        }
+        return new ManagedChannelPool(channels);
+    }
+
+    /**
+     * Creates a {@link ManagedChannel} connected to the provided {@code endpoint}.
+     *
+     * @param endpoint      the endpoint to connect to
+     * @param configuration the {@link Configuration} containing the transport options
+     * @return the created {@link ManagedChannel}
+     * @see #ENDPOINT_KEY
+     * @see #ENDPOINT_PLAINTEXT_KEY
+     * @see #KEEP_ALIVE_TIME_KEY
+     * @see #MAX_INBOUND_MESSAGE_SIZE_KEY
+     */
+    private ManagedChannel createSingleChannel(String endpoint, Configuration configuration) {
+        if (endpoint.startsWith(IN_PROCESS_ENDPOINT_PREFIX)) {
+            return InProcessChannelBuilder.forName(endpoint.substring(IN_PROCESS_ENDPOINT_PREFIX.length()))
+                    .executor(executor).build();
+        }
+        ManagedChannelBuilder<?> channelBuilder = ManagedChannelBuilder.forTarget(endpoint)
+                .executor(executor)
+                .maxInboundMessageSize(configuration.getInt(MAX_INBOUND_MESSAGE_SIZE_KEY, Integer.MAX_VALUE));
+        long keepAliveTime = configuration.getLong(KEEP_ALIVE_TIME_KEY, 0);
+        if (keepAliveTime > 0) {
+            channelBuilder.keepAliveTime(keepAliveTime, TimeUnit.MILLISECONDS)
+                    .keepAliveTimeout(configuration.getLong(KEEP_ALIVE_TIMEOUT_KEY, 20000), TimeUnit.MILLISECONDS)
+                    .keepAliveWithoutCalls(configuration.getBoolean(KEEP_ALIVE_WITHOUT_CALLS_KEY, false));
+        }
+        if (configuration.getBoolean(ENDPOINT_PLAINTEXT_KEY, false)) {
+            channelBuilder.usePlaintext();
+        }
+        return channelBuilder.build();
+    }
+
+    /**
+     * Applies the deadline and retries defined in the provided {@code configuration} to the provided {@code
+     * callSettings}.
+     *
+     * @param callSettings  the settings of the call to configure
+     * @param configuration the {@link Configuration} containing the deadline and retry options
+     * @throws IllegalArgumentException if the provided {@code configuration} contains an invalid deadline or number
+     *                                  of attempts
+     * @see #RPC_TIMEOUT_KEY
+     * @see #RPC_MAX_ATTEMPTS_KEY
+     */
+    private void configureRpcSettings(UnaryCallSettings.Builder<?, ?> callSettings, Configuration configuration) {
+        int maxAttempts = configuration.getInt(RPC_MAX_ATTEMPTS_KEY, 1);
+        checkArgument(maxAttempts > 0, "Cannot set the maximum number of attempts to %s, please provide a positive " +
+                "value for the key %s", maxAttempts, RPC_MAX_ATTEMPTS_KEY);
+        RetrySettings.Builder retrySettings = callSettings.getRetrySettings().toBuilder();
+        if (configuration.containsKey(RPC_TIMEOUT_KEY)) {
+            long timeout = configuration.getLong(RPC_TIMEOUT_KEY);
+            checkArgument(timeout > 0, "Cannot set the DialogFlow query deadline to %s, please provide a positive " +
+                    "value for the key %s", timeout, RPC_TIMEOUT_KEY);
+            retrySettings.setInitialRpcTimeout(Duration.ofMillis(timeout))
+                    .setMaxRpcTimeout(Duration.ofMillis(timeout))
+                    .setRpcTimeoutMultiplier(1)
+                    .setTotalTimeout(Duration.ofMillis(timeout * maxAttempts));
+        }
+        if (maxAttempts > 1) {
+            callSettings.setRetryableCodes(StatusCode.Code.UNAVAILABLE, StatusCode.Code.DEADLINE_EXCEEDED);
+        }
+        retrySettings.setMaxAttempts(maxAttempts);
+        callSettings.setRetrySettings(retrySettings.build());
+    }
+
     /**
      * Creates the Google's {@link CredentialsProvider} from the provided {@code configuration}.
      * <p>
@@ -598,47 +1205,29 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         return null;
     }
 
-    /**
-     * Deletes all the {@link Intent}s and {@link EntityType}s from the DialogFlow agent.
-     * <p>
-     * Agent cleaning is enabled by setting the property {@link #CLEAN_AGENT_ON_STARTUP_KEY} in the xatkit
-     * configuration file, and allows to easily re-deploy bots under development. Production-ready agents should not
-     * be cleaned on startup: re-training the ML engine can take a while.
-     */
-    private void cleanAgent() {
-        if (cleanAgentOnStartup) {
-            Log.info("Cleaning agent DialogFlow agent");
-            List<Intent> registeredIntents = getRegisteredIntents();
-            for (Intent intent : registeredIntents) {
-                if (!intent.getDisplayName().equals(DEFAULT_FALLBACK_INTENT.getName())) {
-                    intentsClient.deleteIntent(intent.getName());
-                }
-            }
-            List<EntityType> registeredEntityTypes = getRegisteredEntityTypes();
-            for (EntityType entityType : registeredEntityTypes) {
-                entityTypesClient.deleteEntityType(entityType.getName());
-            }
-        }
-    }
-
     /**
      * Imports the intents registered in the DialogFlow project.
      * <p>
      * Intents import can be disabled to reduce the number of queries sent to the DialogFlow API by setting the
      * {@link #ENABLE_INTENT_LOADING_KEY} property to {@code false} in the provided {@link Configuration}.
      * Note that disabling intents import may generate consistency issues when creating, deleting, and matching intents.
+     * <p>
+     * Intents are always imported if {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set to {@code true}: the imported
+     * {@link Intent}s are compared with the registered {@link IntentDefinition}s to only send the ones that have
+     * changed, and delete the ones that are not used anymore (see {@link #synchronizeAgent()}).
+     * <p>
+     * The full view of the {@link Intent}s is imported in order to compare their training phrases with the
+     * registered {@link IntentDefinition}s.
      */
     private void importRegisteredIntents() {
         this.registeredIntents = new HashMap<>();
-        if (cleanAgentOnStartup) {
-            Log.info("Skipping intent import, the agent has been cleaned on startup");
-            return;
-        }
-        if (enableIntentLoader) {
+        this.unclaimedIntents = new HashSet<>();
+        if (enableIntentLoader || cleanAgentOnStartup) {
             Log.info("Loading Intents previously registered in the DialogFlow project {0}", projectName
                     .getProject());
-            for (Intent intent : getRegisteredIntents()) {
+            for (Intent intent : listIntents(IntentView.INTENT_VIEW_FULL)) {
                 registeredIntents.put(intent.getDisplayName(), intent);
+                unclaimedIntents.add(intent.getDisplayName());
             }
         } else {
             Log.info("Intent loading is disabled, existing Intents in the DialogFlow project {0} will not be " +
@@ -652,17 +1241,18 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * Entities import can be disabled to reduce the number of queries sent to the DialogFlow API by setting the
      * {@link #ENABLE_ENTITY_LOADING_KEY} property to {@code false} in the provided {@link Configuration}. Note that
      * disabling entities import may generate consistency issues when creating, deleting, and matching intents.
+     * <p>
+     * Entities are always imported if {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set to {@code true}, see
+     * {@link #importRegisteredIntents()}.
      */
     private void importRegisteredEntities() {
         this.registeredEntityTypes = new HashMap<>();
-        if (cleanAgentOnStartup) {
-            Log.info("Skipping entity types import, the agent has been cleaned on startup");
-            return;
-        }
-        if (enableEntityLoader) {
+        this.unclaimedEntityTypes = new HashSet<>();
+        if (enableEntityLoader || cleanAgentOnStartup) {
             Log.info("Loading Entities previously registered in the DialogFlow project {0}", projectName.getProject());
-            for (EntityType entityType : getRegisteredEntityTypes()) {
+            for (EntityType entityType : listEntityTypes()) {
                 registeredEntityTypes.put(entityType.getDisplayName(), entityType);
+                unclaimedEntityTypes.add(entityType.getDisplayName());
             }
         } else {
             Log.info("Entity loading is disabled, existing Entities in the DialogFlow project {0} will not be " +
@@ -670,6 +1260,254 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         }
     }
 
+    /**
+     * Sends the pending {@link EntityType}s and {@link Intent}s to the DialogFlow agent.
+     * <p>
+     * This method sends the pending elements using the DialogFlow batch APIs, reducing the number of calls to the
+     * DialogFlow API to a handful of requests, regardless of the number of registered definitions. Note that the
+     * pending elements only contain the definitions that are not in the agent, or that differ from the ones
+     * imported from the agent (see {@link DialogFlowSynchronizationUtils}).
+     * <p>
+     * {@link EntityType}s are sent first, mapping entities before composite ones, so they can be referenced by the
+     * {@link Intent}s. Follow-up {@link Intent}s are sent in successive batches once their parent is created.
+     * Unused {@link Intent}s and {@link EntityType}s are then deleted if {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set
+     * to {@code true} (see {@link #cleanAgent()}).
+     * <p>
+     * This method is called before the operations that require an up-to-date agent (i.e. training and deletion),
+     * and does nothing if there is no pending element. Intent recognition does not synchronize the agent: the
+     * registered definitions are only sent when the agent is trained. Pending elements are removed once
+     * their batch request succeeds: if a request fails the elements that have not been sent are kept, and are sent
+     * the next time the agent is synchronized.
+     * <p>
+     * This method is {@code synchronized} with the methods registering and deleting definitions, which also access
+     * the pending elements.
+     *
+     * @throws DialogFlowException if an error occurred when sending the batch requests
+     */
+    private synchronized void synchronizeAgent() {
+        if (pendingEntityTypes.isEmpty() && pendingIntents.isEmpty() && (agentCleaned || !cleanAgentOnStartup)) {
+            return;
+        }
+        Log.info("Synchronizing DialogFlow agent ({0} {1}(s), {2} {3}(s) to send)", pendingEntityTypes.size(),
+                EntityType.class.getSimpleName(), pendingIntents.size(), Intent.class.getSimpleName());
+        List<EntityType> mappingEntityTypes = pendingEntityTypes.values().stream()
+                .filter(e -> e.getKind().equals(EntityType.Kind.KIND_MAP)).collect(Collectors.toList());
+        List<EntityType> compositeEntityTypes = pendingEntityTypes.values().stream()
+                .filter(e -> !e.getKind().equals(EntityType.Kind.KIND_MAP)).collect(Collectors.toList());
+        /*
+         * Pending elements are only removed once their batch has been sent: the ones that have not been sent are
+         * kept and sent again the next time the agent is synchronized.
+         */
+        batchUpdateEntityTypes(mappingEntityTypes);
+        mappingEntityTypes.forEach(entityType -> pendingEntityTypes.remove(entityType.getDisplayName()));
+        batchUpdateEntityTypes(compositeEntityTypes);
+        compositeEntityTypes.forEach(entityType -> pendingEntityTypes.remove(entityType.getDisplayName()));
+        while (!pendingIntents.isEmpty()) {
+            /*
+             * Send the intents that do not depend on a pending parent, the remaining ones are sent in the next
+             * iteration with the name of their created parent.
+             */
+            List<Intent> intentBatch = new ArrayList<>();
+            for (Map.Entry<String, Intent> pendingIntent : pendingIntents.entrySet()) {
+                String parentDisplayName = pendingParentIntents.get(pendingIntent.getKey());
+                if (isNull(parentDisplayName)) {
+                    intentBatch.add(pendingIntent.getValue());
+                } else if (!pendingIntents.containsKey(parentDisplayName)) {
+                    Intent parentIntent = registeredIntents.get(parentDisplayName);
+                    if (isNull(parentIntent)) {
+                        /*
+                         * The parentIntent registration has failed, there is no way to build a DialogFlow agent
+                         * that is consistent with the provided model.
+                         */
+                        throw new XatkitException(MessageFormat.format("Cannot retrieve the parent intent {0}, " +
+                                "check the logs for additional information", parentDisplayName));
+                    }
+                    intentBatch.add(pendingIntent.getValue().toBuilder().setParentFollowupIntentName
+                            (parentIntent.getName()).build());
+                }
+            }
+            if (intentBatch.isEmpty()) {
+                throw new DialogFlowException(MessageFormat.format("Cannot synchronize the {0}s {1}, their " +
+                        "follow-up relationships contain a cycle", Intent.class.getSimpleName(),
+                        pendingIntents.keySet()));
+            }
+            batchUpdateIntents(intentBatch);
+            intentBatch.forEach(intent -> {
+                pendingIntents.remove(intent.getDisplayName());
+                pendingParentIntents.remove(intent.getDisplayName());
+            });
+        }
+        cleanAgent();
+        pendingDefinitions = false;
+    }
+
+    /**
+     * Returns whether the DialogFlow agent can serve a previous version of the registered {@link Intent}s while it
+     * is training.
+     * <p>
+     * This method returns {@code true} if at least one registered {@link Intent} (possibly outdated) has been
+     * imported from the agent. Agents are assumed to contain a previous version of the registered {@link Intent}s if
+     * intents are not imported (see {@link #ENABLE_INTENT_LOADING_KEY}).
+     *
+     * @return {@code true} if the agent can serve a previous version of the registered {@link Intent}s, {@code
+     * false} otherwise
+     */
+    private synchronized boolean isServingRegisteredIntents() {
+        if (!enableIntentLoader && !cleanAgentOnStartup) {
+            return true;
+        }
+        return expectedIntents.keySet().stream().anyMatch(registeredIntents::containsKey);
+    }
+
+    /**
+     * Returns whether the DialogFlow agent matches the registered definitions.
+     * <p>
+     * The agent matches the registered definitions if there is no pending element to send, and if there is no
+     * unused element to delete when {@link #CLEAN_AGENT_ON_STARTUP_KEY} is set to {@code true}.
+     *
+     * @return {@code true} if the agent matches the registered definitions, {@code false} otherwise
+     */
+    private synchronized boolean isAgentSynchronized() {
+        if (!pendingEntityTypes.isEmpty() || !pendingIntents.isEmpty()) {
+            return false;
+        }
+        return !cleanAgentOnStartup || agentCleaned || (unclaimedEntityTypes.isEmpty()
+                && unclaimedIntents.stream().allMatch(this::isDefaultFallbackIntent));
+    }
+
+    /**
+     * Creates or updates the provided {@code entityTypes} in the DialogFlow agent with a single batch request.
+     * <p>
+     * The {@link EntityType}s returned by the DialogFlow API are stored in the {@link #registeredEntityTypes} cache.
+     *
+     * @param entityTypes the {@link EntityType}s to create or update
+     * @throws DialogFlowException if an error occurred when sending the batch request
+     */
+    private void batchUpdateEntityTypes(List<EntityType> entityTypes) {
+        if (entityTypes.isEmpty()) {
+            return;
+        }
+        BatchUpdateEntityTypesRequest request = BatchUpdateEntityTypesRequest.newBuilder()
+                .setParent(projectAgentName.toString())
+                .setEntityTypeBatchInline(EntityTypeBatch.newBuilder().addAllEntityTypes(entityTypes))
+                .setLanguageCode(languageCode)
+                .build();
+        try {
+            BatchUpdateEntityTypesResponse response = entityTypesClient.batchUpdateEntityTypesAsync(request).get();
+            for (EntityType entityType : response.getEntityTypesList()) {
+                /*
+                 * Store the EntityType returned by the DialogFlow API: some fields such as the name are
+                 * automatically set by the platform.
+                 */
+                this.registeredEntityTypes.put(entityType.getDisplayName(), entityType);
+            }
+            Log.debug("{0} {1}(s) successfully registered", entityTypes.size(), EntityType.class.getSimpleName());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new DialogFlowException(MessageFormat.format("An error occurred when registering the {0}s {1}",
+                    EntityType.class.getSimpleName(), entityTypes.stream().map(EntityType::getDisplayName)
+                            .collect(Collectors.toList())), e);
+        }
+    }
+
+    /**
+     * Creates or updates the provided {@code intents} in the DialogFlow agent with a single batch request.
+     * <p>
+     * The {@link Intent}s returned by the DialogFlow API are stored in the {@link #registeredIntents} cache.
+     *
+     * @param intents the {@link Intent}s to create or update
+     * @throws DialogFlowException if an error occurred when sending the batch request
+     */
+    private void batchUpdateIntents(List<Intent> intents) {
+        BatchUpdateIntentsRequest request = BatchUpdateIntentsRequest.newBuilder()
+                .setParent(projectAgentName.toString())
+                .setIntentBatchInline(IntentBatch.newBuilder().addAllIntents(intents))
+                .setLanguageCode(languageCode)
+                .build();
+        try {
+            BatchUpdateIntentsResponse response = intentsClient.batchUpdateIntentsAsync(request).get();
+            for (Intent intent : response.getIntentsList()) {
+                registeredIntents.put(intent.getDisplayName(), intent);
+            }
+            Log.debug("{0} {1}(s) successfully registered", intents.size(), Intent.class.getSimpleName());
+        } catch (InterruptedException | ExecutionException e) {
+            throw new DialogFlowException(MessageFormat.format("An error occurred when registering the {0}s {1}",
+                    Intent.class.getSimpleName(), intents.stream().map(Intent::getDisplayName)
+                            .collect(Collectors.toList())), e);
+        }
+    }
+
+    /**
+     * Deletes the {@link Intent}s and {@link EntityType}s that are not used by the bot from the DialogFlow agent.
+     * <p>
+     * Agent cleaning is enabled by setting the property {@link #CLEAN_AGENT_ON_STARTUP_KEY} in the xatkit
+     * configuration file, and allows to easily re-deploy bots under development. Production-ready agents should not
+     * be cleaned on startup: re-training the ML engine can take a while.
+     * <p>
+     * This method deletes the imported elements that have not been registered by the bot using the DialogFlow
+     * batch APIs. The DialogFlow Default Fallback Intent is never deleted.
+     */
+    private void cleanAgent() {
+        if (cleanAgentOnStartup && !agentCleaned) {
+            Log.info("Cleaning agent DialogFlow agent");
+            Set<String> staleIntentNames = unclaimedIntents.stream()
+                    .filter(displayName -> !isDefaultFallbackIntent(displayName))
+                    .map(displayName -> registeredIntents.get(displayName).getName())
+                    .collect(Collectors.toSet());
+            /*
+             * Follow-up intents are deleted with their parent, sending them in the same request would fail.
+             */
+            List<Intent> staleIntents = unclaimedIntents.stream()
+                    .filter(displayName -> !isDefaultFallbackIntent(displayName))
+                    .map(registeredIntents::get)
+                    .filter(intent -> !staleIntentNames.contains(intent.getParentFollowupIntentName()))
+                    .collect(Collectors.toList());
+            List<String> staleEntityTypeNames = unclaimedEntityTypes.stream()
+                    .map(displayName -> registeredEntityTypes.get(displayName).getName())
+                    .collect(Collectors.toList());
+            try {
+                if (!staleIntents.isEmpty()) {
+                    BatchDeleteIntentsRequest request = BatchDeleteIntentsRequest.newBuilder()
+                            .setParent(projectAgentName.toString())
+                            .addAllIntents(staleIntents)
+                            .build();
+                    intentsClient.batchDeleteIntentsAsync(request).get();
+                }
+                if (!staleEntityTypeNames.isEmpty()) {
+                    BatchDeleteEntityTypesRequest request = BatchDeleteEntityTypesRequest.newBuilder()
+                            .setParent(projectAgentName.toString())
+                            .addAllEntityTypeNames(staleEntityTypeNames)
+                            .build();
+                    entityTypesClient.batchDeleteEntityTypesAsync(request).get();
+                }
+            } catch (InterruptedException | ExecutionException e) {
+                throw new DialogFlowException("An error occurred when cleaning the DialogFlow agent, see attached " +
+                        "exception", e);
+            }
+            Log.info("Deleted {0} {1}(s) and {2} {3}(s) from the DialogFlow agent", staleIntentNames.size(),
+                    Intent.class.getSimpleName(), staleEntityTypeNames.size(), EntityType.class.getSimpleName());
+            unclaimedIntents.stream().filter(displayName -> !isDefaultFallbackIntent(displayName))
+                    .collect(Collectors.toList()).forEach(displayName -> {
+                registeredIntents.remove(displayName);
+                unclaimedIntents.remove(displayName);
+            });
+            unclaimedEntityTypes.forEach(registeredEntityTypes::remove);
+            unclaimedEntityTypes.clear();
+            this.agentCleaned = true;
+        }
+    }
+
+    /**
+     * Returns whether the provided {@code displayName} corresponds to the DialogFlow Default Fallback Intent.
+     *
+     * @param displayName the DialogFlow display name to check
+     * @return {@code true} if the provided {@code displayName} corresponds to the Default Fallback Intent, {@code
+     * false} otherwise
+     */
+    private boolean isDefaultFallbackIntent(String displayName) {
+        return displayName.equals(DEFAULT_FALLBACK_INTENT.getName())
+                || displayName.equals(adaptIntentDefinitionNameToDialogFlow(DEFAULT_FALLBACK_INTENT.getName()));
+    }
+
     /**
      * Returns the DialogFlow project unique identifier.
      *
@@ -700,6 +1538,18 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         if (isShutdown()) {
             throw new DialogFlowException("Cannot retrieve the registered Entities, the DialogFlow API is shutdown");
         }
+        synchronizeAgent();
+        return listEntityTypes();
+    }
+
+    /**
+     * Lists the {@link EntityType}s stored in the DialogFlow project.
+     * <p>
+     * This method does not synchronize the pending {@link EntityType}s (see {@link #synchronizeAgent()}).
+     *
+     * @return the {@link EntityType}s stored in the DialogFlow project
+     */
+    private List<EntityType> listEntityTypes() {
         List<EntityType> registeredEntityTypes = new ArrayList<>();
         for (EntityType entityType : entityTypesClient.listEntityTypes(projectAgentName).iterateAll()) {
             registeredEntityTypes.add(entityType);
@@ -724,13 +1574,8 @@ public class DialogFlowApi extends IntentRecognitionProvider {
             throw new DialogFlowException("Cannot retrieve the registered Intents (full view), the DialogFlow API is " +
                     "shutdown");
         }
-        List<Intent> registeredIntents = new ArrayList<>();
-        ListIntentsRequest request = ListIntentsRequest.newBuilder().setIntentView(IntentView.INTENT_VIEW_FULL)
-                .setParent(projectAgentName.toString()).build();
-        for (Intent intent : intentsClient.listIntents(request).iterateAll()) {
-            registeredIntents.add(intent);
-        }
-        return registeredIntents;
+        synchronizeAgent();
+        return listIntents(IntentView.INTENT_VIEW_FULL);
     }
 
     /**
@@ -749,8 +1594,23 @@ public class DialogFlowApi extends IntentRecognitionProvider {
             throw new DialogFlowException("Cannot retrieve the registered Intents (partial view), the DialogFlow API " +
                     "is shutdown");
         }
+        synchronizeAgent();
+        return listIntents(IntentView.INTENT_VIEW_UNSPECIFIED);
+    }
+
+    /**
+     * Lists the {@link Intent}s stored in the DialogFlow project with the provided {@code intentView}.
+     * <p>
+     * This method does not synchronize the pending {@link Intent}s (see {@link #synchronizeAgent()}).
+     *
+     * @param intentView the {@link IntentView} defining the fields to retrieve
+     * @return the {@link Intent}s stored in the DialogFlow project
+     */
+    private List<Intent> listIntents(IntentView intentView) {
         List<Intent> registeredIntents = new ArrayList<>();
-        for (Intent intent : intentsClient.listIntents(projectAgentName).iterateAll()) {
+        ListIntentsRequest request = ListIntentsRequest.newBuilder().setIntentView(intentView)
+                .setParent(projectAgentName.toString()).build();
+        for (Intent intent : intentsClient.listIntents(request).iterateAll()) {
             registeredIntents.add(intent);
         }
         return registeredIntents;
@@ -761,40 +1621,52 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * <p>
      * This method reuses the information contained in the provided {@link EntityDefinition} to create a new
      * DialogFlow {@link EntityType} and add it to the current project.
+     * <p>
+     * The created {@link EntityType} is not sent right away: it is compared with the {@link EntityType} imported
+     * from the agent (if any), and is sent in a batch request with the other changed elements when the agent is
+     * synchronized (see {@link #synchronizeAgent()}).
      *
      * @param entityDefinition the {@link EntityDefinition} to register to the DialogFlow project
-     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown, or if the {@link EntityType} already
-     *                             exists in the DialogFlow project
+     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown
      */
-    public void registerEntityDefinition(EntityDefinition entityDefinition) {
+    @Override
+    protected synchronized void registerEntityDefinitionInternal(EntityDefinition entityDefinition) {
         if (isShutdown()) {
             throw new DialogFlowException(MessageFormat.format("Cannot register the {0} {1}, the DialogFlow API is" +
                     " shutdown", EntityDefinition.class.getSimpleName(), entityDefinition));
         }
+        if (nonNull(fallbackProvider)) {
+            fallbackProvider.registerEntityDefinition(entityDefinition);
+        }
         if (entityDefinition instanceof BaseEntityDefinition) {
             BaseEntityDefinition baseEntityDefinition = (BaseEntityDefinition) entityDefinition;
             Log.trace("Skipping registration of {0} ({1}), {0} are natively supported by DialogFlow",
                     BaseEntityDefinition.class.getSimpleName(), baseEntityDefinition.getEntityType().getLiteral());
         } else if (entityDefinition instanceof CustomEntityDefinition) {
             Log.debug("Registering {0} {1}", CustomEntityDefinition.class.getSimpleName(), entityDefinition.getName());
-            EntityType entityType = this.registeredEntityTypes.get(entityDefinition.getName());
-            if (isNull(entityType)) {
-                entityType = createEntityTypeFromCustomEntityDefinition((CustomEntityDefinition) entityDefinition);
-                try {
-                    /*
-                     * Store the EntityType returned by the DialogFlow API: some fields such as the name are
-                     * automatically set by the platform.
-                     */
-                    EntityType createdEntityType = entityTypesClient.createEntityType(projectAgentName, entityType);
-                    this.registeredEntityTypes.put(entityDefinition.getName(), createdEntityType);
-                } catch (FailedPreconditionException e) {
-                    throw new DialogFlowException(MessageFormat.format("Cannot register the entity {0}, the entity " +
-                            "already exists", entityDefinition), e);
+            String entityName = entityDefinition.getName();
+            if (this.pendingEntityTypes.containsKey(entityName) || (this.registeredEntityTypes.containsKey
+                    (entityName) && !this.unclaimedEntityTypes.contains(entityName))) {
+                Log.debug("{0} {1} is already registered", EntityType.class.getSimpleName(), entityName);
+                return;
+            }
+            EntityType entityType =
+                    createEntityTypeFromCustomEntityDefinition((CustomEntityDefinition) entityDefinition);
+            this.expectedEntityTypes.put(entityName, entityType);
+            EntityType importedEntityType = this.registeredEntityTypes.get(entityName);
+            if (nonNull(importedEntityType)) {
+                this.unclaimedEntityTypes.remove(entityName);
+                if (DialogFlowSynchronizationUtils.isUpToDate(entityType, importedEntityType)) {
+                    Log.debug("{0} {1} is up to date", EntityType.class.getSimpleName(), entityName);
+                    return;
                 }
-            } else {
-                Log.debug("{0} {1} is already registered", EntityType.class.getSimpleName(),
-                        entityDefinition.getName());
+                /*
+                 * Reuse the name of the imported EntityType to update it instead of creating a new one.
+                 */
+                entityType = entityType.toBuilder().setName(importedEntityType.getName()).build();
             }
+            this.pendingEntityTypes.put(entityName, entityType);
+            this.pendingDefinitions = true;
         } else {
             throw new DialogFlowException(MessageFormat.format("Cannot register the provided {0}, unsupported {1}",
                     entityDefinition.getClass().getSimpleName(), EntityDefinition.class.getSimpleName()));
@@ -966,16 +1838,21 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * <p>
      * This method reuses the information contained in the provided {@link IntentDefinition} to create a new
      * DialogFlow {@link Intent} and add it to the current project.
+     * <p>
+     * The created {@link Intent} is not sent right away: it is compared with the {@link Intent} imported from the
+     * agent (if any), and is sent in a batch request with the other changed elements when the agent is synchronized
+     * (see {@link #synchronizeAgent()}). Imported {@link Intent}s that are identical to the provided {@code
+     * intentDefinition} are not sent again.
      *
      * @param intentDefinition the {@link IntentDefinition} to register to the DialogFlow project
-     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown, or if the {@link Intent} already exists in
-     *                             the DialogFlow project
+     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown, or if the {@link IntentDefinition} has
+     *                             already been registered
      * @see #createInContextNames(IntentDefinition)
      * @see #createOutContexts(IntentDefinition)
      * @see #createParameters(List)
      */
     @Override
-    public void registerIntentDefinition(IntentDefinition intentDefinition) {
+    protected synchronized void registerIntentDefinitionInternal(IntentDefinition intentDefinition) {
         if (isShutdown()) {
             throw new DialogFlowException(MessageFormat.format("Cannot register the Intent {0}, the DialogFlow API is" +
                     " shutdown", intentDefinition.getName()));
@@ -983,10 +1860,16 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         checkNotNull(intentDefinition, "Cannot register the IntentDefinition null");
         checkNotNull(intentDefinition.getName(), "Cannot register the IntentDefinition with null as its name");
         Log.debug("Registering DialogFlow intent {0}", intentDefinition.getName());
-        if (this.registeredIntents.containsKey(intentDefinition.getName())) {
+        String displayName = adaptIntentDefinitionNameToDialogFlow(intentDefinition.getName());
+        if (this.pendingIntents.containsKey(displayName) || (this.registeredIntents.containsKey(displayName) &&
+                !this.unclaimedIntents.contains(displayName))) {
             throw new DialogFlowException(MessageFormat.format("Cannot register the intent {0}, the intent " +
                     "already exists", intentDefinition.getName()));
         }
+        if (nonNull(fallbackProvider)) {
+            fallbackProvider.registerIntentDefinition(intentDefinition);
+        }
+        intentDescriptors.put(displayName, new DialogFlowIntentDescriptor(intentDefinition));
 
         List<String> trainingSentences = intentDefinition.getTrainingSentences();
         List<Intent.TrainingPhrase> dialogFlowTrainingPhrases = new ArrayList<>();
@@ -1004,47 +1887,73 @@ public class DialogFlowApi extends IntentRecognitionProvider {
             messages.add(Intent.Message.newBuilder().setText(Intent.Message.Text.newBuilder().addText(defaultAnswer)).build());
         }
 
-        Intent.Builder builder = Intent.newBuilder().setDisplayName(adaptIntentDefinitionNameToDialogFlow
-                (intentDefinition.getName())).addAllTrainingPhrases(dialogFlowTrainingPhrases)
+        Intent intent = Intent.newBuilder().setDisplayName(displayName)
+                .addAllTrainingPhrases(dialogFlowTrainingPhrases)
                 .addAllInputContextNames(inContextNames)
                 .addAllOutputContexts(outContexts).addAllParameters(parameters)
-                .addAllMessages(messages);
+                .addAllMessages(messages).build();
 
+        String parentDisplayName = null;
         if (nonNull(intentDefinition.getFollows())) {
             Log.debug("Registering intent {0} as a follow-up of {1}", intentDefinition.getName(), intentDefinition
                     .getFollows().getName());
-            Intent parentIntent = registeredIntents.get(adaptIntentDefinitionNameToDialogFlow(intentDefinition
-                    .getFollows().getName()));
-            if (isNull(parentIntent)) {
-                Log.debug(MessageFormat.format("Cannot find intent {0} in the DialogFlow project, trying to register " +
+            parentDisplayName = adaptIntentDefinitionNameToDialogFlow(intentDefinition.getFollows().getName());
+            if (!pendingIntents.containsKey(parentDisplayName) && (!registeredIntents.containsKey(parentDisplayName)
+                    || unclaimedIntents.contains(parentDisplayName))) {
+                Log.debug(MessageFormat.format("Cannot find intent {0} in the registered intents, trying to register " +
                         "it", intentDefinition.getFollows().getName()));
                 registerIntentDefinition(intentDefinition.getFollows());
-                parentIntent = registeredIntents.get(adaptIntentDefinitionNameToDialogFlow(intentDefinition
-                        .getFollows().getName()));
             }
-            if (nonNull(parentIntent)) {
-                builder.setParentFollowupIntentName(parentIntent.getName());
-            } else {
-                /*
-                 * The parentIntent registration has failed, there is no way to build a DialogFlow agent that is
-                 * consistent with the provided model.
-                 */
-                throw new XatkitException(MessageFormat.format("Cannot retrieve the parent intent {0}, check the logs" +
-                        " for additional information", intentDefinition.getFollows().getName()));
+            /*
+             * The parent name is set when the intent is sent to DialogFlow, the parent may not be created yet.
+             */
+            pendingParentIntents.put(displayName, parentDisplayName);
+        }
+        expectedIntents.put(displayName, isNull(parentDisplayName) ? intent :
+                intent.toBuilder().setParentFollowupIntentName(parentDisplayName).build());
+
+        Intent importedIntent = registeredIntents.get(displayName);
+        if (nonNull(importedIntent)) {
+            unclaimedIntents.remove(displayName);
+            if (DialogFlowSynchronizationUtils.isUpToDate(intent, importedIntent)
+                    && isParentIntent(parentDisplayName, importedIntent.getParentFollowupIntentName())) {
+                Log.debug("Intent {0} is up to date", displayName);
+                pendingParentIntents.remove(displayName);
+                return;
             }
+            /*
+             * Reuse the name of the imported Intent to update it instead of creating a new one.
+             */
+            intent = intent.toBuilder().setName(importedIntent.getName()).build();
         }
+        pendingIntents.put(displayName, intent);
+        pendingDefinitions = true;
+    }
 
-        Intent intent = builder.build();
-        try {
-            Intent response = intentsClient.createIntent(projectAgentName, intent);
-            registeredIntents.put(response.getDisplayName(), response);
-            Log.debug("Intent {0} successfully registered", response.getDisplayName());
-        } catch (FailedPreconditionException | InvalidArgumentException e) {
-            if (e.getMessage().contains("already exists")) {
-                throw new DialogFlowException(MessageFormat.format("Cannot register the intent {0}, the intent " +
-                        "already exists", intentDefinition.getName()), e);
-            }
+    /**
+     * Returns whether the provided {@code parentIntentName} corresponds to the {@link Intent} with the provided
+     * {@code parentDisplayName}.
+     *
+     * @param parentDisplayName the expected display name of the parent {@link Intent}, or {@code null} if no
+     *                          parent is expected
+     * @param parentIntentName  the DialogFlow name of the parent {@link Intent} to check (empty if the
+     *                          {@link Intent} does not have a parent)
+     * @return {@code true} if the provided {@code parentIntentName} matches the provided {@code
+     * parentDisplayName}, {@code false} otherwise
+     */
+    private boolean isParentIntent(@Nullable String parentDisplayName, String parentIntentName) {
+        if (isNull(parentDisplayName)) {
+            return parentIntentName.isEmpty();
         }
+        /*
+         * Look for the parent in the pending intents first: updated intents keep their name, but created ones don't
+         * have a name yet, meaning that the follow-up intent needs to be sent with the name of the created parent.
+         */
+        Intent parentIntent = pendingIntents.get(parentDisplayName);
+        if (isNull(parentIntent)) {
+            parentIntent = registeredIntents.get(parentDisplayName);
+        }
+        return nonNull(parentIntent) && parentIntent.getName().equals(parentIntentName);
     }
 
     /**
@@ -1284,13 +2193,17 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown
      */
     @Override
-    public void deleteEntityDefinition(EntityDefinition entityDefinition) {
+    protected synchronized void deleteEntityDefinitionInternal(EntityDefinition entityDefinition) {
         if (isShutdown()) {
             throw new DialogFlowException(MessageFormat.format("Cannot delete the Intent {0}, the DialogFlow API is " +
                     "shutdown", entityDefinition));
         }
         checkNotNull(entityDefinition, "Cannot delete the {0} {1}", EntityDefinition.class.getSimpleName(),
                 entityDefinition);
+        synchronizeAgent();
+        if (nonNull(fallbackProvider)) {
+            fallbackProvider.deleteEntityDefinition(entityDefinition);
+        }
         if (entityDefinition instanceof BaseEntityDefinition) {
             BaseEntityDefinition baseEntityDefinition = (BaseEntityDefinition) entityDefinition;
             Log.trace("Skipping deletion of {0} ({1}), {0} are natively supported by DialogFlow and cannot be " +
@@ -1323,6 +2236,8 @@ public class DialogFlowApi extends IntentRecognitionProvider {
              * Remove the deleted EntityType from the local cache.
              */
             this.registeredEntityTypes.remove(entityType.getDisplayName());
+            this.expectedEntityTypes.remove(entityType.getDisplayName());
+            invalidateFingerprint();
         } else {
             throw new DialogFlowException(MessageFormat.format("Cannot delete the provided {0}, unsupported {1}",
                     entityDefinition.getClass().getSimpleName(), EntityDefinition.class.getSimpleName()));
@@ -1335,13 +2250,18 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown
      */
     @Override
-    public void deleteIntentDefinition(IntentDefinition intentDefinition) {
+    protected synchronized void deleteIntentDefinitionInternal(IntentDefinition intentDefinition) {
         if (isShutdown()) {
             throw new DialogFlowException(MessageFormat.format("Cannot delete the Intent {0}, the DialogFlow API is " +
                     "shutdown", intentDefinition.getName()));
         }
         checkNotNull(intentDefinition, "Cannot delete the IntentDefinition null");
         checkNotNull(intentDefinition.getName(), "Cannot delete the IntentDefinition with null as its name");
+        synchronizeAgent();
+        if (nonNull(fallbackProvider)) {
+            fallbackProvider.deleteIntentDefinition(intentDefinition);
+        }
+        intentDescriptors.remove(adaptIntentDefinitionNameToDialogFlow(intentDefinition.getName()));
         /*
          * Reduce the number of calls to the DialogFlow API by first looking for the Intent in the local cache.
          */
@@ -1366,41 +2286,261 @@ public class DialogFlowApi extends IntentRecognitionProvider {
          * Remove the deleted Intent from the local cache.
          */
         this.registeredIntents.remove(intent.getDisplayName());
+        this.expectedIntents.remove(intent.getDisplayName());
+        invalidateFingerprint();
     }
 
     /**
      * {@inheritDoc}
      * <p>
-     * This method checks every second whether the underlying ML Engine has finished its training. Note that this
-     * method is blocking as long as the ML Engine training is not terminated, and may not terminate if an issue
-     * occurred on the DialogFlow side.
+     * This method starts the training with {@link #trainMLEngineAsync()} and waits for its completion. Note that
+     * this method is blocking as long as the ML Engine training is not terminated, and may not terminate if an
+     * issue occurred on the DialogFlow side.
      *
-     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown
+     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown, or if an error occurred during the
+     *                             training
+     * @see #trainMLEngineAsync()
      */
     @Override
     public void trainMLEngine() {
+        try {
+            trainMLEngineAsync().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof DialogFlowException) {
+                throw (DialogFlowException) e.getCause();
+            }
+            throw new DialogFlowException("An error occurred during the ML Engine Training", e.getCause());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The pending {@link Intent}s and {@link EntityType}s are sent to the DialogFlow agent before starting the
+     * training (see {@link #synchronizeAgent()}). The synchronization is performed on the calling thread, and its
+     * errors are thrown by this method. The training operation is then checked every second in the background, and
+     * the returned {@link CompletableFuture} is completed once the training is done. DialogFlow keeps serving the
+     * previous version of the agent during the training, whether user inputs are processed during this period is
+     * defined by {@link #TRAINING_ACCEPT_TRAFFIC_KEY}.
+     * <p>
+     * If {@link #SKIP_UNCHANGED_AGENT_KEY} is enabled this method first compares the fingerprint of the registered
+     * definitions with the one stored after the last training. The synchronization, cleaning, and training of the
+     * agent are skipped if the fingerprints are equal and the agent does not differ from the registered definitions
+     * (i.e. there is no pending element to send or delete), and the returned {@link CompletableFuture} is already
+     * completed.
+     *
+     * @return a {@link CompletableFuture} completed when the training is complete
+     * @throws DialogFlowException if the {@link DialogFlowApi} is shutdown, or if an error occurred when
+     *                             synchronizing the agent
+     * @see #isReady()
+     */
+    @Override
+    public CompletableFuture<Void> trainMLEngineAsync() {
         if (isShutdown()) {
             throw new DialogFlowException("Cannot train the ML Engine, the DialogFlow API is shutdown");
         }
+        String fingerprint;
+        synchronized (this) {
+            fingerprint = DialogFlowSynchronizationUtils.computeFingerprint(languageCode, expectedIntents.values(),
+                    expectedEntityTypes.values());
+        }
+        if (skipUnchangedAgent && fingerprint.equals(readFingerprint())) {
+            synchronized (this) {
+                if (isAgentSynchronized()) {
+                    Log.info("The registered definitions did not change since the last training (fingerprint {0})" +
+                            ", skipping DialogFlow agent synchronization and training", fingerprint);
+                    return CompletableFuture.completedFuture(null);
+                }
+                Log.info("The registered definitions did not change since the last training (fingerprint {0}), " +
+                                "but the agent differs from them ({1} {2}(s) and {3} {4}(s) to send), synchronizing " +
+                                "and training the DialogFlow agent", fingerprint, pendingIntents.size(),
+                        Intent.class.getSimpleName(), pendingEntityTypes.size(), EntityType.class.getSimpleName());
+            }
+        }
+        boolean servingRegisteredIntents = isServingRegisteredIntents();
+        synchronizeAgent();
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        this.trainingFuture = result;
+        this.awaitTraining = !acceptTrafficDuringTraining || !servingRegisteredIntents;
+        if (acceptTrafficDuringTraining && !servingRegisteredIntents) {
+            Log.info("The DialogFlow agent does not contain a previous version of the registered intents, user " +
+                    "inputs will wait for the end of the training");
+        }
         Log.info("Starting ML Engine Training (this may take a few minutes)");
         TrainAgentRequest request = TrainAgentRequest.newBuilder()
                 .setParent(projectName.toString())
                 .build();
         ApiFuture<Operation> future = agentsClient.trainAgentCallable().futureCall(request);
-        try {
-            Operation operation = future.get();
-            while (!operation.getDone()) {
-                Thread.sleep(1000);
+        future.addListener(() -> {
+            try {
+                checkTrainingOperation(future.get(), fingerprint, result);
+            } catch (InterruptedException | ExecutionException e) {
+                failTraining(result, e);
+            }
+        }, executor);
+        return result;
+    }
+
+    /**
+     * Checks whether the provided training {@code operation} is done, and completes the provided {@code result}
+     * accordingly.
+     * <p>
+     * If the {@code operation} is not done this method schedules a new check on the DialogFlow {@link #executor}
+     * instead of blocking the calling thread.
+     *
+     * @param operation   the training {@link Operation} to check
+     * @param fingerprint the fingerprint of the trained definitions, stored once the training is complete
+     * @param result      the {@link CompletableFuture} to complete when the training is complete
+     */
+    private void checkTrainingOperation(Operation operation, String fingerprint, CompletableFuture<Void> result) {
+        if (operation.getDone()) {
+            if (operation.hasError()) {
+                failTraining(result, new DialogFlowException(MessageFormat.format("The training operation failed: " +
+                        "{0}", operation.getError().getMessage())));
+            } else {
+                Log.info("ML Engine Training completed");
+                writeFingerprint(fingerprint);
+                result.complete(null);
+            }
+            return;
+        }
+        executor.schedule(() -> {
+            try {
                 /*
                  * Retrieve the new version of the Operation from the API.
                  */
-                operation = agentsClient.getOperationsClient().getOperation(operation.getName());
+                checkTrainingOperation(agentsClient.getOperationsClient().getOperation(operation.getName()),
+                        fingerprint, result);
+            } catch (RuntimeException e) {
+                failTraining(result, e);
             }
-            Log.info("ML Engine Training completed");
-        } catch (InterruptedException | ExecutionException e) {
-            String errorMessage = "An error occurred during the ML Engine Training";
-            Log.error(errorMessage);
-            throw new DialogFlowException(errorMessage, e);
+        }, TRAINING_POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Completes the provided training {@code result} with the provided {@code cause}.
+     *
+     * @param result the {@link CompletableFuture} tracking the training
+     * @param cause  the error that occurred during the training
+     */
+    private void failTraining(CompletableFuture<Void> result, Throwable cause) {
+        String errorMessage = "An error occurred during the ML Engine Training";
+        Log.error(errorMessage);
+        if (cause instanceof DialogFlowException) {
+            result.completeExceptionally(cause);
+        } else {
+            result.completeExceptionally(new DialogFlowException(errorMessage, cause));
+        }
+    }
+
+    /**
+     * Returns whether the agent is currently training.
+     *
+     * @return {@code true} if the agent is training, {@code false} otherwise
+     * @see #trainMLEngineAsync()
+     */
+    public boolean isTraining() {
+        CompletableFuture<Void> future = this.trainingFuture;
+        return nonNull(future) && !future.isDone();
+    }
+
+    /**
+     * Returns whether the {@link DialogFlowApi} accepts user inputs.
+     * <p>
+     * The {@link DialogFlowApi} does not accept user inputs if it is shutdown, or if the agent is training and
+     * {@link #TRAINING_ACCEPT_TRAFFIC_KEY} is set to {@code false} (or there is no previous version of the agent to
+     * serve during the training).
+     *
+     * @return {@code true} if the {@link DialogFlowApi} accepts user inputs, {@code false} otherwise
+     */
+    public boolean isReady() {
+        return !isShutdown() && (!awaitTraining || !isTraining());
+    }
+
+    /**
+     * Waits for the end of the current training if the {@link DialogFlowApi} does not accept user inputs during the
+     * training.
+     *
+     * @return {@code true} if the input can be sent to DialogFlow, {@code false} if the training did not complete
+     * within the configured timeout
+     * @see #TRAINING_ACCEPT_TRAFFIC_KEY
+     * @see #TRAINING_WAIT_TIMEOUT_KEY
+     */
+    private boolean awaitReadiness() {
+        CompletableFuture<Void> future = this.trainingFuture;
+        if (!awaitTraining || isNull(future) || future.isDone()) {
+            return true;
+        }
+        Log.debug("The DialogFlow agent is training, waiting up to {0}ms before processing the input",
+                trainingWaitTimeout);
+        try {
+            future.get(trainingWaitTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            /*
+             * The training failed, the previous version of the agent is still available.
+             */
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reads the fingerprint of the last trained agent.
+     *
+     * @return the fingerprint of the last trained agent, or {@code null} if there is no stored fingerprint or if an
+     * error occurred when reading it
+     * @see #SKIP_UNCHANGED_AGENT_KEY
+     */
+    @Nullable
+    private String readFingerprint() {
+        if (!fingerprintFile.exists()) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(fingerprintFile.toPath()), StandardCharsets.UTF_8).trim();
+        } catch (IOException e) {
+            Log.warn("Cannot read the DialogFlow agent fingerprint from {0}, the agent will be trained",
+                    fingerprintFile.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * Stores the provided {@code fingerprint} as the fingerprint of the last trained agent.
+     * <p>
+     * Errors are logged but not thrown: a missing fingerprint only triggers a new training on the next deployment.
+     *
+     * @param fingerprint the fingerprint to store
+     * @see #SKIP_UNCHANGED_AGENT_KEY
+     */
+    private void writeFingerprint(String fingerprint) {
+        if (!skipUnchangedAgent) {
+            return;
+        }
+        try {
+            fingerprintFile.getParentFile().mkdirs();
+            Files.write(fingerprintFile.toPath(), fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            Log.warn("Cannot store the DialogFlow agent fingerprint in {0}", fingerprintFile.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Deletes the stored fingerprint of the last trained agent.
+     * <p>
+     * This method is called when the agent is modified after its training (e.g. when an {@link Intent} is deleted),
+     * ensuring that the next deployment synchronizes and trains the agent.
+     *
+     * @see #SKIP_UNCHANGED_AGENT_KEY
+     */
+    private void invalidateFingerprint() {
+        if (fingerprintFile.exists() && !fingerprintFile.delete()) {
+            Log.warn("Cannot delete the DialogFlow agent fingerprint {0}", fingerprintFile.getAbsolutePath());
         }
     }
 
@@ -1532,6 +2672,11 @@ public class DialogFlowApi extends IntentRecognitionProvider {
      * If the {@link #ENABLE_LOCAL_CONTEXT_MERGE_KEY} property is set to {@code true} this method will first merge the
      * local {@link XatkitSession} in the remote DialogFlow one, in order to ensure that all the local contexts are
      * propagated to the recognition engine.
+     * <p>
+     * If the {@link #ENABLE_CIRCUIT_BREAKER_KEY} property is set to {@code true} the inputs are processed by a local
+     * {@link RegExIntentRecognitionProvider} when the circuit is open or when the DialogFlow query fails. Local
+     * errors (e.g. a context value that cannot be sent to DialogFlow) are not DialogFlow failures, and are thrown by
+     * this method.
      *
      * @throws NullPointerException     if the provided {@code input} or {@code session} is {@code null}
      * @throws IllegalArgumentException if the provided {@code input} is empty
@@ -1550,21 +2695,62 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         checkArgument(!input.isEmpty(), "Cannot retrieve the intent from empty string");
         checkArgument(session instanceof DialogFlowSession, "Cannot handle the message, expected session type to be " +
                 "%s, found %s", DialogFlowSession.class.getSimpleName(), session.getClass().getSimpleName());
+        if (pendingDefinitions) {
+            Log.warn("Some registered definitions have not been sent to the DialogFlow agent, call trainMLEngine() " +
+                    "to synchronize and train the agent");
+        }
         TextInput.Builder textInput = TextInput.newBuilder().setText(input).setLanguageCode(languageCode);
         QueryInput queryInput = QueryInput.newBuilder().setText(textInput).build();
         DetectIntentResponse response;
 
-        DialogFlowSession dialogFlowSession = (DialogFlowSession) session;
-        if (enableContextMerge) {
-            mergeLocalSessionInDialogFlow(dialogFlowSession);
-        } else {
-            Log.debug("Local context not merged in DialogFlow, context merging has been disabled");
+        if (!awaitReadiness()) {
+            if (isNull(fallbackProvider)) {
+                throw new DialogFlowException(MessageFormat.format("Cannot process the input \"{0}\", the DialogFlow " +
+                        "agent is training", input));
+            }
+            Log.debug("DialogFlow agent is training, processing the input with the local {0}",
+                    RegExIntentRecognitionProvider.class.getSimpleName());
+            trainingFallbackCount.incrementAndGet();
+            return getFallbackIntent(input, session);
         }
 
+        if (nonNull(circuitBreaker) && !circuitBreaker.tryAcquirePermission()) {
+            Log.debug("DialogFlow circuit breaker is open, processing the input with the local {0}",
+                    RegExIntentRecognitionProvider.class.getSimpleName());
+            rejectedFallbackCount.incrementAndGet();
+            return getFallbackIntent(input, session);
+        }
+
+        DialogFlowSession dialogFlowSession = (DialogFlowSession) session;
+        long before = System.currentTimeMillis();
         try {
+            if (enableContextMerge) {
+                mergeLocalSessionInDialogFlow(dialogFlowSession);
+            } else {
+                Log.debug("Local context not merged in DialogFlow, context merging has been disabled");
+            }
             response = sessionsClient.detectIntent(((DialogFlowSession) session).getSessionName(), queryInput);
-        } catch (Exception e) {
-            throw new DialogFlowException(e);
+        } catch (ApiException | StatusRuntimeException e) {
+            if (isNull(circuitBreaker)) {
+                throw new DialogFlowException(e);
+            }
+            circuitBreaker.onError(System.currentTimeMillis() - before);
+            Log.warn("An error occurred when querying DialogFlow ({0}), processing the input with the local {1}",
+                    e.getMessage(), RegExIntentRecognitionProvider.class.getSimpleName());
+            errorFallbackCount.incrementAndGet();
+            return getFallbackIntent(input, session);
+        } catch (RuntimeException e) {
+            /*
+             * Local errors (e.g. invalid context values) are not DialogFlow failures, they are not recorded by the
+             * circuit breaker and are not hidden behind the fallback provider.
+             */
+            if (nonNull(circuitBreaker)) {
+                circuitBreaker.releasePermission();
+            }
+            throw e;
+        }
+        if (nonNull(circuitBreaker)) {
+            circuitBreaker.onSuccess(System.currentTimeMillis() - before);
         }
         QueryResult queryResult = response.getQueryResult();
         RecognizedIntent recognizedIntent = convertDialogFlowIntentToRecognizedIntent(queryResult);
@@ -1574,19 +2760,64 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         return recognizedIntent;
     }
 
+    /**
+     * Computes the {@link RecognizedIntent} from the provided {@code input} with the local {@link #fallbackProvider}.
+     * <p>
+     * This method is used when the DialogFlow intent detection is not available (see
+     * {@link #ENABLE_CIRCUIT_BREAKER_KEY}). The {@link #fallbackProvider} performs exact matches of the registered
+     * training sentences, meaning that the returned {@link RecognizedIntent} is typically less accurate than the one
+     * computed by DialogFlow.
+     *
+     * @param input   the {@link String} representing the textual input to process
+     * @param session the {@link XatkitSession} used to access context information
+     * @return the {@link RecognizedIntent} matched from the provided {@code input}
+     */
+    private RecognizedIntent getFallbackIntent(String input, XatkitSession session) {
+        RecognizedIntent recognizedIntent = fallbackProvider.getIntentInternal(input, session);
+        if (nonNull(recognitionMonitor)) {
+            recognitionMonitor.logRecognizedIntent(session, recognizedIntent);
+        }
+        return recognizedIntent;
+    }
+
+    /**
+     * Returns the {@link CircuitBreaker} protecting the DialogFlow intent detection.
+     *
+     * @return the {@link CircuitBreaker}, or {@code null} if the circuit breaker is disabled
+     * @see #ENABLE_CIRCUIT_BREAKER_KEY
+     */
+    @Nullable
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * Returns the number of inputs processed by the local fallback provider.
+     * <p>
+     * This number includes the inputs rejected by the open circuit, the inputs for which the DialogFlow query
+     * failed, and the inputs received while the agent was training (see {@link #TRAINING_ACCEPT_TRAFFIC_KEY}).
+     *
+     * @return the number of inputs processed by the local fallback provider
+     * @see #ENABLE_CIRCUIT_BREAKER_KEY
+     */
+    public long getFallbackRecognitionCount() {
+        return rejectedFallbackCount.get() + errorFallbackCount.get() + trainingFallbackCount.get();
+    }
+
     /**
      * Reifies the provided DialogFlow {@link QueryResult} into a {@link RecognizedIntent}.
      * <p>
-     * This method relies on the {@link #convertDialogFlowIntentToIntentDefinition(Intent)} method to retrieve the
-     * {@link IntentDefinition} associated to the {@link QueryResult}'s {@link Intent}, and the
-     * {@link EventDefinitionRegistry#getEventDefinitionOutContext(String)} method to retrieve the registered
-     * {@link ContextParameter}s from the DialogFlow contexts.
+     * This method relies on the {@link #getIntentDescriptor(Intent)} method to retrieve the pre-computed
+     * descriptor of the {@link IntentDefinition} associated to the {@link QueryResult}'s {@link Intent}, and uses it
+     * to retrieve the registered {@link ContextParameter}s from the DialogFlow contexts. Contexts that are not
+     * defined by the matched {@link IntentDefinition} are retrieved with the
+     * {@link EventDefinitionRegistry#getEventDefinitionOutContext(String)} method.
      *
      * @param result the DialogFlow {@link QueryResult} containing the {@link Intent} to reify
      * @return the reified {@link RecognizedIntent}
      * @throws NullPointerException     if the provided {@link QueryResult} is {@code null}
      * @throws IllegalArgumentException if the provided {@link QueryResult}'s {@link Intent} is {@code null}
-     * @see #convertDialogFlowIntentToIntentDefinition(Intent)
+     * @see #getIntentDescriptor(Intent)
      * @see EventDefinitionRegistry#getEventDefinitionOutContext(String)
      */
     private RecognizedIntent convertDialogFlowIntentToRecognizedIntent(QueryResult result) {
@@ -1598,9 +2829,10 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         Intent intent = result.getIntent();
         RecognizedIntent recognizedIntent = intentFactory.createRecognizedIntent();
         /*
-         * Retrieve the IntentDefinition corresponding to this Intent.
+         * Retrieve the pre-computed descriptor of the IntentDefinition corresponding to this Intent.
          */
-        IntentDefinition intentDefinition = convertDialogFlowIntentToIntentDefinition(intent);
+        DialogFlowIntentDescriptor intentDescriptor = getIntentDescriptor(intent);
+        IntentDefinition intentDefinition = intentDescriptor.getIntentDefinition();
         recognizedIntent.setDefinition(intentDefinition);
 
         /*
@@ -1615,12 +2847,7 @@ public class DialogFlowApi extends IntentRecognitionProvider {
          *  set its definition to DEFAULT_FALLBACK_INTENT and we skip context registration.
          */
         if (!recognizedIntent.getDefinition().equals(DEFAULT_FALLBACK_INTENT) && recognizedIntent.getRecognitionConfidence() < confidenceThreshold) {
-            boolean containsAnyEntity =
-                    recognizedIntent.getDefinition().getOutContexts().stream().flatMap(c -> c.getParameters().stream())
-                            .anyMatch(
-                                    p -> p.getEntity().getReferredEntity() instanceof BaseEntityDefinition &&
-                                            ((BaseEntityDefinition) p.getEntity().getReferredEntity()).getEntityType().equals(com.xatkit.intent.EntityType.ANY)
-                            );
+            boolean containsAnyEntity = intentDescriptor.hasAnyParameter();
             /*
              * We should not reject a recognized intent if it contains an any entity, these intents typically have a
              * low confidence level.
@@ -1649,8 +2876,9 @@ public class DialogFlowApi extends IntentRecognitionProvider {
              * find the Context from the global registry, that may return inconsistent result if there are multiple
              * contexts defined with the same name.
              */
-            com.xatkit.intent.Context contextDefinition = intentDefinition.getOutContext(contextName);
-            if (isNull(contextDefinition)) {
+            com.xatkit.intent.Context contextDefinition = intentDescriptor.getOutContext(contextName);
+            boolean isIntentContext = nonNull(contextDefinition);
+            if (!isIntentContext) {
                 contextDefinition = this.xatkitCore.getEventDefinitionRegistry().getEventDefinitionOutContext
                         (contextName);
             }
@@ -1666,7 +2894,9 @@ public class DialogFlowApi extends IntentRecognitionProvider {
 
                     Object parameterValue = buildParameterValue(value);
 
-                    ContextParameter contextParameter = contextDefinition.getContextParameter(key);
+                    ContextParameter contextParameter = isIntentContext ?
+                            intentDescriptor.getContextParameter(contextName, key) :
+                            contextDefinition.getContextParameter(key);
                     if (nonNull(contextParameter) && !key.contains(".original")) {
                         ContextParameterValue contextParameterValue = intentFactory.createContextParameterValue();
                         contextParameterValue.setContextParameter(contextParameter);
@@ -1744,34 +2974,42 @@ public class DialogFlowApi extends IntentRecognitionProvider {
     }
 
     /**
-     * Reifies the provided DialogFlow {@code intent} into an Xatkit {@link IntentDefinition}.
+     * Returns the {@link DialogFlowIntentDescriptor} of the Xatkit {@link IntentDefinition} corresponding to the
+     * provided DialogFlow {@code intent}.
      * <p>
-     * This method looks in the {@link EventDefinitionRegistry} for an {@link IntentDefinition} associated to the
-     * provided {@code intent}'s name and returns it. If there is no such {@link IntentDefinition} the
-     * {@link #DEFAULT_FALLBACK_INTENT} is returned.
+     * This method returns the descriptor created when the {@link IntentDefinition} has been registered. If the
+     * provided {@code intent} does not correspond to a registered {@link IntentDefinition} (e.g. if it has been
+     * imported from the agent) this method looks in the {@link EventDefinitionRegistry} for an
+     * {@link IntentDefinition} associated to the provided {@code intent}'s name, and caches its descriptor. If there
+     * is no such {@link IntentDefinition} the descriptor of the {@link #DEFAULT_FALLBACK_INTENT} is returned.
      *
-     * @param intent the DialogFlow {@link Intent} to retrieve the Xatkit {@link IntentDefinition} from
-     * @return the {@link IntentDefinition} associated to the provided {@code intent}
+     * @param intent the DialogFlow {@link Intent} to retrieve the descriptor of
+     * @return the {@link DialogFlowIntentDescriptor} associated to the provided {@code intent}
      * @throws NullPointerException if the provided {@code intent} is {@code null}
      */
-    private IntentDefinition convertDialogFlowIntentToIntentDefinition(Intent intent) {
+    private DialogFlowIntentDescriptor getIntentDescriptor(Intent intent) {
         checkNotNull(intent, "Cannot retrieve the %s from the provided %s %s", IntentDefinition.class.getSimpleName()
                 , Intent.class.getSimpleName(), intent);
-        IntentDefinition result = xatkitCore.getEventDefinitionRegistry().getIntentDefinition(intent
-                .getDisplayName());
-        if (isNull(result)) {
-            Log.warn("Cannot retrieve the {0} with the provided name {1}, returning the Default Fallback Intent",
-                    IntentDefinition.class.getSimpleName(), intent.getDisplayName());
-            result = DEFAULT_FALLBACK_INTENT;
+        DialogFlowIntentDescriptor descriptor = intentDescriptors.get(intent.getDisplayName());
+        if (isNull(descriptor)) {
+            IntentDefinition intentDefinition = xatkitCore.getEventDefinitionRegistry().getIntentDefinition(intent
+                    .getDisplayName());
+            if (isNull(intentDefinition)) {
+                Log.warn("Cannot retrieve the {0} with the provided name {1}, returning the Default Fallback Intent",
+                        IntentDefinition.class.getSimpleName(), intent.getDisplayName());
+                return DEFAULT_FALLBACK_INTENT_DESCRIPTOR;
+            }
+            descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+            intentDescriptors.put(intent.getDisplayName(), descriptor);
         }
-        return result;
+        return descriptor;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public void shutdown() {
+    protected void shutdownInternal() {
         if (isShutdown()) {
             throw new DialogFlowException("Cannot perform shutdown, DialogFlow API is already shutdown");
         }
@@ -1779,6 +3017,12 @@ public class DialogFlowApi extends IntentRecognitionProvider {
         this.intentsClient.shutdownNow();
         this.contextsClient.shutdownNow();
         this.agentsClient.shutdownNow();
+        this.entityTypesClient.shutdownNow();
+        this.channel.shutdownNow();
+        this.executor.shutdownNow();
+        if (nonNull(this.fallbackProvider)) {
+            this.fallbackProvider.shutdown();
+        }
         if (nonNull(this.recognitionMonitor)) {
             this.recognitionMonitor.shutdown();
         }
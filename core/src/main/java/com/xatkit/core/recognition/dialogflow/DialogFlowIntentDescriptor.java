@@ -0,0 +1,148 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.xatkit.intent.BaseEntityDefinition;
+import com.xatkit.intent.Context;
+import com.xatkit.intent.ContextParameter;
+import com.xatkit.intent.EntityDefinition;
+import com.xatkit.intent.EntityType;
+import com.xatkit.intent.IntentDefinition;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A pre-computed view of an {@link IntentDefinition} used to convert DialogFlow responses.
+ * <p>
+ * This class is created when an {@link IntentDefinition} is registered, and stores the information needed to
+ * reify a matched DialogFlow intent: the {@link IntentDefinition} itself, whether it contains a parameter bound to
+ * an {@code any} entity, and the {@link Context}s and {@link ContextParameter}s indexed by name. This allows to
+ * convert the DialogFlow responses without scanning the {@link IntentDefinition}'s contexts and parameters.
+ * <p>
+ * {@link Context} names are case-insensitive (DialogFlow returns lower-case context names), while
+ * {@link ContextParameter} names are case-sensitive.
+ */
+class DialogFlowIntentDescriptor {
+
+    /**
+     * The described {@link IntentDefinition}.
+     */
+    private final IntentDefinition intentDefinition;
+
+    /**
+     * Whether the described {@link IntentDefinition} contains a parameter bound to an {@code any} entity.
+     */
+    private final boolean hasAnyParameter;
+
+    /**
+     * The out {@link Context}s of the described {@link IntentDefinition}, indexed by their lower-case names.
+     */
+    private final Map<String, Context> outContexts;
+
+    /**
+     * The {@link ContextParameter}s of the described {@link IntentDefinition}, indexed by their lower-case
+     * {@link Context} name and their name.
+     */
+    private final Map<String, Map<String, ContextParameter>> contextParameters;
+
+    /**
+     * Constructs a {@link DialogFlowIntentDescriptor} for the provided {@code intentDefinition}.
+     *
+     * @param intentDefinition the {@link IntentDefinition} to describe
+     * @throws NullPointerException if the provided {@code intentDefinition} is {@code null}
+     */
+    DialogFlowIntentDescriptor(IntentDefinition intentDefinition) {
+        checkNotNull(intentDefinition, "Cannot create a %s for the provided %s %s",
+                DialogFlowIntentDescriptor.class.getSimpleName(), IntentDefinition.class.getSimpleName(),
+                intentDefinition);
+        this.intentDefinition = intentDefinition;
+        Map<String, Context> contexts = new HashMap<>();
+        Map<String, Map<String, ContextParameter>> parameters = new HashMap<>();
+        boolean anyParameter = false;
+        for (Context context : intentDefinition.getOutContexts()) {
+            String contextKey = context.getName().toLowerCase();
+            /*
+             * Keep the first context if the names only differ by their case, this is consistent with the
+             * IntentDefinition#getOutContext(String) lookup.
+             */
+            contexts.putIfAbsent(contextKey, context);
+            Map<String, ContextParameter> contextParameterMap = parameters.computeIfAbsent(contextKey,
+                    k -> new HashMap<>());
+            for (ContextParameter parameter : context.getParameters()) {
+                contextParameterMap.putIfAbsent(parameter.getName(), parameter);
+                anyParameter |= isAnyParameter(parameter);
+            }
+        }
+        this.outContexts = Collections.unmodifiableMap(contexts);
+        this.contextParameters = Collections.unmodifiableMap(parameters);
+        this.hasAnyParameter = anyParameter;
+    }
+
+    /**
+     * Returns whether the provided {@code parameter} is bound to an {@code any} entity.
+     *
+     * @param parameter the {@link ContextParameter} to check
+     * @return {@code true} if the {@code parameter} is bound to an {@code any} entity, {@code false} otherwise
+     */
+    private static boolean isAnyParameter(ContextParameter parameter) {
+        if (isNull(parameter.getEntity())) {
+            return false;
+        }
+        EntityDefinition entity = parameter.getEntity().getReferredEntity();
+        return entity instanceof BaseEntityDefinition && EntityType.ANY.equals(((BaseEntityDefinition) entity)
+                .getEntityType());
+    }
+
+    /**
+     * Returns the described {@link IntentDefinition}.
+     *
+     * @return the described {@link IntentDefinition}
+     */
+    IntentDefinition getIntentDefinition() {
+        return intentDefinition;
+    }
+
+    /**
+     * Returns whether the described {@link IntentDefinition} contains a parameter bound to an {@code any} entity.
+     *
+     * @return {@code true} if the {@link IntentDefinition} contains an {@code any} parameter, {@code false}
+     * otherwise
+     */
+    boolean hasAnyParameter() {
+        return hasAnyParameter;
+    }
+
+    /**
+     * Returns the out {@link Context} of the described {@link IntentDefinition} with the provided {@code
+     * contextName}.
+     *
+     * @param contextName the case-insensitive name of the {@link Context} to retrieve
+     * @return the {@link Context}, or {@code null} if the {@link IntentDefinition} does not define it
+     */
+    @Nullable
+    Context getOutContext(String contextName) {
+        return outContexts.get(contextName.toLowerCase());
+    }
+
+    /**
+     * Returns the {@link ContextParameter} with the provided {@code parameterName} in the {@link Context} with
+     * the provided {@code contextName}.
+     *
+     * @param contextName   the case-insensitive name of the {@link Context} containing the parameter
+     * @param parameterName the name of the {@link ContextParameter} to retrieve
+     * @return the {@link ContextParameter}, or {@code null} if the {@link IntentDefinition} does not define it
+     */
+    @Nullable
+    ContextParameter getContextParameter(String contextName, String parameterName) {
+        Map<String, ContextParameter> parameters = contextParameters.get(contextName.toLowerCase());
+        if (nonNull(parameters)) {
+            return parameters.get(parameterName);
+        }
+        return null;
+    }
+}
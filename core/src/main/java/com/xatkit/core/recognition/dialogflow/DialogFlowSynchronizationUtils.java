@@ -0,0 +1,198 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.google.cloud.dialogflow.v2.Context;
+import com.google.cloud.dialogflow.v2.EntityType;
+import com.google.cloud.dialogflow.v2.Intent;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * An utility class that provides comparison methods used to synchronize the DialogFlow agent with the registered
+ * definitions.
+ * <p>
+ * The {@link Intent}s and {@link EntityType}s returned by the DialogFlow API contain additional information set by
+ * the platform (such as generated names, training phrase identifiers, or message platforms). The methods of this
+ * class only compare the fields that are set by the {@link DialogFlowApi}, allowing to detect the definitions that
+ * need to be sent to the agent.
+ * <p>
+ * Note that these methods may report differences that are not significant for the agent (e.g. different
+ * message orders). This is not an issue: the corresponding elements are simply sent again to the agent.
+ */
+public class DialogFlowSynchronizationUtils {
+
+    /**
+     * Disables the default constructor, this class only provides static methods and should not be constructed.
+     */
+    private DialogFlowSynchronizationUtils() {
+    }
+
+    /**
+     * Returns whether the {@code actual} {@link Intent} is up to date with the {@code expected} one.
+     * <p>
+     * This method compares the display name, training phrases, input and output contexts, parameters, and text
+     * messages of the provided {@link Intent}s. The order of training phrases, contexts, and parameters is not
+     * taken into account. Note that the parent follow-up {@link Intent} is not compared, because its name is only
+     * known once the parent has been created in the agent.
+     *
+     * @param expected the {@link Intent} created from the registered definition
+     * @param actual   the {@link Intent} stored in the DialogFlow agent
+     * @return {@code true} if the {@code actual} {@link Intent} is up to date, {@code false} otherwise
+     * @throws NullPointerException if the provided {@code expected} or {@code actual} {@link Intent} is {@code null}
+     */
+    public static boolean isUpToDate(Intent expected, Intent actual) {
+        checkNotNull(expected, "Cannot compare the provided %s %s", Intent.class.getSimpleName(), expected);
+        checkNotNull(actual, "Cannot compare the provided %s %s", Intent.class.getSimpleName(), actual);
+        return normalize(expected).equals(normalize(actual));
+    }
+
+    /**
+     * Returns whether the {@code actual} {@link EntityType} is up to date with the {@code expected} one.
+     * <p>
+     * This method compares the display name, kind, values, and synonyms of the provided {@link EntityType}s. The
+     * order of the entities and synonyms is not taken into account.
+     *
+     * @param expected the {@link EntityType} created from the registered definition
+     * @param actual   the {@link EntityType} stored in the DialogFlow agent
+     * @return {@code true} if the {@code actual} {@link EntityType} is up to date, {@code false} otherwise
+     * @throws NullPointerException if the provided {@code expected} or {@code actual} {@link EntityType} is {@code
+     *                              null}
+     */
+    public static boolean isUpToDate(EntityType expected, EntityType actual) {
+        checkNotNull(expected, "Cannot compare the provided %s %s", EntityType.class.getSimpleName(), expected);
+        checkNotNull(actual, "Cannot compare the provided %s %s", EntityType.class.getSimpleName(), actual);
+        return normalize(expected).equals(normalize(actual));
+    }
+
+    /**
+     * Computes a stable fingerprint of the provided {@code intents} and {@code entityTypes}.
+     * <p>
+     * The fingerprint is computed from the fields compared by {@link #isUpToDate(Intent, Intent)} and
+     * {@link #isUpToDate(EntityType, EntityType)}, as well as the {@code parentFollowupIntentName} of the provided
+     * {@code intents}. It does not depend on the order of the provided elements, and can be compared across
+     * executions to check whether the registered definitions have changed.
+     *
+     * @param languageCode the language code of the DialogFlow agent
+     * @param intents      the {@link Intent}s to compute the fingerprint of
+     * @param entityTypes  the {@link EntityType}s to compute the fingerprint of
+     * @return the hexadecimal representation of the computed fingerprint
+     * @throws NullPointerException if the provided {@code languageCode}, {@code intents}, or {@code entityTypes} is
+     *                              {@code null}
+     * @throws DialogFlowException  if the fingerprint algorithm is not available
+     */
+    public static String computeFingerprint(String languageCode, Collection<Intent> intents,
+                                            Collection<EntityType> entityTypes) {
+        checkNotNull(languageCode, "Cannot compute the fingerprint with the provided language code %s",
+                languageCode);
+        checkNotNull(intents, "Cannot compute the fingerprint of the provided %s collection %s",
+                Intent.class.getSimpleName(), intents);
+        checkNotNull(entityTypes, "Cannot compute the fingerprint of the provided %s collection %s",
+                EntityType.class.getSimpleName(), entityTypes);
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new DialogFlowException("Cannot compute the agent fingerprint, see attached exception", e);
+        }
+        digest.update(languageCode.getBytes(StandardCharsets.UTF_8));
+        entityTypes.stream().map(e -> normalize(e).toString()).sorted()
+                .forEach(e -> digest.update(e.getBytes(StandardCharsets.UTF_8)));
+        intents.stream().map(i -> normalize(i).toString() + i.getParentFollowupIntentName()).sorted()
+                .forEach(i -> digest.update(i.getBytes(StandardCharsets.UTF_8)));
+        StringBuilder sb = new StringBuilder();
+        for (byte b : digest.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Creates a copy of the provided {@code intent} containing only the fields set by the {@link DialogFlowApi}.
+     *
+     * @param intent the {@link Intent} to normalize
+     * @return the normalized {@link Intent}
+     */
+    private static Intent normalize(Intent intent) {
+        Intent.Builder builder = Intent.newBuilder().setDisplayName(intent.getDisplayName());
+        intent.getTrainingPhrasesList().stream().map(DialogFlowSynchronizationUtils::normalize)
+                .sorted(Comparator.comparing(Intent.TrainingPhrase::toString))
+                .forEach(builder::addTrainingPhrases);
+        intent.getInputContextNamesList().stream().map(DialogFlowSynchronizationUtils::getContextId).sorted()
+                .forEach(builder::addInputContextNames);
+        intent.getOutputContextsList().stream()
+                .map(c -> Context.newBuilder().setName(getContextId(c.getName())).setLifespanCount(c
+                        .getLifespanCount()).build())
+                .sorted(Comparator.comparing(Context::getName))
+                .forEach(builder::addOutputContexts);
+        intent.getParametersList().stream()
+                .map(p -> Intent.Parameter.newBuilder().setDisplayName(p.getDisplayName()).setEntityTypeDisplayName(p
+                        .getEntityTypeDisplayName()).setValue(p.getValue()).build())
+                .sorted(Comparator.comparing(Intent.Parameter::getDisplayName))
+                .forEach(builder::addParameters);
+        intent.getMessagesList().stream().filter(Intent.Message::hasText)
+                .map(m -> Intent.Message.newBuilder().setText(Intent.Message.Text.newBuilder().addAllText(m.getText()
+                        .getTextList())).build())
+                .forEach(builder::addMessages);
+        return builder.build();
+    }
+
+    /**
+     * Creates a copy of the provided {@code trainingPhrase} containing only the non-empty parts and their bindings.
+     *
+     * @param trainingPhrase the {@link Intent.TrainingPhrase} to normalize
+     * @return the normalized {@link Intent.TrainingPhrase}
+     */
+    private static Intent.TrainingPhrase normalize(Intent.TrainingPhrase trainingPhrase) {
+        Intent.TrainingPhrase.Builder builder = Intent.TrainingPhrase.newBuilder();
+        for (Intent.TrainingPhrase.Part part : trainingPhrase.getPartsList()) {
+            /*
+             * DialogFlow drops empty parts, that can be created when a parameter starts the training sentence.
+             */
+            if (!part.getText().isEmpty()) {
+                builder.addParts(Intent.TrainingPhrase.Part.newBuilder().setText(part.getText())
+                        .setEntityType(part.getEntityType()).setAlias(part.getAlias()));
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates a copy of the provided {@code entityType} with sorted entities and synonyms.
+     *
+     * @param entityType the {@link EntityType} to normalize
+     * @return the normalized {@link EntityType}
+     */
+    private static EntityType normalize(EntityType entityType) {
+        List<EntityType.Entity> entities = entityType.getEntitiesList().stream()
+                .map(e -> {
+                    Set<String> synonyms = new TreeSet<>(e.getSynonymsList());
+                    return EntityType.Entity.newBuilder().setValue(e.getValue()).addAllSynonyms(synonyms).build();
+                })
+                .sorted(Comparator.comparing(EntityType.Entity::getValue))
+                .collect(Collectors.toList());
+        return EntityType.newBuilder().setDisplayName(entityType.getDisplayName()).setKind(entityType.getKind())
+                .addAllEntities(entities).build();
+    }
+
+    /**
+     * Returns the context identifier of the provided DialogFlow context {@code name}.
+     * <p>
+     * DialogFlow context names contain the session they have been created with, this method removes it to allow
+     * context comparison between sessions. Context identifiers are case-insensitive.
+     *
+     * @param name the DialogFlow context name
+     * @return the context identifier
+     */
+    private static String getContextId(String name) {
+        return name.substring(name.lastIndexOf('/') + 1).toLowerCase();
+    }
+}
@@ -0,0 +1,120 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * A {@link ManagedChannel} that distributes the calls over a fixed pool of {@link ManagedChannel}s.
+ * <p>
+ * Each {@link ManagedChannel} is backed by a single HTTP/2 connection, that limits the number of concurrent calls
+ * it can handle. This class allows to share a small number of connections between the DialogFlow clients, and
+ * selects the {@link ManagedChannel} to use for each call in a round-robin fashion.
+ *
+ * @see DialogFlowApi#CHANNEL_POOL_SIZE_KEY
+ */
+class ManagedChannelPool extends ManagedChannel {
+
+    /**
+     * The pooled {@link ManagedChannel}s.
+     */
+    private final List<ManagedChannel> channels;
+
+    /**
+     * The index used to select the {@link ManagedChannel} of the next call.
+     */
+    private final AtomicInteger index = new AtomicInteger();
+
+    /**
+     * Constructs a {@link ManagedChannelPool} from the provided {@code channels}.
+     *
+     * @param channels the {@link ManagedChannel}s to pool
+     * @throws NullPointerException     if the provided {@code channels} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code channels} is empty
+     */
+    ManagedChannelPool(List<ManagedChannel> channels) {
+        checkNotNull(channels, "Cannot construct a %s from the provided %s list %s",
+                ManagedChannelPool.class.getSimpleName(), ManagedChannel.class.getSimpleName(), channels);
+        checkArgument(!channels.isEmpty(), "Cannot construct a %s from an empty %s list",
+                ManagedChannelPool.class.getSimpleName(), ManagedChannel.class.getSimpleName());
+        this.channels = new ArrayList<>(channels);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The created {@link ClientCall} is bound to the next {@link ManagedChannel} of the pool.
+     */
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor,
+                                                         CallOptions callOptions) {
+        int channelIndex = Math.floorMod(index.getAndIncrement(), channels.size());
+        return channels.get(channelIndex).newCall(methodDescriptor, callOptions);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String authority() {
+        return channels.get(0).authority();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ManagedChannel shutdown() {
+        channels.forEach(ManagedChannel::shutdown);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ManagedChannel shutdownNow() {
+        channels.forEach(ManagedChannel::shutdownNow);
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isShutdown() {
+        return channels.stream().allMatch(ManagedChannel::isShutdown);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isTerminated() {
+        return channels.stream().allMatch(ManagedChannel::isTerminated);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ManagedChannel channel : channels) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || !channel.awaitTermination(remaining, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,292 @@
+package com.xatkit.core.recognition.processor;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * An immutable naive Bayes language identification model based on character n-grams.
+ * <p>
+ * This model is trained from a sample text for each supported language. The sample texts are lower-cased, split
+ * into words (any character that is not a letter is a word separator), and each word is padded with spaces to
+ * extract its {@code 1}, {@code 2}, and {@code 3}-grams (e.g. {@code " hi "} contains the n-grams {@code h},
+ * {@code i}, {@code " h"}, {@code hi}, {@code "i "}, {@code " hi"}, and {@code "hi "}). The model stores the
+ * add-one smoothed log-probability of each n-gram for each language.
+ * <p>
+ * The language of a text is the one maximizing the sum of the log-probabilities of the n-grams of the text. N-grams
+ * that do not appear in any sample text are ignored. Scoring a text does not create any object for the scanned
+ * n-grams: n-grams are packed in {@code long} keys and looked up in an open-addressing table.
+ */
+final class CharNGramLanguageModel {
+
+    /**
+     * The maximum length of the n-grams used by the model.
+     */
+    static final int MAX_N = 3;
+
+    /**
+     * The languages supported by the model.
+     */
+    private final List<String> languages;
+
+    /**
+     * The packed n-grams stored in the table, indexed by their slot.
+     * <p>
+     * Empty slots contain {@code 0} (packed n-grams always have a non-zero length component).
+     */
+    private final long[] keys;
+
+    /**
+     * The log-probabilities of the stored n-grams, the log-probability of the n-gram at slot {@code s} for the
+     * language {@code l} is stored at index {@code s * languages.size() + l}.
+     */
+    private final float[] logProbabilities;
+
+    /**
+     * The mask used to compute the slot of a packed n-gram.
+     */
+    private final int mask;
+
+    /**
+     * Constructs a {@link CharNGramLanguageModel} from the provided {@code samples}.
+     *
+     * @param samples the sample texts of the supported languages, indexed by language
+     * @throws NullPointerException     if the provided {@code samples} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code samples} is empty
+     */
+    CharNGramLanguageModel(Map<String, String> samples) {
+        checkNotNull(samples, "Cannot create a %s from the provided samples %s",
+                CharNGramLanguageModel.class.getSimpleName(), samples);
+        checkArgument(!samples.isEmpty(), "Cannot create a %s from an empty set of samples",
+                CharNGramLanguageModel.class.getSimpleName());
+        this.languages = Collections.unmodifiableList(new ArrayList<>(samples.keySet()));
+        int languageCount = languages.size();
+        Map<Long, int[]> counts = new HashMap<>();
+        int[][] totals = new int[languageCount][MAX_N + 1];
+        for (int l = 0; l < languageCount; l++) {
+            int language = l;
+            scan(samples.get(languages.get(l)), key -> {
+                counts.computeIfAbsent(key, k -> new int[languageCount])[language]++;
+                totals[language][length(key)]++;
+            });
+        }
+        int[] vocabularySizes = new int[MAX_N + 1];
+        for (Long key : counts.keySet()) {
+            vocabularySizes[length(key)]++;
+        }
+        int capacity = Integer.highestOneBit(Math.max(counts.size(), 1) * 2 - 1) << 1;
+        this.keys = new long[capacity];
+        this.logProbabilities = new float[capacity * languageCount];
+        this.mask = capacity - 1;
+        for (Map.Entry<Long, int[]> entry : counts.entrySet()) {
+            long key = entry.getKey();
+            int n = length(key);
+            int slot = slot(key);
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            for (int l = 0; l < languageCount; l++) {
+                logProbabilities[slot * languageCount + l] =
+                        (float) Math.log((entry.getValue()[l] + 1d) / (totals[l][n] + vocabularySizes[n]));
+            }
+        }
+    }
+
+    /**
+     * Returns the languages supported by this model.
+     *
+     * @return an unmodifiable {@link List} containing the languages supported by this model
+     */
+    List<String> getLanguages() {
+        return languages;
+    }
+
+    /**
+     * Detects the language of the provided {@code text}.
+     * <p>
+     * The language is detected if the provided {@code text} contains at least {@code minLetters} letters, and if
+     * its posterior probability (assuming uniform priors) is greater or equal to {@code minConfidence}.
+     *
+     * @param text          the text to detect the language of
+     * @param minLetters    the minimum number of letters required to detect the language
+     * @param minConfidence the minimum posterior probability of the detected language, between {@code 0} and
+     *                      {@code 1}
+     * @return the detected language, or {@code null} if the language cannot be detected
+     */
+    @Nullable
+    String detect(CharSequence text, int minLetters, double minConfidence) {
+        Scorer scorer = new Scorer(languages.size());
+        scan(text, scorer);
+        if (scorer.letters < minLetters || scorer.matches == 0) {
+            return null;
+        }
+        double[] scores = scorer.scores;
+        int best = 0;
+        for (int l = 1; l < scores.length; l++) {
+            if (scores[l] > scores[best]) {
+                best = l;
+            }
+        }
+        double normalization = 0;
+        for (double score : scores) {
+            normalization += Math.exp(score - scores[best]);
+        }
+        return 1 / normalization >= minConfidence ? languages.get(best) : null;
+    }
+
+    /**
+     * Returns the slot of the provided packed n-gram in the table.
+     *
+     * @param key the packed n-gram to look up
+     * @return the slot of the n-gram, or {@code -1} if the table does not contain it
+     */
+    private int indexOf(long key) {
+        int slot = slot(key);
+        long candidate;
+        while ((candidate = keys[slot]) != 0) {
+            if (candidate == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Computes the initial slot of the provided packed n-gram.
+     *
+     * @param key the packed n-gram
+     * @return the initial slot of the n-gram
+     */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Extracts the n-grams of the provided {@code text} and passes them to the provided {@code consumer}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param text     the text to extract the n-grams from
+     * @param consumer the {@link GramConsumer} receiving the packed n-grams
+     */
+    static void scan(CharSequence text, GramConsumer consumer) {
+        char previous2 = ' ';
+        char previous1 = ' ';
+        int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            char c = i < length ? text.charAt(i) : ' ';
+            c = Character.isLetter(c) ? Character.toLowerCase(c) : ' ';
+            if (c == ' ' && previous1 == ' ') {
+                continue;
+            }
+            if (c != ' ') {
+                consumer.accept(pack(1, ' ', ' ', c));
+            }
+            consumer.accept(pack(2, ' ', previous1, c));
+            if (previous1 != ' ') {
+                consumer.accept(pack(3, previous2, previous1, c));
+            }
+            previous2 = previous1;
+            previous1 = c;
+        }
+    }
+
+    /**
+     * Packs the provided n-gram in a {@code long}.
+     *
+     * @param n  the length of the n-gram
+     * @param c1 the first character of a {@code 3}-gram, ignored for shorter n-grams
+     * @param c2 the first character of a {@code 2}-gram or the second character of a {@code 3}-gram, ignored for
+     *           {@code 1}-grams
+     * @param c3 the last character of the n-gram
+     * @return the packed n-gram
+     */
+    static long pack(int n, char c1, char c2, char c3) {
+        long key = ((long) n << 48) | c3;
+        if (n > 1) {
+            key |= (long) c2 << 16;
+        }
+        if (n > 2) {
+            key |= (long) c1 << 32;
+        }
+        return key;
+    }
+
+    /**
+     * Returns the length of the provided packed n-gram.
+     *
+     * @param key the packed n-gram
+     * @return the length of the n-gram
+     */
+    private static int length(long key) {
+        return (int) (key >>> 48);
+    }
+
+    /**
+     * A consumer of packed n-grams.
+     */
+    @FunctionalInterface
+    interface GramConsumer {
+
+        /**
+         * Processes the provided packed n-gram.
+         *
+         * @param key the packed n-gram to process
+         */
+        void accept(long key);
+    }
+
+    /**
+     * Accumulates the log-probabilities of the scanned n-grams for each language.
+     */
+    private final class Scorer implements GramConsumer {
+
+        /**
+         * The accumulated log-probabilities, indexed by language.
+         */
+        private final double[] scores;
+
+        /**
+         * The number of scanned n-grams that are stored in the model.
+         */
+        private int matches;
+
+        /**
+         * The number of scanned letters.
+         */
+        private int letters;
+
+        /**
+         * Constructs a {@link Scorer} for the provided number of languages.
+         *
+         * @param languageCount the number of languages supported by the model
+         */
+        private Scorer(int languageCount) {
+            this.scores = new double[languageCount];
+        }
+
+        @Override
+        public void accept(long key) {
+            if (length(key) == 1) {
+                letters++;
+            }
+            int slot = indexOf(key);
+            if (slot != -1) {
+                matches++;
+                int offset = slot * scores.length;
+                for (int l = 0; l < scores.length; l++) {
+                    scores[l] += logProbabilities[offset + l];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.RecognizedIntent;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Computes the sentiment associated to the user input using a sentiment lexicon and a set of rules.
+ * <p>
+ * This post-processor is a lightweight alternative to the {@link EnglishSentimentPostProcessor}: it does not
+ * require the Stanford NLP {@code parse} and {@code sentiment} annotators, and computes the sentiment in a single
+ * pass over the input without allocating objects for the processed tokens. The analysis is inspired by
+ * <a href="https://github.com/cjhutto/vaderSentiment">VADER</a>: each token of the input is looked up in a
+ * sentiment lexicon, and its valence is adjusted according to the preceding intensifiers (e.g. {@code very}) and
+ * negations (e.g. {@code not}), the use of upper-case letters, the contrastive conjunctions (e.g. {@code but}), and
+ * the exclamation marks. The resulting valences are summed and normalized in {@code [-1, 1]}.
+ * <p>
+ * The extracted sentiment is one of {@code {Very Negative, Negative, Neutral, Positive, Very Positive}}. This
+ * post-processor sets the context variable {@code nlp.sentiment} with the result of the analysis, and can be
+ * activated using the following property: {@code xatkit.recognition.postprocessors = EnglishLexiconSentiment}.
+ * <p>
+ * The lexicon is loaded once from the {@code en-sentiment-lexicon.txt} file and shared by all the instances of this
+ * class.
+ */
+public class EnglishLexiconSentimentPostProcessor implements IntentPostProcessor {
+
+    /**
+     * The context key used to store the sentiment information.
+     * <p>
+     * This key is the same as the one used by the {@link EnglishSentimentPostProcessor}.
+     */
+    protected final static String NLP_CONTEXT_KEY = "nlp";
+
+    /**
+     * The context parameter key used to store the sentiment extracted from the user input.
+     */
+    protected final static String SENTIMENT_PARAMETER_KEY = "sentiment";
+
+    /**
+     * The name of the file containing the sentiment lexicon.
+     */
+    private static String LEXICON_FILE = "en-sentiment-lexicon.txt";
+
+    /**
+     * The value added to (or subtracted from) the valence of a token following an intensifier.
+     */
+    private static final float BOOSTER_INCREMENT = 0.293f;
+
+    /**
+     * The value added to the valence of an upper-case token if the input also contains lower-case letters.
+     */
+    private static final float CAPS_INCREMENT = 0.733f;
+
+    /**
+     * The factor applied to the valence of a token preceded by a negation.
+     */
+    private static final float NEGATION_SCALAR = -0.74f;
+
+    /**
+     * The value added to the sentiment of the input for each exclamation mark.
+     */
+    private static final float EXCLAMATION_INCREMENT = 0.292f;
+
+    /**
+     * The maximum number of exclamation marks taken into account.
+     */
+    private static final int MAX_EXCLAMATIONS = 4;
+
+    /**
+     * The factor applied to the sentiment computed before a contrastive conjunction.
+     */
+    private static final float BEFORE_CONTRAST_SCALAR = 0.5f;
+
+    /**
+     * The factor applied to the valences of the tokens following a contrastive conjunction.
+     */
+    private static final float AFTER_CONTRAST_SCALAR = 1.5f;
+
+    /**
+     * The constant used to normalize the sentiment in {@code [-1, 1]}.
+     */
+    private static final float NORMALIZATION_ALPHA = 15f;
+
+    /**
+     * The sentiment lexicon, mapping tokens to their valence in {@code [-4, 4]}.
+     */
+    private static final TokenTable LEXICON = loadLexicon();
+
+    /**
+     * The intensifiers, mapping tokens to the value they add to the valence of the following tokens.
+     */
+    private static final TokenTable BOOSTERS = createTable(BOOSTER_INCREMENT, "absolutely", "amazingly",
+            "completely", "considerably", "deeply", "enormously", "entirely", "especially", "exceptionally",
+            "extremely", "fully", "greatly", "highly", "hugely", "incredibly", "intensely", "particularly", "purely",
+            "quite", "really", "remarkably", "so", "substantially", "thoroughly", "totally", "tremendously", "truly",
+            "unbelievably", "utterly", "very", "most", "more");
+
+    /**
+     * The dampeners, mapping tokens to the value they subtract from the valence of the following tokens.
+     */
+    private static final TokenTable DAMPENERS = createTable(-BOOSTER_INCREMENT, "almost", "barely", "hardly",
+            "kinda", "less", "little", "marginally", "occasionally", "partly", "scarcely", "slightly", "somewhat",
+            "sorta");
+
+    /**
+     * The negations inverting the valence of the following tokens.
+     * <p>
+     * Tokens ending with {@code n't} are also considered as negations.
+     */
+    private static final TokenTable NEGATIONS = createTable(1f, "not", "no", "never", "none", "nobody", "nothing",
+            "neither", "nor", "nowhere", "cannot", "without", "aint", "arent", "cant", "couldnt", "didnt", "doesnt",
+            "dont", "hadnt", "hasnt", "havent", "isnt", "shouldnt", "wasnt", "werent", "wont", "wouldnt", "rarely",
+            "seldom");
+
+    /**
+     * The contrastive conjunctions shifting the sentiment toward the end of the input.
+     */
+    private static final TokenTable CONTRASTS = createTable(1f, "but", "however");
+
+    /**
+     * Processes the provided {@code recognizedIntent} and sets the {@code nlp.sentiment} context parameter.
+     *
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @return the unmodified {@code recognizedIntent}
+     */
+    @Override
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+        String input = recognizedIntent.getMatchedInput();
+        float score = isNull(input) ? 0f : computeCompoundScore(input);
+        session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, SENTIMENT_PARAMETER_KEY,
+                getSentimentValue(score));
+        return recognizedIntent;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only reads the matched input of the processed intent.
+     */
+    @Override
+    public Set<String> getReadKeys() {
+        return Collections.singleton(MATCHED_INPUT_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only writes the {@code nlp.sentiment} context parameter.
+     */
+    @Override
+    public Set<String> getWrittenKeys() {
+        return Collections.singleton(IntentPostProcessor.contextKey(NLP_CONTEXT_KEY, SENTIMENT_PARAMETER_KEY));
+    }
+
+    /**
+     * Computes the normalized sentiment score of the provided {@code input}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param input the input to compute the sentiment score of
+     * @return the sentiment score in {@code [-1, 1]}, where {@code -1} is the most negative sentiment and {@code 1}
+     * the most positive one
+     */
+    static float computeCompoundScore(CharSequence input) {
+        boolean mixedCase = containsLowerCase(input);
+        float sum = 0f;
+        boolean afterContrast = false;
+        int exclamations = 0;
+        /*
+         * The boosts and negations of the three previous tokens, stored in local variables to avoid allocating a
+         * window for each input.
+         */
+        float boost1 = 0f, boost2 = 0f, boost3 = 0f;
+        boolean negation1 = false, negation2 = false, negation3 = false;
+        int length = input.length();
+        int i = 0;
+        while (i < length) {
+            char c = input.charAt(i);
+            if (!isTokenCharacter(c)) {
+                if (c == '!') {
+                    exclamations++;
+                }
+                i++;
+                continue;
+            }
+            int start = i;
+            boolean upperCase = true;
+            while (i < length && isTokenCharacter(input.charAt(i))) {
+                if (Character.isLowerCase(input.charAt(i))) {
+                    upperCase = false;
+                }
+                i++;
+            }
+            int end = i;
+            /*
+             * Trim the quotes surrounding the token.
+             */
+            while (start < end && input.charAt(start) == '\'') {
+                start++;
+            }
+            while (end > start && input.charAt(end - 1) == '\'') {
+                end--;
+            }
+            if (start == end) {
+                continue;
+            }
+            float boost = BOOSTERS.getValue(input, start, end, 0f) + DAMPENERS.getValue(input, start, end, 0f);
+            boolean negation = NEGATIONS.contains(input, start, end) || endsWithNegation(input, start, end);
+            if (CONTRASTS.contains(input, start, end)) {
+                sum *= BEFORE_CONTRAST_SCALAR;
+                afterContrast = true;
+            } else {
+                int slot = LEXICON.indexOf(input, start, end);
+                if (slot != TokenTable.NOT_FOUND) {
+                    float valence = LEXICON.valueAt(slot);
+                    float direction = Math.signum(valence);
+                    if (upperCase && mixedCase && end - start > 1) {
+                        valence += direction * CAPS_INCREMENT;
+                    }
+                    valence += direction * (boost1 + boost2 * 0.95f + boost3 * 0.9f);
+                    if (negation1 || negation2 || negation3) {
+                        valence *= NEGATION_SCALAR;
+                    }
+                    if (afterContrast) {
+                        valence *= AFTER_CONTRAST_SCALAR;
+                    }
+                    sum += valence;
+                }
+            }
+            boost3 = boost2;
+            boost2 = boost1;
+            boost1 = boost;
+            negation3 = negation2;
+            negation2 = negation1;
+            negation1 = negation;
+        }
+        if (sum != 0f) {
+            sum += Math.signum(sum) * Math.min(exclamations, MAX_EXCLAMATIONS) * EXCLAMATION_INCREMENT;
+        }
+        return (float) (sum / Math.sqrt(sum * sum + NORMALIZATION_ALPHA));
+    }
+
+    /**
+     * Returns the sentiment value corresponding to the provided {@code score}.
+     * <p>
+     * The returned values are the ones used by the {@link EnglishSentimentPostProcessor}, this allows to switch
+     * between the two post-processors without updating the execution models. This method is package-private for
+     * testing purposes.
+     *
+     * @param score the normalized sentiment score
+     * @return one of {@code {Very Negative, Negative, Neutral, Positive, Very Positive}}
+     */
+    static String getSentimentValue(float score) {
+        if (score <= -0.6f) {
+            return "Very Negative";
+        } else if (score < -0.05f) {
+            return "Negative";
+        } else if (score <= 0.05f) {
+            return "Neutral";
+        } else if (score < 0.6f) {
+            return "Positive";
+        } else {
+            return "Very Positive";
+        }
+    }
+
+    /**
+     * Returns the number of tokens in the loaded lexicon.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return the number of tokens in the loaded lexicon
+     */
+    static int getLexiconSize() {
+        return LEXICON.size();
+    }
+
+    /**
+     * Returns whether the provided {@code c} is part of a token.
+     *
+     * @param c the character to check
+     * @return {@code true} if the character is part of a token, {@code false} otherwise
+     */
+    private static boolean isTokenCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    }
+
+    /**
+     * Returns whether the provided {@code input} contains a lower-case letter.
+     *
+     * @param input the input to check
+     * @return {@code true} if the input contains a lower-case letter, {@code false} otherwise
+     */
+    private static boolean containsLowerCase(CharSequence input) {
+        for (int i = 0; i < input.length(); i++) {
+            if (Character.isLowerCase(input.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the token between {@code start} and {@code end} in the provided {@code input} ends with
+     * {@code n't}.
+     *
+     * @param input the input containing the token
+     * @param start the index of the first character of the token
+     * @param end   the index following the last character of the token
+     * @return {@code true} if the token ends with {@code n't}, {@code false} otherwise
+     */
+    private static boolean endsWithNegation(CharSequence input, int start, int end) {
+        return end - start > 3
+                && Character.toLowerCase(input.charAt(end - 3)) == 'n'
+                && input.charAt(end - 2) == '\''
+                && Character.toLowerCase(input.charAt(end - 1)) == 't';
+    }
+
+    /**
+     * Creates a {@link TokenTable} associating the provided {@code value} to the provided {@code tokens}.
+     *
+     * @param value  the value to associate to the tokens
+     * @param tokens the tokens to store in the table
+     * @return the created {@link TokenTable}
+     */
+    private static TokenTable createTable(float value, String... tokens) {
+        Map<String, Float> entries = new HashMap<>();
+        for (String token : tokens) {
+            entries.put(token, value);
+        }
+        return new TokenTable(entries);
+    }
+
+    /**
+     * Loads the sentiment lexicon from the {@link #LEXICON_FILE}.
+     * <p>
+     * If an error occurred while loading the lexicon an error message is logged, but no exception is thrown. This
+     * processor won't be able to detect sentiments but it should not prevent Xatkit to start.
+     *
+     * @return the {@link TokenTable} containing the loaded lexicon
+     */
+    private static TokenTable loadLexicon() {
+        Map<String, Float> entries = new HashMap<>();
+        InputStream inputStream =
+                EnglishLexiconSentimentPostProcessor.class.getClassLoader().getResourceAsStream(LEXICON_FILE);
+        if (isNull(inputStream)) {
+            Log.error("Cannot find the sentiment lexicon file {0}, this processor won't detect any sentiment",
+                    LEXICON_FILE);
+        } else {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream,
+                    StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    String[] splitLine = line.split("\t");
+                    if (splitLine.length < 2) {
+                        Log.warn("Skipping invalid sentiment lexicon line \"{0}\"", line);
+                        continue;
+                    }
+                    try {
+                        entries.put(splitLine[0].trim(), Float.parseFloat(splitLine[1].trim()));
+                    } catch (NumberFormatException e) {
+                        Log.warn("Skipping invalid sentiment lexicon line \"{0}\"", line);
+                    }
+                }
+            } catch (IOException e) {
+                Log.error(e, "An error occurred when loading the sentiment lexicon file {0}, this processor won't " +
+                        "detect any sentiment. See attached exception:", LEXICON_FILE);
+            }
+        }
+        Log.debug("Loaded {0} tokens from {1}", entries.size(), LEXICON_FILE);
+        return new TokenTable(entries);
+    }
+}
@@ -2,13 +2,14 @@ package com.xatkit.core.recognition.processor;
 
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.RecognizedIntent;
-import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.sentiment.SentimentCoreAnnotations;
 import edu.stanford.nlp.util.CoreMap;
 
 import java.util.Arrays;
-import java.util.List;
+import java.util.Collections;
+import java.util.Set;
+
+import static java.util.Objects.nonNull;
 
 /**
  * Computes the sentiment associated to the last sentence of the user input.
@@ -48,21 +49,43 @@ public class EnglishSentimentPostProcessor extends StanfordNLPPostProcessor {
      *
      * @param recognizedIntent the {@link RecognizedIntent} to process
      * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the {@link StanfordNLPAnnotation} of the {@code recognizedIntent}'s input
      * @return the unmodified {@code recognizedIntent}
      */
     @Override
-    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session,
+                                    StanfordNLPAnnotation annotation) {
         session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, SENTIMENT_PARAMETER_KEY,
                 DEFAULT_SENTIMENT_VALUE);
-        Annotation annotation = getAnnotation(recognizedIntent.getMatchedInput(), session);
         /*
          * We only get the sentiment in the last sentence, we need some heuristics to compute the sentiment of a
          * whole corpus (or use some other API from the NLP pipeline).
          */
-        List<CoreMap> sentenceAnnotations = annotation.get(CoreAnnotations.SentencesAnnotation.class);
-        String sentimentValue =
-                sentenceAnnotations.get(sentenceAnnotations.size() - 1).get(SentimentCoreAnnotations.SentimentClass.class);
-        session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, SENTIMENT_PARAMETER_KEY, sentimentValue);
+        CoreMap lastSentence = annotation.getLastSentence();
+        if (nonNull(lastSentence)) {
+            String sentimentValue = lastSentence.get(SentimentCoreAnnotations.SentimentClass.class);
+            session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, SENTIMENT_PARAMETER_KEY, sentimentValue);
+        }
         return recognizedIntent;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only reads the matched input of the processed intent.
+     */
+    @Override
+    public Set<String> getReadKeys() {
+        return Collections.singleton(MATCHED_INPUT_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only writes the {@code nlp.sentiment} context parameter.
+     */
+    @Override
+    public Set<String> getWrittenKeys() {
+        return Collections.singleton(IntentPostProcessor.contextKey(NLP_CONTEXT_KEY, SENTIMENT_PARAMETER_KEY));
+    }
 }
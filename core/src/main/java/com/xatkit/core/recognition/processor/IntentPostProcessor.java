@@ -3,11 +3,63 @@ package com.xatkit.core.recognition.processor;
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.RecognizedIntent;
 
+import java.util.Collections;
+import java.util.Set;
+
 /**
  * Applies a post-processing function on the provided {@code recognizedIntent}.
+ * <p>
+ * Post-processors can declare the data they read and write (see {@link #getReadKeys()} and
+ * {@link #getWrittenKeys()}). These declarations are used by the {@link PostProcessorPipeline} to execute
+ * post-processors that do not conflict in parallel. Keys are hierarchical dot-separated names (e.g. {@code
+ * context.nlp.sentiment} is contained in {@code context.nlp}), and post-processors that do not declare their keys
+ * are assumed to read and write everything ({@link #ALL_KEYS}).
  */
 public interface IntentPostProcessor {
 
+    /**
+     * The key matching all the data a post-processor can access.
+     */
+    String ALL_KEYS = "*";
+
+    /**
+     * The key representing the processed {@link RecognizedIntent} (its definition and all its values).
+     */
+    String RECOGNIZED_INTENT_KEY = "recognizedIntent";
+
+    /**
+     * The key representing the matched input of the processed {@link RecognizedIntent}.
+     */
+    String MATCHED_INPUT_KEY = RECOGNIZED_INTENT_KEY + ".matchedInput";
+
+    /**
+     * The key representing the parameter values of the processed {@link RecognizedIntent}.
+     */
+    String PARAMETER_VALUES_KEY = RECOGNIZED_INTENT_KEY + ".values";
+
+    /**
+     * The prefix of the keys representing the {@link com.xatkit.core.session.RuntimeContexts} values.
+     *
+     * @see #contextKey(String, String)
+     */
+    String CONTEXT_KEY_PREFIX = "context";
+
+    /**
+     * The key representing the session variables.
+     */
+    String SESSION_VARIABLES_KEY = "session";
+
+    /**
+     * Returns the key representing the provided {@code parameter} of the given {@code context}.
+     *
+     * @param context   the name of the context
+     * @param parameter the name of the context parameter
+     * @return the key representing the context parameter
+     */
+    static String contextKey(String context, String parameter) {
+        return CONTEXT_KEY_PREFIX + "." + context + "." + parameter;
+    }
+
     /**
      * Initializes the post-processor.
      * <p>
@@ -31,4 +83,32 @@ public interface IntentPostProcessor {
      * @return the processed {@code recognizedIntent}
      */
     RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session);
+
+    /**
+     * Returns the keys of the data read by this post-processor.
+     * <p>
+     * The default implementation returns {@link #ALL_KEYS}, meaning that the post-processor is never executed in
+     * parallel with other post-processors. Sub-classes should override this method (and {@link #getWrittenKeys()})
+     * to allow their parallel execution.
+     *
+     * @return the keys of the data read by this post-processor
+     * @see PostProcessorPipeline
+     */
+    default Set<String> getReadKeys() {
+        return Collections.singleton(ALL_KEYS);
+    }
+
+    /**
+     * Returns the keys of the data written by this post-processor.
+     * <p>
+     * The default implementation returns {@link #ALL_KEYS}, meaning that the post-processor is never executed in
+     * parallel with other post-processors. Post-processors that replace the processed {@link RecognizedIntent} must
+     * declare the {@link #RECOGNIZED_INTENT_KEY}.
+     *
+     * @return the keys of the data written by this post-processor
+     * @see PostProcessorPipeline
+     */
+    default Set<String> getWrittenKeys() {
+        return Collections.singleton(ALL_KEYS);
+    }
 }
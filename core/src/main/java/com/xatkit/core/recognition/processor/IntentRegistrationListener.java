@@ -0,0 +1,49 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.intent.EntityDefinition;
+import com.xatkit.intent.IntentDefinition;
+
+/**
+ * Receives the intent and entity definitions registered in (or deleted from) an intent recognition provider.
+ * <p>
+ * {@link InputPreProcessor}s and {@link IntentPostProcessor}s implementing this interface are notified by the
+ * {@link com.xatkit.core.recognition.IntentRecognitionProvider} they are attached to, and can use the notifications
+ * to build structures from the bot's definitions (e.g. a vocabulary built from the intents' training sentences).
+ * <p>
+ * Listeners are notified after the definition has been processed by the underlying intent recognition provider.
+ * Definitions registered before the processor is attached to the provider are not notified.
+ */
+public interface IntentRegistrationListener {
+
+    /**
+     * Notifies the listener that the provided {@code intentDefinition} has been registered.
+     *
+     * @param intentDefinition the registered {@link IntentDefinition}
+     */
+    default void intentDefinitionRegistered(IntentDefinition intentDefinition) {
+    }
+
+    /**
+     * Notifies the listener that the provided {@code intentDefinition} has been deleted.
+     *
+     * @param intentDefinition the deleted {@link IntentDefinition}
+     */
+    default void intentDefinitionDeleted(IntentDefinition intentDefinition) {
+    }
+
+    /**
+     * Notifies the listener that the provided {@code entityDefinition} has been registered.
+     *
+     * @param entityDefinition the registered {@link EntityDefinition}
+     */
+    default void entityDefinitionRegistered(EntityDefinition entityDefinition) {
+    }
+
+    /**
+     * Notifies the listener that the provided {@code entityDefinition} has been deleted.
+     *
+     * @param entityDefinition the deleted {@link EntityDefinition}
+     */
+    default void entityDefinitionDeleted(EntityDefinition entityDefinition) {
+    }
+}
@@ -2,8 +2,6 @@ package com.xatkit.core.recognition.processor;
 
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.RecognizedIntent;
-import edu.stanford.nlp.ling.CoreAnnotations;
-import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.trees.Constituent;
 import edu.stanford.nlp.trees.LabeledScoredConstituentFactory;
 import edu.stanford.nlp.trees.Tree;
@@ -12,10 +10,12 @@ import edu.stanford.nlp.util.CoreMap;
 import fr.inria.atlanmod.commons.log.Log;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
@@ -62,20 +62,23 @@ public class IsEnglishYesNoQuestionPostProcessor extends StanfordNLPPostProcesso
      *
      * @param recognizedIntent the {@link RecognizedIntent} to process
      * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the {@link StanfordNLPAnnotation} of the {@code recognizedIntent}'s input
      * @return the unmodified {@code recognizedIntent}
      */
     @Override
-    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session,
+                                    StanfordNLPAnnotation annotation) {
         session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, IS_YES_NO_PARAMETER_KEY,
                 DEFAULT_IS_YES_NO_VALUE);
-        Annotation annotation = getAnnotation(recognizedIntent.getMatchedInput(), session);
-        List<CoreMap> sentenceAnnotations = annotation.get(CoreAnnotations.SentencesAnnotation.class);
         /*
          * We want to know if the latest sentence is a yes/no question, previous sentences do not matter in this
          * processor.
          */
-        Tree tree =
-                sentenceAnnotations.get(sentenceAnnotations.size() - 1).get(TreeCoreAnnotations.TreeAnnotation.class);
+        CoreMap lastSentence = annotation.getLastSentence();
+        if (isNull(lastSentence)) {
+            return recognizedIntent;
+        }
+        Tree tree = lastSentence.get(TreeCoreAnnotations.TreeAnnotation.class);
         Log.debug(tree.toString());
         Set<Constituent> treeConstituents = tree.constituents(new LabeledScoredConstituentFactory());
         List<Constituent> sqConstituents =
@@ -87,4 +90,24 @@ public class IsEnglishYesNoQuestionPostProcessor extends StanfordNLPPostProcesso
         }
         return recognizedIntent;
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only reads the matched input of the processed intent.
+     */
+    @Override
+    public Set<String> getReadKeys() {
+        return Collections.singleton(MATCHED_INPUT_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only writes the {@code nlp.isYesNo} context parameter.
+     */
+    @Override
+    public Set<String> getWrittenKeys() {
+        return Collections.singleton(IntentPostProcessor.contextKey(NLP_CONTEXT_KEY, IS_YES_NO_PARAMETER_KEY));
+    }
 }
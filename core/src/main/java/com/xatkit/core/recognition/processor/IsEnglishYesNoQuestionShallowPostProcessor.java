@@ -0,0 +1,278 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.RecognizedIntent;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Computes whether the last sentence of the user input is a yes/no question without parsing it.
+ * <p>
+ * This post-processor sets the context variable {@code nlp.isYesNo} that contains a boolean value, and is a
+ * lightweight alternative to the {@link IsEnglishYesNoQuestionPostProcessor}: instead of computing the constituency
+ * parse of the input it looks for a yes/no question pattern (a leading auxiliary or modal followed by a subject,
+ * e.g. {@code Can you}, {@code Is it}, {@code Didn't they}) in the tokens of the last sentence.
+ * <p>
+ * The analysis is performed in two steps:
+ * <ul>
+ * <li>A token-based fast path decides the common cases without annotating the input: a sentence that ends with a
+ * period or an exclamation mark, or that does not start with an auxiliary or a modal, is not a yes/no question,
+ * and a question starting with a form of {@code be} or a modal is a yes/no question.</li>
+ * <li>The remaining cases (e.g. sentences starting with {@code do} or {@code have} that can also be imperative) are
+ * decided from the POS tags of the last sentence.</li>
+ * </ul>
+ * This post-processor can be activated using the following property:
+ * {@code xatkit.recognition.postprocessors = IsEnglishYesNoQuestionShallow}.
+ * <p>
+ * <b>Note</b>: {@code nlp.isYesNo == false} does not mean that the provided input is not a yes/no question, but
+ * that it could not be matched to the yes/no patterns supported by this processor.
+ */
+public class IsEnglishYesNoQuestionShallowPostProcessor extends StanfordNLPPostProcessor {
+
+    /**
+     * The context parameter key used to store whether the user input is a yes/no question.
+     */
+    protected final static String IS_YES_NO_PARAMETER_KEY = "isYesNo";
+
+    /**
+     * The value returned by {@link #isYesNoQuestionFastPath(CharSequence)} if the input is a yes/no question.
+     */
+    static final int YES = 1;
+
+    /**
+     * The value returned by {@link #isYesNoQuestionFastPath(CharSequence)} if the input is not a yes/no question.
+     */
+    static final int NO = 0;
+
+    /**
+     * The value returned by {@link #isYesNoQuestionFastPath(CharSequence)} if the POS tags of the input are required
+     * to decide.
+     */
+    static final int UNKNOWN = -1;
+
+    /**
+     * The forms of {@code be} and the modals that start a yes/no question when they are the first token of a
+     * question.
+     */
+    private static final TokenTable UNAMBIGUOUS_AUXILIARIES = createTable("am", "is", "are", "was", "were", "isn't",
+            "aren't", "wasn't", "weren't", "can", "could", "may", "might", "must", "shall", "should", "will",
+            "would", "can't", "couldn't", "mightn't", "mustn't", "shouldn't", "won't", "wouldn't", "shan't");
+
+    /**
+     * The auxiliaries and modals that may start a yes/no question.
+     */
+    private static final TokenTable AUXILIARIES = createTable("am", "is", "are", "was", "were", "isn't", "aren't",
+            "wasn't", "weren't", "can", "could", "may", "might", "must", "shall", "should", "will", "would",
+            "can't", "couldn't", "mightn't", "mustn't", "shouldn't", "won't", "wouldn't", "shan't", "do", "does",
+            "did", "don't", "doesn't", "didn't", "have", "has", "had", "haven't", "hasn't", "hadn't", "cannot",
+            "ca", "wo", "sha");
+
+    /**
+     * The POS tags of the finite verb forms that can start a yes/no question (in addition to modals).
+     */
+    private static final List<String> FINITE_VERB_TAGS = Arrays.asList("VBZ", "VBP", "VBD");
+
+    /**
+     * The POS tags of the tokens that can start the subject of a yes/no question.
+     */
+    private static final List<String> SUBJECT_TAGS = Arrays.asList("PRP", "PRP$", "NN", "NNS", "NNP", "NNPS", "DT",
+            "EX", "CD", "PDT", "JJ");
+
+    /**
+     * Constructs an instance of this post-processor.
+     * <p>
+     * This method sets the NLP annotators required to perform the analysis.
+     */
+    public IsEnglishYesNoQuestionShallowPostProcessor() {
+        /*
+         * Note: each addAnnotators() invocation should be self-contained, i.e. it should not assume that another
+         * processor has set one of the required annotators.
+         * Adding the same annotator multiple times is handled by StanfordNLPService#addAnnotators.
+         */
+        StanfordNLPService.getInstance().addAnnotators(Arrays.asList("tokenize", "ssplit", "pos"));
+    }
+
+    /**
+     * Processes the provided {@code recognizedIntent} and sets the {@code nlp.isYesNo} context parameter.
+     * <p>
+     * This method sets the {@code nlp.isYesNo} context parameter to {@code true} if the provided {@code
+     * recognizedIntent}'s input is a yes/no question, and {@code false} otherwise. The provided {@code annotation}
+     * is only accessed if the token-based fast path cannot decide.
+     *
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the {@link StanfordNLPAnnotation} of the {@code recognizedIntent}'s input
+     * @return the unmodified {@code recognizedIntent}
+     */
+    @Override
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session,
+                                    StanfordNLPAnnotation annotation) {
+        boolean isYesNo;
+        int fastPathResult = isYesNoQuestionFastPath(recognizedIntent.getMatchedInput());
+        if (fastPathResult == UNKNOWN) {
+            CoreMap lastSentence = annotation.getLastSentence();
+            isYesNo = nonNull(lastSentence)
+                    && isYesNoQuestion(lastSentence.get(CoreAnnotations.TokensAnnotation.class));
+        } else {
+            isYesNo = fastPathResult == YES;
+        }
+        session.getRuntimeContexts().setContextValue(NLP_CONTEXT_KEY, 1, IS_YES_NO_PARAMETER_KEY, isYesNo);
+        return recognizedIntent;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only reads the matched input of the processed intent.
+     */
+    @Override
+    public Set<String> getReadKeys() {
+        return Collections.singleton(MATCHED_INPUT_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only writes the {@code nlp.isYesNo} context parameter.
+     */
+    @Override
+    public Set<String> getWrittenKeys() {
+        return Collections.singleton(IntentPostProcessor.contextKey(NLP_CONTEXT_KEY, IS_YES_NO_PARAMETER_KEY));
+    }
+
+    /**
+     * Decides whether the last sentence of the provided {@code input} is a yes/no question from its raw tokens.
+     * <p>
+     * This method does not allocate objects, and returns {@link #UNKNOWN} if the POS tags of the input are required
+     * to decide. This method is package-private for testing purposes.
+     *
+     * @param input the input to analyze
+     * @return {@link #YES} if the input is a yes/no question, {@link #NO} if it is not, and {@link #UNKNOWN} if the
+     * POS tags are required to decide
+     */
+    static int isYesNoQuestionFastPath(CharSequence input) {
+        if (isNull(input)) {
+            return NO;
+        }
+        int end = input.length();
+        while (end > 0 && Character.isWhitespace(input.charAt(end - 1))) {
+            end--;
+        }
+        if (end == 0) {
+            return NO;
+        }
+        char lastCharacter = input.charAt(end - 1);
+        if (lastCharacter == '.' || lastCharacter == '!') {
+            /*
+             * The input explicitly ends with a statement or an exclamation.
+             */
+            return NO;
+        }
+        boolean question = lastCharacter == '?';
+        /*
+         * Find the beginning of the last sentence, skipping the terminal punctuation of the input.
+         */
+        int sentenceEnd = end;
+        while (sentenceEnd > 0 && isSentenceTerminator(input.charAt(sentenceEnd - 1))) {
+            sentenceEnd--;
+        }
+        int start = sentenceEnd;
+        while (start > 0 && !isSentenceTerminator(input.charAt(start - 1))) {
+            start--;
+        }
+        while (start < sentenceEnd && !isWordCharacter(input.charAt(start))) {
+            start++;
+        }
+        int wordEnd = start;
+        while (wordEnd < sentenceEnd && isWordCharacter(input.charAt(wordEnd))) {
+            wordEnd++;
+        }
+        if (start == wordEnd || !AUXILIARIES.contains(input, start, wordEnd)) {
+            /*
+             * The parse of a sentence that does not start with an auxiliary or a modal does not start with a SQ
+             * constituent.
+             */
+            return NO;
+        }
+        if (question && UNAMBIGUOUS_AUXILIARIES.contains(input, start, wordEnd)) {
+            return YES;
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * Decides whether the provided POS-tagged {@code tokens} form a yes/no question.
+     * <p>
+     * The {@code tokens} form a yes/no question if they start with a modal or a finite form of {@code be},
+     * {@code do}, or {@code have}, optionally followed by adverbs (e.g. {@code n't}, {@code not}), and then by the
+     * beginning of a subject. This method is package-private for testing purposes.
+     *
+     * @param tokens the POS-tagged tokens of the sentence to analyze
+     * @return {@code true} if the {@code tokens} form a yes/no question, {@code false} otherwise
+     */
+    static boolean isYesNoQuestion(List<CoreLabel> tokens) {
+        if (isNull(tokens) || tokens.isEmpty()) {
+            return false;
+        }
+        CoreLabel first = tokens.get(0);
+        String firstTag = first.tag();
+        if (isNull(firstTag) || isNull(first.word())) {
+            return false;
+        }
+        boolean auxiliary = firstTag.equals("MD")
+                || (FINITE_VERB_TAGS.contains(firstTag) && AUXILIARIES.contains(first.word()));
+        if (!auxiliary) {
+            return false;
+        }
+        int i = 1;
+        while (i < tokens.size() && "RB".equals(tokens.get(i).tag())) {
+            i++;
+        }
+        return i < tokens.size() && SUBJECT_TAGS.contains(tokens.get(i).tag());
+    }
+
+    /**
+     * Returns whether the provided {@code c} terminates a sentence.
+     *
+     * @param c the character to check
+     * @return {@code true} if the character terminates a sentence, {@code false} otherwise
+     */
+    private static boolean isSentenceTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    /**
+     * Returns whether the provided {@code c} is part of a word.
+     *
+     * @param c the character to check
+     * @return {@code true} if the character is part of a word, {@code false} otherwise
+     */
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetter(c) || c == '\'';
+    }
+
+    /**
+     * Creates a {@link TokenTable} containing the provided {@code tokens}.
+     *
+     * @param tokens the tokens to store in the table
+     * @return the created {@link TokenTable}
+     */
+    private static TokenTable createTable(String... tokens) {
+        Map<String, Float> entries = new HashMap<>();
+        for (String token : tokens) {
+            entries.put(token, 1f);
+        }
+        return new TokenTable(entries);
+    }
+}
@@ -0,0 +1,203 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.io.IOUtils;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+
+/**
+ * Detects the language of the user input and stores it in the {@link XatkitSession}.
+ * <p>
+ * This pre-processor uses a character n-gram model (see {@link CharNGramLanguageModel}) trained from the
+ * {@code <language>-language-profile.txt} files in the classpath. The detected language is stored in the session
+ * with the key {@link #DETECTED_LANGUAGE_SESSION_KEY}, and can be used by an intent recognition provider to route
+ * the input to a language-specific provider (see
+ * {@link com.xatkit.core.recognition.LanguageRoutingIntentRecognitionProvider}).
+ * <p>
+ * Short or ambiguous inputs (e.g. {@code ok}, {@code no}) do not change the language stored in the session: the
+ * language detected for the previous inputs is preserved, or the default language (i.e. the first supported
+ * language) is stored if the session does not contain any language. This pre-processor does not modify the input.
+ * <p>
+ * The pre-processor supports English, French, and Spanish by default. Support for a new language can be added by
+ * providing the corresponding profile file (a sample text representative of the language) and creating the
+ * pre-processor with {@link #LanguageDetectionPreProcessor(List)}.
+ */
+public class LanguageDetectionPreProcessor implements InputPreProcessor {
+
+    /**
+     * The {@link XatkitSession} key used to store the detected language.
+     * <p>
+     * The value associated to this key is the language code of the detected language (e.g. {@code en}).
+     */
+    public static final String DETECTED_LANGUAGE_SESSION_KEY = "xatkit.detected_language";
+
+    /**
+     * The languages supported by default.
+     */
+    public static final List<String> DEFAULT_LANGUAGES = Collections.unmodifiableList(Arrays.asList("en", "fr",
+            "es"));
+
+    /**
+     * The minimum number of letters an input must contain to detect its language.
+     */
+    private static final int MIN_LETTERS = 3;
+
+    /**
+     * The minimum probability of the detected language.
+     */
+    private static final double MIN_CONFIDENCE = 0.95;
+
+    /**
+     * The suffix of the files containing the sample texts of the supported languages.
+     */
+    private static final String PROFILE_FILE_SUFFIX = "-language-profile.txt";
+
+    /**
+     * The models loaded by the pre-processors, indexed by supported languages.
+     */
+    private static final ConcurrentMap<List<String>, CharNGramLanguageModel> MODELS = new ConcurrentHashMap<>();
+
+    /**
+     * The model used to detect the language of the inputs.
+     */
+    private final CharNGramLanguageModel model;
+
+    /**
+     * The language stored in the session if the language of the input cannot be detected.
+     */
+    private final String defaultLanguage;
+
+    /**
+     * Constructs a {@link LanguageDetectionPreProcessor} supporting the {@link #DEFAULT_LANGUAGES}.
+     */
+    public LanguageDetectionPreProcessor() {
+        this(DEFAULT_LANGUAGES);
+    }
+
+    /**
+     * Constructs a {@link LanguageDetectionPreProcessor} supporting the provided {@code languages}.
+     * <p>
+     * The first language of the provided {@link List} is the default language. The language model is loaded the
+     * first time a pre-processor is created for the provided {@code languages}, and is shared by all the
+     * pre-processors supporting the same languages.
+     *
+     * @param languages the language codes of the supported languages
+     * @throws NullPointerException     if the provided {@code languages} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code languages} is empty
+     */
+    public LanguageDetectionPreProcessor(List<String> languages) {
+        checkNotNull(languages, "Cannot create a %s with the provided languages %s",
+                LanguageDetectionPreProcessor.class.getSimpleName(), languages);
+        checkArgument(!languages.isEmpty(), "Cannot create a %s with an empty list of languages",
+                LanguageDetectionPreProcessor.class.getSimpleName());
+        this.model = MODELS.computeIfAbsent(Collections.unmodifiableList(new ArrayList<>(languages)),
+                LanguageDetectionPreProcessor::loadModel);
+        this.defaultLanguage = languages.get(0);
+    }
+
+    /**
+     * Detects the language of the provided {@code input} and stores it in the provided {@code session}.
+     *
+     * @param input   the input to process
+     * @param session the {@link XatkitSession} associated to the {@code input}
+     * @return the provided {@code input}
+     * @see #DETECTED_LANGUAGE_SESSION_KEY
+     */
+    @Override
+    public String process(String input, XatkitSession session) {
+        String language = detectLanguage(input);
+        if (isNull(language)) {
+            Object previousLanguage = session.get(DETECTED_LANGUAGE_SESSION_KEY);
+            language = previousLanguage instanceof String ? (String) previousLanguage : defaultLanguage;
+            Log.debug("Cannot detect the language of the input \"{0}\", using {1}", input, language);
+        }
+        session.store(DETECTED_LANGUAGE_SESSION_KEY, language);
+        return input;
+    }
+
+    /**
+     * Detects the language of the provided {@code input}.
+     *
+     * @param input the input to detect the language of
+     * @return the detected language, or {@code null} if the input is too short or too ambiguous to detect its
+     * language
+     */
+    @Nullable
+    public String detectLanguage(CharSequence input) {
+        return model.detect(input, MIN_LETTERS, MIN_CONFIDENCE);
+    }
+
+    /**
+     * Returns the languages supported by this pre-processor.
+     *
+     * @return an unmodifiable {@link List} containing the supported languages
+     */
+    public List<String> getLanguages() {
+        return model.getLanguages();
+    }
+
+    /**
+     * Returns the language stored in the session if the language of the input cannot be detected.
+     *
+     * @return the default language
+     */
+    public String getDefaultLanguage() {
+        return defaultLanguage;
+    }
+
+    /**
+     * Loads the {@link CharNGramLanguageModel} supporting the provided {@code languages}.
+     * <p>
+     * If the profile file of a language cannot be loaded an error message is logged, but no exception is thrown.
+     * This pre-processor won't be able to detect this language but it should not prevent Xatkit to start.
+     *
+     * @param languages the language codes of the supported languages
+     * @return the loaded {@link CharNGramLanguageModel}
+     */
+    private static CharNGramLanguageModel loadModel(List<String> languages) {
+        Map<String, String> samples = new LinkedHashMap<>();
+        for (String language : languages) {
+            String profileFile = language + PROFILE_FILE_SUFFIX;
+            String sample = "";
+            InputStream inputStream =
+                    LanguageDetectionPreProcessor.class.getClassLoader().getResourceAsStream(profileFile);
+            if (isNull(inputStream)) {
+                Log.error("Cannot find the language profile file {0}, this processor won't detect the language {1}",
+                        profileFile, language);
+            } else {
+                try {
+                    sample = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+                } catch (IOException e) {
+                    Log.error(e, "An error occurred when loading the language profile file {0}, this processor " +
+                            "won't detect the language {1}. See attached exception:", profileFile, language);
+                } finally {
+                    try {
+                        inputStream.close();
+                    } catch (IOException e) {
+                        Log.error(e, "An error occurred when closing the language profile file {0}, see attached " +
+                                "exception", profileFile);
+                    }
+                }
+            }
+            samples.put(language, sample);
+        }
+        Log.debug("Loaded the language profiles of {0}", languages);
+        return new CharNGramLanguageModel(samples);
+    }
+}
@@ -0,0 +1,397 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.XatkitException;
+import com.xatkit.core.recognition.LatencyMonitor;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.RecognizedIntent;
+import fr.inria.atlanmod.commons.log.Log;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Executes a {@link List} of {@link IntentPostProcessor}s on a {@link RecognizedIntent}.
+ * <p>
+ * By default the post-processors are executed sequentially, in their declaration order. If an
+ * {@link ExecutorService} is provided the pipeline groups consecutive post-processors that do not conflict into
+ * <i>stages</i>, and executes the post-processors of each stage in parallel. Two post-processors conflict if one of
+ * them writes data that is read or written by the other one (see {@link IntentPostProcessor#getReadKeys()} and
+ * {@link IntentPostProcessor#getWrittenKeys()}). Post-processors that do not declare the data they access are never
+ * executed in parallel.
+ * <p>
+ * The post-processors of a parallel stage receive a {@link StagedXatkitSession} that records their session updates.
+ * Each post-processor reads its own updates, and these updates are applied on the session in the declaration order
+ * of the post-processors once all of them are complete, meaning that the resulting session is the same as the one
+ * produced by a sequential execution.
+ * <p>
+ * If some of the post-processors rely on the {@link StanfordNLPService} the recognized input is annotated at most
+ * once, and the resulting {@link StanfordNLPAnnotation} is shared between them.
+ * <p>
+ * The execution time of each post-processor is recorded in the provided {@link LatencyMonitor}, if any.
+ *
+ * @see #createExecutor(int)
+ */
+public class PostProcessorPipeline {
+
+    /**
+     * Creates an {@link ExecutorService} that can be used to execute the post-processors in parallel.
+     * <p>
+     * The threads of the created {@link ExecutorService} are daemon threads, and do not prevent the JVM from exiting.
+     * The caller owns the returned {@link ExecutorService}, and is responsible for shutting it down once it is not
+     * used anymore (see {@link com.xatkit.core.recognition.IntentRecognitionProvider#shutdown()}).
+     *
+     * @param threadCount the number of threads of the {@link ExecutorService} to create
+     * @return the created {@link ExecutorService}
+     * @throws IllegalArgumentException if the provided {@code threadCount} is lower than {@code 1}
+     */
+    public static ExecutorService createExecutor(int threadCount) {
+        checkArgument(threadCount > 0, "Cannot create the post-processor executor with %s threads, please provide a " +
+                "positive value", threadCount);
+        AtomicInteger threadIndex = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount, r -> {
+            Thread thread = new Thread(r, "postprocessor-executor-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Log.info("Created a post-processor executor with {0} threads", threadCount);
+        return executorService;
+    }
+
+    /**
+     * The {@link IntentPostProcessor}s executed by this pipeline.
+     */
+    private final List<? extends IntentPostProcessor> postProcessors;
+
+    /**
+     * The stages of this pipeline.
+     * <p>
+     * Each stage contains consecutive post-processors that do not conflict. This list contains a single stage
+     * holding all the post-processors if the pipeline is sequential.
+     */
+    private final List<List<IntentPostProcessor>> stages;
+
+    /**
+     * The {@link ExecutorService} used to execute the post-processors in parallel.
+     * <p>
+     * This attribute is {@code null} if the pipeline is sequential.
+     */
+    @Nullable
+    private final ExecutorService executorService;
+
+    /**
+     * Whether at least one of the post-processors relies on the {@link StanfordNLPService}.
+     */
+    private final boolean requiresAnnotation;
+
+    /**
+     * The {@link LatencyMonitor} recording the execution time of the post-processors.
+     * <p>
+     * This attribute is {@code null} if latency monitoring is disabled.
+     */
+    @Nullable
+    private final LatencyMonitor latencyMonitor;
+
+    /**
+     * The names of the {@link LatencyMonitor} stages of the post-processors.
+     * <p>
+     * The names are computed when constructing the pipeline to avoid creating them for each input.
+     */
+    private final Map<IntentPostProcessor, String> stageNames = new IdentityHashMap<>();
+
+    /**
+     * Constructs a sequential {@link PostProcessorPipeline} with the provided {@code postProcessors}.
+     *
+     * @param postProcessors the {@link IntentPostProcessor}s to execute
+     * @throws NullPointerException if the provided {@code postProcessors} is {@code null}
+     */
+    public PostProcessorPipeline(List<? extends IntentPostProcessor> postProcessors) {
+        this(postProcessors, null);
+    }
+
+    /**
+     * Constructs a {@link PostProcessorPipeline} with the provided {@code postProcessors} and {@code
+     * executorService}.
+     * <p>
+     * The pipeline executes non-conflicting post-processors in parallel using the provided {@code executorService}.
+     * If the provided {@code executorService} is {@code null} the post-processors are executed sequentially.
+     *
+     * @param postProcessors  the {@link IntentPostProcessor}s to execute
+     * @param executorService the {@link ExecutorService} used to execute the post-processors in parallel
+     * @throws NullPointerException if the provided {@code postProcessors} is {@code null}
+     */
+    public PostProcessorPipeline(List<? extends IntentPostProcessor> postProcessors,
+                                 @Nullable ExecutorService executorService) {
+        this(postProcessors, executorService, null);
+    }
+
+    /**
+     * Constructs a {@link PostProcessorPipeline} with the provided {@code postProcessors}, {@code executorService},
+     * and {@code latencyMonitor}.
+     * <p>
+     * The pipeline executes non-conflicting post-processors in parallel using the provided {@code executorService},
+     * and records their execution time in the provided {@code latencyMonitor}. If the provided {@code
+     * executorService} is {@code null} the post-processors are executed sequentially, and if the provided {@code
+     * latencyMonitor} is {@code null} the execution times are not recorded.
+     *
+     * @param postProcessors  the {@link IntentPostProcessor}s to execute
+     * @param executorService the {@link ExecutorService} used to execute the post-processors in parallel
+     * @param latencyMonitor  the {@link LatencyMonitor} used to record the execution time of the post-processors
+     * @throws NullPointerException if the provided {@code postProcessors} is {@code null}
+     */
+    public PostProcessorPipeline(List<? extends IntentPostProcessor> postProcessors,
+                                 @Nullable ExecutorService executorService,
+                                 @Nullable LatencyMonitor latencyMonitor) {
+        checkNotNull(postProcessors, "Cannot create a %s with the provided post-processors %s",
+                PostProcessorPipeline.class.getSimpleName(), postProcessors);
+        this.postProcessors = postProcessors;
+        this.executorService = executorService;
+        this.requiresAnnotation = postProcessors.stream().anyMatch(p -> p instanceof StanfordNLPPostProcessor);
+        this.latencyMonitor = latencyMonitor;
+        for (IntentPostProcessor postProcessor : postProcessors) {
+            stageNames.put(postProcessor,
+                    LatencyMonitor.POST_PROCESSOR_STAGE_PREFIX + postProcessor.getClass().getSimpleName());
+        }
+        if (isNull(executorService)) {
+            this.stages = Collections.singletonList(new ArrayList<>(postProcessors));
+        } else {
+            this.stages = computeStages(postProcessors);
+            Log.debug("Grouped {0} post-processor(s) in {1} stage(s)", postProcessors.size(), stages.size());
+        }
+    }
+
+    /**
+     * Returns the {@link IntentPostProcessor}s executed by this pipeline.
+     *
+     * @return the {@link IntentPostProcessor}s executed by this pipeline
+     */
+    public List<? extends IntentPostProcessor> getPostProcessors() {
+        return postProcessors;
+    }
+
+    /**
+     * Returns whether this pipeline executes non-conflicting post-processors in parallel.
+     *
+     * @return {@code true} if the pipeline is parallel, {@code false} otherwise
+     */
+    public boolean isParallel() {
+        return nonNull(executorService);
+    }
+
+    /**
+     * Returns the stages of this pipeline.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return an unmodifiable {@link List} containing the stages of this pipeline
+     */
+    List<List<IntentPostProcessor>> getStages() {
+        return Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * Executes the post-processors on the provided {@code recognizedIntent}.
+     *
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @return the post-processed {@link RecognizedIntent}
+     * @throws XatkitException if the pipeline is interrupted while waiting for a parallel stage
+     */
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+        StanfordNLPAnnotation annotation = null;
+        if (requiresAnnotation) {
+            /*
+             * Annotate the input at most once with all the annotators registered by the post-processors. The
+             * annotation is computed the first time a post-processor needs it, shared by the post-processors, and
+             * released once the input has been processed.
+             */
+            annotation = StanfordNLPService.getInstance().annotateInputLazily(recognizedIntent.getMatchedInput());
+        }
+        RecognizedIntent result = recognizedIntent;
+        for (List<IntentPostProcessor> stage : stages) {
+            if (stage.size() > 1 && nonNull(executorService)) {
+                result = processParallelStage(stage, result, session, annotation);
+            } else {
+                for (IntentPostProcessor postProcessor : stage) {
+                    result = processWithTiming(postProcessor, result, session, annotation);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Executes the post-processors of the provided {@code stage} in parallel.
+     * <p>
+     * Each post-processor receives a {@link StagedXatkitSession}, and the recorded updates are applied on the
+     * provided {@code session} in the declaration order of the post-processors. If a post-processor returns a
+     * different {@link RecognizedIntent} the last one (in declaration order) is returned. If a post-processor throws
+     * an exception the updates of the post-processors declared before it are applied, and the exception is rethrown.
+     *
+     * @param stage            the post-processors to execute
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the shared {@link StanfordNLPAnnotation}, or {@code null} if none of the
+     *                         post-processors relies on the {@link StanfordNLPService}
+     * @return the post-processed {@link RecognizedIntent}
+     * @throws XatkitException if the pipeline is interrupted while waiting for the post-processors
+     */
+    private RecognizedIntent processParallelStage(List<IntentPostProcessor> stage, RecognizedIntent recognizedIntent,
+                                                  XatkitSession session, @Nullable StanfordNLPAnnotation annotation) {
+        long stageStart = System.nanoTime();
+        List<StagedXatkitSession> stagedSessions = new ArrayList<>(stage.size());
+        List<Future<RecognizedIntent>> futures = new ArrayList<>(stage.size());
+        for (IntentPostProcessor postProcessor : stage) {
+            StagedXatkitSession stagedSession = new StagedXatkitSession(session);
+            stagedSessions.add(stagedSession);
+            futures.add(executorService.submit(() -> processWithTiming(postProcessor, recognizedIntent,
+                    stagedSession, annotation)));
+        }
+        RecognizedIntent result = recognizedIntent;
+        for (int i = 0; i < stage.size(); i++) {
+            RecognizedIntent processedIntent;
+            try {
+                processedIntent = futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(f -> f.cancel(true));
+                throw new XatkitException("Interrupted while waiting for the post-processors", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new XatkitException(cause);
+            }
+            stagedSessions.get(i).applyTo(session);
+            if (processedIntent != recognizedIntent) {
+                result = processedIntent;
+            }
+        }
+        Log.debug("Time to execute {0} post-processors in parallel: {1}ms", stage.size(),
+                (System.nanoTime() - stageStart) / 1000000d);
+        return result;
+    }
+
+    /**
+     * Executes the provided {@code postProcessor} and records its execution time.
+     *
+     * @param postProcessor    the {@link IntentPostProcessor} to execute
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the shared {@link StanfordNLPAnnotation}, or {@code null} if none of the
+     *                         post-processors relies on the {@link StanfordNLPService}
+     * @return the post-processed {@link RecognizedIntent}
+     */
+    private RecognizedIntent processWithTiming(IntentPostProcessor postProcessor, RecognizedIntent recognizedIntent,
+                                               XatkitSession session, @Nullable StanfordNLPAnnotation annotation) {
+        long postStart = System.nanoTime();
+        RecognizedIntent result;
+        if (postProcessor instanceof StanfordNLPPostProcessor) {
+            result = ((StanfordNLPPostProcessor) postProcessor).process(recognizedIntent, session, annotation);
+        } else {
+            result = postProcessor.process(recognizedIntent, session);
+        }
+        long postEnd = System.nanoTime();
+        if (nonNull(latencyMonitor)) {
+            latencyMonitor.record(stageNames.get(postProcessor), postEnd - postStart);
+        }
+        Log.debug("Time to execute post-processor {0}: {1}ms", postProcessor.getClass().getSimpleName(),
+                (postEnd - postStart) / 1000000d);
+        return result;
+    }
+
+    /**
+     * Groups the provided {@code postProcessors} into stages of consecutive non-conflicting post-processors.
+     * <p>
+     * A post-processor is added to the current stage if it does not conflict with any of the post-processors of the
+     * stage, otherwise a new stage is started. This ensures that a post-processor is always executed after the
+     * post-processors it conflicts with that are declared before it.
+     *
+     * @param postProcessors the {@link IntentPostProcessor}s to group
+     * @return the computed stages
+     */
+    private static List<List<IntentPostProcessor>> computeStages(List<? extends IntentPostProcessor> postProcessors) {
+        List<List<IntentPostProcessor>> result = new ArrayList<>();
+        List<IntentPostProcessor> currentStage = new ArrayList<>();
+        for (IntentPostProcessor postProcessor : postProcessors) {
+            if (currentStage.stream().anyMatch(p -> conflict(p, postProcessor))) {
+                result.add(currentStage);
+                currentStage = new ArrayList<>();
+            }
+            currentStage.add(postProcessor);
+        }
+        if (!currentStage.isEmpty()) {
+            result.add(currentStage);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the provided post-processors conflict.
+     * <p>
+     * Two post-processors conflict if one of them writes data that is read or written by the other one. This method
+     * is package-private for testing purposes.
+     *
+     * @param p1 the first {@link IntentPostProcessor}
+     * @param p2 the second {@link IntentPostProcessor}
+     * @return {@code true} if the post-processors conflict, {@code false} otherwise
+     */
+    static boolean conflict(IntentPostProcessor p1, IntentPostProcessor p2) {
+        Set<String> p1Accesses = new HashSet<>(p1.getReadKeys());
+        p1Accesses.addAll(p1.getWrittenKeys());
+        Set<String> p2Accesses = new HashSet<>(p2.getReadKeys());
+        p2Accesses.addAll(p2.getWrittenKeys());
+        return overlap(p1.getWrittenKeys(), p2Accesses) || overlap(p2.getWrittenKeys(), p1Accesses);
+    }
+
+    /**
+     * Returns whether the provided sets of keys overlap.
+     * <p>
+     * Two keys overlap if they are equal, if one of them is {@link IntentPostProcessor#ALL_KEYS}, or if one of them
+     * is a prefix of the other one (e.g. {@code context.nlp} overlaps {@code context.nlp.sentiment}).
+     *
+     * @param keys1 the first set of keys
+     * @param keys2 the second set of keys
+     * @return {@code true} if the provided sets of keys overlap, {@code false} otherwise
+     */
+    private static boolean overlap(Set<String> keys1, Set<String> keys2) {
+        for (String key1 : keys1) {
+            for (String key2 : keys2) {
+                if (key1.equals(IntentPostProcessor.ALL_KEYS) || key2.equals(IntentPostProcessor.ALL_KEYS)
+                        || isPrefix(key1, key2) || isPrefix(key2, key1)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the provided {@code prefix} is equal to or a parent of the provided {@code key}.
+     *
+     * @param prefix the prefix to check
+     * @param key    the key to check
+     * @return {@code true} if the {@code prefix} is equal to or a parent of the {@code key}, {@code false} otherwise
+     */
+    private static boolean isPrefix(String prefix, String key) {
+        return key.startsWith(prefix) && (key.length() == prefix.length() || key.charAt(prefix.length()) == '.');
+    }
+}
@@ -0,0 +1,240 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.BaseEntityDefinition;
+import com.xatkit.intent.EntityDefinition;
+import com.xatkit.intent.EntityType;
+import com.xatkit.intent.RecognizedIntent;
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Removes the stop words of a given language from the intent's parameter values extracted from {@code any} entities.
+ * <p>
+ * The stop words of a language are loaded from the {@code <language>-stopwords.txt} file in the classpath, which
+ * contains a list of stop words separated by commas or line breaks. Stop word files are loaded once and shared by
+ * all the processors of the same language. Support for a new language can be added by providing the corresponding
+ * stop word file and a subclass calling {@link #RemoveStopWordsPostProcessor(String)} with the language prefix of
+ * the file (see {@link RemoveEnglishStopWordsPostProcessor}).
+ * <p>
+ * Stop words are matched (case-sensitive) against the space-separated tokens of the processed values. If a
+ * processed parameter value result in an empty String the initial value is preserved, assuming that the entity is
+ * supposed to match stop words.
+ */
+public abstract class RemoveStopWordsPostProcessor implements IntentPostProcessor {
+
+    /**
+     * The suffix of the files containing the stop words of a language.
+     */
+    private static final String STOP_WORDS_FILE_SUFFIX = "-stopwords.txt";
+
+    /**
+     * The stop words loaded by the processors, indexed by language.
+     */
+    private static final ConcurrentMap<String, TokenTable> STOP_WORDS = new ConcurrentHashMap<>();
+
+    /**
+     * The stop words of the language of this processor.
+     */
+    private final TokenTable stopWords;
+
+    /**
+     * Constructs a {@link RemoveStopWordsPostProcessor} removing the stop words of the provided {@code language}.
+     * <p>
+     * The stop words are loaded from the {@code <language>-stopwords.txt} file the first time a processor is created
+     * for the provided {@code language}. If an error occurred while loading the stop words an error message is
+     * logged, but no exception is thrown. This processor won't be able to remove stop words but it should not
+     * prevent Xatkit to start.
+     *
+     * @param language the language prefix of the stop word file to load
+     * @throws NullPointerException if the provided {@code language} is {@code null}
+     */
+    protected RemoveStopWordsPostProcessor(String language) {
+        checkNotNull(language, "Cannot create a %s with the provided language %s",
+                RemoveStopWordsPostProcessor.class.getSimpleName(), language);
+        this.stopWords = STOP_WORDS.computeIfAbsent(language, RemoveStopWordsPostProcessor::loadStopWords);
+    }
+
+    /**
+     * Removes the stop words from the {@code recognizedIntent}'s parameter values extracted from {@code any}
+     * entities.
+     * <p>
+     * If a processed parameter value result in an empty String the initial value is preserved, assuming that the
+     * entity is supposed to match stop words.
+     *
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @return the updated {@code recognizedIntent}
+     */
+    @Override
+    public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+        recognizedIntent.getOutContextInstances().forEach(c -> {
+            c.getValues().forEach(v -> {
+                EntityDefinition referredEntity = v.getContextParameter().getEntity().getReferredEntity();
+                if (referredEntity instanceof BaseEntityDefinition) {
+                    BaseEntityDefinition baseEntityDefinition = (BaseEntityDefinition) referredEntity;
+                    if (baseEntityDefinition.getEntityType().equals(EntityType.ANY)) {
+                        if (v.getValue() instanceof String) {
+                            String processedValue = removeStopWords((String) v.getValue());
+                            v.setValue(processedValue);
+                        } else {
+                            Log.error("Found {0} parameter value for an any entity", v.getClass().getSimpleName());
+                        }
+                    }
+                }
+            });
+        });
+        return recognizedIntent;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only reads the parameter values of the processed intent.
+     */
+    @Override
+    public Set<String> getReadKeys() {
+        return Collections.singleton(PARAMETER_VALUES_KEY);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * This post-processor only writes the parameter values of the processed intent.
+     */
+    @Override
+    public Set<String> getWrittenKeys() {
+        return Collections.singleton(PARAMETER_VALUES_KEY);
+    }
+
+    /**
+     * Returns the stop words used by this processor.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return the stop words used by this processor
+     */
+    TokenTable getStopWords() {
+        return this.stopWords;
+    }
+
+    /**
+     * Removes the stop words from the provided {@link String}.
+     * <p>
+     * The provided {@link String} is split on spaces, and the tokens that are stop words (case-sensitive) are
+     * removed. The remaining tokens are joined with a single space, and the trailing spaces of the provided
+     * {@link String} are ignored, as with {@code String.join(" ", from.split(" "))}.
+     * <p>
+     * This method scans the provided {@link String} once, and does not create intermediate {@link String}s for the
+     * scanned tokens. The provided {@link String} is returned as is if it does not contain any stop word nor
+     * trailing space.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param from the {@link String} to remove the stop words from
+     * @return the resulting {@link String}
+     */
+    String removeStopWords(String from) {
+        int length = from.length();
+        while (length > 0 && from.charAt(length - 1) == ' ') {
+            length--;
+        }
+        /*
+         * The builder is only created when the first stop word is found, values without stop words are returned
+         * without allocating anything.
+         */
+        StringBuilder builder = null;
+        int keptCount = 0;
+        int start = 0;
+        while (start <= length) {
+            int end = from.indexOf(' ', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            if (stopWords.contains(from, start, end)) {
+                if (isNull(builder)) {
+                    builder = new StringBuilder(length);
+                    if (keptCount > 0) {
+                        /*
+                         * All the previous tokens are kept, copy them without the space preceding the stop word.
+                         */
+                        builder.append(from, 0, start - 1);
+                    }
+                }
+            } else {
+                if (nonNull(builder)) {
+                    if (keptCount > 0) {
+                        builder.append(' ');
+                    }
+                    builder.append(from, start, end);
+                }
+                keptCount++;
+            }
+            start = end + 1;
+        }
+        if (isNull(builder)) {
+            return length == 0 || length == from.length() ? from : from.substring(0, length);
+        }
+        if (builder.length() == 0) {
+            /*
+             * If we removed everything from the result this probably means that the stop word was actually useful,
+             * in this case we return the original String.
+             */
+            return from;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Loads the stop words of the provided {@code language}.
+     *
+     * @param language the language prefix of the stop word file to load
+     * @return the {@link TokenTable} containing the loaded stop words, or an empty {@link TokenTable} if the stop
+     * word file cannot be loaded
+     */
+    private static TokenTable loadStopWords(String language) {
+        String stopWordsFile = language + STOP_WORDS_FILE_SUFFIX;
+        Map<String, Float> entries = new HashMap<>();
+        InputStream inputStream =
+                RemoveStopWordsPostProcessor.class.getClassLoader().getResourceAsStream(stopWordsFile);
+        if (isNull(inputStream)) {
+            Log.error("Cannot find the stop word file {0}, this processor won't remove any stop word", stopWordsFile);
+            return new TokenTable(entries, false);
+        }
+        try {
+            String stopWords = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+            for (String stopWord : stopWords.split("[,\\s]+")) {
+                if (!stopWord.isEmpty()) {
+                    entries.put(stopWord, 1f);
+                }
+            }
+        } catch (IOException e) {
+            Log.error(e, "An error occurred when loading the stop word file {0}, this processors won't remove any" +
+                    " stop word. See attached exception:", stopWordsFile);
+        } finally {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                Log.error(e, "An error occurred when closing the stop word file {0}, see attached exception",
+                        stopWordsFile);
+            }
+        }
+        TokenTable table = new TokenTable(entries, false);
+        Log.debug("Loaded {0} stop words from {1}", table.size(), stopWordsFile);
+        return table;
+    }
+}
@@ -0,0 +1,504 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.Context;
+import com.xatkit.intent.ContextParameter;
+import com.xatkit.intent.EntityDefinition;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.MappingEntityDefinition;
+import com.xatkit.intent.MappingEntityDefinitionEntry;
+import fr.inria.atlanmod.commons.log.Log;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Corrects the misspelled words of the user input using the vocabulary of the bot.
+ * <p>
+ * The vocabulary is built from the training sentences of the registered {@link IntentDefinition}s and the values
+ * (and synonyms) of the registered {@link MappingEntityDefinition}s. This pre-processor implements
+ * {@link IntentRegistrationListener}, and updates its vocabulary incrementally each time a definition is registered
+ * or deleted in the intent recognition provider it is attached to. The text fragments of the intents' parameters
+ * are not part of the vocabulary.
+ * <p>
+ * Corrections are computed with the symmetric delete algorithm (SymSpell): the pre-processor stores, for each word
+ * of the vocabulary, all the strings obtained by deleting up to {@code 2} characters from it. The candidate
+ * corrections of an input word are the vocabulary words sharing a deletion with it, and the selected correction is
+ * the candidate with the lowest Damerau-Levenshtein (optimal string alignment) distance, then the highest
+ * frequency in the vocabulary. Looking up a word does not depend on the size of the vocabulary.
+ * <p>
+ * Words that belong to the vocabulary, words containing digits, and words shorter than {@code 4} characters are
+ * never corrected. Words of {@code 4} to {@code 6} characters are corrected with at most {@code 1} edit, longer words
+ * with at most {@code 2} edits. The case of the corrected words is preserved when it is all upper-case or
+ * capitalized, and the characters that are not part of a word (spaces, punctuation) are not modified.
+ */
+public class SpellCorrectionPreProcessor implements InputPreProcessor, IntentRegistrationListener {
+
+    /**
+     * The maximum edit distance between a word and its correction.
+     */
+    private static final int MAX_EDIT_DISTANCE = 2;
+
+    /**
+     * The minimum length of the words to correct.
+     */
+    private static final int MIN_WORD_LENGTH = 4;
+
+    /**
+     * The minimum length of the words that can be corrected with {@link #MAX_EDIT_DISTANCE} edits.
+     * <p>
+     * Shorter words are corrected with at most {@code 1} edit.
+     */
+    private static final int MIN_WORD_LENGTH_MAX_EDIT_DISTANCE = 7;
+
+    /**
+     * The words of the registered definitions and their number of occurrences, indexed by definition.
+     */
+    private final Map<String, Map<String, Integer>> definitionWords = new HashMap<>();
+
+    /**
+     * The number of occurrences of the vocabulary words in all the registered definitions.
+     */
+    private final Map<String, Integer> frequencies = new HashMap<>();
+
+    /**
+     * The vocabulary words indexed by the strings obtained by deleting up to {@link #MAX_EDIT_DISTANCE} characters
+     * from them.
+     * <p>
+     * Each vocabulary word is also indexed by itself.
+     */
+    private final Map<String, Set<String>> deletes = new HashMap<>();
+
+    /**
+     * The lock protecting the vocabulary against concurrent updates.
+     * <p>
+     * Definitions are typically registered when the bot starts, while inputs are processed concurrently.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Corrects the misspelled words of the provided {@code input}.
+     *
+     * @param input   the input to process
+     * @param session the {@link XatkitSession} associated to the {@code input}
+     * @return the corrected input, or the provided {@code input} if it does not contain any misspelled word
+     */
+    @Override
+    public String process(String input, XatkitSession session) {
+        lock.readLock().lock();
+        try {
+            if (frequencies.isEmpty()) {
+                return input;
+            }
+            return correctInput(input);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The words of the training sentences of the provided {@code intentDefinition} are added to the vocabulary. The
+     * words of a previously registered version of the definition are removed from the vocabulary.
+     */
+    @Override
+    public void intentDefinitionRegistered(IntentDefinition intentDefinition) {
+        Set<String> parameterWords = new HashSet<>();
+        for (Context context : intentDefinition.getOutContexts()) {
+            for (ContextParameter parameter : context.getParameters()) {
+                if (nonNull(parameter.getTextFragment())) {
+                    parameterWords.addAll(countWords(parameter.getTextFragment(), new HashMap<>()).keySet());
+                }
+            }
+        }
+        Map<String, Integer> words = new HashMap<>();
+        for (String trainingSentence : intentDefinition.getTrainingSentences()) {
+            countWords(trainingSentence, words);
+        }
+        words.keySet().removeAll(parameterWords);
+        updateDefinitionWords(getDefinitionKey(intentDefinition), words);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The words of the training sentences of the provided {@code intentDefinition} are removed from the vocabulary,
+     * unless they also appear in other definitions.
+     */
+    @Override
+    public void intentDefinitionDeleted(IntentDefinition intentDefinition) {
+        updateDefinitionWords(getDefinitionKey(intentDefinition), Collections.emptyMap());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The words of the values and synonyms of the provided {@code entityDefinition} are added to the vocabulary if
+     * it is a {@link MappingEntityDefinition}. Other entities are ignored.
+     */
+    @Override
+    public void entityDefinitionRegistered(EntityDefinition entityDefinition) {
+        if (entityDefinition instanceof MappingEntityDefinition) {
+            Map<String, Integer> words = new HashMap<>();
+            for (MappingEntityDefinitionEntry entry : ((MappingEntityDefinition) entityDefinition).getEntries()) {
+                countWords(entry.getReferenceValue(), words);
+                for (String synonym : entry.getSynonyms()) {
+                    countWords(synonym, words);
+                }
+            }
+            updateDefinitionWords(getDefinitionKey(entityDefinition), words);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The words of the values and synonyms of the provided {@code entityDefinition} are removed from the vocabulary,
+     * unless they also appear in other definitions.
+     */
+    @Override
+    public void entityDefinitionDeleted(EntityDefinition entityDefinition) {
+        updateDefinitionWords(getDefinitionKey(entityDefinition), Collections.emptyMap());
+    }
+
+    /**
+     * Returns the number of words in the vocabulary.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @return the number of words in the vocabulary
+     */
+    int getVocabularySize() {
+        lock.readLock().lock();
+        try {
+            return frequencies.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the correction of the provided lower-case {@code word}.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param word the lower-case word to correct
+     * @return the correction of the word, or {@code null} if the word belongs to the vocabulary or cannot be
+     * corrected
+     */
+    @Nullable
+    String correct(String word) {
+        lock.readLock().lock();
+        try {
+            return correctWord(word);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Corrects the words of the provided {@code input}.
+     * <p>
+     * This method must be called with the read lock held.
+     *
+     * @param input the input to correct
+     * @return the corrected input, or the provided {@code input} if it does not contain any misspelled word
+     */
+    private String correctInput(String input) {
+        int length = input.length();
+        /*
+         * The builder is only created when the first correction is found, inputs without misspelled words are
+         * returned without allocating anything but the lower-cased words.
+         */
+        StringBuilder builder = null;
+        int copied = 0;
+        int index = 0;
+        while (index < length) {
+            while (index < length && !isWordCharacter(input.charAt(index))) {
+                index++;
+            }
+            int start = index;
+            boolean hasDigit = false;
+            while (index < length && isWordCharacter(input.charAt(index))) {
+                hasDigit |= Character.isDigit(input.charAt(index));
+                index++;
+            }
+            if (hasDigit || index - start < MIN_WORD_LENGTH) {
+                continue;
+            }
+            String word = input.substring(start, index);
+            String correction = correctWord(word.toLowerCase());
+            if (nonNull(correction)) {
+                if (isNull(builder)) {
+                    builder = new StringBuilder(length + MAX_EDIT_DISTANCE);
+                }
+                builder.append(input, copied, start).append(applyCase(word, correction));
+                copied = index;
+            }
+        }
+        if (isNull(builder)) {
+            return input;
+        }
+        String result = builder.append(input, copied, length).toString();
+        Log.debug("Corrected input \"{0}\" to \"{1}\"", input, result);
+        return result;
+    }
+
+    /**
+     * Returns the correction of the provided lower-case {@code word}.
+     * <p>
+     * This method must be called with the read lock held.
+     *
+     * @param word the lower-case word to correct
+     * @return the correction of the word, or {@code null} if the word belongs to the vocabulary or cannot be
+     * corrected
+     */
+    @Nullable
+    private String correctWord(String word) {
+        if (word.length() < MIN_WORD_LENGTH || frequencies.containsKey(word)) {
+            return null;
+        }
+        int maxDistance = word.length() >= MIN_WORD_LENGTH_MAX_EDIT_DISTANCE ? MAX_EDIT_DISTANCE : 1;
+        String best = null;
+        int bestDistance = maxDistance + 1;
+        int bestFrequency = 0;
+        Set<String> checked = new HashSet<>();
+        for (String delete : computeDeletes(word, maxDistance)) {
+            Set<String> candidates = deletes.get(delete);
+            if (isNull(candidates)) {
+                continue;
+            }
+            for (String candidate : candidates) {
+                if (Math.abs(candidate.length() - word.length()) > maxDistance || !checked.add(candidate)) {
+                    continue;
+                }
+                int distance = distance(word, candidate, maxDistance);
+                if (distance > maxDistance) {
+                    continue;
+                }
+                int frequency = frequencies.get(candidate);
+                if (distance < bestDistance || (distance == bestDistance && (frequency > bestFrequency
+                        || (frequency == bestFrequency && candidate.compareTo(best) < 0)))) {
+                    best = candidate;
+                    bestDistance = distance;
+                    bestFrequency = frequency;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Replaces the words of the definition identified by the provided {@code key} with the provided {@code words}.
+     * <p>
+     * The frequencies of the vocabulary are updated with the difference between the previous and the new words of
+     * the definition, and the deletions of a word are only computed when it enters or leaves the vocabulary.
+     *
+     * @param key   the key of the definition to update
+     * @param words the new words of the definition and their number of occurrences
+     */
+    private void updateDefinitionWords(String key, Map<String, Integer> words) {
+        lock.writeLock().lock();
+        try {
+            Map<String, Integer> previousWords = words.isEmpty() ? definitionWords.remove(key) :
+                    definitionWords.put(key, words);
+            if (nonNull(previousWords)) {
+                previousWords.forEach((word, count) -> {
+                    int frequency = frequencies.get(word) - count;
+                    if (frequency == 0) {
+                        frequencies.remove(word);
+                        for (String delete : computeDeletes(word, MAX_EDIT_DISTANCE)) {
+                            Set<String> indexedWords = deletes.get(delete);
+                            indexedWords.remove(word);
+                            if (indexedWords.isEmpty()) {
+                                deletes.remove(delete);
+                            }
+                        }
+                    } else {
+                        frequencies.put(word, frequency);
+                    }
+                });
+            }
+            words.forEach((word, count) -> {
+                if (isNull(frequencies.put(word, frequencies.getOrDefault(word, 0) + count))) {
+                    for (String delete : computeDeletes(word, MAX_EDIT_DISTANCE)) {
+                        deletes.computeIfAbsent(delete, d -> new HashSet<>()).add(word);
+                    }
+                }
+            });
+            Log.debug("Updated the vocabulary of {0} ({1} words)", key, frequencies.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the key identifying the provided {@code intentDefinition} in {@link #definitionWords}.
+     *
+     * @param intentDefinition the {@link IntentDefinition} to compute the key of
+     * @return the key of the definition
+     */
+    private static String getDefinitionKey(IntentDefinition intentDefinition) {
+        return "intent:" + intentDefinition.getName();
+    }
+
+    /**
+     * Returns the key identifying the provided {@code entityDefinition} in {@link #definitionWords}.
+     *
+     * @param entityDefinition the {@link EntityDefinition} to compute the key of
+     * @return the key of the definition
+     */
+    private static String getDefinitionKey(EntityDefinition entityDefinition) {
+        return "entity:" + entityDefinition.getName();
+    }
+
+    /**
+     * Adds the lower-case words of the provided {@code text} to the provided {@code counts}.
+     * <p>
+     * Words containing digits are ignored.
+     *
+     * @param text   the text to extract the words from
+     * @param counts the number of occurrences of the extracted words
+     * @return the updated {@code counts}
+     */
+    private static Map<String, Integer> countWords(String text, Map<String, Integer> counts) {
+        int length = text.length();
+        int index = 0;
+        while (index < length) {
+            while (index < length && !isWordCharacter(text.charAt(index))) {
+                index++;
+            }
+            int start = index;
+            boolean hasDigit = false;
+            while (index < length && isWordCharacter(text.charAt(index))) {
+                hasDigit |= Character.isDigit(text.charAt(index));
+                index++;
+            }
+            if (!hasDigit && index > start) {
+                counts.merge(text.substring(start, index).toLowerCase(), 1, Integer::sum);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Returns whether the provided character is part of a word.
+     *
+     * @param c the character to check
+     * @return {@code true} if the character is a letter, a digit, or an apostrophe, {@code false} otherwise
+     */
+    private static boolean isWordCharacter(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    }
+
+    /**
+     * Computes the strings obtained by deleting up to {@code maxDistance} characters from the provided {@code word}.
+     *
+     * @param word        the word to compute the deletions of
+     * @param maxDistance the maximum number of deleted characters
+     * @return the deletions of the word, including the word itself
+     */
+    private static Set<String> computeDeletes(String word, int maxDistance) {
+        Set<String> result = new HashSet<>();
+        result.add(word);
+        computeDeletes(word, maxDistance, result);
+        return result;
+    }
+
+    /**
+     * Adds the strings obtained by deleting up to {@code maxDistance} characters from the provided {@code word} to
+     * the provided {@code result}.
+     *
+     * @param word        the word to compute the deletions of
+     * @param maxDistance the maximum number of deleted characters
+     * @param result      the {@link Set} to add the deletions to
+     */
+    private static void computeDeletes(String word, int maxDistance, Set<String> result) {
+        if (maxDistance == 0 || word.length() <= 1) {
+            return;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            String delete = word.substring(0, i) + word.substring(i + 1);
+            if (result.add(delete)) {
+                computeDeletes(delete, maxDistance - 1, result);
+            }
+        }
+    }
+
+    /**
+     * Computes the optimal string alignment distance between the provided words.
+     * <p>
+     * The optimal string alignment distance is the Damerau-Levenshtein distance where a substring cannot be edited
+     * more than once: it counts insertions, deletions, substitutions, and transpositions of adjacent characters.
+     * <p>
+     * This method is package-private for testing purposes.
+     *
+     * @param source      the first word
+     * @param target      the second word
+     * @param maxDistance the maximum distance to compute
+     * @return the distance between the words, or {@code maxDistance + 1} if it is greater than {@code maxDistance}
+     */
+    static int distance(String source, String target, int maxDistance) {
+        int sourceLength = source.length();
+        int targetLength = target.length();
+        if (Math.abs(sourceLength - targetLength) > maxDistance) {
+            return maxDistance + 1;
+        }
+        int[] previous2 = new int[targetLength + 1];
+        int[] previous = new int[targetLength + 1];
+        int[] current = new int[targetLength + 1];
+        for (int j = 0; j <= targetLength; j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= sourceLength; i++) {
+            current[0] = i;
+            int rowMinimum = i;
+            for (int j = 1; j <= targetLength; j++) {
+                int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && source.charAt(i - 1) == target.charAt(j - 2)
+                        && source.charAt(i - 2) == target.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] swap = previous2;
+            previous2 = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[targetLength], maxDistance + 1);
+    }
+
+    /**
+     * Applies the case of the provided {@code word} to the provided lower-case {@code correction}.
+     *
+     * @param word       the corrected word
+     * @param correction the lower-case correction
+     * @return the correction in upper-case if the word is in upper-case, capitalized if the word is capitalized, or
+     * the correction itself otherwise
+     */
+    private static String applyCase(String word, String correction) {
+        if (!Character.isUpperCase(word.charAt(0))) {
+            return correction;
+        }
+        if (word.equals(word.toUpperCase())) {
+            return correction.toUpperCase();
+        }
+        return Character.toUpperCase(correction.charAt(0)) + correction.substring(1);
+    }
+}
@@ -0,0 +1,538 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.XatkitException;
+import com.xatkit.core.session.RuntimeContexts;
+import com.xatkit.core.session.XatkitSession;
+
+import java.text.MessageFormat;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A {@link XatkitSession} view that records the updates performed by a post-processor instead of applying them.
+ * <p>
+ * This class is used by the {@link PostProcessorPipeline} to execute post-processors in parallel: each
+ * post-processor of a parallel stage receives its own {@link StagedXatkitSession}, and the recorded updates are
+ * applied on the underlying session in the declaration order of the post-processors once the stage is complete
+ * (see {@link #applyTo(XatkitSession)}). This ensures that the resulting session does not depend on the
+ * scheduling of the post-processors.
+ * <p>
+ * The recorded updates are overlaid on the underlying session: a post-processor reads the values it has staged, and
+ * the values of the underlying session for the other keys, as it would in a sequential execution. The updates of
+ * the other post-processors of the stage are not visible until the stage is complete. The arguments of the updates
+ * are validated when they are recorded, so that invalid updates are reported by the post-processor performing them.
+ */
+class StagedXatkitSession extends XatkitSession {
+
+    /**
+     * The {@link XatkitSession} this view reads from.
+     */
+    private final XatkitSession delegate;
+
+    /**
+     * The recorded updates, in the order they have been performed.
+     */
+    private final List<Consumer<XatkitSession>> updates;
+
+    /**
+     * The session variables staged by this view, overlaid on the ones of the {@link #delegate}.
+     */
+    private final Map<String, Object> stagedVariables = new HashMap<>();
+
+    /**
+     * Constructs a {@link StagedXatkitSession} reading from the provided {@code delegate}.
+     *
+     * @param delegate the {@link XatkitSession} to read from
+     * @throws NullPointerException if the provided {@code delegate} is {@code null}
+     */
+    StagedXatkitSession(XatkitSession delegate) {
+        this(delegate, new ArrayList<>());
+    }
+
+    /**
+     * Constructs a {@link StagedXatkitSession} reading from the provided {@code delegate} and recording its updates
+     * in the provided {@code updates}.
+     *
+     * @param delegate the {@link XatkitSession} to read from
+     * @param updates  the {@link List} used to record the updates
+     * @throws NullPointerException if the provided {@code delegate} is {@code null}
+     */
+    private StagedXatkitSession(XatkitSession delegate, List<Consumer<XatkitSession>> updates) {
+        super(delegate.getSessionId(), delegate.getConfiguration(),
+                new StagedRuntimeContexts(delegate.getRuntimeContexts(), updates));
+        this.delegate = delegate;
+        this.updates = updates;
+    }
+
+    /**
+     * Records the storage of the provided {@code value} with the given {@code key}.
+     *
+     * @param key   the key of the value to store
+     * @param value the value to store
+     * @throws NullPointerException if the provided {@code key} is {@code null}
+     */
+    @Override
+    public void store(String key, Object value) {
+        checkNotNull(key, "Cannot store the provided session variable %s (value=%s), please provide a non-null key",
+                key, value);
+        stagedVariables.put(key, value);
+        record(session -> session.store(key, value));
+    }
+
+    /**
+     * Records the storage of the provided {@code value} in the {@link List} associated to the given {@code key}.
+     * <p>
+     * The staged {@link List} is a copy of the one of the underlying session, which is not modified until the
+     * recorded updates are applied.
+     *
+     * @param key   the key of the {@link List} to store the provided {@code value}
+     * @param value the value to store in a {@link List}
+     * @throws NullPointerException if the provided {@code key} is {@code null}
+     */
+    @Override
+    public void storeList(String key, Object value) {
+        checkNotNull(key, "Cannot store the provided session variable %s (value=%s), please provide a non-null key",
+                key, value);
+        Object storedValue = get(key);
+        List<Object> list = storedValue instanceof List ? new ArrayList<>((List<?>) storedValue) : new ArrayList<>();
+        list.add(value);
+        stagedVariables.put(key, list);
+        record(session -> session.storeList(key, value));
+    }
+
+    /**
+     * Returns an unmodifiable {@link Map} containing the session variables of the underlying session and the ones
+     * staged by this view.
+     *
+     * @return an unmodifiable {@link Map} containing the session variables visible from this view
+     */
+    @Override
+    public Map<String, Object> getSessionVariables() {
+        if (stagedVariables.isEmpty()) {
+            return Collections.unmodifiableMap(delegate.getSessionVariables());
+        }
+        Map<String, Object> sessionVariables = new HashMap<>(delegate.getSessionVariables());
+        sessionVariables.putAll(stagedVariables);
+        return Collections.unmodifiableMap(sessionVariables);
+    }
+
+    /**
+     * Records the merge of the provided {@code other} session.
+     * <p>
+     * The session variables of the provided {@code other} session are staged with the semantics of
+     * {@link XatkitSession#merge(XatkitSession)}.
+     *
+     * @param other the {@link XatkitSession} to merge in the current one
+     * @throws NullPointerException if the provided {@code other} is {@code null}
+     */
+    @Override
+    public void merge(XatkitSession other) {
+        checkNotNull(other, "Cannot merge the provided %s %s", XatkitSession.class.getSimpleName(), other);
+        other.getSessionVariables().forEach((key, value) -> {
+            Object storedValue = get(key);
+            if (value instanceof Map && isVisible(key)) {
+                Map<Object, Object> mergedMap = isNull(storedValue) ? new HashMap<>() :
+                        new HashMap<>((Map<?, ?>) storedValue);
+                mergedMap.putAll((Map<?, ?>) value);
+                stagedVariables.put(key, mergedMap);
+            } else {
+                stagedVariables.put(key, value);
+            }
+        });
+        record(session -> session.merge(other));
+    }
+
+    /**
+     * Returns the session value associated to the provided {@code key}.
+     * <p>
+     * This method returns the value staged by this view if it exists, and the value of the underlying session
+     * otherwise.
+     *
+     * @param key the key to retrieve the value for
+     * @return the session value associated to the provided {@code key} if it exists, {@code null} otherwise
+     */
+    @Override
+    public Object get(String key) {
+        if (stagedVariables.containsKey(key)) {
+            return stagedVariables.get(key);
+        }
+        return delegate.get(key);
+    }
+
+    /**
+     * Applies the recorded updates on the provided {@code session}.
+     *
+     * @param session the {@link XatkitSession} to apply the updates on
+     */
+    void applyTo(XatkitSession session) {
+        for (Consumer<XatkitSession> update : updates) {
+            update.accept(session);
+        }
+    }
+
+    /**
+     * Returns whether the provided {@code key} is associated to a session variable visible from this view.
+     *
+     * @param key the key to check
+     * @return {@code true} if the key is associated to a session variable, {@code false} otherwise
+     */
+    private boolean isVisible(String key) {
+        return stagedVariables.containsKey(key) || delegate.getSessionVariables().containsKey(key);
+    }
+
+    /**
+     * Records the provided {@code update}.
+     *
+     * @param update the update to record
+     */
+    private void record(Consumer<XatkitSession> update) {
+        this.updates.add(update);
+    }
+
+    /**
+     * A {@link RuntimeContexts} view that records the context updates instead of applying them.
+     * <p>
+     * The updated contexts are staged in this view: a staged context contains the variables and the lifespan count
+     * of the underlying context, updated with the recorded operations. Read operations return the staged contexts,
+     * and the contexts of the underlying {@link RuntimeContexts} for the other ones.
+     */
+    private static class StagedRuntimeContexts extends RuntimeContexts {
+
+        /**
+         * The {@link RuntimeContexts} this view reads from.
+         */
+        private final RuntimeContexts delegate;
+
+        /**
+         * The updates recorded by the enclosing {@link StagedXatkitSession}.
+         */
+        private final List<Consumer<XatkitSession>> updates;
+
+        /**
+         * The variables of the staged contexts, indexed by context name.
+         */
+        private final Map<String, Map<String, Object>> stagedContexts = new HashMap<>();
+
+        /**
+         * The lifespan counts of the staged contexts, indexed by context name.
+         */
+        private final Map<String, Integer> stagedLifespanCounts = new HashMap<>();
+
+        /**
+         * Whether all the contexts of the {@link #delegate} have been staged.
+         * <p>
+         * The operations updating all the contexts (see {@link #decrementLifespanCounts()}) stage the whole
+         * {@link #delegate}, the contexts that are not staged are then removed contexts.
+         */
+        private boolean stagedAll;
+
+        /**
+         * Constructs a {@link StagedRuntimeContexts} reading from the provided {@code delegate}.
+         *
+         * @param delegate the {@link RuntimeContexts} to read from
+         * @param updates  the {@link List} used to record the updates
+         */
+        private StagedRuntimeContexts(RuntimeContexts delegate, List<Consumer<XatkitSession>> updates) {
+            super();
+            this.delegate = delegate;
+            this.updates = updates;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getVariableTimeout() {
+            return delegate.getVariableTimeout();
+        }
+
+        /**
+         * Records the update of the provided {@code context}.
+         * <p>
+         * The returned {@link Map} is a view of the staged context: the values put in it (or removed from it) are
+         * visible from this view, and are recorded as context updates.
+         *
+         * @param context       the name of the context to set
+         * @param lifespanCount the lifespan count of the context to set
+         * @return a staging {@link Map} for the variables of the set context
+         * @throws NullPointerException     if the provided {@code context} is {@code null}
+         * @throws IllegalArgumentException if the provided {@code lifespanCount <= 0}
+         */
+        @Override
+        public Map<String, Object> setContext(String context, int lifespanCount) {
+            checkNotNull(context, "Cannot set the provided context %s", context);
+            checkArgument(lifespanCount > 0, "Cannot set the context lifespan count to %s, the lifespan count " +
+                    "should be strictly greater than 0", lifespanCount);
+            Map<String, Object> contextVariables = stageContext(context, lifespanCount);
+            updates.add(session -> session.getRuntimeContexts().setContext(context, lifespanCount));
+            return new StagedContextMap(context, lifespanCount, contextVariables);
+        }
+
+        /**
+         * Records the storage of the provided {@code value} in the given {@code context}.
+         *
+         * @param context       the name of the context to set
+         * @param lifespanCount the lifespan count of the context to set
+         * @param key           the sub-context key associated to the value
+         * @param value         the value to store
+         * @throws NullPointerException     if the provided {@code context} or {@code key} is {@code null}
+         * @throws IllegalArgumentException if the provided {@code lifespanCount <= 0}
+         */
+        @Override
+        public void setContextValue(String context, int lifespanCount, String key, Object value) {
+            checkNotNull(context, "Cannot set the context value from the provided context %s", context);
+            checkNotNull(key, "Cannot set the context value from the provided key %s", key);
+            checkArgument(lifespanCount > 0, "Cannot set the context lifespan count to %s, the lifespan count " +
+                    "should be strictly greater than 0", lifespanCount);
+            stageContext(context, lifespanCount).put(key, value);
+            updates.add(session -> session.getRuntimeContexts().setContextValue(context, lifespanCount, key, value));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Map<String, Object> getContextVariables(String context) {
+            checkNotNull(context, "Cannot retrieve the context variables from the null context");
+            if (stagedContexts.containsKey(context)) {
+                return Collections.unmodifiableMap(stagedContexts.get(context));
+            }
+            return stagedAll ? null : delegate.getContextVariables(context);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Object getContextValue(String context, String key) {
+            checkNotNull(context, "Cannot find the context value from the null context");
+            checkNotNull(key, "Cannot find the value of the context %s with the key null", context);
+            Map<String, Object> contextVariables = getContextVariables(context);
+            return nonNull(contextVariables) ? contextVariables.get(key) : null;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getContextLifespanCount(String context) {
+            checkNotNull(context, "Cannot find the lifespan count of context %s", context);
+            Integer lifespanCount = stagedLifespanCounts.get(context);
+            if (nonNull(lifespanCount)) {
+                return lifespanCount;
+            }
+            if (stagedAll) {
+                throw new XatkitException(MessageFormat.format("Cannot retrieve the lifespan count for the provided " +
+                        "context {0} the context is not registered", context));
+            }
+            return delegate.getContextLifespanCount(context);
+        }
+
+        /**
+         * Records the decrement of the lifespan counts.
+         */
+        @Override
+        public void decrementLifespanCounts() {
+            stageAll();
+            Iterator<Map.Entry<String, Integer>> it = stagedLifespanCounts.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Integer> entry = it.next();
+                if (entry.getValue() - 1 == 0) {
+                    it.remove();
+                    stagedContexts.remove(entry.getKey());
+                } else {
+                    entry.setValue(entry.getValue() - 1);
+                }
+            }
+            updates.add(session -> session.getRuntimeContexts().decrementLifespanCounts());
+        }
+
+        /**
+         * Records the merge of the provided {@code other} {@link RuntimeContexts}.
+         *
+         * @param other the {@link RuntimeContexts} to merge into this one
+         * @throws NullPointerException if the provided {@code other} is {@code null}
+         */
+        @Override
+        public void merge(RuntimeContexts other) {
+            checkNotNull(other, "Cannot merge the provided %s %s", RuntimeContexts.class.getSimpleName(), other);
+            other.getContextMap().forEach((context, variables) -> {
+                Map<String, Object> contextVariables = new HashMap<>();
+                Map<String, Object> visibleVariables = getContextVariables(context);
+                if (nonNull(visibleVariables)) {
+                    contextVariables.putAll(visibleVariables);
+                }
+                contextVariables.putAll(variables);
+                stagedContexts.put(context, contextVariables);
+                stagedLifespanCounts.put(context, other.getContextLifespanCount(context));
+            });
+            updates.add(session -> session.getRuntimeContexts().merge(other));
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Map<String, Map<String, Object>> getContextMap() {
+            if (stagedContexts.isEmpty() && !stagedAll) {
+                return delegate.getContextMap();
+            }
+            Map<String, Map<String, Object>> contextMap = stagedAll ? new HashMap<>() :
+                    new HashMap<>(delegate.getContextMap());
+            contextMap.putAll(stagedContexts);
+            return Collections.unmodifiableMap(contextMap);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public Map<String, Integer> getLifespanCountsMap() {
+            if (stagedLifespanCounts.isEmpty() && !stagedAll) {
+                return delegate.getLifespanCountsMap();
+            }
+            Map<String, Integer> lifespanCounts = stagedAll ? new HashMap<>() :
+                    new HashMap<>(delegate.getLifespanCountsMap());
+            lifespanCounts.putAll(stagedLifespanCounts);
+            return Collections.unmodifiableMap(lifespanCounts);
+        }
+
+        /**
+         * Stages the provided {@code context} with the semantics of {@link RuntimeContexts#setContext(String, int)}.
+         *
+         * @param context       the name of the context to stage
+         * @param lifespanCount the lifespan count of the context to stage
+         * @return the staged variables of the context
+         */
+        private Map<String, Object> stageContext(String context, int lifespanCount) {
+            Map<String, Object> contextVariables = stagedContexts.get(context);
+            if (isNull(contextVariables)) {
+                Map<String, Object> visibleVariables = getContextVariables(context);
+                contextVariables = isNull(visibleVariables) ? new HashMap<>() : new HashMap<>(visibleVariables);
+                stagedContexts.put(context, contextVariables);
+            }
+            Integer currentLifespanCount = getLifespanCountsMap().get(context);
+            if (isNull(currentLifespanCount) || currentLifespanCount <= lifespanCount) {
+                stagedLifespanCounts.put(context, lifespanCount);
+            } else {
+                stagedLifespanCounts.put(context, currentLifespanCount);
+            }
+            return contextVariables;
+        }
+
+        /**
+         * Stages all the contexts of the {@link #delegate}.
+         */
+        private void stageAll() {
+            if (!stagedAll) {
+                delegate.getContextMap().forEach((context, variables) -> {
+                    if (!stagedContexts.containsKey(context)) {
+                        stagedContexts.put(context, new HashMap<>(variables));
+                    }
+                });
+                delegate.getLifespanCountsMap().forEach(stagedLifespanCounts::putIfAbsent);
+                stagedAll = true;
+            }
+        }
+
+        /**
+         * A view of the variables of a staged context that records the values put in it.
+         */
+        private class StagedContextMap extends AbstractMap<String, Object> {
+
+            /**
+             * The name of the context.
+             */
+            private final String context;
+
+            /**
+             * The lifespan count the context has been set with.
+             */
+            private final int lifespanCount;
+
+            /**
+             * The staged variables of the context.
+             */
+            private final Map<String, Object> contextVariables;
+
+            /**
+             * Constructs a {@link StagedContextMap} for the provided {@code context}.
+             *
+             * @param context          the name of the context
+             * @param lifespanCount    the lifespan count the context has been set with
+             * @param contextVariables the staged variables of the context
+             */
+            private StagedContextMap(String context, int lifespanCount, Map<String, Object> contextVariables) {
+                this.context = context;
+                this.lifespanCount = lifespanCount;
+                this.contextVariables = contextVariables;
+            }
+
+            /**
+             * Stages and records the storage of the provided {@code value} with the given {@code key}.
+             *
+             * @param key   the key of the value to store
+             * @param value the value to store
+             * @return the previous value associated to the provided {@code key}, or {@code null} if there is none
+             */
+            @Override
+            public Object put(String key, Object value) {
+                Object previousValue = contextVariables.put(key, value);
+                updates.add(session -> session.getRuntimeContexts().setContext(context, lifespanCount).put(key,
+                        value));
+                return previousValue;
+            }
+
+            /**
+             * Stages and records the removal of the value associated to the provided {@code key}.
+             *
+             * @param key the key of the value to remove
+             * @return the removed value, or {@code null} if there is none
+             */
+            @Override
+            public Object remove(Object key) {
+                Object previousValue = contextVariables.remove(key);
+                updates.add(session -> session.getRuntimeContexts().setContext(context, lifespanCount).remove(key));
+                return previousValue;
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public Object get(Object key) {
+                return contextVariables.get(key);
+            }
+
+            /**
+             * {@inheritDoc}
+             */
+            @Override
+            public boolean containsKey(Object key) {
+                return contextVariables.containsKey(key);
+            }
+
+            /**
+             * Returns an unmodifiable {@link Set} view of the staged variables.
+             *
+             * @return an unmodifiable {@link Set} view of the staged variables
+             */
+            @Override
+            public Set<Entry<String, Object>> entrySet() {
+                return Collections.unmodifiableMap(contextVariables).entrySet();
+            }
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.xatkit.core.recognition.processor;
+
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+import edu.stanford.nlp.util.TypesafeMap;
+import fr.inria.atlanmod.commons.log.Log;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * A read-only view of the {@link Annotation} computed for a recognized input.
+ * <p>
+ * This class is created once per recognized input by the {@link StanfordNLPService}, and shared between all the
+ * {@link StanfordNLPPostProcessor}s. It does not expose the methods allowing to modify the wrapped
+ * {@link Annotation}: post-processors must not alter the annotation values, since they are shared with the other
+ * post-processors processing the same input.
+ * <p>
+ * The wrapped {@link Annotation} can be computed lazily (see {@link #lazy(String, Function)}): in this case the
+ * input is annotated the first time a post-processor accesses the annotation, and post-processors that can decide
+ * without the annotation (e.g. with a token-based fast path) do not pay for it.
+ * <p>
+ * Instances of this class are not stored in the {@link com.xatkit.core.session.XatkitSession}, and can be garbage
+ * collected once the post-processing of the input is complete.
+ *
+ * @see StanfordNLPService#annotateInput(String)
+ * @see StanfordNLPService#annotateInputLazily(String)
+ */
+public final class StanfordNLPAnnotation {
+
+    /**
+     * The annotated input.
+     */
+    private final String input;
+
+    /**
+     * The function used to compute the {@link Annotation} of a lazy {@link StanfordNLPAnnotation}.
+     * <p>
+     * This attribute is {@code null} if the {@link Annotation} has been provided when constructing this instance.
+     */
+    @Nullable
+    private final Function<String, Annotation> annotator;
+
+    /**
+     * The wrapped {@link Annotation}.
+     * <p>
+     * This attribute is {@code null} until the {@link Annotation} of a lazy {@link StanfordNLPAnnotation} is
+     * computed.
+     */
+    @Nullable
+    private volatile Annotation annotation;
+
+    /**
+     * Constructs a {@link StanfordNLPAnnotation} wrapping the provided {@code annotation}.
+     *
+     * @param input      the annotated input
+     * @param annotation the {@link Annotation} computed for the provided {@code input}
+     * @throws NullPointerException if the provided {@code input} or {@code annotation} is {@code null}
+     */
+    public StanfordNLPAnnotation(String input, Annotation annotation) {
+        this(input, annotation, null);
+        checkNotNull(annotation, "Cannot create a %s with the provided %s %s",
+                StanfordNLPAnnotation.class.getSimpleName(), Annotation.class.getSimpleName(), annotation);
+    }
+
+    /**
+     * Creates a {@link StanfordNLPAnnotation} that computes its {@link Annotation} the first time it is accessed.
+     * <p>
+     * The provided {@code annotator} is called at most once, even if the annotation is accessed concurrently.
+     *
+     * @param input     the input to annotate
+     * @param annotator the function used to compute the {@link Annotation} of the provided {@code input}
+     * @return the created {@link StanfordNLPAnnotation}
+     * @throws NullPointerException if the provided {@code input} or {@code annotator} is {@code null}
+     */
+    public static StanfordNLPAnnotation lazy(String input, Function<String, Annotation> annotator) {
+        checkNotNull(annotator, "Cannot create a lazy %s with the provided annotator %s",
+                StanfordNLPAnnotation.class.getSimpleName(), annotator);
+        return new StanfordNLPAnnotation(input, null, annotator);
+    }
+
+    /**
+     * Constructs a {@link StanfordNLPAnnotation} with the provided {@code annotation} or {@code annotator}.
+     *
+     * @param input      the annotated input
+     * @param annotation the {@link Annotation} computed for the provided {@code input}
+     * @param annotator  the function used to compute the {@link Annotation} of the provided {@code input}
+     * @throws NullPointerException if the provided {@code input} is {@code null}
+     */
+    private StanfordNLPAnnotation(String input, @Nullable Annotation annotation,
+                                  @Nullable Function<String, Annotation> annotator) {
+        checkNotNull(input, "Cannot create a %s with the provided input %s",
+                StanfordNLPAnnotation.class.getSimpleName(), input);
+        this.input = input;
+        this.annotation = annotation;
+        this.annotator = annotator;
+    }
+
+    /**
+     * Returns the annotated input.
+     *
+     * @return the annotated input
+     */
+    public String getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the value associated to the provided {@code key} in the wrapped {@link Annotation}.
+     *
+     * @param key     the annotation key to retrieve the value of
+     * @param <VALUE> the type of the value to retrieve
+     * @return the value, or {@code null} if the wrapped {@link Annotation} does not contain the provided {@code key}
+     */
+    @Nullable
+    public <VALUE> VALUE get(Class<? extends TypesafeMap.Key<VALUE>> key) {
+        return getAnnotation().get(key);
+    }
+
+    /**
+     * Returns the sentences of the annotated input.
+     *
+     * @return an unmodifiable {@link List} containing the sentences of the annotated input
+     */
+    public List<CoreMap> getSentences() {
+        List<CoreMap> sentences = getAnnotation().get(CoreAnnotations.SentencesAnnotation.class);
+        if (isNull(sentences)) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(sentences);
+    }
+
+    /**
+     * Returns the last sentence of the annotated input.
+     *
+     * @return the last sentence of the annotated input, or {@code null} if the input does not contain any sentence
+     */
+    @Nullable
+    public CoreMap getLastSentence() {
+        List<CoreMap> sentences = getSentences();
+        if (sentences.isEmpty()) {
+            return null;
+        }
+        return sentences.get(sentences.size() - 1);
+    }
+
+    /**
+     * Returns whether the wrapped {@link Annotation} has been computed.
+     *
+     * @return {@code true} if the {@link Annotation} has been computed, {@code false} otherwise
+     */
+    public boolean isComputed() {
+        return nonNull(annotation);
+    }
+
+    /**
+     * Returns the wrapped {@link Annotation}, computing it if necessary.
+     *
+     * @return the wrapped {@link Annotation}
+     */
+    private Annotation getAnnotation() {
+        Annotation result = this.annotation;
+        if (isNull(result)) {
+            synchronized (this) {
+                result = this.annotation;
+                if (isNull(result)) {
+                    long start = System.currentTimeMillis();
+                    result = annotator.apply(input);
+                    Log.debug("Time to annotate the input \"{0}\": {1}ms", input,
+                            System.currentTimeMillis() - start);
+                    this.annotation = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        Annotation result = this.annotation;
+        return isNull(result) ? input : result.toString();
+    }
+}
@@ -1,18 +1,20 @@
 package com.xatkit.core.recognition.processor;
 
+import com.xatkit.core.recognition.IntentRecognitionProvider;
 import com.xatkit.core.session.XatkitSession;
-import edu.stanford.nlp.pipeline.Annotation;
-import fr.inria.atlanmod.commons.log.Log;
-
-import static java.util.Objects.isNull;
+import com.xatkit.intent.RecognizedIntent;
 
 /**
  * A {@link IntentPostProcessor} using Stanford NLP library to extract information from the user input.
  * <p>
  * This class should be extended by any {@link IntentPostProcessor} relying on the {@link StanfordNLPService}. It
- * provides a default implementation of the {@link #init()} methods that warms-up the NLP pipeline with a fake input,
- * and provides the {@link #getAnnotation(String, XatkitSession)} helpers that allows to retrieve an
- * {@link Annotation} from a given input by looking in the {@link XatkitSession}.
+ * provides a default implementation of the {@link #init()} methods that warms-up the NLP pipelines with a fake input,
+ * and defines the {@link #process(RecognizedIntent, XatkitSession, StanfordNLPAnnotation)} method that receives
+ * the {@link StanfordNLPAnnotation} of the recognized input.
+ * <p>
+ * The {@link IntentRecognitionProvider} annotates each recognized input once with the union of the annotators
+ * registered by its {@link StanfordNLPPostProcessor}s, and shares the resulting {@link StanfordNLPAnnotation}
+ * between them. The annotation is not stored in the {@link XatkitSession}.
  *
  * @see StanfordNLPService
  */
@@ -24,23 +26,7 @@ public abstract class StanfordNLPPostProcessor implements IntentPostProcessor {
     protected final static String NLP_CONTEXT_KEY = "nlp";
 
     /**
-     * The {@link XatkitSession} key used to store the last annotated input.
-     * <p>
-     * This value is stored in the {@link XatkitSession} to let multiple post-processors access it to compute
-     * specific metrics.
-     */
-    protected final static String NLP_INPUT_SESSION_KEY = "xatkit.nlp.stanford.input";
-
-    /**
-     * The {@link XatkitSession} key used to store the last annotation.
-     * <p>
-     * This value is stored in the {@link XatkitSession} to let multiple post-processors access it to compute
-     * specific metrics.
-     */
-    protected final static String NLP_ANNOTATION_SESSION_KEY = "xatkit.nlp.stanford.annotation";
-
-    /**
-     * Initialize the underlying {@link StanfordNLPService} and performs a warm-up annotation on it.
+     * Initialize the underlying {@link StanfordNLPService} and warms-up its pipelines.
      * <p>
      * This method is used to avoid delays on the first query performed on a deployed chatbot.
      *
@@ -49,36 +35,38 @@ public abstract class StanfordNLPPostProcessor implements IntentPostProcessor {
     @Override
     public void init() {
         StanfordNLPService.getInstance().init();
-        /*
-         * Get an annotation to warm up the NLP engine.
-         */
-        Annotation annotation = StanfordNLPService.getInstance().annotate("Starting Xatkit!");
-        Log.debug("Warming up {0} with annotation {1}", StanfordNLPService.class.getSimpleName(), annotation);
     }
 
     /**
-     * Computes the {@link Annotation} for the provided {@code input}.
+     * Annotates the provided {@code recognizedIntent}'s input and processes it.
      * <p>
-     * This method looks in the provided {@code session} if an {@link Annotation} has been already computed for the
-     * provided {@code input} and returns it. If it is not the case a new {@link Annotation} is computed using
-     * {@link StanfordNLPService#annotate(String)} and stored in the {@code session}.
+     * This method is used when the post-processor is invoked on its own. The {@link IntentRecognitionProvider}
+     * directly calls {@link #process(RecognizedIntent, XatkitSession, StanfordNLPAnnotation)} with the annotation
+     * shared by all its {@link StanfordNLPPostProcessor}s.
      *
-     * @param input   the textual input to annotate
-     * @param session the {@link XatkitSession} corresponding to the provided {@code input}
-     * @return the {@link Annotation} corresponding to the provided {@code input}
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @return the processed {@code recognizedIntent}
+     * @see StanfordNLPService#annotateInputLazily(String)
      */
-    protected final Annotation getAnnotation(String input, XatkitSession session) {
-        String nlpInput = (String) session.get(NLP_INPUT_SESSION_KEY);
-        Annotation annotation = (Annotation) session.get(NLP_ANNOTATION_SESSION_KEY);
-        if (isNull(annotation) || isNull(nlpInput) || !nlpInput.equals(input)) {
-            Log.debug("There is no annotation for \"{0}\" in the session, computing the annotation with {1}", input,
-                    StanfordNLPService.class.getSimpleName());
-            annotation = StanfordNLPService.getInstance().annotate(input);
-            session.store(NLP_INPUT_SESSION_KEY, input);
-            session.store(NLP_ANNOTATION_SESSION_KEY, annotation);
-        } else {
-            Log.debug("Reusing annotation for \"{0}\" from the session", input);
-        }
-        return annotation;
+    @Override
+    public final RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+        StanfordNLPAnnotation annotation =
+                StanfordNLPService.getInstance().annotateInputLazily(recognizedIntent.getMatchedInput());
+        return process(recognizedIntent, session, annotation);
     }
+
+    /**
+     * Processes the provided {@code recognizedIntent} using the provided {@code annotation}.
+     * <p>
+     * The provided {@code annotation} is shared with the other {@link StanfordNLPPostProcessor}s processing the
+     * same input, and must not be modified.
+     *
+     * @param recognizedIntent the {@link RecognizedIntent} to process
+     * @param session          the {@link XatkitSession} associated to the {@code recognizedIntent}
+     * @param annotation       the {@link StanfordNLPAnnotation} of the {@code recognizedIntent}'s input
+     * @return the processed {@code recognizedIntent}
+     */
+    public abstract RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session,
+                                             StanfordNLPAnnotation annotation);
 }
@@ -1,28 +1,86 @@
 package com.xatkit.core.recognition.processor;
 
+import com.xatkit.core.XatkitException;
 import edu.stanford.nlp.pipeline.Annotation;
 import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.configuration2.Configuration;
 
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
 
 /**
- * A singleton class that wraps a {@link StanfordCoreNLP} pipeline used to process user messages.
+ * A singleton class that wraps a pool of {@link StanfordCoreNLP} pipelines used to process user messages.
  * <p>
  * This class is configured with the {@link #addAnnotator(String)} method that allows to add NLP annotators used by
  * pre/post processors. Once fully configured the actual NLP service can be initialized with {@link #init()}.
  * <p>
+ * The service creates a pool of {@link StanfordCoreNLP} pipelines (one per available core by default) that are
+ * warmed-up when the service is initialized. Concurrent annotations are distributed over the pool, and callers
+ * wait for an available pipeline if all of them are busy. The number of waiting callers and the waiting time are
+ * bounded, see {@link #MAX_WAITING_KEY} and {@link #WAIT_TIMEOUT_KEY}. Note that the pooled pipelines share the
+ * same annotators (and thus the models they load), so the size of the pool does not impact the memory consumption
+ * of the models.
+ * <p>
  * This class should be used by all the pre/post processors relying on {@link StanfordCoreNLP} in order to optimize
  * the memory consumption and the execution time.
  */
 public class StanfordNLPService {
 
+    /**
+     * The {@link Configuration} key to store the number of {@link StanfordCoreNLP} pipelines to create.
+     * <p>
+     * This option is set to the number of available processors by default.
+     */
+    public static String POOL_SIZE_KEY = "xatkit.nlp.stanford.pool_size";
+
+    /**
+     * The {@link Configuration} key to store the maximum number of annotations waiting for an available pipeline.
+     * <p>
+     * Annotations submitted when this limit is reached are rejected with a {@link XatkitException}. This option is
+     * set to {@code 100} by default.
+     */
+    public static String MAX_WAITING_KEY = "xatkit.nlp.stanford.max_waiting";
+
+    /**
+     * The {@link Configuration} key to store the maximum time (in milliseconds) to wait for an available pipeline.
+     * <p>
+     * Annotations that cannot be performed within this delay are rejected with a {@link XatkitException}. This
+     * option is set to {@code 10000} by default.
+     */
+    public static String WAIT_TIMEOUT_KEY = "xatkit.nlp.stanford.wait_timeout";
+
+    /**
+     * The default value of the {@link #POOL_SIZE_KEY} option.
+     */
+    private static final int DEFAULT_POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The default value of the {@link #MAX_WAITING_KEY} option.
+     */
+    private static int DEFAULT_MAX_WAITING = 100;
+
+    /**
+     * The default value of the {@link #WAIT_TIMEOUT_KEY} option.
+     */
+    private static long DEFAULT_WAIT_TIMEOUT = 10000;
+
+    /**
+     * The input used to warm-up the pipelines.
+     */
+    private static String WARM_UP_INPUT = "Starting Xatkit!";
+
     /**
      * The singleton instance of this class.
      *
@@ -35,7 +93,7 @@ public class StanfordNLPService {
      *
      * @return the singleton instance of this class
      */
-    public static StanfordNLPService getInstance() {
+    public static synchronized StanfordNLPService getInstance() {
         if (isNull(INSTANCE)) {
             INSTANCE = new StanfordNLPService();
         }
@@ -43,7 +101,7 @@ public class StanfordNLPService {
     }
 
     /**
-     * The list of annotators to use in the internal NLP pipeline.
+     * The list of annotators to use in the internal NLP pipelines.
      * <p>
      * These annotators are provided using their String representation, see the
      * <a href="https://nlp.stanford.edu/">Stanford NLP documentation</a> for more information.
@@ -51,9 +109,32 @@ public class StanfordNLPService {
     private List<String> annotators;
 
     /**
-     * The internal {@link StanfordCoreNLP} pipeline used to annotate user inputs.
+     * The number of {@link StanfordCoreNLP} pipelines to create.
+     *
+     * @see #POOL_SIZE_KEY
      */
-    private StanfordCoreNLP nlpPipeline;
+    private int poolSize;
+
+    /**
+     * The maximum time (in milliseconds) to wait for an available pipeline.
+     *
+     * @see #WAIT_TIMEOUT_KEY
+     */
+    private long waitTimeout;
+
+    /**
+     * The permits bounding the number of annotations that are running or waiting for an available pipeline.
+     *
+     * @see #MAX_WAITING_KEY
+     */
+    private Semaphore admissionPermits;
+
+    /**
+     * The internal {@link StanfordCoreNLP} pipelines that are available to annotate user inputs.
+     * <p>
+     * This queue is {@code null} if the service hasn't been initialized.
+     */
+    private volatile BlockingQueue<StanfordCoreNLP> nlpPipelines;
 
     /**
      * Constructs the singleton instance of this class.
@@ -62,26 +143,107 @@ public class StanfordNLPService {
      * accessed using {@link #getInstance()}.
      */
     private StanfordNLPService() {
+        this(DEFAULT_POOL_SIZE, DEFAULT_MAX_WAITING, DEFAULT_WAIT_TIMEOUT);
+    }
+
+    /**
+     * Constructs a {@link StanfordNLPService} with the provided pool settings.
+     * <p>
+     * This constructor is package-private for testing purposes, the service should be accessed with
+     * {@link #getInstance()}.
+     *
+     * @param poolSize    the number of {@link StanfordCoreNLP} pipelines to create
+     * @param maxWaiting  the maximum number of annotations waiting for an available pipeline
+     * @param waitTimeout the maximum time (in milliseconds) to wait for an available pipeline
+     * @throws IllegalArgumentException if the provided {@code poolSize} is lower than {@code 1}, or if the
+     *                                  provided {@code maxWaiting} or {@code waitTimeout} is negative
+     */
+    StanfordNLPService(int poolSize, int maxWaiting, long waitTimeout) {
         this.annotators = new ArrayList<>();
+        setPoolSettings(poolSize, maxWaiting, waitTimeout);
     }
 
     /**
-     * Initialize the underlying {@link StanfordCoreNLP} pipeline with the provided annotators.
+     * Configures the pool of {@link StanfordCoreNLP} pipelines from the provided {@code configuration}.
+     * <p>
+     * This method should be called before {@link #init()}, the provided {@code configuration} is ignored if the
+     * service is already initialized.
+     *
+     * @param configuration the {@link Configuration} containing the pool settings
+     * @throws NullPointerException     if the provided {@code configuration} is {@code null}
+     * @throws IllegalArgumentException if the {@code configuration} contains an invalid pool setting
+     * @see #POOL_SIZE_KEY
+     * @see #MAX_WAITING_KEY
+     * @see #WAIT_TIMEOUT_KEY
+     */
+    public synchronized void configure(Configuration configuration) {
+        checkNotNull(configuration, "Cannot configure the %s with the provided %s %s",
+                StanfordNLPService.class.getSimpleName(), Configuration.class.getSimpleName(), configuration);
+        if (nonNull(nlpPipelines)) {
+            Log.warn("Cannot configure the {0}, the NLP pipelines are already initialized",
+                    StanfordNLPService.class.getSimpleName());
+            return;
+        }
+        setPoolSettings(configuration.getInt(POOL_SIZE_KEY, DEFAULT_POOL_SIZE),
+                configuration.getInt(MAX_WAITING_KEY, DEFAULT_MAX_WAITING),
+                configuration.getLong(WAIT_TIMEOUT_KEY, DEFAULT_WAIT_TIMEOUT));
+    }
+
+    /**
+     * Sets the pool settings of the service.
+     *
+     * @param poolSize    the number of {@link StanfordCoreNLP} pipelines to create
+     * @param maxWaiting  the maximum number of annotations waiting for an available pipeline
+     * @param waitTimeout the maximum time (in milliseconds) to wait for an available pipeline
+     * @throws IllegalArgumentException if the provided {@code poolSize} is lower than {@code 1}, or if the
+     *                                  provided {@code maxWaiting} or {@code waitTimeout} is negative
+     */
+    private void setPoolSettings(int poolSize, int maxWaiting, long waitTimeout) {
+        checkArgument(poolSize > 0, "Cannot set the %s pool size to %s, expected a strictly positive value",
+                StanfordNLPService.class.getSimpleName(), poolSize);
+        checkArgument(maxWaiting >= 0, "Cannot set the %s maximum waiting annotations to %s, expected a positive " +
+                "value", StanfordNLPService.class.getSimpleName(), maxWaiting);
+        checkArgument(waitTimeout >= 0, "Cannot set the %s wait timeout to %s, expected a positive value",
+                StanfordNLPService.class.getSimpleName(), waitTimeout);
+        this.poolSize = poolSize;
+        this.waitTimeout = waitTimeout;
+        this.admissionPermits = new Semaphore(poolSize + maxWaiting);
+    }
+
+    /**
+     * Initialize the underlying {@link StanfordCoreNLP} pipelines with the provided annotators and warms them up.
      * <p>
      * This method should be called once <b>all</b> the annotators have been specified. Adding annotators after
      * calling this method will throw an {@link IllegalArgumentException}.
      * <p>
-     * <b>Note</b>: this method does not re-initialize the underlying {@link StanfordCoreNLP} if it has been
-     * previously initialized.
+     * The pipelines are created with the same properties, and share the same annotators: {@link StanfordCoreNLP}
+     * caches the annotators it creates and reuses them for the pipelines with the same properties. The annotators
+     * are thread-safe, and the models they require are only loaded once, by the first created pipeline. The
+     * pipelines then perform a warm-up annotation to avoid delays on the first queries performed on a deployed
+     * chatbot.
+     * <p>
+     * <b>Note</b>: this method does not re-initialize the underlying {@link StanfordCoreNLP} pipelines if they have
+     * been previously initialized.
      */
-    public void init() {
-        if (isNull(nlpPipeline)) {
+    public synchronized void init() {
+        if (isNull(nlpPipelines)) {
+            long start = System.currentTimeMillis();
             Properties props = new Properties();
             props.setProperty("annotators", String.join(",", annotators));
             props.setProperty("parse.maxlen", "100");
-            this.nlpPipeline = new StanfordCoreNLP(props);
+            List<StanfordCoreNLP> pipelines = new ArrayList<>();
+            for (int i = 0; i < poolSize; i++) {
+                pipelines.add(new StanfordCoreNLP(props));
+            }
+            /*
+             * Warm up the pipelines concurrently, the models are already loaded by the first pipeline.
+             */
+            pipelines.parallelStream().forEach(pipeline -> pipeline.annotate(new Annotation(WARM_UP_INPUT)));
+            this.nlpPipelines = new ArrayBlockingQueue<>(poolSize, false, pipelines);
+            Log.info("Initialized {0} {1} pipeline(s) with the annotators {2} in {3}ms", poolSize,
+                    StanfordCoreNLP.class.getSimpleName(), annotators, System.currentTimeMillis() - start);
         } else {
-            Log.debug("Skipping initialization of {0}, the NLP pipeline is already initialized",
+            Log.debug("Skipping initialization of {0}, the NLP pipelines are already initialized",
                     StanfordCoreNLP.class.getSimpleName());
         }
     }
@@ -97,8 +259,8 @@ public class StanfordNLPService {
      * @param annotator the annotator to add to the service
      * @throws IllegalArgumentException if the underlying NLP service is already started
      */
-    public void addAnnotator(String annotator) {
-        if (nonNull(nlpPipeline)) {
+    public synchronized void addAnnotator(String annotator) {
+        if (nonNull(nlpPipelines)) {
             throw new IllegalArgumentException(MessageFormat.format("Cannot add annotator {0}: the NLP pipeline is " +
                     "already created", annotator));
         }
@@ -118,7 +280,7 @@ public class StanfordNLPService {
      * @param annotators the list of annotators to add to the service
      * @throws IllegalArgumentException if the underlying NLP service is already started
      */
-    public void addAnnotators(List<String> annotators) {
+    public synchronized void addAnnotators(List<String> annotators) {
         for (String annotator : annotators) {
             this.addAnnotator(annotator);
         }
@@ -128,20 +290,97 @@ public class StanfordNLPService {
      * Annotates the provided {@code input} with the specified {@code annotators}.
      * <p>
      * The {@code annotators} used to annotate the provided {@code input} are specified using
-     * {@link #addAnnotator(String)}.
+     * {@link #addAnnotator(String)}. This method waits for an available pipeline if all the pooled pipelines are
+     * busy.
      *
      * @param input the textual input to annotate
      * @return the computed {@link Annotation}
+     * @throws XatkitException if too many annotations are waiting for a pipeline, or if no pipeline is available
+     *                         within the configured timeout
+     * @see #MAX_WAITING_KEY
+     * @see #WAIT_TIMEOUT_KEY
      */
     public Annotation annotate(String input) {
-        if (isNull(nlpPipeline)) {
+        if (isNull(nlpPipelines)) {
             // This first call takes too long (~2s to load everything, not acceptable)
             Log.warn("The {0} hasn't been initialized correctly, doing it right now (this may take a few seconds). To" +
-                    " avoid this make sure to init the service before any intent is matched.");
+                    " avoid this make sure to init the service before any intent is matched.",
+                    StanfordNLPService.class.getSimpleName());
             init();
         }
-        Annotation annotation = new Annotation(input);
-        nlpPipeline.annotate(annotation);
-        return annotation;
+        Semaphore permits = this.admissionPermits;
+        if (!permits.tryAcquire()) {
+            throw new XatkitException(MessageFormat.format("Cannot annotate the input \"{0}\": too many annotations " +
+                    "are waiting for an available {1} pipeline", input, StanfordCoreNLP.class.getSimpleName()));
+        }
+        try {
+            StanfordCoreNLP pipeline = nlpPipelines.poll(waitTimeout, TimeUnit.MILLISECONDS);
+            if (isNull(pipeline)) {
+                throw new XatkitException(MessageFormat.format("Cannot annotate the input \"{0}\": no {1} pipeline " +
+                        "available after {2}ms", input, StanfordCoreNLP.class.getSimpleName(), waitTimeout));
+            }
+            try {
+                Annotation annotation = new Annotation(input);
+                pipeline.annotate(annotation);
+                return annotation;
+            } finally {
+                nlpPipelines.offer(pipeline);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new XatkitException(MessageFormat.format("Interrupted while waiting for an available {0} pipeline",
+                    StanfordCoreNLP.class.getSimpleName()), e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Annotates the provided {@code input} and returns a read-only view of the computed {@link Annotation}.
+     * <p>
+     * The {@code input} is annotated once with the union of the annotators registered by the pre/post processors
+     * (see {@link #addAnnotator(String)}), and the returned {@link StanfordNLPAnnotation} can be shared between
+     * all the processors handling the {@code input}.
+     *
+     * @param input the textual input to annotate
+     * @return the {@link StanfordNLPAnnotation} wrapping the computed {@link Annotation}
+     * @see #annotate(String)
+     */
+    public StanfordNLPAnnotation annotateInput(String input) {
+        return new StanfordNLPAnnotation(input, annotate(input));
+    }
+
+    /**
+     * Returns a {@link StanfordNLPAnnotation} that annotates the provided {@code input} the first time it is accessed.
+     * <p>
+     * This method allows to share the annotation of an {@code input} between processors without computing it if
+     * none of them needs it.
+     *
+     * @param input the textual input to annotate
+     * @return the lazy {@link StanfordNLPAnnotation}
+     * @see #annotateInput(String)
+     */
+    public StanfordNLPAnnotation annotateInputLazily(String input) {
+        return StanfordNLPAnnotation.lazy(input, this::annotate);
+    }
+
+    /**
+     * Returns the number of {@link StanfordCoreNLP} pipelines that are not currently annotating an input.
+     *
+     * @return the number of available pipelines, or {@code 0} if the service is not initialized
+     */
+    public int getAvailablePipelineCount() {
+        BlockingQueue<StanfordCoreNLP> pipelines = this.nlpPipelines;
+        return isNull(pipelines) ? 0 : pipelines.size();
+    }
+
+    /**
+     * Returns the number of {@link StanfordCoreNLP} pipelines created by this service.
+     *
+     * @return the number of pipelines
+     * @see #POOL_SIZE_KEY
+     */
+    public int getPoolSize() {
+        return poolSize;
     }
 }
@@ -0,0 +1,229 @@
+package com.xatkit.core.recognition.processor;
+
+import java.util.Map;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+
+/**
+ * An immutable open-addressing hash table mapping tokens to {@code float} values.
+ * <p>
+ * This class allows to look up a token delimited by a range of a {@link CharSequence} without creating a
+ * {@link String} for it: the hash of the token and the comparison with the stored tokens are computed directly on
+ * the characters of the provided {@link CharSequence}. Lookups are case-insensitive by default (the stored tokens
+ * are lower-cased when the table is created), case-sensitive tables can be created with
+ * {@link #TokenTable(Map, boolean)}.
+ * <p>
+ * This class is designed for processors that need to scan every token of the user input (e.g. lexicon or stop word
+ * lookups) and should not allocate objects for each processed token.
+ */
+final class TokenTable {
+
+    /**
+     * The value returned by {@link #indexOf(CharSequence, int, int)} if the token is not in the table.
+     */
+    static final int NOT_FOUND = -1;
+
+    /**
+     * The stored tokens, indexed by their slot in the table.
+     * <p>
+     * Empty slots contain {@code null}.
+     */
+    private final char[][] tokens;
+
+    /**
+     * The values associated to the stored tokens, indexed by their slot in the table.
+     */
+    private final float[] values;
+
+    /**
+     * The mask used to compute the slot of a hash value.
+     * <p>
+     * The size of the table is a power of two, so {@code hash & mask} is equivalent to {@code hash % size}.
+     */
+    private final int mask;
+
+    /**
+     * The number of tokens stored in the table.
+     */
+    private final int size;
+
+    /**
+     * A flag telling whether the lookups ignore case.
+     */
+    private final boolean ignoreCase;
+
+    /**
+     * Constructs a case-insensitive {@link TokenTable} containing the provided {@code entries}.
+     *
+     * @param entries the tokens and values to store in the table
+     * @throws NullPointerException     if the provided {@code entries} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code entries} contains an empty token
+     * @see #TokenTable(Map, boolean)
+     */
+    TokenTable(Map<String, Float> entries) {
+        this(entries, true);
+    }
+
+    /**
+     * Constructs a {@link TokenTable} containing the provided {@code entries}.
+     * <p>
+     * The table is sized to keep its load factor under {@code 0.5}, which keeps the probe sequences short.
+     *
+     * @param entries    the tokens and values to store in the table
+     * @param ignoreCase whether the lookups ignore case
+     * @throws NullPointerException     if the provided {@code entries} is {@code null}
+     * @throws IllegalArgumentException if the provided {@code entries} contains an empty token
+     */
+    TokenTable(Map<String, Float> entries, boolean ignoreCase) {
+        checkNotNull(entries, "Cannot create a %s from the provided entries %s", TokenTable.class.getSimpleName(),
+                entries);
+        int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        this.tokens = new char[capacity][];
+        this.values = new float[capacity];
+        this.mask = capacity - 1;
+        this.ignoreCase = ignoreCase;
+        int count = 0;
+        for (Map.Entry<String, Float> entry : entries.entrySet()) {
+            String token = ignoreCase ? entry.getKey().toLowerCase() : entry.getKey();
+            checkArgument(!token.isEmpty(), "Cannot add an empty token to the %s", TokenTable.class.getSimpleName());
+            int slot = hash(token, 0, token.length()) & mask;
+            while (tokens[slot] != null && !matches(tokens[slot], token, 0, token.length())) {
+                slot = (slot + 1) & mask;
+            }
+            if (tokens[slot] == null) {
+                count++;
+            }
+            tokens[slot] = token.toCharArray();
+            values[slot] = entry.getValue();
+        }
+        this.size = count;
+    }
+
+    /**
+     * Returns the slot of the token between {@code start} (inclusive) and {@code end} (exclusive) in the provided
+     * {@code text}.
+     *
+     * @param text  the text containing the token to look up
+     * @param start the index of the first character of the token
+     * @param end   the index following the last character of the token
+     * @return the slot of the token, or {@link #NOT_FOUND} if the table does not contain it
+     */
+    int indexOf(CharSequence text, int start, int end) {
+        if (start >= end) {
+            return NOT_FOUND;
+        }
+        int slot = hash(text, start, end) & mask;
+        char[] candidate;
+        while ((candidate = tokens[slot]) != null) {
+            if (matches(candidate, text, start, end)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * Returns whether the table contains the token between {@code start} (inclusive) and {@code end} (exclusive) in
+     * the provided {@code text}.
+     *
+     * @param text  the text containing the token to look up
+     * @param start the index of the first character of the token
+     * @param end   the index following the last character of the token
+     * @return {@code true} if the table contains the token, {@code false} otherwise
+     */
+    boolean contains(CharSequence text, int start, int end) {
+        return indexOf(text, start, end) != NOT_FOUND;
+    }
+
+    /**
+     * Returns whether the table contains the provided {@code token}.
+     *
+     * @param token the token to look up
+     * @return {@code true} if the table contains the token, {@code false} otherwise
+     */
+    boolean contains(CharSequence token) {
+        return contains(token, 0, token.length());
+    }
+
+    /**
+     * Returns the value stored in the provided {@code slot}.
+     *
+     * @param slot the slot returned by {@link #indexOf(CharSequence, int, int)}
+     * @return the value stored in the provided {@code slot}
+     */
+    float valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Returns the value associated to the token between {@code start} (inclusive) and {@code end} (exclusive) in the
+     * provided {@code text}.
+     *
+     * @param text         the text containing the token to look up
+     * @param start        the index of the first character of the token
+     * @param end          the index following the last character of the token
+     * @param defaultValue the value to return if the table does not contain the token
+     * @return the value associated to the token, or {@code defaultValue} if the table does not contain it
+     */
+    float getValue(CharSequence text, int start, int end, float defaultValue) {
+        int slot = indexOf(text, start, end);
+        return slot == NOT_FOUND ? defaultValue : values[slot];
+    }
+
+    /**
+     * Returns the number of tokens stored in the table.
+     *
+     * @return the number of tokens stored in the table
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Computes the hash of the token between {@code start} and {@code end} in the provided {@code text}.
+     * <p>
+     * The hash is computed on the lower-cased characters of the token if the table ignores case.
+     *
+     * @param text  the text containing the token
+     * @param start the index of the first character of the token
+     * @param end   the index following the last character of the token
+     * @return the hash of the token
+     */
+    private int hash(CharSequence text, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + (ignoreCase ? Character.toLowerCase(text.charAt(i)) : text.charAt(i));
+        }
+        /*
+         * Spread the high bits, the table only uses the low bits of the hash.
+         */
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns whether the provided stored {@code token} is equal to the token between {@code start} and {@code end}
+     * in the provided {@code text}.
+     * <p>
+     * The characters of the provided {@code text} are lower-cased before the comparison if the table ignores case.
+     *
+     * @param token the stored token to compare
+     * @param text  the text containing the token to compare
+     * @param start the index of the first character of the token
+     * @param end   the index following the last character of the token
+     * @return {@code true} if the tokens are equal, {@code false} otherwise
+     */
+    private boolean matches(char[] token, CharSequence text, int start, int end) {
+        if (token.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < token.length; i++) {
+            char c = text.charAt(start + i);
+            if (token[i] != (ignoreCase ? Character.toLowerCase(c) : c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -188,7 +188,7 @@ public class RegExIntentRecognitionProvider extends IntentRecognitionProvider {
      * @see #registerIntentDefinition(IntentDefinition)
      */
     @Override
-    public void registerEntityDefinition(EntityDefinition entityDefinition) {
+    protected void registerEntityDefinitionInternal(EntityDefinition entityDefinition) {
         if (entityDefinition instanceof BaseEntityDefinition) {
             BaseEntityDefinition baseEntityDefinition = (BaseEntityDefinition) entityDefinition;
             Log.trace("Skipping registration of {0} ({1}), {0} are natively supported",
@@ -278,7 +278,7 @@ public class RegExIntentRecognitionProvider extends IntentRecognitionProvider {
      * @see #registerEntityDefinition(EntityDefinition)
      */
     @Override
-    public void registerIntentDefinition(IntentDefinition intentDefinition) {
+    protected void registerIntentDefinitionInternal(IntentDefinition intentDefinition) {
         /*
          * This method does not register the parent of the provided intentDefinition. This is not required: if the
          * parent is not registered the intent will not be matched anyways (see #getMatchableIntentDefinition).
@@ -363,7 +363,7 @@ public class RegExIntentRecognitionProvider extends IntentRecognitionProvider {
      * @param entityDefinition the {@link EntityDefinition} to delete from the underlying intent recognition provider
      */
     @Override
-    public void deleteEntityDefinition(EntityDefinition entityDefinition) {
+    protected void deleteEntityDefinitionInternal(EntityDefinition entityDefinition) {
         /*
          * Quick fix: should be done properly.
          */
@@ -379,7 +379,7 @@ public class RegExIntentRecognitionProvider extends IntentRecognitionProvider {
      * @param intentDefinition the {@link IntentDefinition} to delete from the underlying intent recognition provider
      */
     @Override
-    public void deleteIntentDefinition(IntentDefinition intentDefinition) {
+    protected void deleteIntentDefinitionInternal(IntentDefinition intentDefinition) {
         this.intentPatterns.remove(intentDefinition);
     }
 
@@ -418,7 +418,7 @@ public class RegExIntentRecognitionProvider extends IntentRecognitionProvider {
      * {@inheritDoc}
      */
     @Override
-    public void shutdown() {
+    protected void shutdownInternal() {
         this.intentPatterns = null;
         this.isShutdown = true;
         if (nonNull(this.recognitionMonitor)) {
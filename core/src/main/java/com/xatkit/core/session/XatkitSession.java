@@ -86,6 +86,32 @@ public class XatkitSession {
         Log.info("{0} {1} created", XatkitSession.class.getSimpleName(), this.sessionId);
     }
 
+    /**
+     * Constructs a {@link XatkitSession} with the provided {@code sessionId}, {@code configuration}, and {@code
+     * runtimeContexts}.
+     * <p>
+     * This constructor is used by subclasses that provide their own {@link RuntimeContexts} implementation, such as
+     * views over an existing session. It does not log the creation of the session.
+     *
+     * @param sessionId       the unique identifier of the {@link XatkitSession}
+     * @param configuration   the {@link Configuration} parameterizing the {@link XatkitSession}
+     * @param runtimeContexts the {@link RuntimeContexts} used to store context-related variables
+     * @throws NullPointerException if the provided {@code sessionId}, {@code configuration}, or {@code
+     *                              runtimeContexts} is {@code null}
+     */
+    protected XatkitSession(String sessionId, Configuration configuration, RuntimeContexts runtimeContexts) {
+        checkNotNull(sessionId, "Cannot construct a %s with the session Id %s", XatkitSession.class.getSimpleName(),
+                sessionId);
+        checkNotNull(configuration, "Cannot construct a %s with the provided %s: %s", XatkitSession.class
+                .getSimpleName(), Configuration.class.getSimpleName(), configuration);
+        checkNotNull(runtimeContexts, "Cannot construct a %s with the provided %s: %s", XatkitSession.class
+                .getSimpleName(), RuntimeContexts.class.getSimpleName(), runtimeContexts);
+        this.sessionId = sessionId;
+        this.runtimeContexts = runtimeContexts;
+        this.sessionVariables = new HashMap<>();
+        this.configuration = configuration;
+    }
+
     /**
      * Returns the unique identifier of the {@link XatkitSession}.
      *
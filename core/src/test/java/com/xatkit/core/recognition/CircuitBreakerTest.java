@@ -0,0 +1,141 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.AbstractXatkitTest;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CircuitBreakerTest extends AbstractXatkitTest {
+
+    private long now;
+
+    private CircuitBreaker circuitBreaker;
+
+    @Before
+    public void setUp() {
+        now = 0;
+        /*
+         * Window of 4 calls, opens at 50% failures or 50% slow calls (> 100ms), stays open for 1000ms, 2 probes.
+         */
+        circuitBreaker = new CircuitBreaker("test", 4, 4, 0.5, 100, 0.5, 1000, 2, () -> now);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullConfiguration() {
+        new CircuitBreaker("test", null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructInvalidMinimumCalls() {
+        BaseConfiguration configuration = new BaseConfiguration();
+        configuration.addProperty("test" + CircuitBreaker.WINDOW_SIZE_KEY, 5);
+        configuration.addProperty("test" + CircuitBreaker.MINIMUM_CALLS_KEY, 10);
+        new CircuitBreaker("test", configuration);
+    }
+
+    @Test
+    public void constructDefaultConfiguration() {
+        circuitBreaker = new CircuitBreaker("test", new BaseConfiguration());
+        assertThat(circuitBreaker.getState()).as("Circuit is closed").isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Call is permitted").isTrue();
+    }
+
+    @Test
+    public void successfulCallsKeepCircuitClosed() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(circuitBreaker.tryAcquirePermission()).as("Call is permitted").isTrue();
+            circuitBreaker.onSuccess(10);
+        }
+        assertThat(circuitBreaker.getState()).as("Circuit is closed").isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void failuresBelowMinimumCallsKeepCircuitClosed() {
+        circuitBreaker.onError(10);
+        circuitBreaker.onError(10);
+        circuitBreaker.onError(10);
+        assertThat(circuitBreaker.getState()).as("Circuit is closed").isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    public void failureRateOpensCircuit() {
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onError(10);
+        circuitBreaker.onError(10);
+        assertThat(circuitBreaker.getState()).as("Circuit is open").isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Call is rejected").isFalse();
+        assertThat(circuitBreaker.getRejectedCount()).as("Rejected count is 1").isEqualTo(1);
+        assertThat(circuitBreaker.getOpenedCount()).as("Opened count is 1").isEqualTo(1);
+    }
+
+    @Test
+    public void slowCallRateOpensCircuit() {
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(500);
+        circuitBreaker.onSuccess(500);
+        assertThat(circuitBreaker.getState()).as("Circuit is open").isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    public void slidingWindowEvictsOldFailures() {
+        circuitBreaker.onError(10);
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(10);
+        /*
+         * The first failure is evicted, the window contains 1 failure out of 4 calls.
+         */
+        circuitBreaker.onError(10);
+        assertThat(circuitBreaker.getState()).as("Circuit is closed").isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.getFailureRate()).as("Failure rate is 0.25").isEqualTo(0.25);
+    }
+
+    @Test
+    public void successfulProbesCloseCircuit() {
+        openCircuit();
+        now = 1000;
+        assertThat(circuitBreaker.tryAcquirePermission()).as("First probe is permitted").isTrue();
+        assertThat(circuitBreaker.getState()).as("Circuit is half-open").isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Second probe is permitted").isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Third call is rejected").isFalse();
+        circuitBreaker.onSuccess(10);
+        circuitBreaker.onSuccess(10);
+        assertThat(circuitBreaker.getState()).as("Circuit is closed").isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Call is permitted").isTrue();
+    }
+
+    @Test
+    public void failedProbeReopensCircuit() {
+        openCircuit();
+        now = 1000;
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Probe is permitted").isTrue();
+        circuitBreaker.onError(10);
+        assertThat(circuitBreaker.getState()).as("Circuit is open").isEqualTo(CircuitBreaker.State.OPEN);
+        now = 1500;
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Call is rejected").isFalse();
+        assertThat(circuitBreaker.getOpenedCount()).as("Opened count is 2").isEqualTo(2);
+    }
+
+    @Test
+    public void releasedProbeIsAcceptedAgain() {
+        openCircuit();
+        now = 1000;
+        assertThat(circuitBreaker.tryAcquirePermission()).as("First probe is permitted").isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Second probe is permitted").isTrue();
+        circuitBreaker.releasePermission();
+        assertThat(circuitBreaker.getState()).as("Circuit is half-open").isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Released probe is permitted again").isTrue();
+        assertThat(circuitBreaker.tryAcquirePermission()).as("Third call is rejected").isFalse();
+    }
+
+    private void openCircuit() {
+        for (int i = 0; i < 4; i++) {
+            circuitBreaker.onError(10);
+        }
+        assertThat(circuitBreaker.getState()).as("Circuit is open").isEqualTo(CircuitBreaker.State.OPEN);
+    }
+}
@@ -0,0 +1,248 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.recognition.GroupCommitWriter.Durability;
+import com.xatkit.core.recognition.GroupCommitWriter.OverflowPolicy;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Objects.nonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GroupCommitWriterTest extends AbstractXatkitTest {
+
+    private GroupCommitWriter<Integer> writer;
+
+    private List<Integer> applied = new CopyOnWriteArrayList<>();
+
+    private List<Integer> committed = new CopyOnWriteArrayList<>();
+
+    private AtomicInteger commitCount = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        if (nonNull(writer)) {
+            writer.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructZeroCapacity() {
+        createWriter(0, 10, 100, Durability.ASYNC, OverflowPolicy.BLOCK);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructZeroBatchSize() {
+        createWriter(10, 0, 100, Durability.ASYNC, OverflowPolicy.BLOCK);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullDurability() {
+        createWriter(10, 10, 100, null, OverflowPolicy.BLOCK);
+    }
+
+    @Test
+    public void submitSync() {
+        writer = createWriter(10, 100, 60000, Durability.SYNC, OverflowPolicy.BLOCK);
+        assertThat(writer.submit(1)).as("Record queued").isTrue();
+        assertThat(committed).as("Record committed when submit returns").containsExactly(1);
+        assertThat(writer.getCommitCount()).as("One commit").isEqualTo(1);
+    }
+
+    @Test
+    public void submitAsyncBatchSize() {
+        writer = createWriter(10, 2, 60000, Durability.ASYNC, OverflowPolicy.BLOCK);
+        writer.submit(1);
+        writer.submit(2);
+        waitFor(() -> committed.size() == 2);
+        assertThat(committed).as("Batch committed").containsExactly(1, 2);
+    }
+
+    @Test
+    public void submitAsyncFlushInterval() {
+        writer = createWriter(10, 100, 10, Durability.ASYNC, OverflowPolicy.BLOCK);
+        writer.submit(1);
+        waitFor(() -> committed.size() == 1);
+        assertThat(committed).as("Record committed after the flush interval").containsExactly(1);
+    }
+
+    @Test
+    public void submitNoneNotCommitted() throws InterruptedException {
+        writer = createWriter(10, 1, 10, Durability.NONE, OverflowPolicy.BLOCK);
+        writer.submit(1);
+        waitFor(() -> applied.size() == 1);
+        Thread.sleep(50);
+        assertThat(committed).as("Record not committed").isEmpty();
+        writer.flush();
+        assertThat(committed).as("Record committed by flush").containsExactly(1);
+    }
+
+    @Test
+    public void submitDropNewest() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        writer = new GroupCommitWriter<>("test-writer", 2, 100, 10, Durability.ASYNC,
+                OverflowPolicy.DROP_NEWEST, r -> await(latch), () -> {
+        });
+        try {
+            writer.submit(1);
+            waitFor(() -> writer.getQueueDepth() == 0);
+            assertThat(writer.submit(2)).as("Record 2 queued").isTrue();
+            assertThat(writer.submit(3)).as("Record 3 queued").isTrue();
+            assertThat(writer.submit(4)).as("Record 4 dropped").isFalse();
+            assertThat(writer.getQueueDepth()).as("Queue is full").isEqualTo(2);
+            assertThat(writer.getDroppedCount()).as("One dropped record").isEqualTo(1);
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    public void submitDropOldest() {
+        CountDownLatch latch = new CountDownLatch(1);
+        writer = new GroupCommitWriter<>("test-writer", 2, 100, 10, Durability.ASYNC,
+                OverflowPolicy.DROP_OLDEST, r -> {
+            await(latch);
+            applied.add(r);
+        }, () -> {
+        });
+        try {
+            writer.submit(1);
+            waitFor(() -> writer.getQueueDepth() == 0);
+            writer.submit(2);
+            writer.submit(3);
+            assertThat(writer.submit(4)).as("Record 4 queued").isTrue();
+            assertThat(writer.getDroppedCount()).as("One dropped record").isEqualTo(1);
+        } finally {
+            latch.countDown();
+        }
+        writer.flush();
+        assertThat(applied).as("Oldest queued record dropped").containsExactly(1, 3, 4);
+    }
+
+    @Test
+    public void close() {
+        writer = createWriter(10, 100, 60000, Durability.ASYNC, OverflowPolicy.BLOCK);
+        writer.submit(1);
+        writer.submit(2);
+        writer.close();
+        assertThat(committed).as("Queued records committed").containsExactly(1, 2);
+        assertThat(writer.submit(3)).as("Record submitted after close dropped").isFalse();
+    }
+
+    @Test
+    public void concurrentSubmitSync() throws InterruptedException {
+        writer = createWriter(1000, 1000, 60000, Durability.SYNC, OverflowPolicy.BLOCK);
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 100; j++) {
+                    writer.submit(threadIndex * 100 + j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(committed).as("All records committed").hasSize(800);
+        assertThat(writer.getCommittedCount()).as("Correct committed count").isEqualTo(800);
+        assertThat(writer.getCommitLatencies().getTotalCount()).as("Commit latencies recorded")
+                .isEqualTo(writer.getCommitCount());
+    }
+
+    @Test
+    public void submitBlockWaitsForQueueSpace() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        writer = new GroupCommitWriter<>("test-writer", 2, 100, 10, Durability.ASYNC,
+                OverflowPolicy.BLOCK, r -> {
+            await(latch);
+            applied.add(r);
+        }, () -> {
+        });
+        Thread blockedThread;
+        try {
+            writer.submit(1);
+            waitFor(() -> writer.getQueueDepth() == 0);
+            writer.submit(2);
+            writer.submit(3);
+            blockedThread = new Thread(() -> writer.submit(4));
+            blockedThread.start();
+            waitFor(() -> blockedThread.getState() == Thread.State.WAITING);
+            assertThat(writer.getQueueDepth()).as("Queue is full").isEqualTo(2);
+        } finally {
+            latch.countDown();
+        }
+        blockedThread.join();
+        writer.flush();
+        assertThat(applied).as("Blocked record applied").containsExactly(1, 2, 3, 4);
+        assertThat(writer.getDroppedCount()).as("No dropped record").isEqualTo(0);
+    }
+
+    @Test
+    public void concurrentSubmitClose() throws InterruptedException {
+        writer = createWriter(10, 5, 60000, Durability.ASYNC, OverflowPolicy.BLOCK);
+        AtomicInteger queuedCount = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            int threadIndex = i;
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    if (writer.submit(threadIndex * 1000 + j)) {
+                        queuedCount.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        waitFor(() -> writer.getCommittedCount() > 0);
+        writer.close();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(committed).as("All the queued records are committed").hasSize(queuedCount.get());
+        assertThat(queuedCount.get() + writer.getDroppedCount()).as("Other records are dropped").isEqualTo(4000);
+    }
+
+    private GroupCommitWriter<Integer> createWriter(int capacity, int batchSize, long flushInterval,
+                                                    Durability durability, OverflowPolicy overflowPolicy) {
+        List<Integer> pending = new CopyOnWriteArrayList<>();
+        return new GroupCommitWriter<>("test-writer", capacity, batchSize, flushInterval, durability,
+                overflowPolicy, r -> {
+            applied.add(r);
+            pending.add(r);
+        }, () -> {
+            committed.addAll(pending);
+            pending.clear();
+            commitCount.incrementAndGet();
+        });
+    }
+
+    private static void waitFor(Condition condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.isSatisfied() && System.nanoTime() < deadline) {
+            Thread.yield();
+        }
+        assertThat(condition.isSatisfied()).as("Condition satisfied").isTrue();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Condition {
+
+        boolean isSatisfied();
+    }
+}
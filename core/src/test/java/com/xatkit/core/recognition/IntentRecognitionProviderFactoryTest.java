@@ -4,14 +4,15 @@ import com.xatkit.AbstractXatkitTest;
 import com.xatkit.core.XatkitCore;
 import com.xatkit.core.recognition.dialogflow.DialogFlowApi;
 import com.xatkit.core.recognition.dialogflow.DialogFlowApiTest;
+import com.xatkit.core.recognition.processor.InputPreProcessor;
 import com.xatkit.core.recognition.processor.IntentPostProcessor;
+import com.xatkit.core.recognition.processor.LanguageDetectionPreProcessor;
 import com.xatkit.core.recognition.regex.RegExIntentRecognitionProvider;
 import com.xatkit.stubs.StubXatkitCore;
 import org.apache.commons.configuration2.BaseConfiguration;
 import org.apache.commons.configuration2.Configuration;
 import org.junit.After;
 import org.junit.AfterClass;
-import org.junit.Ignore;
 import org.junit.Test;
 
 import static java.util.Objects.nonNull;
@@ -97,10 +98,37 @@ public class IntentRecognitionProviderFactoryTest extends AbstractXatkitTest {
         assertThat(provider.getPostProcessors()).as("PostProcessor list is empty").isEmpty();
     }
 
-    @Ignore
     @Test
     public void getIntentRecognitionProviderEmptyConfigurationPreProcessor() {
-        // TODO when at least one pre-processor is implemented in xatkit-runtime
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(IntentRecognitionProviderFactory.RECOGNITION_PREPROCESSORS_KEY,
+                "LanguageDetection");
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore, configuration);
+        assertThat(provider.getPreProcessors()).as("PreProcessor list contains 1 element").hasSize(1);
+        InputPreProcessor preProcessor = provider.getPreProcessors().get(0);
+        assertThat(preProcessor.getClass().getSimpleName()).as("Valid PreProcessor").isEqualTo(
+                "LanguageDetectionPreProcessor");
+    }
+
+    @Test
+    public void getIntentRecognitionProviderLanguages() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(IntentRecognitionProviderFactory.RECOGNITION_LANGUAGES_KEY, "en, fr");
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore, configuration);
+        assertThat(provider).as("IntentRecognitionProvider is a LanguageRoutingIntentRecognitionProvider")
+                .isInstanceOf(LanguageRoutingIntentRecognitionProvider.class);
+        LanguageRoutingIntentRecognitionProvider routingProvider = (LanguageRoutingIntentRecognitionProvider) provider;
+        assertThat(routingProvider.getProviders()).as("One provider per language").containsOnlyKeys("en", "fr");
+        assertThat(routingProvider.getProviders().values()).as("Language providers are " +
+                "RegExIntentRecognitionProviders").allMatch(p -> p instanceof RegExIntentRecognitionProvider);
+        assertThat(routingProvider.getProviders().values()).as("Language providers do not have a monitor")
+                .allMatch(p -> p.getRecognitionMonitor() == null);
+        assertThat(provider.getRecognitionMonitor()).as("Recognition monitor is not null").isNotNull();
+        assertThat(provider.getPreProcessors()).as("PreProcessor list contains 1 element").hasSize(1);
+        assertThat(provider.getPreProcessors().get(0)).as("Language detection pre-processor is added")
+                .isInstanceOf(LanguageDetectionPreProcessor.class);
+        assertThat(((LanguageDetectionPreProcessor) provider.getPreProcessors().get(0)).getLanguages())
+                .as("Language detection pre-processor supports the configured languages").containsExactly("en", "fr");
     }
 
     @Test
@@ -114,4 +142,39 @@ public class IntentRecognitionProviderFactoryTest extends AbstractXatkitTest {
         assertThat(postProcessor.getClass().getSimpleName()).as("Valid PostProcessor").isEqualTo(
                 "RemoveEnglishStopWordsPostProcessor");
     }
+
+    @Test
+    public void getIntentRecognitionProviderParallelPostProcessors() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(IntentRecognitionProviderFactory.RECOGNITION_POSTPROCESSORS_KEY,
+                "RemoveEnglishStopWords, EnglishLexiconSentiment");
+        configuration.addProperty(IntentRecognitionProviderFactory.RECOGNITION_POSTPROCESSORS_PARALLEL_KEY, true);
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore, configuration);
+        assertThat(provider.getPostProcessors()).as("PostProcessor list contains 2 elements").hasSize(2);
+        assertThat(provider.getPostProcessorPipeline().isParallel()).as("Parallel pipeline").isTrue();
+    }
+
+    @Test
+    public void getIntentRecognitionProviderSequentialPostProcessorsByDefault() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(IntentRecognitionProviderFactory.RECOGNITION_POSTPROCESSORS_KEY,
+                "RemoveEnglishStopWords");
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore, configuration);
+        assertThat(provider.getPostProcessorPipeline().isParallel()).as("Sequential pipeline").isFalse();
+    }
+
+    @Test
+    public void getIntentRecognitionProviderLatencyMonitoringEnabledByDefault() {
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore,
+                new BaseConfiguration());
+        assertThat(provider.getLatencyMonitor()).as("Latency monitor is not null").isNotNull();
+    }
+
+    @Test
+    public void getIntentRecognitionProviderLatencyMonitoringDisabled() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(IntentRecognitionProviderFactory.ENABLE_LATENCY_MONITORING_KEY, false);
+        provider = IntentRecognitionProviderFactory.getIntentRecognitionProvider(stubXatkitCore, configuration);
+        assertThat(provider.getLatencyMonitor()).as("Latency monitor is null").isNull();
+    }
 }
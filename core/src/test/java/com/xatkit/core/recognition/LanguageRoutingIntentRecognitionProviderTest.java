@@ -0,0 +1,156 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.recognition.processor.LanguageDetectionPreProcessor;
+import com.xatkit.core.recognition.regex.RegExIntentRecognitionProvider;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.RecognizedIntent;
+import com.xatkit.test.util.ElementFactory;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.nonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LanguageRoutingIntentRecognitionProviderTest extends AbstractXatkitTest {
+
+    private RecordingProvider englishProvider;
+
+    private RecordingProvider frenchProvider;
+
+    private LanguageRoutingIntentRecognitionProvider provider;
+
+    @Before
+    public void setUp() {
+        englishProvider = new RecordingProvider();
+        frenchProvider = new RecordingProvider();
+        Map<String, IntentRecognitionProvider> providers = new LinkedHashMap<>();
+        providers.put("en", englishProvider);
+        providers.put("fr", frenchProvider);
+        provider = new LanguageRoutingIntentRecognitionProvider(providers, null);
+    }
+
+    @After
+    public void tearDown() {
+        if (nonNull(provider) && !provider.isShutdown()) {
+            provider.shutdown();
+        }
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullProviders() {
+        new LanguageRoutingIntentRecognitionProvider(null, null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructEmptyProviders() {
+        new LanguageRoutingIntentRecognitionProvider(Collections.emptyMap(), null);
+    }
+
+    @Test
+    public void constructValid() {
+        assertThat(provider.getDefaultLanguage()).as("Default language is the first one").isEqualTo("en");
+        assertThat(provider.getProviders()).as("Providers are set").containsOnlyKeys("en", "fr");
+    }
+
+    @Test
+    public void registerIntentDefinition() {
+        IntentDefinition intentDefinition = ElementFactory.createIntentDefinitionNoOutContext();
+        provider.registerIntentDefinition(intentDefinition);
+        assertThat(englishProvider.getIntent("this is a test", englishProvider.createSession("id")).getDefinition())
+                .as("Intent registered in the English provider").isEqualTo(intentDefinition);
+        assertThat(frenchProvider.getIntent("this is a test", frenchProvider.createSession("id")).getDefinition())
+                .as("Intent registered in the French provider").isEqualTo(intentDefinition);
+    }
+
+    @Test
+    public void getIntentNoLanguage() {
+        XatkitSession session = provider.createSession("sessionID");
+        provider.getIntent("this is a test", session);
+        assertThat(englishProvider.sessions).as("Default provider called with the bot session")
+                .containsExactly(session);
+        assertThat(frenchProvider.sessions).as("French provider not called").isEmpty();
+    }
+
+    @Test
+    public void getIntentDetectedLanguage() {
+        XatkitSession session = provider.createSession("sessionID");
+        session.getRuntimeContexts().setContextValue("context", 2, "key", "value");
+        session.store(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY, "fr");
+        provider.getIntent("this is a test", session);
+        provider.getIntent("this is a test", session);
+        assertThat(englishProvider.sessions).as("Default provider not called").isEmpty();
+        assertThat(frenchProvider.sessions).as("French provider called twice").hasSize(2);
+        XatkitSession frenchSession = frenchProvider.sessions.get(0);
+        assertThat(frenchSession.getSessionId()).as("Same session identifier").isEqualTo(session.getSessionId());
+        assertThat(frenchSession.getRuntimeContexts().getContextValue("context", "key"))
+                .as("Contexts are merged").isEqualTo("value");
+    }
+
+    @Test
+    public void getIntentDetectedLanguageExpiredContext() {
+        XatkitSession session = provider.createSession("sessionID");
+        session.getRuntimeContexts().setContextValue("context", 1, "key", "value");
+        session.store(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY, "fr");
+        provider.getIntent("this is a test", session);
+        session.getRuntimeContexts().decrementLifespanCounts();
+        provider.getIntent("this is a test", session);
+        assertThat(frenchProvider.sessions).as("French provider called twice").hasSize(2);
+        assertThat(frenchProvider.sessions.get(1).getRuntimeContexts().getContextMap())
+                .as("Expired context not merged").doesNotContainKey("context");
+    }
+
+    @Test
+    public void getIntentUnsupportedLanguage() {
+        XatkitSession session = provider.createSession("sessionID");
+        session.store(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY, "es");
+        provider.getIntent("this is a test", session);
+        assertThat(englishProvider.sessions).as("Default provider called").hasSize(1);
+    }
+
+    @Test
+    public void getIntentWithLanguageDetection() {
+        provider.setPreProcessors(Collections.singletonList(new LanguageDetectionPreProcessor(Arrays.asList("en",
+                "fr"))));
+        XatkitSession session = provider.createSession("sessionID");
+        RecognizedIntent recognizedIntent = provider.getIntent("Je voudrais réserver une table", session);
+        assertThat(recognizedIntent).as("Not null recognized intent").isNotNull();
+        assertThat(frenchProvider.sessions).as("French provider called").hasSize(1);
+    }
+
+    @Test
+    public void shutdown() {
+        provider.shutdown();
+        assertThat(englishProvider.isShutdown()).as("English provider is shutdown").isTrue();
+        assertThat(frenchProvider.isShutdown()).as("French provider is shutdown").isTrue();
+        assertThat(provider.isShutdown()).as("Routing provider is shutdown").isTrue();
+    }
+
+    /**
+     * A {@link RegExIntentRecognitionProvider} recording the sessions it processes inputs with.
+     */
+    private static class RecordingProvider extends RegExIntentRecognitionProvider {
+
+        private List<XatkitSession> sessions = new ArrayList<>();
+
+        private RecordingProvider() {
+            super(new BaseConfiguration());
+        }
+
+        @Override
+        public RecognizedIntent getIntentInternal(String input, XatkitSession session) {
+            sessions.add(session);
+            return super.getIntentInternal(input, session);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.xatkit.core.recognition;
+
+import com.xatkit.AbstractXatkitTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest extends AbstractXatkitTest {
+
+    private LatencyHistogram histogram;
+
+    @Before
+    public void setUp() {
+        this.histogram = new LatencyHistogram();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordNegativeValue() {
+        histogram.record(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getValueAtInvalidPercentile() {
+        histogram.getValueAtPercentile(101);
+    }
+
+    @Test
+    public void emptyHistogram() {
+        assertThat(histogram.getTotalCount()).as("Empty histogram").isEqualTo(0);
+        assertThat(histogram.getValueAtPercentile(50)).as("p50 is 0").isEqualTo(0);
+        assertThat(histogram.getMaxValue()).as("Max is 0").isEqualTo(0);
+        assertThat(histogram.getMean()).as("Mean is 0").isEqualTo(0);
+    }
+
+    @Test
+    public void indexOfCoversLongRange() {
+        long[] values = {0, 1, 127, 128, 129, 255, 256, 1000, 123456789L, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            long lowestValue = index == 0 ? 0 : LatencyHistogram.highestEquivalentValue(index - 1) + 1;
+            assertThat(value).as("Value %s is in the range of its bucket", value)
+                    .isBetween(lowestValue, LatencyHistogram.highestEquivalentValue(index));
+        }
+    }
+
+    @Test
+    public void add() {
+        histogram.record(1000);
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(3000);
+        other.record(5000);
+        histogram.add(other);
+        assertThat(histogram.getTotalCount()).as("Counts added").isEqualTo(3);
+        assertThat(histogram.getMaxValue()).as("Max updated").isEqualTo(5000);
+        assertThat(histogram.getMean()).as("Correct mean").isEqualTo(3000);
+        assertThat(other.getTotalCount()).as("Other histogram unchanged").isEqualTo(2);
+    }
+
+    @Test
+    public void getValueAtPercentile() {
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertThat(histogram.getTotalCount()).as("Correct count").isEqualTo(1000);
+        assertThat(histogram.getMaxValue()).as("Correct max").isEqualTo(1000000);
+        assertThat(histogram.getMean()).as("Correct mean").isEqualTo(500500);
+        assertThat((double) histogram.getValueAtPercentile(50)).as("Correct p50").isCloseTo(500000,
+                within(500000 * 0.016));
+        assertThat((double) histogram.getValueAtPercentile(99)).as("Correct p99").isCloseTo(990000,
+                within(990000 * 0.016));
+        assertThat(histogram.getValueAtPercentile(100)).as("p100 is the max").isEqualTo(1000000);
+    }
+
+    @Test
+    public void recordConcurrently() throws InterruptedException {
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    histogram.record(j);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(histogram.getTotalCount()).as("All the values are recorded").isEqualTo(40000);
+        assertThat(histogram.getMaxValue()).as("Correct max").isEqualTo(9999);
+    }
+}
@@ -0,0 +1,83 @@
+package com.xatkit.core.recognition;
+
+import com.google.gson.JsonObject;
+import com.xatkit.AbstractXatkitTest;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LatencyMonitorTest extends AbstractXatkitTest {
+
+    private AtomicLong clock;
+
+    @Before
+    public void setUp() {
+        this.clock = new AtomicLong(1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructNegativeWindow() {
+        new LatencyMonitor(-1, clock::get);
+    }
+
+    @Test
+    public void getLatencies() {
+        LatencyMonitor monitor = new LatencyMonitor(60000, clock::get);
+        monitor.record("stage", 100);
+        monitor.record("stage", 300);
+        JsonObject latencies = monitor.getLatencies();
+        assertThat(latencies.get("unit").getAsString()).as("Correct unit").isEqualTo("ns");
+        assertThat(latencies.get("previous").isJsonNull()).as("No previous window").isTrue();
+        JsonObject current = latencies.getAsJsonObject("current");
+        assertThat(current.get("start").getAsLong()).as("Correct window start").isEqualTo(1000);
+        JsonObject stage = current.getAsJsonObject("stages").getAsJsonObject("stage");
+        assertThat(stage.get("count").getAsLong()).as("Correct count").isEqualTo(2);
+        assertThat(stage.get("p50").getAsLong()).as("Correct p50").isEqualTo(100);
+        assertThat(stage.get("p99").getAsLong()).as("Correct p99").isEqualTo(300);
+        assertThat(stage.get("max").getAsLong()).as("Correct max").isEqualTo(300);
+    }
+
+    @Test
+    public void reset() {
+        LatencyMonitor monitor = new LatencyMonitor(60000, clock::get);
+        monitor.record("stage", 100);
+        clock.set(2000);
+        JsonObject closedWindow = monitor.reset();
+        assertThat(closedWindow.get("end").getAsLong()).as("Correct window end").isEqualTo(2000);
+        assertThat(closedWindow.getAsJsonObject("stages").has("stage")).as("Closed window contains the stage")
+                .isTrue();
+        JsonObject latencies = monitor.getLatencies();
+        assertThat(latencies.getAsJsonObject("current").getAsJsonObject("stages").size()).as("Current window is " +
+                "empty").isEqualTo(0);
+        assertThat(latencies.getAsJsonObject("previous").get("start").getAsLong()).as("Previous window is the " +
+                "closed one").isEqualTo(1000);
+    }
+
+    @Test
+    public void windowRotation() {
+        LatencyMonitor monitor = new LatencyMonitor(1000, clock::get);
+        monitor.record("stage", 100);
+        clock.addAndGet(1000);
+        monitor.record("stage", 200);
+        JsonObject latencies = monitor.getLatencies();
+        assertThat(latencies.getAsJsonObject("current").getAsJsonObject("stages").getAsJsonObject("stage")
+                .get("max").getAsLong()).as("Current window contains the new value").isEqualTo(200);
+        assertThat(latencies.getAsJsonObject("previous").getAsJsonObject("stages").getAsJsonObject("stage")
+                .get("max").getAsLong()).as("Previous window contains the old value").isEqualTo(100);
+    }
+
+    @Test
+    public void noWindowRotation() {
+        LatencyMonitor monitor = new LatencyMonitor(0, clock::get);
+        monitor.record("stage", 100);
+        clock.addAndGet(1000000);
+        monitor.record("stage", 200);
+        JsonObject latencies = monitor.getLatencies();
+        assertThat(latencies.get("previous").isJsonNull()).as("No previous window").isTrue();
+        assertThat(latencies.getAsJsonObject("current").getAsJsonObject("stages").getAsJsonObject("stage")
+                .get("count").getAsLong()).as("Current window contains all the values").isEqualTo(2);
+    }
+}
@@ -0,0 +1,556 @@
+package com.xatkit.core.recognition;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.server.HttpMethod;
+import com.xatkit.core.server.RestHandlerException;
+import com.xatkit.core.server.XatkitServer;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import com.xatkit.test.util.ElementFactory;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.NameValuePair;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.DB;
+import org.mapdb.DBMaker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static java.util.Objects.nonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RecognitionMonitorTest extends AbstractXatkitTest {
+
+    private File dataDirectory;
+
+    private Configuration configuration;
+
+    private XatkitServer xatkitServer;
+
+    private RecognitionMonitor monitor;
+
+    @Before
+    public void setUp() throws IOException {
+        this.dataDirectory = Files.createTempDirectory("xatkit-monitoring").toFile();
+        this.configuration = new BaseConfiguration();
+        this.configuration.addProperty(RecognitionMonitor.DATA_DIRECTORY_KEY, dataDirectory.getAbsolutePath());
+        this.configuration.addProperty(RecognitionMonitor.MONITORING_DURABILITY_KEY, "sync");
+        this.xatkitServer = new XatkitServer(new BaseConfiguration());
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        if (nonNull(monitor)) {
+            monitor.shutdown();
+        }
+        FileUtils.deleteDirectory(dataDirectory);
+    }
+
+    @Test
+    public void logRecognizedIntentSameMillisecond() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        XatkitSession session = new XatkitSession("sessionID");
+        for (int i = 0; i < 50; i++) {
+            monitor.logRecognizedIntent(session, ElementFactory.createRecognizedIntent());
+        }
+        assertThat(monitor.getSessionRecords("sessionID")).as("All the records are stored").hasSize(50);
+    }
+
+    @Test
+    public void logRecognizedIntentReopenDatabase() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        monitor.logRecognizedIntent(new XatkitSession("sessionID"), ElementFactory.createRecognizedIntent());
+        monitor.shutdown();
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        monitor.logRecognizedIntent(new XatkitSession("sessionID"), ElementFactory.createRecognizedIntent());
+        assertThat(monitor.getSessionRecords("sessionID")).as("Records are appended to the stored ones")
+                .hasSize(2);
+    }
+
+    @Test
+    public void getSessionRecordsSeveralSessions() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        monitor.logRecognizedIntent(new XatkitSession("session1"), ElementFactory.createRecognizedIntent());
+        monitor.logRecognizedIntent(new XatkitSession("session2"), ElementFactory.createRecognizedIntent());
+        monitor.logRecognizedIntent(new XatkitSession("session1"), ElementFactory.createRecognizedIntent());
+        assertThat(monitor.getSessionRecords("session1")).as("Session 1 records").hasSize(2);
+        assertThat(monitor.getSessionRecords("session2")).as("Session 2 records").hasSize(1);
+        assertThat(monitor.getSessionRecords("session")).as("Unknown session is empty").isEmpty();
+    }
+
+    @Test
+    public void migrateLegacyRecords() throws IOException, RestHandlerException {
+        File analyticsDirectory = new File(dataDirectory, RecognitionMonitor.ANALYTICS_DIRECTORY);
+        analyticsDirectory.mkdirs();
+        DB legacyDb = DBMaker.fileDB(new File(analyticsDirectory, RecognitionMonitor.ANALYTICS_DB_FILE)).make();
+        Map<String, Map<Long, RecognitionMonitor.IntentRecord>> legacyRecords =
+                (Map<String, Map<Long, RecognitionMonitor.IntentRecord>>) legacyDb
+                        .hashMap(RecognitionMonitor.LEGACY_RECORDS_MAP_NAME).createOrOpen();
+        Map<Long, RecognitionMonitor.IntentRecord> sessionRecords = new TreeMap<>();
+        sessionRecords.put(2L, new RecognitionMonitor.IntentRecord(ElementFactory.createRecognizedIntent()));
+        sessionRecords.put(1L, new RecognitionMonitor.IntentRecord(ElementFactory.createRecognizedIntent()));
+        legacyRecords.put("sessionID", sessionRecords);
+        legacyDb.commit();
+        legacyDb.close();
+
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        NavigableMap<Object[], RecognitionMonitor.IntentRecord> migratedRecords = monitor.getSessionRecords(
+                "sessionID");
+        assertThat(migratedRecords).as("Legacy records migrated").hasSize(2);
+        assertThat(migratedRecords.firstKey()[1]).as("Records sorted by timestamp").isEqualTo(1L);
+        assertThat(migratedRecords.lastKey()[1]).as("Records sorted by timestamp").isEqualTo(2L);
+        monitor.shutdown();
+
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        assertThat(monitor.getSessionRecords("sessionID")).as("Records not migrated twice").hasSize(2);
+        assertThat(monitor.getStatistics().getMatchedCount()).as("Statistics computed from the migrated records")
+                .isEqualTo(2);
+        assertThat(parseArray(get("/analytics/monitoring/matched")).size())
+                .as("Indexes built from the migrated records").isEqualTo(2);
+    }
+
+    @Test
+    public void getSummary() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        JsonObject summary = monitor.getSummary();
+        assertThat(summary.get("nSessions").getAsLong()).as("Correct session count").isEqualTo(2);
+        assertThat(summary.get("totalMatchedUtterances").getAsLong()).as("Correct matched count").isEqualTo(2);
+        assertThat(summary.get("totalUnmatchedUtterances").getAsLong()).as("Correct unmatched count").isEqualTo(1);
+        assertThat(summary.get("avgRecognitionConfidence").getAsDouble()).as("Correct average confidence")
+                .isEqualTo(0.5);
+    }
+
+    @Test
+    public void getSummaryEmptyDatabase() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        JsonObject summary = monitor.getSummary();
+        assertThat(summary.get("nSessions").getAsLong()).as("No session").isEqualTo(0);
+        assertThat(summary.has("avgRecognitionConfidence")).as("No average confidence").isFalse();
+    }
+
+    @Test
+    public void getSummaryReopenDatabase() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        JsonObject summary = monitor.getSummary();
+        monitor.shutdown();
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        assertThat(monitor.getSummary()).as("Statistics loaded from the database").isEqualTo(summary);
+    }
+
+    @Test
+    public void recomputeStatistics() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        JsonObject summary = monitor.getSummary();
+        long totalSessionTime = monitor.getStatistics().getTotalSessionTime();
+        monitor.recomputeStatistics();
+        assertThat(monitor.getSummary()).as("Recomputed statistics are equal").isEqualTo(summary);
+        assertThat(monitor.getStatistics().getTotalSessionTime()).as("Recomputed session time is equal")
+                .isEqualTo(totalSessionTime);
+    }
+
+    @Test
+    public void getMatchedUtterancesPaginated() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        for (int i = 0; i < 5; i++) {
+            monitor.logRecognizedIntent(new XatkitSession("session" + i % 2), ElementFactory.createRecognizedIntent());
+        }
+        JsonArray page = parseArray(get("/analytics/monitoring/matched", new BasicNameValuePair("limit", "2")));
+        assertThat(page.size()).as("First page size").isEqualTo(2);
+        int count = page.size();
+        while (page.size() > 0) {
+            String cursor = page.get(page.size() - 1).getAsJsonObject().get("cursor").getAsString();
+            page = parseArray(get("/analytics/monitoring/matched", new BasicNameValuePair("limit", "2"),
+                    new BasicNameValuePair("after", cursor)));
+            count += page.size();
+        }
+        assertThat(count).as("All the records returned").isEqualTo(5);
+    }
+
+    @Test
+    public void getUnmatchedUtterancesNdjson() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        logIntents();
+        String result = get(Collections.singletonList(new BasicHeader("Accept", "application/x-ndjson")),
+                "/analytics/monitoring/unmatched");
+        String[] lines = result.split("\n");
+        assertThat(lines).as("One line per unmatched utterance").hasSize(2);
+        for (String line : lines) {
+            JsonObject entry = new JsonParser().parse(line).getAsJsonObject();
+            assertThat(entry.get("sessionId").getAsString()).as("Valid session").isEqualTo("session2");
+            assertThat(entry.get("utterance").getAsString()).as("Valid utterance").isEqualTo("unmatched");
+        }
+    }
+
+    @Test
+    public void getMonitoringDataForSessionTimeRange() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        JsonObject session = new JsonParser().parse(get("/analytics/monitoring/session",
+                new BasicNameValuePair("sessionId", "session1"))).getAsJsonObject();
+        assertThat(session.get("entries").getAsJsonArray().size()).as("All the entries returned").isEqualTo(2);
+        assertThat(session.get("matchedUtteranceCount").getAsInt()).as("Correct matched count").isEqualTo(2);
+        long timestamp = session.get("entries").getAsJsonArray().get(0).getAsJsonObject().get("timestamp")
+                .getAsLong();
+        session = new JsonParser().parse(get("/analytics/monitoring/session",
+                new BasicNameValuePair("sessionId", "session1"),
+                new BasicNameValuePair("to", Long.toString(timestamp)))).getAsJsonObject();
+        assertThat(session.get("entries").getAsJsonArray().size()).as("No entry before the range").isEqualTo(0);
+        assertThat(session.get("matchedUtteranceCount").getAsInt()).as("Counts computed on the range")
+                .isEqualTo(0);
+    }
+
+    @Test
+    public void getUnmatchedUtterancesSince() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        JsonArray unmatched = parseArray(get("/analytics/monitoring/unmatched"));
+        assertThat(unmatched.size()).as("Unmatched utterance returned").isEqualTo(1);
+        long timestamp = unmatched.get(0).getAsJsonObject().get("timestamp").getAsLong();
+        assertThat(parseArray(get("/analytics/monitoring/unmatched",
+                new BasicNameValuePair("from", Long.toString(timestamp + 1)))).size())
+                .as("No unmatched utterance after the last one").isEqualTo(0);
+        assertThat(parseArray(get("/analytics/monitoring/matched")).size()).as("Matched utterances returned")
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void getIntentUtterancesTimeRange() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        String intentName = ElementFactory.createRecognizedIntent().getDefinition().getName();
+        JsonArray utterances = parseArray(get("/analytics/monitoring/intent",
+                new BasicNameValuePair("intentName", intentName)));
+        assertThat(utterances.size()).as("Intent utterances returned").isEqualTo(2);
+        assertThat(utterances.get(0).getAsJsonObject().get("intent").getAsString()).as("Correct intent")
+                .isEqualTo(intentName);
+        long timestamp = utterances.get(0).getAsJsonObject().get("timestamp").getAsLong();
+        assertThat(parseArray(get("/analytics/monitoring/intent", new BasicNameValuePair("intentName", intentName),
+                new BasicNameValuePair("to", Long.toString(timestamp)))).size()).as("No utterance before the range")
+                .isEqualTo(0);
+        assertThat(parseArray(get("/analytics/monitoring/intent",
+                new BasicNameValuePair("intentName", "Default_Fallback_Intent"))).size())
+                .as("Fallback intent utterances returned").isEqualTo(1);
+    }
+
+    @Test(expected = RestHandlerException.class)
+    public void getIntentUtterancesMissingIntentName() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        get("/analytics/monitoring/intent");
+    }
+
+    @Test
+    public void compactRecordsOlderThanCutoff() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        long removedCount = monitor.compact(System.currentTimeMillis() + 1);
+        assertThat(removedCount).as("All the records removed").isEqualTo(3);
+        assertThat(monitor.getSessionRecords("session1")).as("Session records removed").isEmpty();
+        assertThat(parseArray(get("/analytics/monitoring/matched")).size()).as("Index entries removed")
+                .isEqualTo(0);
+        assertThat(monitor.getSummary().get("nSessions").getAsLong()).as("Session statistics removed")
+                .isEqualTo(0);
+        JsonArray rollups = parseArray(get("/analytics/monitoring/rollups"));
+        assertThat(rollups.size()).as("One rollup per intent").isEqualTo(2);
+        long totalCount = 0;
+        for (int i = 0; i < rollups.size(); i++) {
+            JsonObject rollup = rollups.get(i).getAsJsonObject();
+            totalCount += rollup.get("count").getAsLong();
+            if (rollup.get("matched").getAsBoolean()) {
+                assertThat(rollup.get("count").getAsLong()).as("Matched records rolled up").isEqualTo(2);
+                assertThat(rollup.get("avgConfidence").getAsDouble()).as("Correct average confidence")
+                        .isEqualTo(0.5);
+            }
+        }
+        assertThat(totalCount).as("All the records rolled up").isEqualTo(3);
+        assertThat(parseArray(get("/analytics/monitoring/rollups",
+                new BasicNameValuePair("intentName", "Default_Fallback_Intent"))).size())
+                .as("Rollups filtered by intent").isEqualTo(1);
+    }
+
+    @Test
+    public void compactRecentRecordsKept() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        long cutoff = (long) monitor.getSessionRecords("session1").lastKey()[1];
+        monitor.compact(cutoff);
+        assertThat(monitor.getSessionRecords("session1")).as("Most recent record kept").isNotEmpty();
+        assertThat(monitor.getSessionRecords("session2")).as("Records after the cutoff kept").hasSize(1);
+        assertThat(monitor.getStatistics().getMatchedCount()).as("Matched count updated")
+                .isEqualTo(monitor.getSessionRecords("session1").size());
+        assertThat(monitor.getStatistics().getUnmatchedCount()).as("Unmatched count unchanged").isEqualTo(1);
+    }
+
+    @Test
+    public void compactReclaimSpace() {
+        configuration.addProperty(RecognitionMonitor.MONITORING_RETENTION_DAYS_KEY, 1);
+        configuration.addProperty(RecognitionMonitor.MONITORING_RECLAIM_SPACE_KEY, true);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(monitor.compact(System.currentTimeMillis() + 1)).as("All the records removed").isEqualTo(3);
+        monitor.logRecognizedIntent(new XatkitSession("session3"), ElementFactory.createRecognizedIntent());
+        assertThat(monitor.getSessionRecords("session3")).as("Records written after the compaction").hasSize(1);
+    }
+
+    @Test
+    public void compactNoRetention() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(monitor.compact()).as("No record removed").isEqualTo(0);
+        assertThat(monitor.getStatistics().getMatchedCount()).as("Statistics unchanged").isEqualTo(2);
+    }
+
+    @Test(expected = RestHandlerException.class)
+    public void getRollupsInvalidDate() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        get("/analytics/monitoring/rollups", new BasicNameValuePair("from", "yesterday"));
+    }
+
+    @Test
+    public void logRecognizedIntentSeveralShards() throws IOException, RestHandlerException {
+        configuration.setProperty(RecognitionMonitor.MONITORING_SHARDS_KEY, 4);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        for (int i = 0; i < 20; i++) {
+            monitor.logRecognizedIntent(new XatkitSession("session" + i), ElementFactory.createRecognizedIntent());
+        }
+        for (int i = 0; i < 20; i++) {
+            assertThat(monitor.getSessionRecords("session" + i)).as("Session %s records stored", i).hasSize(1);
+        }
+        assertThat(monitor.getStatistics().getSessionCount()).as("Statistics aggregated over the shards")
+                .isEqualTo(20);
+        assertThat(monitor.getWriterStatistics().get("committedRecords").getAsLong())
+                .as("Committed records summed over the shards").isEqualTo(20);
+        JsonArray page = parseArray(get("/analytics/monitoring/matched", new BasicNameValuePair("limit", "15")));
+        assertThat(page.size()).as("Records merged from the shards").isEqualTo(15);
+        long previousTimestamp = Long.MIN_VALUE;
+        for (int i = 0; i < page.size(); i++) {
+            long timestamp = page.get(i).getAsJsonObject().get("timestamp").getAsLong();
+            assertThat(timestamp).as("Merged records sorted by time").isGreaterThanOrEqualTo(previousTimestamp);
+            previousTimestamp = timestamp;
+        }
+        String cursor = page.get(page.size() - 1).getAsJsonObject().get("cursor").getAsString();
+        assertThat(parseArray(get("/analytics/monitoring/matched", new BasicNameValuePair("after", cursor))).size())
+                .as("Next page merged from the shards").isEqualTo(5);
+    }
+
+    @Test
+    public void logRecognizedIntentMmapStorageReopenDatabase() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_STORAGE_KEY, "mmap");
+        configuration.setProperty(RecognitionMonitor.MONITORING_SHARDS_KEY, 2);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        monitor.shutdown();
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        assertThat(monitor.getSessionRecords("session1")).as("Session 1 records reloaded").hasSize(2);
+        assertThat(monitor.getSessionRecords("session2")).as("Session 2 records reloaded").hasSize(1);
+        assertThat(monitor.getStatistics().getSessionCount()).as("Statistics reloaded").isEqualTo(2);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void constructDifferentShardCount() {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        monitor.shutdown();
+        monitor = null;
+        configuration.setProperty(RecognitionMonitor.MONITORING_SHARDS_KEY, 2);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+    }
+
+    @Test
+    public void logRecognizedIntentSampledStatisticsScaled() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_MATCHED_SAMPLING_RATE_KEY, 0.25);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        XatkitSession session = new XatkitSession("sessionID");
+        for (int i = 0; i < 400; i++) {
+            monitor.logRecognizedIntent(session, ElementFactory.createRecognizedIntent());
+        }
+        int storedCount = monitor.getSessionRecords("sessionID").size();
+        assertThat(storedCount).as("Matched utterances sampled").isGreaterThan(0).isLessThan(400);
+        JsonObject summary = monitor.getSummary();
+        assertThat(summary.get("totalMatchedUtterances").getAsLong()).as("Matched count scaled")
+                .isEqualTo(storedCount * 4);
+        assertThat(summary.get("avgRecognitionConfidence").getAsDouble()).as("Average confidence not scaled")
+                .isEqualTo(0.5);
+        JsonObject sampling = monitor.getWriterStatistics().getAsJsonObject("sampling");
+        assertThat(sampling.get("sampledRecords").getAsLong()).as("Sampled records counted").isEqualTo(storedCount);
+        assertThat(sampling.get("skippedRecords").getAsLong()).as("Skipped records counted")
+                .isEqualTo(400 - storedCount);
+        monitor.recomputeStatistics();
+        assertThat(monitor.getSummary()).as("Recomputed statistics scaled").isEqualTo(summary);
+    }
+
+    @Test
+    public void getSessionsStatsSampled() throws IOException, RestHandlerException {
+        configuration.setProperty(RecognitionMonitor.MONITORING_MATCHED_SAMPLING_RATE_KEY, 0.5);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(new JsonParser().parse(get("/analytics/monitoring/sessions/stats")).getAsJsonObject().size())
+                .as("Per-session averages not computed").isEqualTo(0);
+    }
+
+    @Test
+    public void logRecognizedIntentNoMatchedSampling() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_MATCHED_SAMPLING_RATE_KEY, 0);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(monitor.getSessionRecords("session1")).as("Matched utterances not stored").isEmpty();
+        assertThat(monitor.getSessionRecords("session2")).as("Unmatched utterances stored").hasSize(1);
+        assertThat(monitor.getSummary().get("totalUnmatchedUtterances").getAsLong()).as("Unmatched count not scaled")
+                .isEqualTo(1);
+    }
+
+    @Test
+    public void logRecognizedIntentDeniedIntent() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_DENIED_INTENTS_KEY,
+                "Unknown, " + ElementFactory.createRecognizedIntent().getDefinition().getName());
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(monitor.getSessionRecords("session1")).as("Denied intent not stored").isEmpty();
+        assertThat(monitor.getSessionRecords("session2")).as("Unmatched utterances stored").hasSize(1);
+        assertThat(monitor.getWriterStatistics().getAsJsonObject("sampling").get("filteredRecords").getAsLong())
+                .as("Filtered records counted").isEqualTo(2);
+    }
+
+    @Test
+    public void logRecognizedIntentAllowedIntent() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_ALLOWED_INTENTS_KEY, "Unknown");
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        assertThat(monitor.getSessionRecords("session1")).as("Intent not allowed not stored").isEmpty();
+        assertThat(monitor.getSessionRecords("session2")).as("Unmatched utterances stored").hasSize(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructInvalidSamplingRate() {
+        configuration.setProperty(RecognitionMonitor.MONITORING_UNMATCHED_SAMPLING_RATE_KEY, 1.5);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+    }
+
+    @Test
+    public void exportNdjson() throws IOException, RestHandlerException {
+        configuration.setProperty(RecognitionMonitor.MONITORING_SHARDS_KEY, 2);
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        String[] lines = get("/analytics/monitoring/export").split("\n");
+        assertThat(lines).as("All the records exported").hasSize(3);
+        long previousTimestamp = Long.MIN_VALUE;
+        int unmatchedCount = 0;
+        for (String line : lines) {
+            JsonObject record = new JsonParser().parse(line).getAsJsonObject();
+            assertThat(record.get("timestamp").getAsLong()).as("Records sorted by time")
+                    .isGreaterThanOrEqualTo(previousTimestamp);
+            previousTimestamp = record.get("timestamp").getAsLong();
+            if (!record.get("matched").getAsBoolean()) {
+                unmatchedCount++;
+            }
+        }
+        assertThat(unmatchedCount).as("Unmatched records exported").isEqualTo(1);
+        String cursor = new JsonParser().parse(lines[0]).getAsJsonObject().get("cursor").getAsString();
+        assertThat(get("/analytics/monitoring/export", new BasicNameValuePair("after", cursor)).split("\n"))
+                .as("Export resumed after the cursor").containsExactly(lines[1], lines[2]);
+    }
+
+    @Test
+    public void exportCsv() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        RecognizedIntent recognizedIntent = ElementFactory.createRecognizedIntent();
+        recognizedIntent.setMatchedInput("Hi, \"bot\"");
+        monitor.logRecognizedIntent(new XatkitSession("sessionID"), recognizedIntent);
+        String[] lines = get("/analytics/monitoring/export", new BasicNameValuePair("format", "csv")).split("\r\n");
+        assertThat(lines).as("Header and record exported").hasSize(2);
+        assertThat(lines[0]).as("Correct header")
+                .isEqualTo("sessionId,timestamp,utterance,intent,matched,confidence,samplingWeight,cursor");
+        assertThat(lines[1]).as("Utterance escaped").startsWith("sessionID,")
+                .contains(",\"Hi, \"\"bot\"\"\"," + recognizedIntent.getDefinition().getName() + ",true,");
+    }
+
+    @Test
+    public void exportGzip() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        logIntents();
+        String ndjson = get("/analytics/monitoring/export");
+        HttpEntity entity = (HttpEntity) xatkitServer.notifyRestHandler(HttpMethod.GET, "/analytics/monitoring/export",
+                Collections.singletonList(new BasicHeader("Accept-Encoding", "gzip, deflate")),
+                Collections.emptyList(), null, null);
+        assertThat(entity.getContentEncoding().getValue()).as("Gzip content encoding").isEqualTo("gzip");
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        entity.writeTo(outputStream);
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(IOUtils.toString(inputStream, StandardCharsets.UTF_8)).as("Compressed export")
+                    .isEqualTo(ndjson);
+        }
+    }
+
+    @Test(expected = RestHandlerException.class)
+    public void exportInvalidFormat() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        get("/analytics/monitoring/export", new BasicNameValuePair("format", "json"));
+    }
+
+    @Test(expected = RestHandlerException.class)
+    public void getMatchedUtterancesInvalidCursor() throws IOException, RestHandlerException {
+        monitor = new RecognitionMonitor(xatkitServer, configuration);
+        get("/analytics/monitoring/matched", new BasicNameValuePair("after", "invalid"));
+    }
+
+    private String get(String uri, NameValuePair... params) throws IOException, RestHandlerException {
+        return get(Collections.emptyList(), uri, params);
+    }
+
+    private String get(List<Header> headers, String uri, NameValuePair... params) throws IOException,
+            RestHandlerException {
+        Object result = xatkitServer.notifyRestHandler(HttpMethod.GET, uri, headers, Arrays.asList(params), null,
+                null);
+        if (result instanceof HttpEntity) {
+            return EntityUtils.toString((HttpEntity) result);
+        }
+        return result.toString();
+    }
+
+    private static JsonArray parseArray(String json) {
+        return new JsonParser().parse(json).getAsJsonArray();
+    }
+
+    private void logIntents() {
+        XatkitSession session1 = new XatkitSession("session1");
+        monitor.logRecognizedIntent(session1, ElementFactory.createRecognizedIntent());
+        monitor.logRecognizedIntent(session1, ElementFactory.createRecognizedIntent());
+        IntentDefinition fallbackIntent = IntentFactory.eINSTANCE.createIntentDefinition();
+        fallbackIntent.setName("Default_Fallback_Intent");
+        RecognizedIntent unmatchedIntent = IntentFactory.eINSTANCE.createRecognizedIntent();
+        unmatchedIntent.setDefinition(fallbackIntent);
+        unmatchedIntent.setMatchedInput("unmatched");
+        unmatchedIntent.setRecognitionConfidence(1f);
+        monitor.logRecognizedIntent(new XatkitSession("session2"), unmatchedIntent);
+    }
+}
@@ -0,0 +1,132 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.xatkit.core.XatkitCore;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.stubs.StubXatkitCore;
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A benchmark measuring the recognition throughput and latency of the {@link DialogFlowApi} under concurrency.
+ * <p>
+ * This benchmark connects the {@link DialogFlowApi} to a {@link DialogFlowStandInServer}, and sends recognition
+ * queries from concurrent sessions. It reports the throughput of the recognition and the latency percentiles of
+ * the {@link DialogFlowApi#getIntent(String, XatkitSession)} calls, including the local context merging and intent
+ * conversion.
+ * <p>
+ * The benchmark accepts the following optional arguments: {@code <threads> <requests per thread> <latency (ms)>
+ * <jitter (ms)> <error rate> <circuit breaker>}. Default values are {@code 8 2000 0 0 0 false}.
+ * <p>
+ * <b>Note</b>: this class is not executed as part of the test suite.
+ */
+public class DialogFlowApiBenchmark {
+
+    private static final String PROJECT_ID = "benchmark-project";
+
+    private static final int INTENT_COUNT = 50;
+
+    private static final int WARMUP_REQUESTS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int requestsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long latency = args.length > 2 ? Long.parseLong(args[2]) : 0;
+        long jitter = args.length > 3 ? Long.parseLong(args[3]) : 0;
+        double errorRate = args.length > 4 ? Double.parseDouble(args[4]) : 0;
+        boolean circuitBreaker = args.length > 5 && Boolean.parseBoolean(args[5]);
+
+        DialogFlowStandInServer server = new DialogFlowStandInServer(PROJECT_ID, "dialogflow-benchmark").start();
+        XatkitCore xatkitCore = new StubXatkitCore();
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(DialogFlowApi.PROJECT_ID_KEY, PROJECT_ID);
+        configuration.addProperty(DialogFlowApi.LANGUAGE_CODE_KEY, "en-US");
+        configuration.addProperty(DialogFlowApi.ENDPOINT_KEY, server.getEndpoint());
+        configuration.addProperty(DialogFlowApi.ENABLE_CIRCUIT_BREAKER_KEY, circuitBreaker);
+        DialogFlowApi api = new DialogFlowApi(xatkitCore, configuration);
+        List<String> inputs = new ArrayList<>();
+        for (int i = 0; i < INTENT_COUNT; i++) {
+            IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+            intentDefinition.setName("BenchmarkIntent" + i);
+            intentDefinition.getTrainingSentences().add("benchmark sentence number " + i);
+            xatkitCore.getEventDefinitionRegistry().registerEventDefinition(intentDefinition);
+            api.registerIntentDefinition(intentDefinition);
+            inputs.add("benchmark sentence number " + i);
+        }
+        inputs.add("an input that does not match any intent");
+        api.trainMLEngine();
+
+        XatkitSession warmupSession = api.createSession(UUID.randomUUID().toString());
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            api.getIntent(inputs.get(i % inputs.size()), warmupSession);
+        }
+
+        server.setLatency(latency, jitter);
+        server.setErrorRate(errorRate);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        CountDownLatch startLatch = new CountDownLatch(1);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executorService.submit(() -> {
+                XatkitSession session = api.createSession(UUID.randomUUID().toString());
+                long[] latencies = new long[requestsPerThread];
+                startLatch.await();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    long before = System.nanoTime();
+                    try {
+                        api.getIntent(inputs.get(i % inputs.size()), session);
+                    } catch (DialogFlowException e) {
+                        /*
+                         * Injected errors are not recorded as failures, the latency of the call is still measured.
+                         */
+                    }
+                    latencies[i] = System.nanoTime() - before;
+                }
+                return latencies;
+            }));
+        }
+        long start = System.nanoTime();
+        startLatch.countDown();
+        long[] allLatencies = new long[threads * requestsPerThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] latencies = future.get();
+            System.arraycopy(latencies, 0, allLatencies, offset, latencies.length);
+            offset += latencies.length;
+        }
+        long elapsed = System.nanoTime() - start;
+        executorService.shutdown();
+        executorService.awaitTermination(10, TimeUnit.SECONDS);
+
+        Arrays.sort(allLatencies);
+        Log.info("DialogFlowApi recognition benchmark ({0} threads, {1} requests/thread, latency {2}+{3}ms, error " +
+                "rate {4}, circuit breaker {5})", threads, requestsPerThread, latency, jitter, errorRate, circuitBreaker);
+        Log.info("Throughput: {0} req/s", String.format("%.1f", allLatencies.length / (elapsed / 1e9)));
+        Log.info("Latency p50: {0}ms, p90: {1}ms, p99: {2}ms, p99.9: {3}ms, max: {4}ms",
+                percentile(allLatencies, 0.5), percentile(allLatencies, 0.9), percentile(allLatencies, 0.99),
+                percentile(allLatencies, 0.999), String.format("%.3f", allLatencies[allLatencies.length - 1] / 1e6));
+        Log.info("Stand-in calls: {0}, injected errors: {1}, fallback recognitions: {2}", server.getCallCount(),
+                server.getFailedCallCount(), api.getFallbackRecognitionCount());
+
+        api.shutdown();
+        xatkitCore.shutdown();
+        server.shutdown();
+    }
+
+    private static String percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+        return String.format("%.3f", sortedLatencies[Math.max(index, 0)] / 1e6);
+    }
+}
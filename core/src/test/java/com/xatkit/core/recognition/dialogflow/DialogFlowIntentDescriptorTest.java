@@ -0,0 +1,77 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.intent.Context;
+import com.xatkit.intent.ContextParameter;
+import com.xatkit.intent.EntityType;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.test.util.ElementFactory;
+import org.junit.Test;
+
+import static com.xatkit.test.util.ElementFactory.createBaseEntityDefinitionReference;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DialogFlowIntentDescriptorTest extends AbstractXatkitTest {
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullIntentDefinition() {
+        new DialogFlowIntentDescriptor(null);
+    }
+
+    @Test
+    public void constructIntentDefinitionNoOutContext() {
+        IntentDefinition intentDefinition = ElementFactory.createIntentDefinitionNoOutContext();
+        DialogFlowIntentDescriptor descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+        assertThat(descriptor.getIntentDefinition()).as("Correct intent definition").isEqualTo(intentDefinition);
+        assertThat(descriptor.hasAnyParameter()).as("No any parameter").isFalse();
+        assertThat(descriptor.getOutContext("context")).as("No out context").isNull();
+    }
+
+    @Test
+    public void constructIntentDefinitionAnyParameter() {
+        IntentDefinition intentDefinition = createIntentDefinition(EntityType.ANY);
+        DialogFlowIntentDescriptor descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+        assertThat(descriptor.hasAnyParameter()).as("Any parameter").isTrue();
+    }
+
+    @Test
+    public void constructIntentDefinitionNonAnyParameter() {
+        IntentDefinition intentDefinition = createIntentDefinition(EntityType.CITY);
+        DialogFlowIntentDescriptor descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+        assertThat(descriptor.hasAnyParameter()).as("No any parameter").isFalse();
+    }
+
+    @Test
+    public void getOutContextDifferentCase() {
+        IntentDefinition intentDefinition = createIntentDefinition(EntityType.ANY);
+        DialogFlowIntentDescriptor descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+        assertThat(descriptor.getOutContext("validcontext")).as("Correct out context")
+                .isEqualTo(intentDefinition.getOutContexts().get(0));
+    }
+
+    @Test
+    public void getContextParameter() {
+        IntentDefinition intentDefinition = createIntentDefinition(EntityType.ANY);
+        DialogFlowIntentDescriptor descriptor = new DialogFlowIntentDescriptor(intentDefinition);
+        assertThat(descriptor.getContextParameter("validcontext", "param")).as("Correct context parameter")
+                .isEqualTo(intentDefinition.getOutContexts().get(0).getParameters().get(0));
+        assertThat(descriptor.getContextParameter("validcontext", "unknown")).as("Unknown parameter").isNull();
+        assertThat(descriptor.getContextParameter("unknown", "param")).as("Unknown context").isNull();
+    }
+
+    private IntentDefinition createIntentDefinition(EntityType entityType) {
+        IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        intentDefinition.setName("DescriptorIntent");
+        intentDefinition.getTrainingSentences().add("I love test");
+        Context context = IntentFactory.eINSTANCE.createContext();
+        context.setName("ValidContext");
+        ContextParameter contextParameter = IntentFactory.eINSTANCE.createContextParameter();
+        contextParameter.setName("param");
+        contextParameter.setTextFragment("test");
+        contextParameter.setEntity(createBaseEntityDefinitionReference(entityType));
+        context.getParameters().add(contextParameter);
+        intentDefinition.getOutContexts().add(context);
+        return intentDefinition;
+    }
+}
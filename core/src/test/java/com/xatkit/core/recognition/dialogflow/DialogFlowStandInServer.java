@@ -0,0 +1,779 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.google.cloud.dialogflow.v2.Agent;
+import com.google.cloud.dialogflow.v2.AgentsGrpc;
+import com.google.cloud.dialogflow.v2.BatchDeleteEntityTypesRequest;
+import com.google.cloud.dialogflow.v2.BatchDeleteIntentsRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateEntityTypesRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateEntityTypesResponse;
+import com.google.cloud.dialogflow.v2.BatchUpdateIntentsRequest;
+import com.google.cloud.dialogflow.v2.BatchUpdateIntentsResponse;
+import com.google.cloud.dialogflow.v2.Context;
+import com.google.cloud.dialogflow.v2.ContextsGrpc;
+import com.google.cloud.dialogflow.v2.CreateContextRequest;
+import com.google.cloud.dialogflow.v2.CreateEntityTypeRequest;
+import com.google.cloud.dialogflow.v2.CreateIntentRequest;
+import com.google.cloud.dialogflow.v2.DeleteAllContextsRequest;
+import com.google.cloud.dialogflow.v2.DeleteContextRequest;
+import com.google.cloud.dialogflow.v2.DeleteEntityTypeRequest;
+import com.google.cloud.dialogflow.v2.DeleteIntentRequest;
+import com.google.cloud.dialogflow.v2.DetectIntentRequest;
+import com.google.cloud.dialogflow.v2.DetectIntentResponse;
+import com.google.cloud.dialogflow.v2.EntityType;
+import com.google.cloud.dialogflow.v2.EntityTypesGrpc;
+import com.google.cloud.dialogflow.v2.GetAgentRequest;
+import com.google.cloud.dialogflow.v2.GetContextRequest;
+import com.google.cloud.dialogflow.v2.GetEntityTypeRequest;
+import com.google.cloud.dialogflow.v2.GetIntentRequest;
+import com.google.cloud.dialogflow.v2.Intent;
+import com.google.cloud.dialogflow.v2.IntentView;
+import com.google.cloud.dialogflow.v2.IntentsGrpc;
+import com.google.cloud.dialogflow.v2.ListContextsRequest;
+import com.google.cloud.dialogflow.v2.ListContextsResponse;
+import com.google.cloud.dialogflow.v2.ListEntityTypesRequest;
+import com.google.cloud.dialogflow.v2.ListEntityTypesResponse;
+import com.google.cloud.dialogflow.v2.ListIntentsRequest;
+import com.google.cloud.dialogflow.v2.ListIntentsResponse;
+import com.google.cloud.dialogflow.v2.QueryResult;
+import com.google.cloud.dialogflow.v2.SessionsGrpc;
+import com.google.cloud.dialogflow.v2.TrainAgentRequest;
+import com.google.cloud.dialogflow.v2.UpdateContextRequest;
+import com.google.cloud.dialogflow.v2.UpdateEntityTypeRequest;
+import com.google.cloud.dialogflow.v2.UpdateIntentRequest;
+import com.google.longrunning.Operation;
+import com.google.protobuf.Any;
+import com.google.protobuf.Empty;
+import com.google.protobuf.Message;
+import com.google.protobuf.Struct;
+import com.google.protobuf.Value;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static fr.inria.atlanmod.commons.Preconditions.checkArgument;
+import static fr.inria.atlanmod.commons.Preconditions.checkNotNull;
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * An in-process gRPC server implementing the DialogFlow services used by the {@link DialogFlowApi}.
+ * <p>
+ * This class provides a minimal implementation of the DialogFlow {@code Sessions}, {@code Intents}, {@code
+ * EntityTypes}, {@code Contexts}, and {@code Agents} services, allowing to test and benchmark the
+ * {@link DialogFlowApi} without accessing the Google API. The {@link DialogFlowApi} can be connected to this server
+ * by setting the {@link DialogFlowApi#ENDPOINT_KEY} to the value returned by {@link #getEndpoint()}.
+ * <p>
+ * Intent detection performs case-insensitive matches of the stored training phrases: literal parts must match the
+ * input, and entity parts match any non-empty text, which is returned as the value of the corresponding parameter.
+ * Input contexts are checked against the contexts of the session, and output contexts are added to the session
+ * when an intent is matched. Inputs that do not match any intent return the {@code Default Fallback Intent}.
+ * <p>
+ * The server can inject latency and errors in all the received calls (see {@link #setLatency(long, long)} and
+ * {@link #setErrorRate(double)}), allowing to evaluate the behavior of the {@link DialogFlowApi} when the DialogFlow
+ * API is slow or unavailable. Long-running operations (batch updates and training) are always returned completed.
+ */
+public class DialogFlowStandInServer {
+
+    /**
+     * The display name of the {@link Intent} returned when the input does not match any registered {@link Intent}.
+     */
+    public static final String DEFAULT_FALLBACK_INTENT_DISPLAY_NAME = "Default Fallback Intent";
+
+    /**
+     * The unique identifier of the DialogFlow project served by this server.
+     */
+    private String projectId;
+
+    /**
+     * The name of the in-process server.
+     */
+    private String serverName;
+
+    /**
+     * The underlying gRPC {@link Server}.
+     */
+    private Server server;
+
+    /**
+     * The stored {@link Intent}s, indexed by their name.
+     */
+    private Map<String, Intent> intents = new ConcurrentHashMap<>();
+
+    /**
+     * The compiled training phrases of the stored {@link Intent}s, indexed by the {@link Intent} names.
+     */
+    private Map<String, List<TrainingPhrasePattern>> intentPatterns = new ConcurrentHashMap<>();
+
+    /**
+     * The stored {@link EntityType}s, indexed by their name.
+     */
+    private Map<String, EntityType> entityTypes = new ConcurrentHashMap<>();
+
+    /**
+     * The active {@link Context}s of each session, indexed by session name and context identifier.
+     */
+    private Map<String, Map<String, Context>> sessionContexts = new ConcurrentHashMap<>();
+
+    /**
+     * The generator used to compute the names of the created elements.
+     */
+    private AtomicLong idGenerator = new AtomicLong();
+
+    /**
+     * The fixed latency (in milliseconds) injected in each call.
+     */
+    private volatile long latency;
+
+    /**
+     * The maximum random latency (in milliseconds) added to {@link #latency} for each call.
+     */
+    private volatile long latencyJitter;
+
+    /**
+     * The probability of failing a call with an {@link Status#UNAVAILABLE} error.
+     */
+    private volatile double errorRate;
+
+    /**
+     * The number of calls received by the server.
+     */
+    private AtomicLong callCount = new AtomicLong();
+
+    /**
+     * The number of calls failed by the error injection.
+     */
+    private AtomicLong failedCallCount = new AtomicLong();
+
+    /**
+     * The number of agent trainings requested to the server.
+     */
+    private AtomicLong trainingCount = new AtomicLong();
+
+    /**
+     * Constructs a {@link DialogFlowStandInServer} serving the provided {@code projectId}.
+     * <p>
+     * The created server is not started, see {@link #start()}.
+     *
+     * @param projectId  the unique identifier of the DialogFlow project to serve
+     * @param serverName the name of the in-process server
+     * @throws NullPointerException if the provided {@code projectId} or {@code serverName} is {@code null}
+     */
+    public DialogFlowStandInServer(String projectId, String serverName) {
+        checkNotNull(projectId, "Cannot construct a %s with the provided project identifier %s",
+                DialogFlowStandInServer.class.getSimpleName(), projectId);
+        checkNotNull(serverName, "Cannot construct a %s with the provided server name %s",
+                DialogFlowStandInServer.class.getSimpleName(), serverName);
+        this.projectId = projectId;
+        this.serverName = serverName;
+        Intent fallbackIntent = Intent.newBuilder().setName(createName("intents"))
+                .setDisplayName(DEFAULT_FALLBACK_INTENT_DISPLAY_NAME).setIsFallback(true).build();
+        this.intents.put(fallbackIntent.getName(), fallbackIntent);
+    }
+
+    /**
+     * Starts the server.
+     *
+     * @return this server
+     * @throws IOException if an error occurred when starting the server
+     */
+    public DialogFlowStandInServer start() throws IOException {
+        FaultInjectionInterceptor interceptor = new FaultInjectionInterceptor();
+        this.server = InProcessServerBuilder.forName(serverName)
+                .addService(ServerInterceptors.intercept(new SessionsService(), interceptor))
+                .addService(ServerInterceptors.intercept(new IntentsService(), interceptor))
+                .addService(ServerInterceptors.intercept(new EntityTypesService(), interceptor))
+                .addService(ServerInterceptors.intercept(new ContextsService(), interceptor))
+                .addService(ServerInterceptors.intercept(new AgentsService(), interceptor))
+                .build()
+                .start();
+        return this;
+    }
+
+    /**
+     * Shuts down the server.
+     */
+    public void shutdown() {
+        if (nonNull(server)) {
+            server.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the endpoint to set in the {@link DialogFlowApi#ENDPOINT_KEY} to connect to this server.
+     *
+     * @return the endpoint of this server
+     */
+    public String getEndpoint() {
+        return DialogFlowApi.IN_PROCESS_ENDPOINT_PREFIX + serverName;
+    }
+
+    /**
+     * Sets the latency injected in each call received by the server.
+     * <p>
+     * Each call is delayed by {@code latency} milliseconds, plus a random value between {@code 0} and {@code
+     * jitter} milliseconds.
+     *
+     * @param latency the fixed latency to inject (in milliseconds)
+     * @param jitter  the maximum random latency to add (in milliseconds)
+     * @throws IllegalArgumentException if the provided {@code latency} or {@code jitter} is negative
+     */
+    public void setLatency(long latency, long jitter) {
+        checkArgument(latency >= 0, "Cannot set the latency to %s, expected a positive value", latency);
+        checkArgument(jitter >= 0, "Cannot set the jitter to %s, expected a positive value", jitter);
+        this.latency = latency;
+        this.latencyJitter = jitter;
+    }
+
+    /**
+     * Sets the probability of failing each call received by the server with an {@link Status#UNAVAILABLE} error.
+     *
+     * @param errorRate the probability of failing a call, between {@code 0} and {@code 1}
+     * @throws IllegalArgumentException if the provided {@code errorRate} is not between {@code 0} and {@code 1}
+     */
+    public void setErrorRate(double errorRate) {
+        checkArgument(errorRate >= 0 && errorRate <= 1, "Cannot set the error rate to %s, expected a value " +
+                "between 0 and 1", errorRate);
+        this.errorRate = errorRate;
+    }
+
+    /**
+     * Returns the {@link Intent}s stored in the served agent.
+     *
+     * @return the stored {@link Intent}s
+     */
+    public List<Intent> getIntents() {
+        return new ArrayList<>(intents.values());
+    }
+
+    /**
+     * Returns the {@link EntityType}s stored in the served agent.
+     *
+     * @return the stored {@link EntityType}s
+     */
+    public List<EntityType> getEntityTypes() {
+        return new ArrayList<>(entityTypes.values());
+    }
+
+    /**
+     * Returns the number of calls received by the server.
+     *
+     * @return the number of calls received by the server
+     */
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    /**
+     * Returns the number of calls failed by the error injection.
+     *
+     * @return the number of failed calls
+     * @see #setErrorRate(double)
+     */
+    public long getFailedCallCount() {
+        return failedCallCount.get();
+    }
+
+    /**
+     * Returns the number of agent trainings requested to the server.
+     *
+     * @return the number of agent trainings
+     */
+    public long getTrainingCount() {
+        return trainingCount.get();
+    }
+
+    /**
+     * Creates a unique name for an element of the provided {@code collection}.
+     *
+     * @param collection the collection of the element (e.g. {@code intents})
+     * @return the created name
+     */
+    private String createName(String collection) {
+        return "projects/" + projectId + "/agent/" + collection + "/" + idGenerator.incrementAndGet();
+    }
+
+    /**
+     * Stores the provided {@code intent}, assigning it a name if it does not have one.
+     *
+     * @param intent the {@link Intent} to store
+     * @return the stored {@link Intent}
+     */
+    private Intent storeIntent(Intent intent) {
+        Intent stored = intent;
+        if (intent.getName().isEmpty()) {
+            stored = intent.toBuilder().setName(createName("intents")).build();
+        }
+        List<TrainingPhrasePattern> patterns = new ArrayList<>();
+        for (Intent.TrainingPhrase trainingPhrase : stored.getTrainingPhrasesList()) {
+            patterns.add(new TrainingPhrasePattern(trainingPhrase));
+        }
+        intentPatterns.put(stored.getName(), patterns);
+        intents.put(stored.getName(), stored);
+        return stored;
+    }
+
+    /**
+     * Removes the {@link Intent} with the provided {@code name} and its follow-up {@link Intent}s.
+     *
+     * @param name the name of the {@link Intent} to remove
+     * @return {@code true} if the {@link Intent} has been removed, {@code false} otherwise
+     */
+    private boolean removeIntent(String name) {
+        if (isNull(intents.remove(name))) {
+            return false;
+        }
+        intentPatterns.remove(name);
+        List<String> followupNames = new ArrayList<>();
+        for (Intent intent : intents.values()) {
+            if (intent.getParentFollowupIntentName().equals(name)) {
+                followupNames.add(intent.getName());
+            }
+        }
+        followupNames.forEach(this::removeIntent);
+        return true;
+    }
+
+    /**
+     * Stores the provided {@code entityType}, assigning it a name if it does not have one.
+     *
+     * @param entityType the {@link EntityType} to store
+     * @return the stored {@link EntityType}
+     */
+    private EntityType storeEntityType(EntityType entityType) {
+        EntityType stored = entityType;
+        if (entityType.getName().isEmpty()) {
+            stored = entityType.toBuilder().setName(createName("entityTypes")).build();
+        }
+        entityTypes.put(stored.getName(), stored);
+        return stored;
+    }
+
+    /**
+     * Returns the view of the provided {@code intent} corresponding to the provided {@code intentView}.
+     *
+     * @param intent     the {@link Intent} to return the view of
+     * @param intentView the requested {@link IntentView}
+     * @return the view of the {@link Intent}
+     */
+    private Intent getIntentView(Intent intent, IntentView intentView) {
+        if (intentView == IntentView.INTENT_VIEW_FULL) {
+            return intent;
+        }
+        return intent.toBuilder().clearTrainingPhrases().build();
+    }
+
+    /**
+     * Returns a completed long-running {@link Operation} containing the provided {@code response}.
+     *
+     * @param response the response of the {@link Operation}
+     * @return the completed {@link Operation}
+     */
+    private Operation completedOperation(Message response) {
+        return Operation.newBuilder().setName(createName("operations")).setDone(true).setResponse(Any.pack
+                (response)).build();
+    }
+
+    /**
+     * Returns the identifier of the provided {@link Context} {@code name}.
+     * <p>
+     * Context identifiers are case-insensitive, and do not contain the session they have been created with.
+     *
+     * @param name the name of the {@link Context}
+     * @return the identifier of the {@link Context}
+     */
+    private static String getContextId(String name) {
+        return name.substring(name.lastIndexOf('/') + 1).toLowerCase();
+    }
+
+    /**
+     * Sends the provided {@code value} to the provided {@code responseObserver} and completes the call.
+     *
+     * @param responseObserver the {@link StreamObserver} to send the value to
+     * @param value            the value to send
+     * @param <T>              the type of the value to send
+     */
+    private static <T> void respond(StreamObserver<T> responseObserver, T value) {
+        responseObserver.onNext(value);
+        responseObserver.onCompleted();
+    }
+
+    /**
+     * Fails the call with a {@link Status#NOT_FOUND} error for the provided {@code name}.
+     *
+     * @param responseObserver the {@link StreamObserver} to fail
+     * @param name             the name of the element that has not been found
+     */
+    private static void notFound(StreamObserver<?> responseObserver, String name) {
+        responseObserver.onError(Status.NOT_FOUND.withDescription("Cannot find the element " + name)
+                .asRuntimeException());
+    }
+
+    /**
+     * A compiled DialogFlow training phrase used to match user inputs.
+     */
+    private static class TrainingPhrasePattern {
+
+        /**
+         * The {@link Pattern} matching the training phrase.
+         */
+        private Pattern pattern;
+
+        /**
+         * The aliases of the entity parts of the training phrase, in the order of the {@link #pattern} groups.
+         */
+        private List<String> aliases = new ArrayList<>();
+
+        /**
+         * Compiles the provided {@code trainingPhrase}.
+         *
+         * @param trainingPhrase the training phrase to compile
+         */
+        private TrainingPhrasePattern(Intent.TrainingPhrase trainingPhrase) {
+            StringBuilder sb = new StringBuilder();
+            for (Intent.TrainingPhrase.Part part : trainingPhrase.getPartsList()) {
+                if (part.getEntityType().isEmpty()) {
+                    sb.append(Pattern.quote(part.getText()));
+                } else {
+                    sb.append("(.+?)");
+                    aliases.add(part.getAlias());
+                }
+            }
+            this.pattern = Pattern.compile("^\\s*" + sb.toString() + "\\s*$", Pattern.CASE_INSENSITIVE);
+        }
+    }
+
+    /**
+     * A {@link ServerInterceptor} delaying and failing the received calls.
+     *
+     * @see #setLatency(long, long)
+     * @see #setErrorRate(double)
+     */
+    private class FaultInjectionInterceptor implements ServerInterceptor {
+
+        @Override
+        public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                     ServerCallHandler<ReqT, RespT> next) {
+            callCount.incrementAndGet();
+            long delay = latency;
+            if (latencyJitter > 0) {
+                delay += ThreadLocalRandom.current().nextLong(latencyJitter + 1);
+            }
+            if (delay > 0) {
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                failedCallCount.incrementAndGet();
+                call.close(Status.UNAVAILABLE.withDescription("Injected error"), new Metadata());
+                return new ServerCall.Listener<ReqT>() {
+                };
+            }
+            return next.startCall(call, headers);
+        }
+    }
+
+    /**
+     * The stand-in implementation of the DialogFlow {@code Sessions} service.
+     */
+    private class SessionsService extends SessionsGrpc.SessionsImplBase {
+
+        @Override
+        public void detectIntent(DetectIntentRequest request, StreamObserver<DetectIntentResponse>
+                responseObserver) {
+            String session = request.getSession();
+            String input = request.getQueryInput().getText().getText();
+            Map<String, Context> activeContexts = sessionContexts.computeIfAbsent(session,
+                    k -> new ConcurrentHashMap<>());
+            Intent matchedIntent = null;
+            Struct.Builder parameters = Struct.newBuilder();
+            for (Intent intent : intents.values()) {
+                if (!activeContexts.keySet().containsAll(intent.getInputContextNamesList().stream()
+                        .map(DialogFlowStandInServer::getContextId).collect(Collectors.toList()))) {
+                    continue;
+                }
+                for (TrainingPhrasePattern trainingPhrase : intentPatterns.getOrDefault(intent.getName(),
+                        new ArrayList<>())) {
+                    Matcher matcher = trainingPhrase.pattern.matcher(input);
+                    if (matcher.matches()) {
+                        matchedIntent = intent;
+                        for (int i = 0; i < trainingPhrase.aliases.size(); i++) {
+                            String alias = trainingPhrase.aliases.get(i);
+                            String value = matcher.group(i + 1).trim();
+                            for (Intent.Parameter parameter : intent.getParametersList()) {
+                                if (parameter.getValue().equals("$" + alias)) {
+                                    parameters.putFields(parameter.getDisplayName(), Value.newBuilder()
+                                            .setStringValue(value).build());
+                                }
+                            }
+                        }
+                        break;
+                    }
+                }
+                if (nonNull(matchedIntent)) {
+                    break;
+                }
+            }
+            /*
+             * Decrement the lifespan of the active contexts before adding the output contexts of the matched intent.
+             */
+            Iterator<Map.Entry<String, Context>> it = activeContexts.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Context> entry = it.next();
+                int lifespan = entry.getValue().getLifespanCount() - 1;
+                if (lifespan <= 0) {
+                    it.remove();
+                } else {
+                    entry.setValue(entry.getValue().toBuilder().setLifespanCount(lifespan).build());
+                }
+            }
+            QueryResult.Builder queryResult = QueryResult.newBuilder().setQueryText(input)
+                    .setLanguageCode(request.getQueryInput().getText().getLanguageCode());
+            if (isNull(matchedIntent)) {
+                Intent fallbackIntent = intents.values().stream().filter(Intent::getIsFallback).findFirst()
+                        .orElse(Intent.newBuilder().setDisplayName(DEFAULT_FALLBACK_INTENT_DISPLAY_NAME).build());
+                queryResult.setIntent(Intent.newBuilder().setName(fallbackIntent.getName())
+                        .setDisplayName(fallbackIntent.getDisplayName()).setIsFallback(true))
+                        .setIntentDetectionConfidence(1);
+            } else {
+                queryResult.setIntent(Intent.newBuilder().setName(matchedIntent.getName())
+                        .setDisplayName(matchedIntent.getDisplayName()))
+                        .setIntentDetectionConfidence(1)
+                        .setParameters(parameters);
+                for (Context outContext : matchedIntent.getOutputContextsList()) {
+                    String contextId = getContextId(outContext.getName());
+                    Context context = Context.newBuilder().setName(session + "/contexts/" + contextId)
+                            .setLifespanCount(outContext.getLifespanCount()).setParameters(parameters).build();
+                    activeContexts.put(contextId, context);
+                }
+            }
+            queryResult.addAllOutputContexts(activeContexts.values());
+            respond(responseObserver, DetectIntentResponse.newBuilder().setResponseId(createName("responses"))
+                    .setQueryResult(queryResult).build());
+        }
+    }
+
+    /**
+     * The stand-in implementation of the DialogFlow {@code Intents} service.
+     */
+    private class IntentsService extends IntentsGrpc.IntentsImplBase {
+
+        @Override
+        public void listIntents(ListIntentsRequest request, StreamObserver<ListIntentsResponse> responseObserver) {
+            ListIntentsResponse.Builder response = ListIntentsResponse.newBuilder();
+            intents.values().forEach(i -> response.addIntents(getIntentView(i, request.getIntentView())));
+            respond(responseObserver, response.build());
+        }
+
+        @Override
+        public void getIntent(GetIntentRequest request, StreamObserver<Intent> responseObserver) {
+            Intent intent = intents.get(request.getName());
+            if (isNull(intent)) {
+                notFound(responseObserver, request.getName());
+            } else {
+                respond(responseObserver, getIntentView(intent, request.getIntentView()));
+            }
+        }
+
+        @Override
+        public void createIntent(CreateIntentRequest request, StreamObserver<Intent> responseObserver) {
+            respond(responseObserver, storeIntent(request.getIntent().toBuilder().clearName().build()));
+        }
+
+        @Override
+        public void updateIntent(UpdateIntentRequest request, StreamObserver<Intent> responseObserver) {
+            if (!intents.containsKey(request.getIntent().getName())) {
+                notFound(responseObserver, request.getIntent().getName());
+            } else {
+                respond(responseObserver, storeIntent(request.getIntent()));
+            }
+        }
+
+        @Override
+        public void deleteIntent(DeleteIntentRequest request, StreamObserver<Empty> responseObserver) {
+            if (removeIntent(request.getName())) {
+                respond(responseObserver, Empty.getDefaultInstance());
+            } else {
+                notFound(responseObserver, request.getName());
+            }
+        }
+
+        @Override
+        public void batchUpdateIntents(BatchUpdateIntentsRequest request, StreamObserver<Operation>
+                responseObserver) {
+            BatchUpdateIntentsResponse.Builder response = BatchUpdateIntentsResponse.newBuilder();
+            for (Intent intent : request.getIntentBatchInline().getIntentsList()) {
+                response.addIntents(storeIntent(intent));
+            }
+            respond(responseObserver, completedOperation(response.build()));
+        }
+
+        @Override
+        public void batchDeleteIntents(BatchDeleteIntentsRequest request, StreamObserver<Operation>
+                responseObserver) {
+            for (Intent intent : request.getIntentsList()) {
+                removeIntent(intent.getName());
+            }
+            respond(responseObserver, completedOperation(Empty.getDefaultInstance()));
+        }
+    }
+
+    /**
+     * The stand-in implementation of the DialogFlow {@code EntityTypes} service.
+     */
+    private class EntityTypesService extends EntityTypesGrpc.EntityTypesImplBase {
+
+        @Override
+        public void listEntityTypes(ListEntityTypesRequest request, StreamObserver<ListEntityTypesResponse>
+                responseObserver) {
+            respond(responseObserver, ListEntityTypesResponse.newBuilder().addAllEntityTypes(entityTypes.values())
+                    .build());
+        }
+
+        @Override
+        public void getEntityType(GetEntityTypeRequest request, StreamObserver<EntityType> responseObserver) {
+            EntityType entityType = entityTypes.get(request.getName());
+            if (isNull(entityType)) {
+                notFound(responseObserver, request.getName());
+            } else {
+                respond(responseObserver, entityType);
+            }
+        }
+
+        @Override
+        public void createEntityType(CreateEntityTypeRequest request, StreamObserver<EntityType> responseObserver) {
+            respond(responseObserver, storeEntityType(request.getEntityType().toBuilder().clearName().build()));
+        }
+
+        @Override
+        public void updateEntityType(UpdateEntityTypeRequest request, StreamObserver<EntityType> responseObserver) {
+            if (!entityTypes.containsKey(request.getEntityType().getName())) {
+                notFound(responseObserver, request.getEntityType().getName());
+            } else {
+                respond(responseObserver, storeEntityType(request.getEntityType()));
+            }
+        }
+
+        @Override
+        public void deleteEntityType(DeleteEntityTypeRequest request, StreamObserver<Empty> responseObserver) {
+            if (isNull(entityTypes.remove(request.getName()))) {
+                notFound(responseObserver, request.getName());
+            } else {
+                respond(responseObserver, Empty.getDefaultInstance());
+            }
+        }
+
+        @Override
+        public void batchUpdateEntityTypes(BatchUpdateEntityTypesRequest request, StreamObserver<Operation>
+                responseObserver) {
+            BatchUpdateEntityTypesResponse.Builder response = BatchUpdateEntityTypesResponse.newBuilder();
+            for (EntityType entityType : request.getEntityTypeBatchInline().getEntityTypesList()) {
+                response.addEntityTypes(storeEntityType(entityType));
+            }
+            respond(responseObserver, completedOperation(response.build()));
+        }
+
+        @Override
+        public void batchDeleteEntityTypes(BatchDeleteEntityTypesRequest request, StreamObserver<Operation>
+                responseObserver) {
+            request.getEntityTypeNamesList().forEach(entityTypes::remove);
+            respond(responseObserver, completedOperation(Empty.getDefaultInstance()));
+        }
+    }
+
+    /**
+     * The stand-in implementation of the DialogFlow {@code Contexts} service.
+     */
+    private class ContextsService extends ContextsGrpc.ContextsImplBase {
+
+        @Override
+        public void listContexts(ListContextsRequest request, StreamObserver<ListContextsResponse>
+                responseObserver) {
+            Map<String, Context> contexts = sessionContexts.getOrDefault(request.getParent(),
+                    new ConcurrentHashMap<>());
+            respond(responseObserver, ListContextsResponse.newBuilder().addAllContexts(contexts.values()).build());
+        }
+
+        @Override
+        public void getContext(GetContextRequest request, StreamObserver<Context> responseObserver) {
+            String session = request.getName().substring(0, request.getName().lastIndexOf("/contexts/"));
+            Context context = sessionContexts.getOrDefault(session, new ConcurrentHashMap<>())
+                    .get(getContextId(request.getName()));
+            if (isNull(context)) {
+                notFound(responseObserver, request.getName());
+            } else {
+                respond(responseObserver, context);
+            }
+        }
+
+        @Override
+        public void createContext(CreateContextRequest request, StreamObserver<Context> responseObserver) {
+            String contextId = getContextId(request.getContext().getName());
+            Context context = request.getContext().toBuilder().setName(request.getParent() + "/contexts/" +
+                    contextId).build();
+            sessionContexts.computeIfAbsent(request.getParent(), k -> new ConcurrentHashMap<>()).put(contextId,
+                    context);
+            respond(responseObserver, context);
+        }
+
+        @Override
+        public void updateContext(UpdateContextRequest request, StreamObserver<Context> responseObserver) {
+            String name = request.getContext().getName();
+            String session = name.substring(0, name.lastIndexOf("/contexts/"));
+            sessionContexts.computeIfAbsent(session, k -> new ConcurrentHashMap<>()).put(getContextId(name),
+                    request.getContext());
+            respond(responseObserver, request.getContext());
+        }
+
+        @Override
+        public void deleteContext(DeleteContextRequest request, StreamObserver<Empty> responseObserver) {
+            String session = request.getName().substring(0, request.getName().lastIndexOf("/contexts/"));
+            sessionContexts.getOrDefault(session, new ConcurrentHashMap<>()).remove(getContextId(request.getName()));
+            respond(responseObserver, Empty.getDefaultInstance());
+        }
+
+        @Override
+        public void deleteAllContexts(DeleteAllContextsRequest request, StreamObserver<Empty> responseObserver) {
+            sessionContexts.remove(request.getParent());
+            respond(responseObserver, Empty.getDefaultInstance());
+        }
+    }
+
+    /**
+     * The stand-in implementation of the DialogFlow {@code Agents} service.
+     */
+    private class AgentsService extends AgentsGrpc.AgentsImplBase {
+
+        @Override
+        public void getAgent(GetAgentRequest request, StreamObserver<Agent> responseObserver) {
+            respond(responseObserver, Agent.newBuilder().setParent(request.getParent()).setDisplayName(projectId)
+                    .build());
+        }
+
+        @Override
+        public void trainAgent(TrainAgentRequest request, StreamObserver<Operation> responseObserver) {
+            trainingCount.incrementAndGet();
+            respond(responseObserver, completedOperation(Empty.getDefaultInstance()));
+        }
+    }
+}
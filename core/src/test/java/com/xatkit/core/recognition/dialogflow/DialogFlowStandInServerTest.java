@@ -0,0 +1,324 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.google.cloud.dialogflow.v2.Intent;
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.XatkitCore;
+import com.xatkit.core.recognition.RecognitionMonitor;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.Context;
+import com.xatkit.intent.ContextInstance;
+import com.xatkit.intent.ContextParameter;
+import com.xatkit.intent.EntityType;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import com.xatkit.stubs.StubXatkitCore;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static com.xatkit.test.util.ElementFactory.createBaseEntityDefinitionReference;
+import static java.util.Objects.nonNull;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class DialogFlowStandInServerTest extends AbstractXatkitTest {
+
+    private static String PROJECT_ID = "stand-in-project";
+
+    private static IntentDefinition VALID_INTENT_DEFINITION;
+
+    private static IntentDefinition VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT;
+
+    private static XatkitCore xatkitCore;
+
+    private DialogFlowStandInServer server;
+
+    private DialogFlowApi api;
+
+    private File dataDirectory;
+
+    @BeforeClass
+    public static void setUpBeforeClass() {
+        VALID_INTENT_DEFINITION = IntentFactory.eINSTANCE.createIntentDefinition();
+        VALID_INTENT_DEFINITION.setName("StandInIntent");
+        VALID_INTENT_DEFINITION.getTrainingSentences().add("hello stand-in");
+        VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT = IntentFactory.eINSTANCE.createIntentDefinition();
+        VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT.setName("StandInIntentWithOutContext");
+        VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT.getTrainingSentences().add("I love test");
+        Context outContext = IntentFactory.eINSTANCE.createContext();
+        outContext.setName("StandInContext");
+        ContextParameter contextParameter = IntentFactory.eINSTANCE.createContextParameter();
+        contextParameter.setName("param");
+        contextParameter.setTextFragment("test");
+        contextParameter.setEntity(createBaseEntityDefinitionReference(EntityType.ANY));
+        outContext.getParameters().add(contextParameter);
+        VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT.getOutContexts().add(outContext);
+        xatkitCore = new StubXatkitCore();
+        xatkitCore.getEventDefinitionRegistry().registerEventDefinition(VALID_INTENT_DEFINITION);
+        xatkitCore.getEventDefinitionRegistry().registerEventDefinition(VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT);
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() {
+        if (nonNull(xatkitCore)) {
+            xatkitCore.shutdown();
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        server = new DialogFlowStandInServer(PROJECT_ID, "dialogflow-" + UUID.randomUUID().toString()).start();
+    }
+
+    @After
+    public void tearDown() {
+        if (nonNull(api) && !api.isShutdown()) {
+            api.shutdown();
+        }
+        server.shutdown();
+        if (nonNull(dataDirectory)) {
+            FileUtils.deleteQuietly(dataDirectory);
+        }
+    }
+
+    @Test
+    public void registerIntentDefinitionAndTrain() {
+        api = new DialogFlowApi(xatkitCore, buildConfiguration());
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        api.trainMLEngine();
+        assertThat(server.getIntents()).as("Stand-in agent contains the registered intent")
+                .extracting(Intent::getDisplayName).contains(VALID_INTENT_DEFINITION.getName());
+        assertThat(server.getTrainingCount()).as("Stand-in agent has been trained").isEqualTo(1);
+    }
+
+    @Test
+    public void trainMLEngineAsync() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.TRAINING_ACCEPT_TRAFFIC_KEY, false);
+        api = new DialogFlowApi(xatkitCore, configuration);
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        CompletableFuture<Void> future = api.trainMLEngineAsync();
+        future.join();
+        assertThat(server.getTrainingCount()).as("Stand-in agent has been trained").isEqualTo(1);
+        assertThat(api.isTraining()).as("Agent is not training").isFalse();
+        assertThat(api.isReady()).as("DialogFlowApi is ready").isTrue();
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        RecognizedIntent recognizedIntent = api.getIntent("hello stand-in", session);
+        assertThat(recognizedIntent.getDefinition()).as("Correct intent definition").isEqualTo(VALID_INTENT_DEFINITION);
+    }
+
+    @Test
+    public void trainMLEngineAsyncSkipUnchangedAgent() throws IOException {
+        Configuration configuration = buildSkipUnchangedConfiguration();
+        api = createTrainedApi(configuration);
+        api.shutdown();
+        api = new DialogFlowApi(xatkitCore, configuration);
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        assertThat(api.trainMLEngineAsync()).as("Training skipped").isDone();
+        assertThat(server.getTrainingCount()).as("Stand-in agent has been trained once").isEqualTo(1);
+    }
+
+    @Test
+    public void trainMLEngineAsyncSkipUnchangedAgentModifiedAgent() throws IOException {
+        Configuration configuration = buildSkipUnchangedConfiguration();
+        api = createTrainedApi(configuration);
+        api.shutdown();
+        /*
+         * Use a new stand-in agent with the same fingerprint file to simulate an agent modified outside of Xatkit.
+         */
+        server.shutdown();
+        server = new DialogFlowStandInServer(PROJECT_ID, "dialogflow-" + UUID.randomUUID().toString()).start();
+        configuration.setProperty(DialogFlowApi.ENDPOINT_KEY, server.getEndpoint());
+        api = new DialogFlowApi(xatkitCore, configuration);
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        api.trainMLEngineAsync().join();
+        assertThat(server.getIntents()).as("Stand-in agent contains the registered intent")
+                .extracting(Intent::getDisplayName).contains(VALID_INTENT_DEFINITION.getName());
+        assertThat(server.getTrainingCount()).as("Stand-in agent has been trained").isEqualTo(1);
+    }
+
+    @Test
+    public void trainMLEngineAsyncInjectedError() {
+        api = new DialogFlowApi(xatkitCore, buildConfiguration());
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        server.setErrorRate(1);
+        assertThatExceptionOfType(DialogFlowException.class).isThrownBy(() -> api.trainMLEngineAsync());
+    }
+
+    @Test
+    public void trainMLEngineAsyncFirstTrainingAcceptTraffic() {
+        api = new DialogFlowApi(xatkitCore, buildConfiguration());
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        api.trainMLEngineAsync();
+        /*
+         * The stand-in agent does not contain a previous version of the intent, the input waits for the training.
+         */
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        RecognizedIntent recognizedIntent = api.getIntent("hello stand-in", session);
+        assertThat(recognizedIntent.getDefinition()).as("Correct intent definition").isEqualTo(VALID_INTENT_DEFINITION);
+        assertThat(server.getTrainingCount()).as("Stand-in agent has been trained").isEqualTo(1);
+    }
+
+    @Test
+    public void getIntentRegisteredIntent() {
+        api = createTrainedApi(buildConfiguration());
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        RecognizedIntent recognizedIntent = api.getIntent("Hello stand-in", session);
+        assertThat(recognizedIntent.getDefinition()).as("Correct intent definition").isEqualTo(VALID_INTENT_DEFINITION);
+        assertThat(recognizedIntent.getMatchedInput()).as("Correct matched input").isEqualTo("Hello stand-in");
+    }
+
+    @Test
+    public void getIntentContextParameter() {
+        api = createTrainedApi(buildConfiguration());
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT);
+        api.trainMLEngine();
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        RecognizedIntent recognizedIntent = api.getIntent("I love monkeys", session);
+        assertThat(recognizedIntent.getDefinition()).as("Correct intent definition")
+                .isEqualTo(VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT);
+        assertThat(recognizedIntent.getOutContextInstances()).as("Recognized intent contains one context instance")
+                .hasSize(1);
+        ContextInstance contextInstance = recognizedIntent.getOutContextInstances().get(0);
+        assertThat(contextInstance.getDefinition().getName()).as("Correct context definition")
+                .isEqualTo("StandInContext");
+        assertThat(contextInstance.getValues()).as("Context instance contains one value").hasSize(1);
+        assertThat(contextInstance.getValues().get(0).getValue()).as("Correct context value").isEqualTo("monkeys");
+    }
+
+    @Test
+    public void getIntentUnmatchedInput() {
+        api = createTrainedApi(buildConfiguration());
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        RecognizedIntent recognizedIntent = api.getIntent("something else", session);
+        assertThat(recognizedIntent.getDefinition().getName()).as("Default fallback intent")
+                .isEqualTo("Default_Fallback_Intent");
+    }
+
+    @Test(expected = DialogFlowException.class)
+    public void getIntentInjectedError() {
+        api = createTrainedApi(buildConfiguration());
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        server.setErrorRate(1);
+        api.getIntent("hello stand-in", session);
+    }
+
+    @Test
+    public void getIntentInjectedErrorCircuitBreakerEnabled() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.ENABLE_CIRCUIT_BREAKER_KEY, true);
+        api = createTrainedApi(configuration);
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        server.setErrorRate(1);
+        RecognizedIntent recognizedIntent = api.getIntent("hello stand-in", session);
+        assertThat(recognizedIntent.getDefinition()).as("Intent recognized by the fallback provider")
+                .isEqualTo(VALID_INTENT_DEFINITION);
+        assertThat(api.getFallbackRecognitionCount()).as("Fallback recognition count is 1").isEqualTo(1);
+        assertThat(server.getFailedCallCount()).as("Failed call count is 1").isEqualTo(1);
+    }
+
+    @Test
+    public void getIntentInjectedErrorCircuitBreakerEnabledPendingDefinitions() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.ENABLE_CIRCUIT_BREAKER_KEY, true);
+        api = createTrainedApi(configuration);
+        api.registerIntentDefinition(VALID_INTENT_DEFINITION_WITH_OUT_CONTEXT);
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        server.setErrorRate(1);
+        RecognizedIntent recognizedIntent = api.getIntent("hello stand-in", session);
+        assertThat(recognizedIntent.getDefinition()).as("Intent recognized by the fallback provider")
+                .isEqualTo(VALID_INTENT_DEFINITION);
+        assertThat(server.getFailedCallCount()).as("Pending definitions are not sent").isEqualTo(1);
+    }
+
+    @Test
+    public void getIntentLocalErrorCircuitBreakerEnabled() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.ENABLE_CIRCUIT_BREAKER_KEY, true);
+        api = createTrainedApi(configuration);
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        session.getRuntimeContexts().setContextValue("context", 5, "key", 42);
+        assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> api.getIntent("hello stand-in",
+                session));
+        assertThat(api.getFallbackRecognitionCount()).as("Fallback recognition count is 0").isEqualTo(0);
+        assertThat(api.getCircuitBreaker().getFailureRate()).as("Local error is not recorded").isEqualTo(0);
+    }
+
+    @Test
+    public void getIntentInjectedErrorRetried() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.RPC_MAX_ATTEMPTS_KEY, 3);
+        api = createTrainedApi(configuration);
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        server.setErrorRate(1);
+        assertThatExceptionOfType(DialogFlowException.class).isThrownBy(() -> api.getIntent("hello stand-in",
+                session));
+        assertThat(server.getFailedCallCount()).as("Failed call count is 3").isEqualTo(3);
+    }
+
+    @Test
+    public void getIntentChannelPool() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.CHANNEL_POOL_SIZE_KEY, 3);
+        configuration.addProperty(DialogFlowApi.EXECUTOR_THREADS_KEY, 2);
+        api = createTrainedApi(configuration);
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        for (int i = 0; i < 5; i++) {
+            RecognizedIntent recognizedIntent = api.getIntent("hello stand-in", session);
+            assertThat(recognizedIntent.getDefinition()).as("Correct intent definition")
+                    .isEqualTo(VALID_INTENT_DEFINITION);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructInvalidChannelPoolSize() {
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(DialogFlowApi.CHANNEL_POOL_SIZE_KEY, 0);
+        api = new DialogFlowApi(xatkitCore, configuration);
+    }
+
+    @Test
+    public void getIntentInjectedLatency() {
+        api = createTrainedApi(buildConfiguration());
+        XatkitSession session = api.createSession(UUID.randomUUID().toString());
+        server.setLatency(200, 0);
+        long before = System.currentTimeMillis();
+        api.getIntent("hello stand-in", session);
+        assertThat(System.currentTimeMillis() - before).as("Latency has been injected").isGreaterThanOrEqualTo(200);
+    }
+
+    private DialogFlowApi createTrainedApi(Configuration configuration) {
+        DialogFlowApi dialogFlowApi = new DialogFlowApi(xatkitCore, configuration);
+        dialogFlowApi.registerIntentDefinition(VALID_INTENT_DEFINITION);
+        dialogFlowApi.trainMLEngine();
+        return dialogFlowApi;
+    }
+
+    private Configuration buildSkipUnchangedConfiguration() throws IOException {
+        dataDirectory = Files.createTempDirectory("xatkit-dialogflow").toFile();
+        Configuration configuration = buildConfiguration();
+        configuration.addProperty(RecognitionMonitor.DATA_DIRECTORY_KEY, dataDirectory.getAbsolutePath());
+        configuration.addProperty(DialogFlowApi.SKIP_UNCHANGED_AGENT_KEY, true);
+        return configuration;
+    }
+
+    private Configuration buildConfiguration() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(DialogFlowApi.PROJECT_ID_KEY, PROJECT_ID);
+        configuration.addProperty(DialogFlowApi.LANGUAGE_CODE_KEY, "en-US");
+        configuration.addProperty(DialogFlowApi.ENDPOINT_KEY, server.getEndpoint());
+        return configuration;
+    }
+}
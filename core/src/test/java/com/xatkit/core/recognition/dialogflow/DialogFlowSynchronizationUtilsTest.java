@@ -0,0 +1,133 @@
+package com.xatkit.core.recognition.dialogflow;
+
+import com.google.cloud.dialogflow.v2.Context;
+import com.google.cloud.dialogflow.v2.EntityType;
+import com.google.cloud.dialogflow.v2.Intent;
+import com.xatkit.AbstractXatkitTest;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DialogFlowSynchronizationUtilsTest extends AbstractXatkitTest {
+
+    @Test(expected = NullPointerException.class)
+    public void isUpToDateNullExpectedIntent() {
+        DialogFlowSynchronizationUtils.isUpToDate(null, createIntent("Intent", "hello"));
+    }
+
+    @Test
+    public void isUpToDateSameIntent() {
+        Intent intent = createIntent("Intent", "hello");
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(intent, intent)).as("Same intent is up to date").isTrue();
+    }
+
+    @Test
+    public void isUpToDateIntentWithPlatformFields() {
+        Intent expected = createIntent("Intent", "hello");
+        Intent actual = expected.toBuilder().setName("projects/test/agent/intents/1234").setPriority(500000)
+                .setTrainingPhrases(0, expected.getTrainingPhrases(0).toBuilder().setName("phrase-id")).build();
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Intent with platform fields is " +
+                "up to date").isTrue();
+    }
+
+    @Test
+    public void isUpToDateIntentDifferentContextSession() {
+        Intent expected = createIntent("Intent", "hello").toBuilder()
+                .addInputContextNames("projects/test/agent/sessions/setup/contexts/Context")
+                .addOutputContexts(Context.newBuilder().setName("projects/test/agent/sessions/setup/contexts/Out")
+                        .setLifespanCount(2))
+                .build();
+        Intent actual = createIntent("Intent", "hello").toBuilder()
+                .addInputContextNames("projects/test/agent/sessions/-/contexts/context")
+                .addOutputContexts(Context.newBuilder().setName("projects/test/agent/sessions/-/contexts/out")
+                        .setLifespanCount(2))
+                .build();
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Contexts are compared from " +
+                "their identifier").isTrue();
+    }
+
+    @Test
+    public void isUpToDateIntentDifferentTrainingPhrase() {
+        Intent expected = createIntent("Intent", "hello");
+        Intent actual = createIntent("Intent", "hi");
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Intent with a different " +
+                "training phrase is not up to date").isFalse();
+    }
+
+    @Test
+    public void isUpToDateIntentDifferentLifespan() {
+        Intent expected = createIntent("Intent", "hello").toBuilder().addOutputContexts(Context.newBuilder()
+                .setName("projects/test/agent/sessions/setup/contexts/Out").setLifespanCount(2)).build();
+        Intent actual = createIntent("Intent", "hello").toBuilder().addOutputContexts(Context.newBuilder()
+                .setName("projects/test/agent/sessions/setup/contexts/Out").setLifespanCount(5)).build();
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Intent with a different " +
+                "context lifespan is not up to date").isFalse();
+    }
+
+    @Test
+    public void isUpToDateSameEntityTypeDifferentOrder() {
+        EntityType expected = EntityType.newBuilder().setDisplayName("Entity").setKind(EntityType.Kind.KIND_MAP)
+                .addEntities(EntityType.Entity.newBuilder().setValue("a").addSynonyms("b").addSynonyms("a"))
+                .addEntities(EntityType.Entity.newBuilder().setValue("c").addSynonyms("c"))
+                .build();
+        EntityType actual = EntityType.newBuilder().setName("projects/test/agent/entityTypes/1234")
+                .setDisplayName("Entity").setKind(EntityType.Kind.KIND_MAP)
+                .addEntities(EntityType.Entity.newBuilder().setValue("c").addSynonyms("c"))
+                .addEntities(EntityType.Entity.newBuilder().setValue("a").addSynonyms("a").addSynonyms("b"))
+                .build();
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Entity type with different " +
+                "entity order is up to date").isTrue();
+    }
+
+    @Test
+    public void isUpToDateEntityTypeDifferentSynonyms() {
+        EntityType expected = EntityType.newBuilder().setDisplayName("Entity").setKind(EntityType.Kind.KIND_MAP)
+                .addEntities(EntityType.Entity.newBuilder().setValue("a").addSynonyms("a").addSynonyms("b"))
+                .build();
+        EntityType actual = EntityType.newBuilder().setDisplayName("Entity").setKind(EntityType.Kind.KIND_MAP)
+                .addEntities(EntityType.Entity.newBuilder().setValue("a").addSynonyms("a"))
+                .build();
+        assertThat(DialogFlowSynchronizationUtils.isUpToDate(expected, actual)).as("Entity type with different " +
+                "synonyms is not up to date").isFalse();
+    }
+
+    @Test
+    public void computeFingerprintDifferentOrder() {
+        Intent intent1 = createIntent("Intent1", "hello");
+        Intent intent2 = createIntent("Intent2", "bye");
+        String fingerprint1 = DialogFlowSynchronizationUtils.computeFingerprint("en-US", Arrays.asList(intent1,
+                intent2), Collections.emptyList());
+        String fingerprint2 = DialogFlowSynchronizationUtils.computeFingerprint("en-US", Arrays.asList(intent2,
+                intent1), Collections.emptyList());
+        assertThat(fingerprint1).as("Fingerprint does not depend on the intent order").isEqualTo(fingerprint2);
+    }
+
+    @Test
+    public void computeFingerprintDifferentTrainingPhrase() {
+        String fingerprint1 = DialogFlowSynchronizationUtils.computeFingerprint("en-US",
+                Collections.singletonList(createIntent("Intent", "hello")), Collections.emptyList());
+        String fingerprint2 = DialogFlowSynchronizationUtils.computeFingerprint("en-US",
+                Collections.singletonList(createIntent("Intent", "hi")), Collections.emptyList());
+        assertThat(fingerprint1).as("Fingerprint depends on the training phrases").isNotEqualTo(fingerprint2);
+    }
+
+    @Test
+    public void computeFingerprintDifferentLanguage() {
+        Intent intent = createIntent("Intent", "hello");
+        String fingerprint1 = DialogFlowSynchronizationUtils.computeFingerprint("en-US",
+                Collections.singletonList(intent), Collections.emptyList());
+        String fingerprint2 = DialogFlowSynchronizationUtils.computeFingerprint("fr",
+                Collections.singletonList(intent), Collections.emptyList());
+        assertThat(fingerprint1).as("Fingerprint depends on the language code").isNotEqualTo(fingerprint2);
+    }
+
+    private Intent createIntent(String displayName, String trainingSentence) {
+        return Intent.newBuilder().setDisplayName(displayName)
+                .addTrainingPhrases(Intent.TrainingPhrase.newBuilder().addParts(Intent.TrainingPhrase.Part
+                        .newBuilder().setText(trainingSentence)))
+                .build();
+    }
+}
@@ -0,0 +1,119 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EnglishLexiconSentimentPostProcessorTest extends AbstractXatkitTest {
+
+    private EnglishLexiconSentimentPostProcessor processor;
+
+    @Before
+    public void setUp() {
+        this.processor = new EnglishLexiconSentimentPostProcessor();
+    }
+
+    @Test
+    public void lexiconLoaded() {
+        assertThat(EnglishLexiconSentimentPostProcessor.getLexiconSize()).as("Lexicon is not empty").isGreaterThan(0);
+    }
+
+    @Test
+    public void processPositiveInput() {
+        assertThatSentimentIs("I love this bot", "Very Positive");
+    }
+
+    @Test
+    public void processNegativeInput() {
+        assertThatSentimentIs("This is bad", "Negative");
+    }
+
+    @Test
+    public void processNeutralInput() {
+        assertThatSentimentIs("Hello", "Neutral");
+    }
+
+    @Test
+    public void processNullInput() {
+        RecognizedIntent recognizedIntent = createRecognizedIntent(null);
+        XatkitSession session = new XatkitSession("sessionID");
+        processor.process(recognizedIntent, session);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "sentiment")).as("Neutral sentiment")
+                .isEqualTo("Neutral");
+    }
+
+    @Test
+    public void computeScoreNegation() {
+        float score = EnglishLexiconSentimentPostProcessor.computeCompoundScore("I love this bot");
+        float negatedScore = EnglishLexiconSentimentPostProcessor.computeCompoundScore("I do not love this bot");
+        assertThat(score).as("Positive score").isPositive();
+        assertThat(negatedScore).as("Negated score is negative").isNegative();
+    }
+
+    @Test
+    public void computeScoreContractedNegation() {
+        assertThat(EnglishLexiconSentimentPostProcessor.computeCompoundScore("I don't like it"))
+                .as("Negated score is negative").isNegative();
+    }
+
+    @Test
+    public void computeScoreIntensifier() {
+        float score = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is good");
+        float boostedScore = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is very good");
+        float dampenedScore = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is slightly good");
+        assertThat(boostedScore).as("Boosted score is greater").isGreaterThan(score);
+        assertThat(dampenedScore).as("Dampened score is lower").isLessThan(score);
+    }
+
+    @Test
+    public void computeScoreUpperCase() {
+        float score = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is great");
+        float upperCaseScore = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is GREAT");
+        assertThat(upperCaseScore).as("Upper case score is greater").isGreaterThan(score);
+    }
+
+    @Test
+    public void computeScoreExclamation() {
+        float score = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is great");
+        float exclamationScore = EnglishLexiconSentimentPostProcessor.computeCompoundScore("This is great!!");
+        assertThat(exclamationScore).as("Exclamation score is greater").isGreaterThan(score);
+    }
+
+    @Test
+    public void computeScoreContrast() {
+        assertThat(EnglishLexiconSentimentPostProcessor.computeCompoundScore("The food was good but the service " +
+                "was terrible")).as("Sentiment after the contrast dominates").isNegative();
+    }
+
+    @Test
+    public void computeScoreBounds() {
+        float score = EnglishLexiconSentimentPostProcessor.computeCompoundScore("best best best best great great " +
+                "awesome awesome amazing!!!!");
+        assertThat(score).as("Score is lower than 1").isLessThanOrEqualTo(1f);
+        assertThat(score).as("Very positive score").isGreaterThan(0.9f);
+    }
+
+    private void assertThatSentimentIs(String input, String expectedSentiment) {
+        RecognizedIntent recognizedIntent = createRecognizedIntent(input);
+        XatkitSession session = new XatkitSession("sessionID");
+        RecognizedIntent processedIntent = processor.process(recognizedIntent, session);
+        assertThat(processedIntent).as("Returned intent is the processed one").isEqualTo(recognizedIntent);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "sentiment")).as("Correct sentiment")
+                .isEqualTo(expectedSentiment);
+    }
+
+    private RecognizedIntent createRecognizedIntent(String input) {
+        IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        intentDefinition.setName("SentimentIntent");
+        RecognizedIntent recognizedIntent = IntentFactory.eINSTANCE.createRecognizedIntent();
+        recognizedIntent.setDefinition(intentDefinition);
+        recognizedIntent.setMatchedInput(input);
+        return recognizedIntent;
+    }
+}
@@ -0,0 +1,153 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import fr.inria.atlanmod.commons.log.Log;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A benchmark comparing the cost and the accuracy of the {@link IsEnglishYesNoQuestionPostProcessor} and the
+ * {@link IsEnglishYesNoQuestionShallowPostProcessor}.
+ * <p>
+ * This benchmark processes a labelled corpus of questions and statements with both post-processors, using a
+ * dedicated {@link StanfordNLPService} for each of them (the parse-based processor requires the {@code parse}
+ * annotator, the shallow one only requires the {@code pos} annotator). It reports the average processing time per
+ * input (including the annotation of the input), the accuracy of each processor against the corpus labels, the
+ * agreement between the two processors, and the ratio of inputs decided by the token-based fast path.
+ * <p>
+ * The benchmark accepts the following optional argument: {@code <iterations>}. Default value is {@code 20}.
+ * <p>
+ * <b>Note</b>: this class is not executed as part of the test suite, and requires the Stanford CoreNLP English
+ * models in the classpath.
+ */
+public class IsEnglishYesNoQuestionBenchmark {
+
+    private static final Map<String, Boolean> CORPUS = new LinkedHashMap<>();
+
+    static {
+        CORPUS.put("Is it raining?", true);
+        CORPUS.put("Are you a bot?", true);
+        CORPUS.put("Can you help me?", true);
+        CORPUS.put("Could you book a table for two?", true);
+        CORPUS.put("Do you like pizza?", true);
+        CORPUS.put("Does it work on Android?", true);
+        CORPUS.put("Did they answer my email?", true);
+        CORPUS.put("Have you seen my keys?", true);
+        CORPUS.put("Has the package arrived?", true);
+        CORPUS.put("Will it be sunny tomorrow?", true);
+        CORPUS.put("Should I restart the server?", true);
+        CORPUS.put("Isn't it a bit late?", true);
+        CORPUS.put("Don't you think so?", true);
+        CORPUS.put("Was the meeting cancelled?", true);
+        CORPUS.put("Would you recommend this restaurant?", true);
+        CORPUS.put("May I ask a question?", true);
+        CORPUS.put("Hello. Are you there?", true);
+        CORPUS.put("is this the right place", true);
+        CORPUS.put("Do you have an account", true);
+        CORPUS.put("Can I pay by card", true);
+        CORPUS.put("What time is it?", false);
+        CORPUS.put("Where is the station?", false);
+        CORPUS.put("How are you?", false);
+        CORPUS.put("Why did it fail?", false);
+        CORPUS.put("Which one do you prefer?", false);
+        CORPUS.put("I like this bot.", false);
+        CORPUS.put("The weather is nice today.", false);
+        CORPUS.put("Do your homework.", false);
+        CORPUS.put("Have a nice day!", false);
+        CORPUS.put("Please help me.", false);
+        CORPUS.put("Tell me a joke.", false);
+        CORPUS.put("You can do it!", false);
+        CORPUS.put("Is it raining? I think so.", false);
+        CORPUS.put("Hello there", false);
+        CORPUS.put("Thanks a lot", false);
+        CORPUS.put("Did it.", false);
+        CORPUS.put("I wonder if it works.", false);
+        CORPUS.put("Book a flight to Paris", false);
+        CORPUS.put("Show me the menu", false);
+        CORPUS.put("It is what it is.", false);
+    }
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+
+        StanfordNLPService parseService = new StanfordNLPService(1, 0, 10000);
+        parseService.addAnnotators(Arrays.asList("tokenize", "ssplit", "pos", "parse"));
+        parseService.init();
+        StanfordNLPService shallowService = new StanfordNLPService(1, 0, 10000);
+        shallowService.addAnnotators(Arrays.asList("tokenize", "ssplit", "pos"));
+        shallowService.init();
+
+        IsEnglishYesNoQuestionPostProcessor parseProcessor = new IsEnglishYesNoQuestionPostProcessor();
+        IsEnglishYesNoQuestionShallowPostProcessor shallowProcessor = new IsEnglishYesNoQuestionShallowPostProcessor();
+
+        int parseCorrect = 0;
+        int shallowCorrect = 0;
+        int agreements = 0;
+        int fastPathDecisions = 0;
+        for (Map.Entry<String, Boolean> entry : CORPUS.entrySet()) {
+            String input = entry.getKey();
+            boolean parseResult = process(parseProcessor, parseService.annotateInputLazily(input), input);
+            boolean shallowResult = process(shallowProcessor, shallowService.annotateInputLazily(input), input);
+            if (parseResult == entry.getValue()) {
+                parseCorrect++;
+            }
+            if (shallowResult == entry.getValue()) {
+                shallowCorrect++;
+            }
+            if (parseResult == shallowResult) {
+                agreements++;
+            } else {
+                Log.info("Disagreement on \"{0}\": parse={1}, shallow={2}, expected={3}", input, parseResult,
+                        shallowResult, entry.getValue());
+            }
+            if (IsEnglishYesNoQuestionShallowPostProcessor.isYesNoQuestionFastPath(input)
+                    != IsEnglishYesNoQuestionShallowPostProcessor.UNKNOWN) {
+                fastPathDecisions++;
+            }
+        }
+
+        long parseTime = measure(parseProcessor, parseService, iterations);
+        long shallowTime = measure(shallowProcessor, shallowService, iterations);
+        int processedInputs = iterations * CORPUS.size();
+
+        Log.info("Corpus size: {0} inputs, {1} iterations", CORPUS.size(), iterations);
+        Log.info("Parse-based processor: accuracy {0}/{1}, {2}us/input", parseCorrect, CORPUS.size(),
+                parseTime / 1000 / processedInputs);
+        Log.info("Shallow processor: accuracy {0}/{1}, {2}us/input", shallowCorrect, CORPUS.size(),
+                shallowTime / 1000 / processedInputs);
+        Log.info("Agreement: {0}/{1}, fast path decisions: {2}/{1}", agreements, CORPUS.size(), fastPathDecisions);
+    }
+
+    private static long measure(StanfordNLPPostProcessor processor, StanfordNLPService service, int iterations) {
+        /*
+         * Warm-up the processor and the service before measuring.
+         */
+        for (String input : CORPUS.keySet()) {
+            process(processor, service.annotateInputLazily(input), input);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String input : CORPUS.keySet()) {
+                process(processor, service.annotateInputLazily(input), input);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static boolean process(StanfordNLPPostProcessor processor, StanfordNLPAnnotation annotation,
+                                   String input) {
+        IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        intentDefinition.setName("BenchmarkIntent");
+        RecognizedIntent recognizedIntent = IntentFactory.eINSTANCE.createRecognizedIntent();
+        recognizedIntent.setDefinition(intentDefinition);
+        recognizedIntent.setMatchedInput(input);
+        XatkitSession session = new XatkitSession("benchmark");
+        processor.process(recognizedIntent, session, annotation);
+        return (Boolean) session.getRuntimeContexts().getContextValue("nlp", "isYesNo");
+    }
+}
@@ -0,0 +1,130 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.xatkit.core.recognition.processor.IsEnglishYesNoQuestionShallowPostProcessor.NO;
+import static com.xatkit.core.recognition.processor.IsEnglishYesNoQuestionShallowPostProcessor.UNKNOWN;
+import static com.xatkit.core.recognition.processor.IsEnglishYesNoQuestionShallowPostProcessor.YES;
+import static com.xatkit.core.recognition.processor.IsEnglishYesNoQuestionShallowPostProcessor.isYesNoQuestion;
+import static com.xatkit.core.recognition.processor.IsEnglishYesNoQuestionShallowPostProcessor.isYesNoQuestionFastPath;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IsEnglishYesNoQuestionShallowPostProcessorTest extends AbstractXatkitTest {
+
+    @Test
+    public void fastPathBeQuestion() {
+        assertThat(isYesNoQuestionFastPath("Is it raining?")).as("Yes/no question").isEqualTo(YES);
+    }
+
+    @Test
+    public void fastPathModalQuestion() {
+        assertThat(isYesNoQuestionFastPath("can you help me ?")).as("Yes/no question").isEqualTo(YES);
+    }
+
+    @Test
+    public void fastPathNegativeContraction() {
+        assertThat(isYesNoQuestionFastPath("Isn't it great?")).as("Yes/no question").isEqualTo(YES);
+    }
+
+    @Test
+    public void fastPathWhQuestion() {
+        assertThat(isYesNoQuestionFastPath("What time is it?")).as("Not a yes/no question").isEqualTo(NO);
+    }
+
+    @Test
+    public void fastPathAffirmation() {
+        assertThat(isYesNoQuestionFastPath("I like this bot")).as("Not a yes/no question").isEqualTo(NO);
+    }
+
+    @Test
+    public void fastPathLastSentence() {
+        assertThat(isYesNoQuestionFastPath("Is it raining? I think so.")).as("Last sentence is not a yes/no question")
+                .isEqualTo(NO);
+        assertThat(isYesNoQuestionFastPath("Hello. Are you there?")).as("Last sentence is a yes/no question")
+                .isEqualTo(YES);
+    }
+
+    @Test
+    public void fastPathAmbiguousAuxiliary() {
+        assertThat(isYesNoQuestionFastPath("Do you like it?")).as("POS tags are required").isEqualTo(UNKNOWN);
+        assertThat(isYesNoQuestionFastPath("Is it raining")).as("POS tags are required").isEqualTo(UNKNOWN);
+    }
+
+    @Test
+    public void fastPathStatementPunctuation() {
+        assertThat(isYesNoQuestionFastPath("Did it.")).as("Not a yes/no question").isEqualTo(NO);
+        assertThat(isYesNoQuestionFastPath("Have a nice day!")).as("Not a yes/no question").isEqualTo(NO);
+    }
+
+    @Test
+    public void fastPathEmptyInput() {
+        assertThat(isYesNoQuestionFastPath("  ")).as("Not a yes/no question").isEqualTo(NO);
+    }
+
+    @Test
+    public void posRulesAuxiliarySubject() {
+        assertThat(isYesNoQuestion(tokens("Do", "VBP", "you", "PRP", "like", "VB", "it", "PRP", "?", ".")))
+                .as("Yes/no question").isTrue();
+    }
+
+    @Test
+    public void posRulesNegatedAuxiliarySubject() {
+        assertThat(isYesNoQuestion(tokens("Did", "VBD", "n't", "RB", "they", "PRP", "come", "VB")))
+                .as("Yes/no question").isTrue();
+    }
+
+    @Test
+    public void posRulesImperative() {
+        assertThat(isYesNoQuestion(tokens("Do", "VB", "your", "PRP$", "homework", "NN")))
+                .as("Imperative sentence").isFalse();
+        assertThat(isYesNoQuestion(tokens("Have", "VB", "a", "DT", "nice", "JJ", "day", "NN")))
+                .as("Imperative sentence").isFalse();
+    }
+
+    @Test
+    public void posRulesNoSubject() {
+        assertThat(isYesNoQuestion(tokens("Does", "VBZ", "?", "."))).as("No subject").isFalse();
+    }
+
+    @Test
+    public void processFastPathDoesNotAnnotate() {
+        IsEnglishYesNoQuestionShallowPostProcessor processor = new IsEnglishYesNoQuestionShallowPostProcessor();
+        String input = "Can you help me?";
+        StanfordNLPAnnotation annotation = StanfordNLPAnnotation.lazy(input, Annotation::new);
+        XatkitSession session = new XatkitSession("sessionID");
+        processor.process(createRecognizedIntent(input), session, annotation);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "isYesNo")).as("Yes/no question")
+                .isEqualTo(true);
+        assertThat(annotation.isComputed()).as("Input has not been annotated").isFalse();
+    }
+
+    private List<CoreLabel> tokens(String... wordsAndTags) {
+        List<CoreLabel> tokens = new ArrayList<>();
+        for (int i = 0; i < wordsAndTags.length; i += 2) {
+            CoreLabel token = new CoreLabel();
+            token.setWord(wordsAndTags[i]);
+            token.setTag(wordsAndTags[i + 1]);
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    private RecognizedIntent createRecognizedIntent(String input) {
+        IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        intentDefinition.setName("YesNoIntent");
+        RecognizedIntent recognizedIntent = IntentFactory.eINSTANCE.createRecognizedIntent();
+        recognizedIntent.setDefinition(intentDefinition);
+        recognizedIntent.setMatchedInput(input);
+        return recognizedIntent;
+    }
+}
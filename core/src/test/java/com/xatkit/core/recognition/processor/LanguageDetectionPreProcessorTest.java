@@ -0,0 +1,90 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.session.XatkitSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LanguageDetectionPreProcessorTest extends AbstractXatkitTest {
+
+    private LanguageDetectionPreProcessor processor;
+
+    private XatkitSession session;
+
+    @Before
+    public void setUp() {
+        this.processor = new LanguageDetectionPreProcessor();
+        this.session = new XatkitSession("sessionID");
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullLanguages() {
+        new LanguageDetectionPreProcessor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructEmptyLanguages() {
+        new LanguageDetectionPreProcessor(Collections.emptyList());
+    }
+
+    @Test
+    public void constructDefaultLanguages() {
+        assertThat(processor.getLanguages()).as("Default languages").containsExactly("en", "fr", "es");
+        assertThat(processor.getDefaultLanguage()).as("Default language is the first one").isEqualTo("en");
+    }
+
+    @Test
+    public void constructModelShared() {
+        LanguageDetectionPreProcessor otherProcessor = new LanguageDetectionPreProcessor(Arrays.asList("en", "fr",
+                "es"));
+        assertThat(otherProcessor.getLanguages()).as("Model is loaded once").isSameAs(processor.getLanguages());
+    }
+
+    @Test
+    public void detectLanguageEnglish() {
+        assertThat(processor.detectLanguage("Where is my order?")).as("English input").isEqualTo("en");
+    }
+
+    @Test
+    public void detectLanguageFrench() {
+        assertThat(processor.detectLanguage("Où est ma commande ?")).as("French input").isEqualTo("fr");
+    }
+
+    @Test
+    public void detectLanguageSpanish() {
+        assertThat(processor.detectLanguage("¿Dónde está mi pedido?")).as("Spanish input").isEqualTo("es");
+    }
+
+    @Test
+    public void detectLanguageShortInput() {
+        assertThat(processor.detectLanguage("ok")).as("Short input is not detected").isNull();
+    }
+
+    @Test
+    public void processStoresLanguage() {
+        String result = processor.process("Je voudrais annuler mon abonnement", session);
+        assertThat(result).as("Input is not modified").isEqualTo("Je voudrais annuler mon abonnement");
+        assertThat(session.get(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY))
+                .as("Detected language stored in the session").isEqualTo("fr");
+    }
+
+    @Test
+    public void processUndetectedLanguageNoPreviousLanguage() {
+        processor.process("ok", session);
+        assertThat(session.get(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY))
+                .as("Default language stored in the session").isEqualTo("en");
+    }
+
+    @Test
+    public void processUndetectedLanguageKeepsPreviousLanguage() {
+        processor.process("Quiero cancelar mi suscripción", session);
+        processor.process("ok", session);
+        assertThat(session.get(LanguageDetectionPreProcessor.DETECTED_LANGUAGE_SESSION_KEY))
+                .as("Previous language preserved").isEqualTo("es");
+    }
+}
@@ -0,0 +1,255 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.RecognizedIntent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PostProcessorPipelineTest extends AbstractXatkitTest {
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() {
+        this.executorService = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() {
+        this.executorService.shutdownNow();
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullPostProcessors() {
+        new PostProcessorPipeline(null);
+    }
+
+    @Test
+    public void conflictDefaultKeys() {
+        IntentPostProcessor defaultProcessor = (recognizedIntent, session) -> recognizedIntent;
+        assertThat(PostProcessorPipeline.conflict(defaultProcessor, new EnglishLexiconSentimentPostProcessor()))
+                .as("Processor without declared keys conflicts").isTrue();
+    }
+
+    @Test
+    public void conflictDisjointKeys() {
+        assertThat(PostProcessorPipeline.conflict(new RemoveEnglishStopWordsPostProcessor(),
+                new EnglishLexiconSentimentPostProcessor())).as("Disjoint processors do not conflict").isFalse();
+        assertThat(PostProcessorPipeline.conflict(new ContextProcessor("nlp", "a"), new ContextProcessor("nlp", "b")))
+                .as("Processors writing different context parameters do not conflict").isFalse();
+    }
+
+    @Test
+    public void conflictSameKey() {
+        assertThat(PostProcessorPipeline.conflict(new ContextProcessor("nlp", "a"), new ContextProcessor("nlp", "a")))
+                .as("Processors writing the same context parameter conflict").isTrue();
+    }
+
+    @Test
+    public void conflictParentKey() {
+        IntentPostProcessor contextWriter = new ContextProcessor("nlp", "a") {
+            @Override
+            public Set<String> getWrittenKeys() {
+                return Collections.singleton(IntentPostProcessor.CONTEXT_KEY_PREFIX + ".nlp");
+            }
+        };
+        assertThat(PostProcessorPipeline.conflict(contextWriter, new ContextProcessor("nlp", "b")))
+                .as("Processor writing the whole context conflicts").isTrue();
+    }
+
+    @Test
+    public void getStagesSequential() {
+        List<IntentPostProcessor> postProcessors = Arrays.asList(new ContextProcessor("nlp", "a"),
+                new ContextProcessor("nlp", "b"));
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(postProcessors);
+        assertThat(pipeline.isParallel()).as("Pipeline is sequential").isFalse();
+        assertThat(pipeline.getStages()).as("Single stage").hasSize(1);
+        assertThat(pipeline.getStages().get(0)).as("Stage contains all the processors")
+                .containsExactlyElementsOf(postProcessors);
+    }
+
+    @Test
+    public void getStagesParallel() {
+        IntentPostProcessor a = new ContextProcessor("nlp", "a");
+        IntentPostProcessor b = new ContextProcessor("nlp", "b");
+        IntentPostProcessor defaultProcessor = (recognizedIntent, session) -> recognizedIntent;
+        IntentPostProcessor c = new ContextProcessor("nlp", "c");
+        IntentPostProcessor a2 = new ContextProcessor("nlp", "a");
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(a, b, defaultProcessor, c, a2),
+                executorService);
+        assertThat(pipeline.isParallel()).as("Pipeline is parallel").isTrue();
+        assertThat(pipeline.getStages()).as("Correct stages").containsExactly(Arrays.asList(a, b),
+                Collections.singletonList(defaultProcessor), Arrays.asList(c, a2));
+    }
+
+    @Test
+    public void processParallel() {
+        CountDownLatch latch = new CountDownLatch(2);
+        IntentPostProcessor a = new ContextProcessor("nlp", "a", latch);
+        IntentPostProcessor b = new ContextProcessor("nlp", "b", latch);
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(a, b), executorService);
+        XatkitSession session = new XatkitSession("sessionID");
+        RecognizedIntent recognizedIntent = createRecognizedIntent();
+        RecognizedIntent result = pipeline.process(recognizedIntent, session);
+        assertThat(result).as("Returned intent is the processed one").isEqualTo(recognizedIntent);
+        /*
+         * The processors wait for each other, the latch is released only if they are executed concurrently.
+         */
+        assertThat(latch.getCount()).as("Processors executed concurrently").isEqualTo(0);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "a")).as("Context value a is set")
+                .isEqualTo(true);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "b")).as("Context value b is set")
+                .isEqualTo(true);
+    }
+
+    @Test
+    public void processParallelDeterministicUpdates() {
+        CountDownLatch secondProcessorDone = new CountDownLatch(1);
+        IntentPostProcessor first = new ContextProcessor("nlp", "first") {
+            @Override
+            public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+                await(secondProcessorDone);
+                session.storeList("order", "first");
+                return super.process(recognizedIntent, session);
+            }
+        };
+        IntentPostProcessor second = new ContextProcessor("nlp", "second") {
+            @Override
+            public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+                session.storeList("order", "second");
+                secondProcessorDone.countDown();
+                return super.process(recognizedIntent, session);
+            }
+        };
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(first, second), executorService);
+        XatkitSession session = new XatkitSession("sessionID");
+        pipeline.process(createRecognizedIntent(), session);
+        assertThat((List<Object>) session.get("order")).as("Updates applied in declaration order")
+                .containsExactly("first", "second");
+    }
+
+    @Test
+    public void processParallelStagedUpdatesVisible() {
+        IntentPostProcessor a = new ContextProcessor("nlp", "a");
+        IntentPostProcessor b = new ContextProcessor("nlp", "b") {
+            @Override
+            public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+                session.getRuntimeContexts().setContextValue("nlp", 1, "b", "staged");
+                session.store("b", "stored");
+                assertThat(session.getRuntimeContexts().getContextValue("nlp", "b")).as("Staged context value is " +
+                        "visible").isEqualTo("staged");
+                assertThat(session.getRuntimeContexts().getContextValue("nlp", "a")).as("Context value staged by " +
+                        "another processor is not visible").isNull();
+                assertThat(session.get("b")).as("Staged session value is visible").isEqualTo("stored");
+                return recognizedIntent;
+            }
+        };
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(a, b), executorService);
+        XatkitSession session = new XatkitSession("sessionID");
+        pipeline.process(createRecognizedIntent(), session);
+        assertThat(session.getRuntimeContexts().getContextValue("nlp", "b")).as("Staged value is applied")
+                .isEqualTo("staged");
+        assertThat(session.get("b")).as("Staged session value is applied").isEqualTo("stored");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void processParallelInvalidLifespanCount() {
+        IntentPostProcessor a = new ContextProcessor("nlp", "a");
+        IntentPostProcessor b = new ContextProcessor("nlp", "b") {
+            @Override
+            public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+                session.getRuntimeContexts().setContextValue("nlp", 0, "b", "staged");
+                return recognizedIntent;
+            }
+        };
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(a, b), executorService);
+        pipeline.process(createRecognizedIntent(), new XatkitSession("sessionID"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void processParallelProcessorError() {
+        IntentPostProcessor a = new ContextProcessor("nlp", "a");
+        IntentPostProcessor b = new ContextProcessor("nlp", "b") {
+            @Override
+            public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+                throw new IllegalStateException("Processor error");
+            }
+        };
+        PostProcessorPipeline pipeline = new PostProcessorPipeline(Arrays.asList(a, b), executorService);
+        pipeline.process(createRecognizedIntent(), new XatkitSession("sessionID"));
+    }
+
+    private RecognizedIntent createRecognizedIntent() {
+        IntentDefinition intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        intentDefinition.setName("PipelineIntent");
+        RecognizedIntent recognizedIntent = IntentFactory.eINSTANCE.createRecognizedIntent();
+        recognizedIntent.setDefinition(intentDefinition);
+        recognizedIntent.setMatchedInput("Hello");
+        return recognizedIntent;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).as("Latch released").isTrue();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * A test post-processor setting a boolean context parameter.
+     */
+    private static class ContextProcessor implements IntentPostProcessor {
+
+        private String context;
+
+        private String parameter;
+
+        private CountDownLatch latch;
+
+        private ContextProcessor(String context, String parameter) {
+            this(context, parameter, null);
+        }
+
+        private ContextProcessor(String context, String parameter, CountDownLatch latch) {
+            this.context = context;
+            this.parameter = parameter;
+            this.latch = latch;
+        }
+
+        @Override
+        public RecognizedIntent process(RecognizedIntent recognizedIntent, XatkitSession session) {
+            if (latch != null) {
+                latch.countDown();
+                await(latch);
+            }
+            session.getRuntimeContexts().setContextValue(context, 1, parameter, true);
+            return recognizedIntent;
+        }
+
+        @Override
+        public Set<String> getReadKeys() {
+            return Collections.singleton(MATCHED_INPUT_KEY);
+        }
+
+        @Override
+        public Set<String> getWrittenKeys() {
+            return Collections.singleton(IntentPostProcessor.contextKey(context, parameter));
+        }
+    }
+}
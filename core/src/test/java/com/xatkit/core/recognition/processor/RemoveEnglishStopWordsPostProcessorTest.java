@@ -29,7 +29,42 @@ public class RemoveEnglishStopWordsPostProcessorTest extends AbstractXatkitTest
     @Test
     public void constructValid() {
         processor = new RemoveEnglishStopWordsPostProcessor();
-        assertThat(processor.getStopWordsList()).as("Stop words list is not empty").isNotEmpty();
+        assertThat(processor.getStopWords().size()).as("Stop words list is not empty").isPositive();
+    }
+
+    @Test
+    public void constructStopWordsShared() {
+        processor = new RemoveEnglishStopWordsPostProcessor();
+        RemoveEnglishStopWordsPostProcessor otherProcessor = new RemoveEnglishStopWordsPostProcessor();
+        assertThat(otherProcessor.getStopWords()).as("Stop words are loaded once").isSameAs(processor.getStopWords());
+    }
+
+    @Test
+    public void removeStopWordsNoStopWord() {
+        processor = new RemoveEnglishStopWordsPostProcessor();
+        String value = "Xatkit  chatbot";
+        assertThat(processor.removeStopWords(value)).as("Value is returned as is").isSameAs(value);
+    }
+
+    @Test
+    public void removeStopWordsMultipleStopWords() {
+        processor = new RemoveEnglishStopWordsPostProcessor();
+        assertThat(processor.removeStopWords("the chatbot of the platform")).as("Stop words are removed")
+                .isEqualTo("chatbot platform");
+    }
+
+    @Test
+    public void removeStopWordsUpperCaseStopWord() {
+        processor = new RemoveEnglishStopWordsPostProcessor();
+        String value = "The Chatbot";
+        assertThat(processor.removeStopWords(value)).as("Stop words are case-sensitive").isSameAs(value);
+    }
+
+    @Test
+    public void removeStopWordsSpaceSeparator() {
+        processor = new RemoveEnglishStopWordsPostProcessor();
+        assertThat(processor.removeStopWords(" xatkit\tthe chatbot for the  platform ")).as("Values are split on " +
+                "spaces").isEqualTo(" xatkit\tthe chatbot  platform");
     }
 
     @Test
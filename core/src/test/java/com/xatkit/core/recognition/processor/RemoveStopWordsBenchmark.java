@@ -0,0 +1,123 @@
+package com.xatkit.core.recognition.processor;
+
+import fr.inria.atlanmod.commons.log.Log;
+import org.apache.commons.io.IOUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A benchmark comparing the cost of the {@link RemoveStopWordsPostProcessor} stop word removal with the previous
+ * {@link List}-based implementation.
+ * <p>
+ * The previous implementation split the processed values into arrays and lists of {@link String}s, and checked
+ * each token against a {@link List} of stop words. This benchmark processes a set of typical {@code any} entity
+ * values with both implementations, checks that they produce the same results, and reports the average processing
+ * time per value.
+ * <p>
+ * The benchmark accepts the following optional argument: {@code <iterations>}. Default value is {@code 100000}.
+ * <p>
+ * <b>Note</b>: this class is not executed as part of the test suite.
+ */
+public class RemoveStopWordsBenchmark {
+
+    private static final String[] VALUES = new String[]{
+            "Barcelona",
+            "a table for two",
+            "the new album of the band",
+            "my order number",
+            "an appointment with the doctor tomorrow morning",
+            "pizza with extra cheese and some olives",
+            "Xatkit",
+            "the weather in the south of France",
+            "book a flight to New York for next week",
+            "it"
+    };
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        RemoveEnglishStopWordsPostProcessor processor = new RemoveEnglishStopWordsPostProcessor();
+        List<String> stopWordsList = loadStopWordsList();
+
+        for (String value : VALUES) {
+            String result = processor.removeStopWords(value);
+            String legacyResult = removeStopWordsLegacy(value, stopWordsList);
+            if (!result.equals(legacyResult)) {
+                Log.info("Different results for \"{0}\": \"{1}\" (legacy: \"{2}\")", value, result, legacyResult);
+            }
+        }
+
+        long legacyTime = measureLegacy(stopWordsList, iterations);
+        long time = measure(processor, iterations);
+        int processedValues = iterations * VALUES.length;
+
+        Log.info("{0} values, {1} iterations", VALUES.length, iterations);
+        Log.info("List-based implementation: {0}ns/value", legacyTime / processedValues);
+        Log.info("Token table implementation: {0}ns/value", time / processedValues);
+    }
+
+    private static long measure(RemoveStopWordsPostProcessor processor, int iterations) {
+        int checksum = 0;
+        /*
+         * Warm-up the implementation before measuring.
+         */
+        for (int i = 0; i < iterations / 10; i++) {
+            for (String value : VALUES) {
+                checksum += processor.removeStopWords(value).length();
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String value : VALUES) {
+                checksum += processor.removeStopWords(value).length();
+            }
+        }
+        long time = System.nanoTime() - start;
+        Log.debug("Checksum: {0}", checksum);
+        return time;
+    }
+
+    private static long measureLegacy(List<String> stopWordsList, int iterations) {
+        int checksum = 0;
+        for (int i = 0; i < iterations / 10; i++) {
+            for (String value : VALUES) {
+                checksum += removeStopWordsLegacy(value, stopWordsList).length();
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (String value : VALUES) {
+                checksum += removeStopWordsLegacy(value, stopWordsList).length();
+            }
+        }
+        long time = System.nanoTime() - start;
+        Log.debug("Checksum: {0}", checksum);
+        return time;
+    }
+
+    private static List<String> loadStopWordsList() throws IOException {
+        try (InputStream inputStream =
+                     RemoveStopWordsBenchmark.class.getClassLoader().getResourceAsStream("en-stopwords.txt")) {
+            String stopWords = IOUtils.toString(inputStream, StandardCharsets.UTF_8);
+            return Arrays.asList(stopWords.split(","));
+        }
+    }
+
+    /**
+     * The previous implementation of {@link RemoveStopWordsPostProcessor#removeStopWords(String)}.
+     */
+    private static String removeStopWordsLegacy(String from, List<String> stopWordsList) {
+        List<String> splitFrom = Arrays.stream(from.split(" ")).collect(Collectors.toList());
+        splitFrom.removeAll(stopWordsList);
+        String result = String.join(" ", splitFrom);
+        if (result.isEmpty()) {
+            return from;
+        }
+        return result;
+    }
+}
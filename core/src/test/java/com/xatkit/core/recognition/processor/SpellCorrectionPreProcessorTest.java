@@ -0,0 +1,143 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.recognition.regex.RegExIntentRecognitionProvider;
+import com.xatkit.core.session.XatkitSession;
+import com.xatkit.intent.IntentDefinition;
+import com.xatkit.intent.IntentFactory;
+import com.xatkit.intent.MappingEntityDefinition;
+import com.xatkit.intent.RecognizedIntent;
+import com.xatkit.test.util.ElementFactory;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpellCorrectionPreProcessorTest extends AbstractXatkitTest {
+
+    private SpellCorrectionPreProcessor processor;
+
+    private IntentDefinition intentDefinition;
+
+    private XatkitSession session;
+
+    @Before
+    public void setUp() {
+        this.processor = new SpellCorrectionPreProcessor();
+        this.intentDefinition = IntentFactory.eINSTANCE.createIntentDefinition();
+        this.intentDefinition.setName("BookRestaurant");
+        this.intentDefinition.getTrainingSentences().add("I would like to book a restaurant");
+        this.intentDefinition.getTrainingSentences().add("Please reserve a table");
+        this.session = new XatkitSession("sessionID");
+    }
+
+    @Test
+    public void processEmptyVocabulary() {
+        String input = "I would lkie to book a restuarant";
+        assertThat(processor.process(input, session)).as("Input not modified").isSameAs(input);
+    }
+
+    @Test
+    public void intentDefinitionRegistered() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.getVocabularySize()).as("Vocabulary contains the training sentence words")
+                .isEqualTo(10);
+    }
+
+    @Test
+    public void intentDefinitionRegisteredTwice() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.getVocabularySize()).as("Vocabulary not duplicated").isEqualTo(10);
+    }
+
+    @Test
+    public void intentDefinitionDeleted() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        processor.intentDefinitionDeleted(intentDefinition);
+        assertThat(processor.getVocabularySize()).as("Vocabulary is empty").isEqualTo(0);
+        assertThat(processor.correct("restuarant")).as("Deleted word not suggested").isNull();
+    }
+
+    @Test
+    public void entityDefinitionRegistered() {
+        MappingEntityDefinition entityDefinition = ElementFactory.createMappingEntityDefinition();
+        processor.entityDefinitionRegistered(entityDefinition);
+        assertThat(processor.correct("peopel")).as("Synonym suggested").isEqualTo("people");
+    }
+
+    @Test
+    public void correctKnownWord() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.correct("table")).as("Known word not corrected").isNull();
+    }
+
+    @Test
+    public void correctShortWord() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.correct("boo")).as("Short word not corrected").isNull();
+    }
+
+    @Test
+    public void correctTransposition() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.correct("tabel")).as("Transposition corrected").isEqualTo("table");
+    }
+
+    @Test
+    public void correctTwoEditsLongWord() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.correct("restorant")).as("Long word corrected with two edits").isEqualTo("restaurant");
+    }
+
+    @Test
+    public void correctTwoEditsShortWord() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.correct("tbalx")).as("Short word not corrected with two edits").isNull();
+    }
+
+    @Test
+    public void processMisspelledInput() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.process("I would lkie to book a restuarant!", session)).as("Input corrected")
+                .isEqualTo("I would like to book a restaurant!");
+    }
+
+    @Test
+    public void processPreservesCase() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        assertThat(processor.process("Plaese RESERV a table", session)).as("Case preserved")
+                .isEqualTo("Please RESERVE a table");
+    }
+
+    @Test
+    public void processNoMisspelledWord() {
+        processor.intentDefinitionRegistered(intentDefinition);
+        String input = "Please reserve a table for 4 people";
+        assertThat(processor.process(input, session)).as("Input not modified").isSameAs(input);
+    }
+
+    @Test
+    public void distance() {
+        assertThat(SpellCorrectionPreProcessor.distance("table", "tabel", 2)).as("Transposition distance")
+                .isEqualTo(1);
+        assertThat(SpellCorrectionPreProcessor.distance("kitten", "sitting", 3)).as("Levenshtein distance")
+                .isEqualTo(3);
+        assertThat(SpellCorrectionPreProcessor.distance("kitten", "sitting", 2)).as("Distance is bounded")
+                .isEqualTo(3);
+    }
+
+    @Test
+    public void registeredInProvider() {
+        RegExIntentRecognitionProvider provider = new RegExIntentRecognitionProvider(new BaseConfiguration());
+        provider.setPreProcessors(Collections.singletonList(processor));
+        provider.registerIntentDefinition(intentDefinition);
+        RecognizedIntent recognizedIntent = provider.getIntent("I would like to book a restuarant",
+                provider.createSession("sessionID"));
+        assertThat(recognizedIntent.getDefinition()).as("Misspelled input matched").isEqualTo(intentDefinition);
+        provider.shutdown();
+    }
+}
@@ -0,0 +1,84 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.util.CoreMap;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+public class StanfordNLPAnnotationTest extends AbstractXatkitTest {
+
+    private static String INPUT = "Hello. How are you?";
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullInput() {
+        new StanfordNLPAnnotation(null, new Annotation(INPUT));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void constructNullAnnotation() {
+        new StanfordNLPAnnotation(INPUT, null);
+    }
+
+    @Test
+    public void getSentencesNoSentence() {
+        StanfordNLPAnnotation annotation = new StanfordNLPAnnotation(INPUT, new Annotation(INPUT));
+        assertThat(annotation.getInput()).as("Correct input").isEqualTo(INPUT);
+        assertThat(annotation.getSentences()).as("Empty sentence list").isEmpty();
+        assertThat(annotation.getLastSentence()).as("No last sentence").isNull();
+    }
+
+    @Test
+    public void getSentences() {
+        Annotation rawAnnotation = new Annotation(INPUT);
+        CoreMap firstSentence = new Annotation("Hello.");
+        CoreMap lastSentence = new Annotation("How are you?");
+        rawAnnotation.set(CoreAnnotations.SentencesAnnotation.class, Arrays.asList(firstSentence, lastSentence));
+        StanfordNLPAnnotation annotation = new StanfordNLPAnnotation(INPUT, rawAnnotation);
+        assertThat(annotation.getSentences()).as("Correct sentences").containsExactly(firstSentence, lastSentence);
+        assertThat(annotation.getLastSentence()).as("Correct last sentence").isEqualTo(lastSentence);
+        assertThat(annotation.get(CoreAnnotations.TextAnnotation.class)).as("Correct text annotation")
+                .isEqualTo(INPUT);
+    }
+
+    @Test
+    public void lazyAnnotationNotAccessed() {
+        AtomicInteger annotationCount = new AtomicInteger();
+        StanfordNLPAnnotation annotation = StanfordNLPAnnotation.lazy(INPUT, input -> {
+            annotationCount.incrementAndGet();
+            return new Annotation(input);
+        });
+        assertThat(annotation.isComputed()).as("Annotation is not computed").isFalse();
+        assertThat(annotation.getInput()).as("Correct input").isEqualTo(INPUT);
+        assertThat(annotationCount.get()).as("Annotator has not been called").isEqualTo(0);
+    }
+
+    @Test
+    public void lazyAnnotationAccessedTwice() {
+        AtomicInteger annotationCount = new AtomicInteger();
+        StanfordNLPAnnotation annotation = StanfordNLPAnnotation.lazy(INPUT, input -> {
+            annotationCount.incrementAndGet();
+            return new Annotation(input);
+        });
+        annotation.getSentences();
+        annotation.get(CoreAnnotations.TextAnnotation.class);
+        assertThat(annotation.isComputed()).as("Annotation is computed").isTrue();
+        assertThat(annotationCount.get()).as("Annotator has been called once").isEqualTo(1);
+    }
+
+    @Test
+    public void getSentencesUnmodifiable() {
+        Annotation rawAnnotation = new Annotation(INPUT);
+        rawAnnotation.set(CoreAnnotations.SentencesAnnotation.class, Arrays.asList(new Annotation(INPUT)));
+        StanfordNLPAnnotation annotation = new StanfordNLPAnnotation(INPUT, rawAnnotation);
+        List<CoreMap> sentences = annotation.getSentences();
+        assertThatExceptionOfType(UnsupportedOperationException.class).isThrownBy(() -> sentences.clear());
+    }
+}
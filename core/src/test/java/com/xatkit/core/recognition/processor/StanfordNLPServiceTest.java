@@ -0,0 +1,98 @@
+package com.xatkit.core.recognition.processor;
+
+import com.xatkit.AbstractXatkitTest;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.pipeline.Annotation;
+import org.apache.commons.configuration2.BaseConfiguration;
+import org.apache.commons.configuration2.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StanfordNLPServiceTest extends AbstractXatkitTest {
+
+    private StanfordNLPService service;
+
+    @Before
+    public void setUp() {
+        /*
+         * Use annotators that do not require additional models.
+         */
+        service = new StanfordNLPService(2, 10, 10000);
+        service.addAnnotators(Arrays.asList("tokenize", "ssplit"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructInvalidPoolSize() {
+        new StanfordNLPService(0, 10, 10000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructNegativeMaxWaiting() {
+        new StanfordNLPService(1, -1, 10000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void configureInvalidPoolSize() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(StanfordNLPService.POOL_SIZE_KEY, 0);
+        service.configure(configuration);
+    }
+
+    @Test
+    public void configurePoolSize() {
+        Configuration configuration = new BaseConfiguration();
+        configuration.addProperty(StanfordNLPService.POOL_SIZE_KEY, 3);
+        service.configure(configuration);
+        assertThat(service.getPoolSize()).as("Correct pool size").isEqualTo(3);
+    }
+
+    @Test
+    public void init() {
+        service.init();
+        assertThat(service.getAvailablePipelineCount()).as("All the pipelines are available").isEqualTo(2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addAnnotatorAfterInit() {
+        service.init();
+        service.addAnnotator("pos");
+    }
+
+    @Test
+    public void annotate() {
+        service.init();
+        Annotation annotation = service.annotate("Hello. How are you?");
+        assertThat(annotation.get(CoreAnnotations.SentencesAnnotation.class)).as("Input contains 2 sentences")
+                .hasSize(2);
+        assertThat(service.getAvailablePipelineCount()).as("The pipeline has been released").isEqualTo(2);
+    }
+
+    @Test
+    public void annotateConcurrentInputs() throws InterruptedException, ExecutionException {
+        service.init();
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<StanfordNLPAnnotation>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                String input = "Input " + i + ". Second sentence.";
+                futures.add(executorService.submit(() -> service.annotateInput(input)));
+            }
+            for (Future<StanfordNLPAnnotation> future : futures) {
+                assertThat(future.get().getSentences()).as("Input contains 2 sentences").hasSize(2);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        assertThat(service.getAvailablePipelineCount()).as("All the pipelines have been released").isEqualTo(2);
+    }
+}
@@ -1,6 +1,8 @@
 package com.xatkit.core.recognition.regex;
 
 import com.xatkit.AbstractXatkitTest;
+import com.xatkit.core.recognition.processor.InputPreProcessor;
+import com.xatkit.core.recognition.processor.PostProcessorPipeline;
 import com.xatkit.core.session.RuntimeContexts;
 import com.xatkit.core.session.XatkitSession;
 import com.xatkit.intent.CompositeEntityDefinition;
@@ -23,6 +25,10 @@ import org.junit.BeforeClass;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 public class RegExIntentRecognitionProviderTest extends AbstractXatkitTest {
@@ -276,6 +282,18 @@ public class RegExIntentRecognitionProviderTest extends AbstractXatkitTest {
         assertThat(recognizedIntent.getRecognitionConfidence()).as("Correct confidence level").isEqualTo(1);
     }
 
+    @Test
+    public void getIntentChainedPreProcessors() {
+        provider.registerIntentDefinition(VALID_INTENT_DEFINITION_NO_OUT_CONTEXT);
+        InputPreProcessor first = (input, session) -> input + " is";
+        InputPreProcessor second = (input, session) -> input + " a test";
+        provider.setPreProcessors(Arrays.asList(first, second));
+        RecognizedIntent recognizedIntent = provider.getIntent("this", new XatkitSession("sessionID"));
+        assertThat(recognizedIntent.getDefinition()).as("Input processed by both pre-processors")
+                .isEqualTo(VALID_INTENT_DEFINITION_NO_OUT_CONTEXT);
+        assertThat(recognizedIntent.getMatchedInput()).as("Correct matched input").isEqualTo("this is a test");
+    }
+
     @Test
     public void getIntentValidIntentDefinitionNoOutContextUpperCase() {
         provider.registerIntentDefinition(VALID_INTENT_DEFINITION_NO_OUT_CONTEXT);
@@ -407,6 +425,25 @@ public class RegExIntentRecognitionProviderTest extends AbstractXatkitTest {
         assertThat(provider.isShutdown()).as("Provider is shutdown").isTrue();
     }
 
+    @Test
+    public void shutdownParallelPostProcessors() {
+        ExecutorService executorService = PostProcessorPipeline.createExecutor(2);
+        provider.setPostProcessors(Collections.emptyList(), executorService);
+        provider.shutdown();
+        assertThat(provider.isShutdown()).as("Provider is shutdown").isTrue();
+        assertThat(executorService.isShutdown()).as("Post-processor executor is shutdown").isTrue();
+    }
+
+    @Test
+    public void setPostProcessorsReplaceExecutor() {
+        ExecutorService executorService = PostProcessorPipeline.createExecutor(2);
+        provider.setPostProcessors(Collections.emptyList(), executorService);
+        provider.setPostProcessors(Collections.emptyList(), executorService);
+        assertThat(executorService.isShutdown()).as("Same post-processor executor is not shutdown").isFalse();
+        provider.setPostProcessors(Collections.emptyList());
+        assertThat(executorService.isShutdown()).as("Replaced post-processor executor is shutdown").isTrue();
+    }
+
     @Test
     public void isShutdownNotShutdown() {
         assertThat(provider.isShutdown()).as("Provider is not shutdown").isFalse();